@@ -0,0 +1,41 @@
+/*
+Copyright (C) 2023 e:fs TechHub GmbH (sdk@efs-techhub.com)
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+        http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+ */
+package com.efs.sdk.metadata;
+
+import com.efs.sdk.metadata.clients.OrganizationManagerClient;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import static com.efs.sdk.metadata.clients.OrganizationManagerClient.SPACE_PERMISSIONS_CACHE;
+
+@Configuration
+public class CacheConfiguration {
+
+    /**
+     * Creates the cache-manager, which makes the caches (and their statistics) available via actuator.
+     *
+     * @param permissionCacheSize maximum number of cached space-permissions
+     * @return the cache-manager
+     */
+    @Bean
+    public CaffeineCacheManager cacheManager(@Value("${metadata.permission-cache.maximum-size:10000}") long permissionCacheSize) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        cacheManager.registerCustomCache(SPACE_PERMISSIONS_CACHE, OrganizationManagerClient.newPermissionCache(permissionCacheSize));
+        return cacheManager;
+    }
+}
@@ -0,0 +1,111 @@
+/*
+Copyright (C) 2023 e:fs TechHub GmbH (sdk@efs-techhub.com)
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+        http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+ */
+package com.efs.sdk.metadata;
+
+import com.efs.sdk.metadata.core.AuthService;
+import com.efs.sdk.metadata.core.metadata.MeasurementIngestListener;
+import com.efs.sdk.metadata.core.metadata.MetadataService;
+import com.efs.sdk.metadata.helper.EntityConverter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.MicrometerConsumerListener;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.util.backoff.ExponentialBackOff;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+@Configuration
+@ConditionalOnProperty(name = "metadata.ingest.enabled", havingValue = "true")
+public class IngestConfiguration {
+
+    /**
+     * Creates the container-factory of the ingest-listener: batches of up to <code>metadata.ingest.max-poll-records</code>, offsets committed by the
+     * listener only, and records failing temporarily retried (from the first one failing) with exponential backoff - without limit, so no record is
+     * skipped.
+     *
+     * @param kafkaProperties  The (common) Kafka-properties (<code>spring.kafka.*</code>)
+     * @param meterRegistry    The MeterRegistry (for the metrics of the consumer, e.g. <code>kafka.consumer.fetch.manager.records.lag</code>)
+     * @param concurrency      The number of consumers per replica
+     * @param maxPollRecords   The maximum number of records per poll (i.e. per _bulk-request)
+     * @param fetchMinSize     The minimum amount of data the broker returns for a fetch (waiting up to <code>fetchMaxWait</code>)
+     * @param fetchMaxWait     The maximum time the broker waits for <code>fetchMinSize</code>
+     * @param maxPollInterval  The maximum time between two polls, before the consumer is considered failed
+     * @param maxBackoff       The maximum time between two attempts of indexing failed records
+     * @return the container-factory
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, String> ingestListenerContainerFactory(KafkaProperties kafkaProperties,
+            MeterRegistry meterRegistry, @Value("${metadata.ingest.concurrency:1}") int concurrency,
+            @Value("${metadata.ingest.max-poll-records:500}") int maxPollRecords, @Value("${metadata.ingest.fetch-min-size:64KB}") DataSize fetchMinSize,
+            @Value("${metadata.ingest.fetch-max-wait:500ms}") Duration fetchMaxWait, @Value("${metadata.ingest.max-poll-interval:5m}") Duration maxPollInterval,
+            @Value("${metadata.ingest.max-backoff:30s}") Duration maxBackoff) {
+        Map<String, Object> properties = kafkaProperties.buildConsumerProperties();
+        properties.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        properties.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        properties.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, maxPollRecords);
+        properties.put(ConsumerConfig.FETCH_MIN_BYTES_CONFIG, (int) fetchMinSize.toBytes());
+        properties.put(ConsumerConfig.FETCH_MAX_WAIT_MS_CONFIG, (int) fetchMaxWait.toMillis());
+        properties.put(ConsumerConfig.MAX_POLL_INTERVAL_MS_CONFIG, (int) maxPollInterval.toMillis());
+        DefaultKafkaConsumerFactory<String, String> consumerFactory = new DefaultKafkaConsumerFactory<>(properties, new StringDeserializer(),
+                new StringDeserializer());
+        consumerFactory.addListener(new MicrometerConsumerListener<>(meterRegistry));
+
+        ExponentialBackOff backOff = new ExponentialBackOff(500, 2);
+        backOff.setMaxInterval(maxBackoff.toMillis());
+
+        ConcurrentKafkaListenerContainerFactory<String, String> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(consumerFactory);
+        factory.setBatchListener(true);
+        factory.setConcurrency(Math.max(1, concurrency));
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+        factory.setCommonErrorHandler(new DefaultErrorHandler(backOff));
+        return factory;
+    }
+
+    /**
+     * Creates the listener, which indexes the measurements read from the ingest-topic.
+     *
+     * @param metadataService The MetadataService
+     * @param authService     The AuthService
+     * @param converter       The EntityConverter
+     * @param meterRegistry   The MeterRegistry
+     * @param allowedSpaces   The organizations and spaces the ingest-topic may write to (<code>*&#47;*</code> to trust the topic with all of them)
+     * @return the listener
+     */
+    @Bean
+    public MeasurementIngestListener measurementIngestListener(MetadataService metadataService, AuthService authService, EntityConverter converter,
+            MeterRegistry meterRegistry, @Value("${metadata.ingest.allowed-spaces:}") List<String> allowedSpaces) {
+        List<String> allowed = allowedSpaces.stream().filter(space -> !space.isBlank()).toList();
+        if (allowed.isEmpty()) {
+            // records carry no token of their producer - without a list, anybody able to write to the topic could index into any space
+            throw new IllegalStateException("metadata.ingest.allowed-spaces must list the spaces the ingest-topic may write to (organization/space, " +
+                    "organization/* or */*)");
+        }
+        return new MeasurementIngestListener(metadataService, authService, converter, meterRegistry, allowed);
+    }
+}
@@ -15,6 +15,7 @@ limitations under the License.
  */
 package com.efs.sdk.metadata;
 
+import com.efs.sdk.metadata.clients.OpenSearchPoolProperties;
 import com.efs.sdk.metadata.helper.EntityConverter;
 import com.efs.sdk.metadata.security.oauth.OAuth2Properties;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -25,7 +26,7 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.web.client.RestTemplate;
 
 @SpringBootApplication
-@EnableConfigurationProperties(OAuth2Properties.class)
+@EnableConfigurationProperties({OAuth2Properties.class, OpenSearchPoolProperties.class})
 public class MetadataApplication {
 
     public static void main(String[] args) {
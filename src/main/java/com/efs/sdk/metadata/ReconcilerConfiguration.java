@@ -0,0 +1,70 @@
+/*
+Copyright (C) 2023 e:fs TechHub GmbH (sdk@efs-techhub.com)
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+        http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+ */
+package com.efs.sdk.metadata;
+
+import com.efs.sdk.metadata.core.AuthService;
+import com.efs.sdk.metadata.core.OrganizationmanagerService;
+import com.efs.sdk.metadata.core.context.DriftReconciler;
+import com.efs.sdk.metadata.core.context.OpensearchContextService;
+import com.efs.sdk.metadata.core.context.ReconcilerLeadership;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.UUID;
+
+@Configuration
+@ConditionalOnProperty(name = "metadata.reconciler.enabled", havingValue = "true")
+public class ReconcilerConfiguration {
+
+    /**
+     * Creates the leadership of this replica - the pod-name (<code>HOSTNAME</code>) identifies the replica in the lease.
+     *
+     * @param kubernetesClient The Kubernetes client (only available in a cluster)
+     * @param leaseName        The name of the lease
+     * @param leaseDuration    How long a lease is valid without renewal
+     * @return the leadership
+     */
+    @Bean
+    public ReconcilerLeadership reconcilerLeadership(ObjectProvider<KubernetesClient> kubernetesClient,
+            @Value("${metadata.reconciler.lease-name:metadata-reconciler}") String leaseName,
+            @Value("${metadata.reconciler.lease-duration:15s}") Duration leaseDuration) {
+        String identity = System.getenv().getOrDefault("HOSTNAME", UUID.randomUUID().toString());
+        return new ReconcilerLeadership(kubernetesClient.getIfAvailable(), leaseName, identity, leaseDuration);
+    }
+
+    /**
+     * Creates the reconciler, which fixes drift of the OpenSearch-context.
+     *
+     * @param contextService             The OpensearchContextService
+     * @param organizationmanagerService The OrganizationmanagerService
+     * @param authService                The AuthService
+     * @param leadership                 The leadership of this replica
+     * @param interval                   The interval between two ticks
+     * @param cycle                      The duration, within which all organizations are reconciled once
+     * @return the reconciler
+     */
+    @Bean
+    public DriftReconciler driftReconciler(OpensearchContextService contextService, OrganizationmanagerService organizationmanagerService,
+            AuthService authService, ReconcilerLeadership leadership, @Value("${metadata.reconciler.interval:1m}") Duration interval,
+            @Value("${metadata.reconciler.cycle:1h}") Duration cycle) {
+        return new DriftReconciler(contextService, organizationmanagerService, authService, leadership, interval, cycle);
+    }
+}
@@ -0,0 +1,26 @@
+/*
+Copyright (C) 2023 e:fs TechHub GmbH (sdk@efs-techhub.com)
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+        http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+ */
+package com.efs.sdk.metadata.clients;
+
+/**
+ * A document to be written within a bulk-request
+ *
+ * @param index  the target-index
+ * @param docid  the id of the document (generated by OpenSearch, if <code>null</code>)
+ * @param source the (single-line) json of the document
+ */
+public record BulkDocument(String index, String docid, String source) {
+}
@@ -16,92 +16,606 @@ limitations under the License.
 package com.efs.sdk.metadata.clients;
 
 import com.efs.sdk.metadata.commons.MetadataException;
-import org.apache.http.util.EntityUtils;
-import org.json.JSONArray;
-import org.json.JSONObject;
+import com.efs.sdk.metadata.model.BulkItemResult;
+import com.efs.sdk.metadata.model.DocumentVersion;
+import com.efs.sdk.metadata.model.UpdateResult;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.http.entity.ContentType;
+import org.apache.http.nio.entity.NByteArrayEntity;
+import org.apache.http.nio.entity.NStringEntity;
 import org.opensearch.client.Request;
 import org.opensearch.client.Response;
-import org.opensearch.client.RestClient;
+import org.opensearch.client.ResponseException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
 
 import static com.efs.sdk.metadata.commons.MetadataException.METADATA_ERROR.*;
+import static com.efs.sdk.metadata.helper.FileHandling.getResourceFileAsString;
 import static java.lang.String.format;
 
+/**
+ * Client for the documents in OpenSearch.
+ * <p>
+ * Responses are not read into memory as a whole: only the fields needed are extracted from the response-stream (everything else is skipped). The time
+ * spent parsing is recorded per method (<code>metadata.opensearch.response.parse</code>).
+ */
 @Component
 public class MetadataOpensearchClient {
 
     private static final Logger LOG = LoggerFactory.getLogger(MetadataOpensearchClient.class);
+    private static final ContentType NDJSON = ContentType.create("application/x-ndjson", UTF_8);
+    private static final String UPDATE_SCRIPT_PATH = "update_metadata.painless";
+    private static final String PARSE_METRIC_NAME = "metadata.opensearch.response.parse";
+    private static final TypeReference<Map<String, Object>> MAP_TYPE = new TypeReference<>() {
+    };
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Timer> parseTimers = new ConcurrentHashMap<>();
+    private String updateScript;
+
+    public MetadataOpensearchClient(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    public int createMetadata(OpenSearchRestClient restClient, String index, String metadataValue, String docid) throws MetadataException {
+        return createMetadata(restClient, index, metadataValue.getBytes(UTF_8), docid);
+    }
 
-    public int createMetadata(RestClient restClient, String index, String metadataValue, String docid) throws MetadataException {
+    /**
+     * Indexes the document as it is (without re-encoding)
+     *
+     * @param restClient the rest-client
+     * @param index      the index
+     * @param document   the document (UTF-8 encoded json)
+     * @param docid      the id of the document
+     * @return the number of shards the document was written to
+     * @throws MetadataException if the document could not be indexed
+     */
+    public int createMetadata(OpenSearchRestClient restClient, String index, byte[] document, String docid) throws MetadataException {
         try {
             LOG.debug("put index to '{}'", index);
             Request metadataRequest = new Request("PUT", format("/%s/_doc/%s", index, docid));
-            metadataRequest.setJsonEntity(metadataValue);
+            metadataRequest.setEntity(new NByteArrayEntity(document, ContentType.APPLICATION_JSON));
 
-            JSONObject searchResponseJson = handleRequest(restClient, metadataRequest);
-            Map<String, Object> resultMap = searchResponseJson.getJSONObject("_shards").toMap();
+            int successful = handleRequest(restClient, metadataRequest, "createMetadata", MetadataOpensearchClient::readSuccessfulShards);
 
             LOG.debug("request performed");
-            return (int) resultMap.get("successful");
+            return successful;
         } catch (IOException e) {
             LOG.error(e.getMessage(), e);
             throw new MetadataException(UNABLE_INDEX);
         }
     }
 
-    public int updateMetadata(RestClient restClient, String index, String docid, String json) throws MetadataException {
+    public int updateMetadata(OpenSearchRestClient restClient, String index, String docid, String json) throws MetadataException {
         try {
             Request metadataRequest = new Request("PUT", format("/%s/_doc/%s", index, docid));
             metadataRequest.setJsonEntity(json);
 
-            JSONObject response = handleRequest(restClient, metadataRequest);
-            Map<String, Object> result = response.getJSONObject("_shards").toMap();
+            return handleRequest(restClient, metadataRequest, "updateMetadata", MetadataOpensearchClient::readSuccessfulShards);
+        } catch (IOException e) {
+            LOG.error(e.getMessage(), e);
+            throw new MetadataException(UNABLE_UPDATE);
+        }
+    }
+
+    /**
+     * Writes the documents using the _bulk-API
+     * <p>
+     * The documents are split into batches of at most <code>maxActions</code> documents and <code>maxBytes</code> bytes (a single document exceeding
+     * <code>maxBytes</code> is sent on its own). If a batch fails as a whole, all of its documents are reported as failed.
+     *
+     * @param restClient the rest-client
+     * @param documents  the documents
+     * @param maxActions maximum number of documents per batch
+     * @param maxBytes   maximum size of a batch in bytes
+     * @return the results - one per document, in the order of the documents
+     */
+    public List<BulkItemResult> bulkIndex(OpenSearchRestClient restClient, List<BulkDocument> documents, int maxActions, long maxBytes) {
+        List<BulkItemResult> results = new ArrayList<>(documents.size());
+        List<BulkDocument> batch = new ArrayList<>();
+        StringBuilder body = new StringBuilder();
+        long batchBytes = 0;
+        for (BulkDocument document : documents) {
+            String operation = bulkOperation(document);
+            long operationBytes = operation.getBytes(UTF_8).length;
+            if (!batch.isEmpty() && (batch.size() >= maxActions || batchBytes + operationBytes > maxBytes)) {
+                results.addAll(sendBulk(restClient, batch, body.toString()));
+                batch.clear();
+                body.setLength(0);
+                batchBytes = 0;
+            }
+            batch.add(document);
+            body.append(operation);
+            batchBytes += operationBytes;
+        }
+        if (!batch.isEmpty()) {
+            results.addAll(sendBulk(restClient, batch, body.toString()));
+        }
+        return results;
+    }
+
+    private String bulkOperation(BulkDocument document) {
+        StringWriter operation = new StringWriter();
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(operation)) {
+            generator.writeStartObject();
+            generator.writeObjectFieldStart("index");
+            generator.writeStringField("_index", document.index());
+            if (document.docid() != null) {
+                generator.writeStringField("_id", document.docid());
+            }
+            generator.writeEndObject();
+            generator.writeEndObject();
+        } catch (IOException e) {
+            throw new IllegalArgumentException(e.getMessage(), e);
+        }
+        return operation.append('\n').append(document.source()).append('\n').toString();
+    }
+
+    private List<BulkItemResult> sendBulk(OpenSearchRestClient restClient, List<BulkDocument> batch, String body) {
+        LOG.debug("sending bulk-request with {} documents", batch.size());
+        Request bulkRequest = new Request("POST", "/_bulk");
+        bulkRequest.setEntity(new NStringEntity(body, NDJSON));
+        try {
+            return handleRequest(restClient, bulkRequest, "bulkIndex", parser -> readBulkItems(parser, batch));
+        } catch (ResponseException e) {
+            LOG.error(e.getMessage(), e);
+            return failed(batch, e.getResponse().getStatusLine().getStatusCode(), e.getMessage());
+        } catch (IOException | MetadataException e) {
+            LOG.error(e.getMessage(), e);
+            return failed(batch, 500, e.getMessage());
+        }
+    }
+
+    private static List<BulkItemResult> readBulkItems(JsonParser parser, List<BulkDocument> batch) throws IOException {
+        List<BulkItemResult> results = new ArrayList<>(batch.size());
+        if (!findField(parser, "items") || parser.currentToken() != JsonToken.START_ARRAY) {
+            throw new IOException("unexpected response: missing 'items'");
+        }
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            if (results.size() == batch.size()) {
+                throw new IOException(format("unexpected response: more than %d items", batch.size()));
+            }
+            BulkDocument document = batch.get(results.size());
+            String docid = document.docid();
+            String index = document.index();
+            int status = 0;
+            String reason = null;
+            // every item is an object with the operation ("index") as its only key
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                parser.nextToken();
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String field = parser.getCurrentName();
+                    parser.nextToken();
+                    switch (field) {
+                        case "_id" -> docid = parser.getText();
+                        case "_index" -> index = parser.getText();
+                        case "status" -> status = parser.getIntValue();
+                        case "error" -> reason = readError(parser);
+                        default -> parser.skipChildren();
+                    }
+                }
+            }
+            results.add(new BulkItemResult(docid, index, status, reason));
+        }
+        if (results.size() != batch.size()) {
+            throw new IOException(format("unexpected response: %d items for %d documents", results.size(), batch.size()));
+        }
+        return results;
+    }
+
+    private static String readError(JsonParser parser) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            String error = parser.getText();
+            parser.skipChildren();
+            return error;
+        }
+        String type = "";
+        String reason = "";
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+            switch (field) {
+                case "type" -> type = parser.getText();
+                case "reason" -> reason = parser.getText();
+                default -> parser.skipChildren();
+            }
+        }
+        return format("%s: %s", type, reason);
+    }
+
+    private List<BulkItemResult> failed(List<BulkDocument> batch, int status, String reason) {
+        return batch.stream().map(document -> new BulkItemResult(document.docid(), document.index(), status, reason)).toList();
+    }
+
+    /**
+     * Appends metadata and massdata to an existing document on server-side (_update with a painless-script)
+     * <p>
+     * Only the delta is sent. Existing metadata-values win, nested objects are merged recursively, arrays are extended by missing elements and massdata-files
+     * not yet present are appended. If nothing is appended, the document is left untouched ("noop").
+     * <p>
+     * If an expected version is given, the update is only applied if the document still has this version (and is not retried by OpenSearch).
+     *
+     * @param restClient      the rest-client
+     * @param index           the index
+     * @param docid           the id of the document
+     * @param delta           json with the properties "metadata" (object) and "massdata" (array) to append
+     * @param expectedVersion the version the document is expected to have (optional)
+     * @param retryOnConflict how often OpenSearch retries the update on concurrent modification (without expected version)
+     * @return the result including the new version of the document
+     * @throws MetadataException if the document does not exist (OPENSEARCH_UNABLE_QUERY_UUID), was modified concurrently (VERSION_CONFLICT) or the update
+     *                           failed
+     */
+    public UpdateResult updateMetadata(OpenSearchRestClient restClient, String index, String docid, String delta, DocumentVersion expectedVersion,
+            int retryOnConflict) throws MetadataException {
+        try {
+            Request updateRequest = new Request("POST", format("/%s/_update/%s", index, docid));
+            if (expectedVersion != null) {
+                updateRequest.addParameter("if_seq_no", String.valueOf(expectedVersion.seqNo()));
+                updateRequest.addParameter("if_primary_term", String.valueOf(expectedVersion.primaryTerm()));
+            } else {
+                updateRequest.addParameter("retry_on_conflict", String.valueOf(retryOnConflict));
+            }
+            updateRequest.setJsonEntity(scriptedUpdate(delta));
+
+            return handleRequest(restClient, updateRequest, "updateMetadataScripted", MetadataOpensearchClient::readUpdateResult);
+        } catch (ResponseException e) {
+            throw updateError(e);
+        } catch (IOException e) {
+            LOG.error(e.getMessage(), e);
+            throw new MetadataException(UNABLE_UPDATE);
+        }
+    }
+
+    private String scriptedUpdate(String delta) throws IOException {
+        StringWriter body = new StringWriter();
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(body)) {
+            generator.writeStartObject();
+            generator.writeObjectFieldStart("script");
+            generator.writeStringField("lang", "painless");
+            generator.writeStringField("source", getUpdateScript());
+            generator.writeFieldName("params");
+            generator.writeRawValue(delta);
+            generator.writeEndObject();
+            generator.writeEndObject();
+        }
+        return body.toString();
+    }
+
+    private static UpdateResult readUpdateResult(JsonParser parser) throws IOException {
+        String result = null;
+        long seqNo = 0;
+        long primaryTerm = 0;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+            switch (field) {
+                case "result" -> result = parser.getText();
+                case "_seq_no" -> seqNo = parser.getLongValue();
+                case "_primary_term" -> primaryTerm = parser.getLongValue();
+                default -> parser.skipChildren();
+            }
+        }
+        if (result == null) {
+            throw new IOException("unexpected response: missing 'result'");
+        }
+        return new UpdateResult(result, seqNo, primaryTerm);
+    }
+
+    private MetadataException updateError(ResponseException e) {
+        int statusCode = e.getResponse().getStatusLine().getStatusCode();
+        if (statusCode == 409) {
+            LOG.debug("version conflict: {}", e.getMessage());
+            return new MetadataException(VERSION_CONFLICT);
+        }
+        LOG.error(e.getMessage(), e);
+        if (statusCode == 404) {
+            return new MetadataException(OPENSEARCH_UNABLE_QUERY_UUID);
+        }
+        return new MetadataException(UNABLE_UPDATE);
+    }
 
-            return (int) result.get("successful");
+    /**
+     * Reads a document including its version (for a subsequent conditional write)
+     *
+     * @param restClient the rest-client
+     * @param index      the index
+     * @param docid      the id of the document
+     * @return the document
+     * @throws MetadataException if the document does not exist or could not be read
+     */
+    public VersionedDocument getVersionedDocument(OpenSearchRestClient restClient, String index, String docid) throws MetadataException {
+        try {
+            return handleRequest(restClient, new Request("GET", format("/%s/_doc/%s", index, docid)), "getVersionedDocument", this::readVersionedDocument);
+        } catch (IOException e) {
+            LOG.error(e.getMessage(), e);
+            throw new MetadataException(OPENSEARCH_UNABLE_QUERY_UUID);
+        }
+    }
+
+    private VersionedDocument readVersionedDocument(JsonParser parser) throws IOException {
+        JsonNode source = null;
+        long seqNo = 0;
+        long primaryTerm = 0;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+            switch (field) {
+                case "_source" -> source = objectMapper.readTree(parser);
+                case "_seq_no" -> seqNo = parser.getLongValue();
+                case "_primary_term" -> primaryTerm = parser.getLongValue();
+                default -> parser.skipChildren();
+            }
+        }
+        if (!(source instanceof ObjectNode sourceObject)) {
+            throw new IOException("unexpected response: missing '_source'");
+        }
+        return new VersionedDocument(sourceObject, new DocumentVersion(seqNo, primaryTerm));
+    }
+
+    /**
+     * Replaces a document, if it still has the expected version
+     *
+     * @param restClient      the rest-client
+     * @param index           the index
+     * @param docid           the id of the document
+     * @param json            the new document
+     * @param expectedVersion the version the document is expected to have
+     * @return the result including the new version of the document
+     * @throws MetadataException if the document was modified concurrently (VERSION_CONFLICT) or could not be written
+     */
+    public UpdateResult replaceDocument(OpenSearchRestClient restClient, String index, String docid, String json, DocumentVersion expectedVersion) throws
+            MetadataException {
+        try {
+            Request replaceRequest = new Request("PUT", format("/%s/_doc/%s", index, docid));
+            replaceRequest.addParameter("if_seq_no", String.valueOf(expectedVersion.seqNo()));
+            replaceRequest.addParameter("if_primary_term", String.valueOf(expectedVersion.primaryTerm()));
+            replaceRequest.setJsonEntity(json);
+
+            return handleRequest(restClient, replaceRequest, "replaceDocument", MetadataOpensearchClient::readUpdateResult);
+        } catch (ResponseException e) {
+            throw updateError(e);
         } catch (IOException e) {
             LOG.error(e.getMessage(), e);
             throw new MetadataException(UNABLE_UPDATE);
         }
     }
 
-    public boolean documentExists(RestClient restClient, String index, String docid) throws MetadataException {
+    private String getUpdateScript() throws IOException {
+        if (updateScript == null) {
+            updateScript = getResourceFileAsString(UPDATE_SCRIPT_PATH);
+        }
+        return updateScript;
+    }
+
+    /**
+     * Checks whether the document exists (<code>HEAD /&lt;index&gt;/_doc/&lt;docid&gt;</code>, a lookup on the shard holding the document)
+     *
+     * @param restClient the rest-client
+     * @param index      the index
+     * @param docid      the id of the document
+     * @return whether the document exists
+     * @throws MetadataException if the existence could not be checked (including responses other than 200 and 404)
+     */
+    public boolean documentExists(OpenSearchRestClient restClient, String index, String docid) throws MetadataException {
         try {
-            Request docidRequest = new Request("GET", format("/%s/_search?q=_id:%s", index, docid));
-            JSONObject searchResponseJson = handleRequest(restClient, docidRequest);
-            JSONArray hits = searchResponseJson.getJSONObject("hits").getJSONArray("hits");
-            List<Map<String, Object>> list = hits.toList().stream().map(hit -> (Map<String, Object>) hit).toList();
+            Response response = restClient.performRequest(new Request("HEAD", format("/%s/_doc/%s", index, docid)));
+            // the rest-client does not treat 404 as error for HEAD-requests
+            int status = response.getStatusLine().getStatusCode();
+            if (status == 200) {
+                return true;
+            }
+            if (status == 404) {
+                return false;
+            }
+            LOG.error("unexpected status {} checking existence of '{}' in '{}'", status, docid, index);
+            throw new MetadataException(OPENSEARCH_UNABLE_QUERY_UUID);
+        } catch (IOException e) {
+            LOG.error(e.getMessage(), e);
+            throw new MetadataException(OPENSEARCH_UNABLE_QUERY_UUID);
+        }
+    }
 
-            return !list.isEmpty();
+    /**
+     * Checks which of the documents exist - with a single request (_mget without _source)
+     *
+     * @param restClient the rest-client
+     * @param index      the index
+     * @param docids     the ids of the documents
+     * @return the ids of the documents that exist
+     * @throws MetadataException if the existence could not be checked
+     */
+    public Set<String> documentsExist(OpenSearchRestClient restClient, String index, Collection<String> docids) throws MetadataException {
+        if (docids.isEmpty()) {
+            return Set.of();
+        }
+        try {
+            Request mgetRequest = multiGet(index, docids);
+            mgetRequest.addParameter("_source", "false");
+            return handleRequest(restClient, mgetRequest, "documentsExist", parser -> readDocs(parser, false)).keySet();
         } catch (IOException e) {
             LOG.error(e.getMessage(), e);
             throw new MetadataException(OPENSEARCH_UNABLE_QUERY_UUID);
         }
     }
 
-    public Map<String, Object> getSourceDocument(RestClient restClient, String index, String docid) throws MetadataException {
+    public Map<String, Object> getSourceDocument(OpenSearchRestClient restClient, String index, String docid) throws MetadataException {
         try {
-            return handleRequest(restClient, new Request("GET", format("/%s/_source/%s", index, docid))).toMap();
+            return handleRequest(restClient, new Request("GET", format("/%s/_source/%s", index, docid)), "getSourceDocument", parser -> objectMapper.readValue(
+                    parser, MAP_TYPE));
         } catch (IOException e) {
             LOG.error(e.getMessage(), e);
             throw new MetadataException(OPENSEARCH_UNABLE_QUERY_UUID);
         }
     }
 
-    private JSONObject handleRequest(RestClient restClient, Request metadataRequest) throws IOException, MetadataException {
-        Response response = restClient.performRequest(metadataRequest);
+    /**
+     * Gets the sources of the documents - with a single request (_mget)
+     *
+     * @param restClient     the rest-client
+     * @param index          the index
+     * @param docids         the ids of the documents
+     * @param sourceIncludes the fields of the source to return (all, if none are given)
+     * @return the sources of the documents that exist, by id (in the order of the ids)
+     * @throws MetadataException if the documents could not be retrieved
+     */
+    public Map<String, Map<String, Object>> getSourceDocuments(OpenSearchRestClient restClient, String index, Collection<String> docids,
+            String... sourceIncludes) throws MetadataException {
+        if (docids.isEmpty()) {
+            return Map.of();
+        }
+        try {
+            Request mgetRequest = multiGet(index, docids);
+            if (sourceIncludes.length > 0) {
+                mgetRequest.addParameter("_source_includes", String.join(",", sourceIncludes));
+            }
+            return handleRequest(restClient, mgetRequest, "getSourceDocuments", parser -> readDocs(parser, true));
+        } catch (IOException e) {
+            LOG.error(e.getMessage(), e);
+            throw new MetadataException(OPENSEARCH_UNABLE_QUERY_UUID);
+        }
+    }
+
+    private Request multiGet(String index, Collection<String> docids) throws IOException {
+        StringWriter body = new StringWriter();
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(body)) {
+            generator.writeStartObject();
+            generator.writeArrayFieldStart("ids");
+            for (String docid : docids) {
+                generator.writeString(docid);
+            }
+            generator.writeEndArray();
+            generator.writeEndObject();
+        }
+        Request mgetRequest = new Request("POST", format("/%s/_mget", index));
+        mgetRequest.setJsonEntity(body.toString());
+        return mgetRequest;
+    }
+
+    /**
+     * Reads the documents of a _mget-response
+     *
+     * @param parser     the parser
+     * @param withSource whether to read the sources (otherwise they are skipped)
+     * @return the sources of the documents found, by id (empty, if not read)
+     */
+    private Map<String, Map<String, Object>> readDocs(JsonParser parser, boolean withSource) throws IOException {
+        if (!findField(parser, "docs") || parser.currentToken() != JsonToken.START_ARRAY) {
+            throw new IOException("unexpected response: missing 'docs'");
+        }
+        Map<String, Map<String, Object>> documents = new LinkedHashMap<>();
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            String docid = null;
+            boolean found = false;
+            Map<String, Object> source = Map.of();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                parser.nextToken();
+                switch (field) {
+                    case "_id" -> docid = parser.getText();
+                    case "found" -> found = parser.getBooleanValue();
+                    case "_source" -> {
+                        if (withSource) {
+                            source = objectMapper.readValue(parser, MAP_TYPE);
+                        } else {
+                            parser.skipChildren();
+                        }
+                    }
+                    default -> parser.skipChildren();
+                }
+            }
+            if (found && docid != null) {
+                documents.put(docid, source);
+            }
+        }
+        return documents;
+    }
+
+    /**
+     * Sends the request and extracts the result from the response-stream (positioned at the start of the response-object)
+     *
+     * @param restClient the rest-client
+     * @param request    the request
+     * @param method     name of the calling method (tag of the parse-metric)
+     * @param reader     extracts the result
+     * @return the result
+     */
+    private <T> T handleRequest(OpenSearchRestClient restClient, Request request, String method, ResponseReader<T> reader) throws IOException,
+            MetadataException {
+        Response response = restClient.performRequest(request);
 
         int statusCode = response.getStatusLine().getStatusCode();
         if (statusCode < 200 || statusCode > 299) {
             throw new MetadataException(UNABLE_SEND_OS_REQUEST);
         }
 
-        String searchResponse = EntityUtils.toString(response.getEntity());
-        return new JSONObject(searchResponse);
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try (InputStream content = response.getEntity().getContent(); JsonParser parser = objectMapper.getFactory().createParser(content)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("unexpected response: expected a json-object");
+            }
+            return reader.read(parser);
+        } finally {
+            sample.stop(parseTimer(method));
+        }
+    }
+
+    private Timer parseTimer(String method) {
+        return parseTimers.computeIfAbsent(method, m -> Timer.builder(PARSE_METRIC_NAME).description("time spent parsing responses of opensearch").tag(
+                "method", m).register(meterRegistry));
+    }
+
+    /**
+     * Skips the fields of the current object until the given field is found
+     *
+     * @param parser the parser (positioned at the start of the object or at one of its fields)
+     * @param name   the name of the field
+     * @return whether the field was found - the parser is then positioned at its value
+     */
+    private static boolean findField(JsonParser parser, String name) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+            if (name.equals(field)) {
+                return true;
+            }
+            parser.skipChildren();
+        }
+        return false;
+    }
+
+    private static int readSuccessfulShards(JsonParser parser) throws IOException {
+        if (findField(parser, "_shards") && findField(parser, "successful")) {
+            return parser.getIntValue();
+        }
+        throw new IOException("unexpected response: missing '_shards.successful'");
+    }
+
+    @FunctionalInterface
+    private interface ResponseReader<T> {
+        T read(JsonParser parser) throws IOException;
     }
 }
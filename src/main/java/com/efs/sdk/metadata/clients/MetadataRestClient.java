@@ -16,13 +16,8 @@ limitations under the License.
 package com.efs.sdk.metadata.clients;
 
 import com.efs.sdk.metadata.model.TokenModel;
-import com.efs.sdk.metadata.security.oauth.OAuthConfiguration;
-import com.efs.sdk.metadata.security.oauth.OAuthConfigurationHelper;
-import org.springframework.beans.factory.annotation.Value;
+import com.efs.sdk.metadata.security.oauth.ServiceAccountTokenCache;
 import org.springframework.stereotype.Component;
-import org.springframework.util.LinkedMultiValueMap;
-import org.springframework.util.MultiValueMap;
-import org.springframework.web.client.RestTemplate;
 
 /**
  * RestClient for metadata-backend
@@ -30,39 +25,23 @@ import org.springframework.web.client.RestTemplate;
 @Component
 public class MetadataRestClient {
 
-    private final RestTemplate restTemplate;
-
-    private final String tokenEndpoint;
-    private final String clientId;
-    private final String clientSecret;
+    private final ServiceAccountTokenCache tokenCache;
 
     /**
      * Constructor.
      *
-     * @param restTemplate The rest-template
+     * @param tokenCache The (shared) cache of the service-account token
      */
-    public MetadataRestClient(RestTemplate restTemplate, @Value("${metadata.auth.client-id}") String clientId,
-            @Value("${metadata.auth.client-secret}") String clientSecret, OAuthConfigurationHelper configHelper) {
-        this.restTemplate = restTemplate;
-        OAuthConfiguration oauthConfig = configHelper.getOpenidConfigProperty();
-        this.tokenEndpoint = oauthConfig.tokenEndpoint();
-        this.clientId = clientId;
-        this.clientSecret = clientSecret;
+    public MetadataRestClient(ServiceAccountTokenCache tokenCache) {
+        this.tokenCache = tokenCache;
     }
 
     /**
-     * Create token for service account
+     * Get (cached) token for service account
      *
-     * @return the created token
+     * @return the token
      */
     public TokenModel getSAToken() {
-
-        MultiValueMap<String, String> params = new LinkedMultiValueMap<>();
-        params.set("grant_type", "client_credentials");
-        params.set("client_id", clientId);
-        params.set("client_secret", clientSecret);
-        params.set("scope", "profile");
-
-        return restTemplate.postForEntity(tokenEndpoint, params, TokenModel.class).getBody();
+        return tokenCache.getToken();
     }
 }
@@ -0,0 +1,76 @@
+/*
+Copyright (C) 2023 e:fs TechHub GmbH (sdk@efs-techhub.com)
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+        http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+ */
+package com.efs.sdk.metadata.clients;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Connection-pool settings of the shared OpenSearch RestClient
+ */
+@ConfigurationProperties(prefix = "metadata.opensearch.pool")
+public class OpenSearchPoolProperties {
+
+    /**
+     * Maximum number of connections per route (i.e. per OpenSearch node)
+     */
+    private int maxConnPerRoute = 50;
+    /**
+     * Maximum number of connections in total
+     */
+    private int maxConnTotal = 100;
+    /**
+     * Connections idle for longer than this are closed
+     */
+    private Duration idleTimeout = Duration.ofSeconds(60);
+    /**
+     * Interval in which expired and idle connections are evicted
+     */
+    private Duration evictionInterval = Duration.ofSeconds(30);
+
+    public int getMaxConnPerRoute() {
+        return maxConnPerRoute;
+    }
+
+    public void setMaxConnPerRoute(int maxConnPerRoute) {
+        this.maxConnPerRoute = maxConnPerRoute;
+    }
+
+    public int getMaxConnTotal() {
+        return maxConnTotal;
+    }
+
+    public void setMaxConnTotal(int maxConnTotal) {
+        this.maxConnTotal = maxConnTotal;
+    }
+
+    public Duration getIdleTimeout() {
+        return idleTimeout;
+    }
+
+    public void setIdleTimeout(Duration idleTimeout) {
+        this.idleTimeout = idleTimeout;
+    }
+
+    public Duration getEvictionInterval() {
+        return evictionInterval;
+    }
+
+    public void setEvictionInterval(Duration evictionInterval) {
+        this.evictionInterval = evictionInterval;
+    }
+}
@@ -0,0 +1,144 @@
+/*
+Copyright (C) 2023 e:fs TechHub GmbH (sdk@efs-techhub.com)
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+        http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+ */
+package com.efs.sdk.metadata.clients;
+
+import org.apache.http.Header;
+import org.opensearch.client.*;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Handle on the shared (pooled) OpenSearch {@link RestClient}, that attaches the bearer-token of the caller to every request.
+ * <p>
+ * Handles are cheap and meant to be obtained per request via {@link OpenSearchRestClientBuilder#buildRestClient(String)}. They must not be closed, as the
+ * underlying client is owned by the builder.
+ */
+public class OpenSearchRestClient {
+
+    private final RestClient restClient;
+    private final RequestOptions requestOptions;
+    private final Semaphore requestBudget;
+
+    OpenSearchRestClient(RestClient restClient, RequestOptions requestOptions) {
+        this(restClient, requestOptions, null);
+    }
+
+    private OpenSearchRestClient(RestClient restClient, RequestOptions requestOptions, Semaphore requestBudget) {
+        this.restClient = restClient;
+        this.requestOptions = requestOptions;
+        this.requestBudget = requestBudget;
+    }
+
+    /**
+     * Gets a handle that sends requests only while it holds a permit of the given budget (i.e. the number of concurrent requests of all handles sharing
+     * the budget is limited to its permits)
+     *
+     * @param requestBudget the budget
+     * @return the handle
+     */
+    public OpenSearchRestClient withRequestBudget(Semaphore requestBudget) {
+        return new OpenSearchRestClient(restClient, requestOptions, requestBudget);
+    }
+
+    /**
+     * Sends the request (authenticated with the token of this handle) and waits for the response
+     *
+     * @param request the request
+     * @return the response
+     * @throws IOException in case of a problem or the connection was aborted
+     */
+    public Response performRequest(Request request) throws IOException {
+        request.setOptions(authorized(request));
+        acquire();
+        try {
+            return restClient.performRequest(request);
+        } finally {
+            release();
+        }
+    }
+
+    /**
+     * Sends the request (authenticated with the token of this handle) asynchronously
+     * <p>
+     * If the handle has a request budget, this waits until a permit is available - the permit is returned once the request completes.
+     *
+     * @param request          the request
+     * @param responseListener the listener to be notified upon request success or failure
+     * @return a cancellable for the running request
+     */
+    public Cancellable performRequestAsync(Request request, ResponseListener responseListener) {
+        request.setOptions(authorized(request));
+        if (requestBudget == null) {
+            return restClient.performRequestAsync(request, responseListener);
+        }
+        try {
+            acquire();
+        } catch (InterruptedIOException e) {
+            responseListener.onFailure(e);
+            return Cancellable.NO_OP;
+        }
+        try {
+            return restClient.performRequestAsync(request, new ResponseListener() {
+                @Override
+                public void onSuccess(Response response) {
+                    release();
+                    responseListener.onSuccess(response);
+                }
+
+                @Override
+                public void onFailure(Exception exception) {
+                    release();
+                    responseListener.onFailure(exception);
+                }
+            });
+        } catch (RuntimeException e) {
+            release();
+            throw e;
+        }
+    }
+
+    private void acquire() throws InterruptedIOException {
+        if (requestBudget == null) {
+            return;
+        }
+        try {
+            requestBudget.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted while waiting for request budget");
+        }
+    }
+
+    private void release() {
+        if (requestBudget != null) {
+            requestBudget.release();
+        }
+    }
+
+    private RequestOptions authorized(Request request) {
+        RequestOptions options = request.getOptions();
+        if (options == RequestOptions.DEFAULT) {
+            return requestOptions;
+        }
+        RequestOptions.Builder builder = options.toBuilder();
+        for (Header header : requestOptions.getHeaders()) {
+            builder.addHeader(header.getName(), header.getValue());
+        }
+        return builder.build();
+    }
+}
@@ -15,15 +15,172 @@ limitations under the License.
  */
 package com.efs.sdk.metadata.clients;
 
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.apache.http.HttpHost;
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.ssl.NoopHostnameVerifier;
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
+import org.apache.http.impl.nio.reactor.DefaultConnectingIOReactor;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
+import org.apache.http.nio.conn.NoopIOSessionStrategy;
+import org.apache.http.nio.conn.SchemeIOSessionStrategy;
+import org.apache.http.nio.conn.ssl.SSLIOSessionStrategy;
+import org.apache.http.nio.reactor.IOReactorException;
+import org.apache.http.pool.PoolStats;
+import org.apache.http.ssl.SSLContextBuilder;
+import org.jetbrains.annotations.NotNull;
+import org.opensearch.client.RequestOptions;
 import org.opensearch.client.RestClient;
+import org.opensearch.client.RestClientBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
 
-public abstract class OpenSearchRestClientBuilder {
+import javax.net.ssl.SSLContext;
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToIntFunction;
+
+import static java.lang.String.format;
+
+/**
+ * Owns the single, long-lived and connection-pooled {@link RestClient} of the OpenSearch cluster.
+ * <p>
+ * The client (and its SSL-context, IO-reactor and connection-pool) is created once on first use. The bearer-token is not part of the client, but attached
+ * per request by the {@link OpenSearchRestClient} handles returned by {@link #buildRestClient(String)}.
+ */
+public abstract class OpenSearchRestClientBuilder implements MeterBinder, DisposableBean {
+
+    private static final Logger LOG = LoggerFactory.getLogger(OpenSearchRestClientBuilder.class);
+    private static final String METRIC_PREFIX = "opensearch.client.pool.";
 
     protected final String opensearchUrl;
+    private final OpenSearchPoolProperties poolProperties;
 
-    protected OpenSearchRestClientBuilder(String opensearchUrl) {
+    private final Object lock = new Object();
+    private volatile RestClient restClient;
+    private PoolingNHttpClientConnectionManager connectionManager;
+    private ScheduledExecutorService idleConnectionEvictor;
+
+    protected OpenSearchRestClientBuilder(String opensearchUrl, OpenSearchPoolProperties poolProperties) {
         this.opensearchUrl = opensearchUrl;
+        this.poolProperties = poolProperties;
+    }
+
+    /**
+     * Gets a handle on the shared RestClient, which authenticates all requests with the given token
+     *
+     * @param token the (bearer) token
+     * @return the handle
+     */
+    public OpenSearchRestClient buildRestClient(String token) {
+        RequestOptions options = RequestOptions.DEFAULT.toBuilder().addHeader("Authorization", format("Bearer %s", token)).build();
+        return new OpenSearchRestClient(getRestClient(), options);
     }
 
-    public abstract RestClient buildRestClient(String token);
-}
\ No newline at end of file
+    /**
+     * Hook for environment-specific settings (e.g. path-prefix) of the RestClient
+     *
+     * @param restClientBuilder the builder of the shared RestClient
+     */
+    protected void customize(RestClientBuilder restClientBuilder) {
+        // nothing to customize by default
+    }
+
+    private RestClient getRestClient() {
+        RestClient client = restClient;
+        if (client == null) {
+            synchronized (lock) {
+                client = restClient;
+                if (client == null) {
+                    client = createRestClient();
+                    restClient = client;
+                }
+            }
+        }
+        return client;
+    }
+
+    private RestClient createRestClient() {
+        try {
+            connectionManager = createConnectionManager();
+        } catch (GeneralSecurityException | IOReactorException e) {
+            throw new IllegalStateException("unable to set up connection-pool for opensearch", e);
+        }
+        RestClientBuilder restClientBuilder = RestClient.builder(HttpHost.create(opensearchUrl))
+                .setHttpClientConfigCallback(httpClientBuilder -> httpClientBuilder.setConnectionManager(connectionManager));
+        customize(restClientBuilder);
+
+        long interval = poolProperties.getEvictionInterval().toMillis();
+        idleConnectionEvictor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "opensearch-idle-connection-evictor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        idleConnectionEvictor.scheduleWithFixedDelay(this::evictIdleConnections, interval, interval, TimeUnit.MILLISECONDS);
+
+        LOG.info("created pooled opensearch client for '{}' (max-conn-per-route: {}, max-conn-total: {})", opensearchUrl, poolProperties.getMaxConnPerRoute(),
+                poolProperties.getMaxConnTotal());
+        return restClientBuilder.build();
+    }
+
+    private PoolingNHttpClientConnectionManager createConnectionManager() throws GeneralSecurityException, IOReactorException {
+        SSLContext sslContext = new SSLContextBuilder().loadTrustMaterial(null, (cert, authType) -> true).build();
+        Registry<SchemeIOSessionStrategy> sessionStrategies = RegistryBuilder.<SchemeIOSessionStrategy>create()
+                .register("http", NoopIOSessionStrategy.INSTANCE)
+                .register("https", new SSLIOSessionStrategy(sslContext, NoopHostnameVerifier.INSTANCE))
+                .build();
+        DefaultConnectingIOReactor ioReactor = new DefaultConnectingIOReactor(IOReactorConfig.custom().setSoKeepAlive(true).build());
+
+        PoolingNHttpClientConnectionManager manager = new PoolingNHttpClientConnectionManager(ioReactor, sessionStrategies);
+        manager.setDefaultMaxPerRoute(poolProperties.getMaxConnPerRoute());
+        manager.setMaxTotal(poolProperties.getMaxConnTotal());
+        return manager;
+    }
+
+    private void evictIdleConnections() {
+        try {
+            connectionManager.closeExpiredConnections();
+            connectionManager.closeIdleConnections(poolProperties.getIdleTimeout().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (RuntimeException e) {
+            LOG.warn("unable to evict idle opensearch connections: {}", e.getMessage());
+        }
+    }
+
+    private int poolStats(ToIntFunction<PoolStats> stat) {
+        PoolingNHttpClientConnectionManager manager = connectionManager;
+        return manager == null ? 0 : stat.applyAsInt(manager.getTotalStats());
+    }
+
+    @Override
+    public void bindTo(@NotNull MeterRegistry registry) {
+        String cluster = HttpHost.create(opensearchUrl).toHostString();
+        Gauge.builder(METRIC_PREFIX + "leased", this, b -> b.poolStats(PoolStats::getLeased)).description("connections currently in use").tag("cluster",
+                cluster).register(registry);
+        Gauge.builder(METRIC_PREFIX + "available", this, b -> b.poolStats(PoolStats::getAvailable)).description("idle connections kept in the pool").tag(
+                "cluster", cluster).register(registry);
+        Gauge.builder(METRIC_PREFIX + "pending", this, b -> b.poolStats(PoolStats::getPending)).description("requests waiting for a connection").tag(
+                "cluster", cluster).register(registry);
+        Gauge.builder(METRIC_PREFIX + "max", this, b -> b.poolStats(PoolStats::getMax)).description("maximum number of connections").tag("cluster",
+                cluster).register(registry);
+    }
+
+    @Override
+    public void destroy() throws IOException {
+        synchronized (lock) {
+            if (idleConnectionEvictor != null) {
+                idleConnectionEvictor.shutdownNow();
+            }
+            if (restClient != null) {
+                restClient.close();
+                restClient = null;
+            }
+        }
+    }
+}
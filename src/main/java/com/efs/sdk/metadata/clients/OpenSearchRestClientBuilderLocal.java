@@ -15,47 +15,27 @@ limitations under the License.
  */
 package com.efs.sdk.metadata.clients;
 
-import org.apache.http.Header;
-import org.apache.http.HttpHost;
-import org.apache.http.conn.ssl.NoopHostnameVerifier;
-import org.apache.http.message.BasicHeader;
-import org.apache.http.ssl.SSLContextBuilder;
-import org.opensearch.client.RestClient;
 import org.opensearch.client.RestClientBuilder;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Component;
 
-import javax.net.ssl.SSLContext;
-
-import static java.lang.String.format;
-
 @Component
 @Profile("local")
 public class OpenSearchRestClientBuilderLocal extends OpenSearchRestClientBuilder {
 
-    @Value("${metadata.opensearch.path-prefix:elastic/api}")
-    private String prefix;
+    private final String prefix;
 
-    public OpenSearchRestClientBuilderLocal(@Value("${metadata.opensearch.url}") String opensearchUrl) {
-        super(opensearchUrl);
+    public OpenSearchRestClientBuilderLocal(@Value("${metadata.opensearch.url}") String opensearchUrl,
+            @Value("${metadata.opensearch.path-prefix:elastic/api}") String prefix, OpenSearchPoolProperties poolProperties) {
+        super(opensearchUrl, poolProperties);
+        this.prefix = prefix;
     }
 
     @Override
-    public RestClient buildRestClient(String token) {
-        Header[] defaultHeaders = new Header[]{new BasicHeader("Authorization", format("Bearer %s", token))};
-        try {
-            SSLContext sslContext = new SSLContextBuilder().loadTrustMaterial(null, (cert, authType) -> true).build();
-
-            RestClientBuilder restClientBuilder =
-                    RestClient.builder(HttpHost.create(opensearchUrl)).setDefaultHeaders(defaultHeaders).setHttpClientConfigCallback(httpClientBuilder -> httpClientBuilder.setSSLContext(sslContext).setSSLHostnameVerifier(new NoopHostnameVerifier()));
-            if (prefix != null && !prefix.isBlank()) {
-                restClientBuilder.setPathPrefix(prefix);
-            }
-            return restClientBuilder.build();
-        } catch (Exception e) {
-            // Error should never be thrown
-            return null;
+    protected void customize(RestClientBuilder restClientBuilder) {
+        if (prefix != null && !prefix.isBlank()) {
+            restClientBuilder.setPathPrefix(prefix);
         }
     }
 }
\ No newline at end of file
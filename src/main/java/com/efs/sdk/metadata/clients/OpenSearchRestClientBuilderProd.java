@@ -15,38 +15,16 @@ limitations under the License.
  */
 package com.efs.sdk.metadata.clients;
 
-import org.apache.http.Header;
-import org.apache.http.HttpHost;
-import org.apache.http.conn.ssl.NoopHostnameVerifier;
-import org.apache.http.message.BasicHeader;
-import org.apache.http.ssl.SSLContextBuilder;
-import org.opensearch.client.RestClient;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Component;
 
-import javax.net.ssl.SSLContext;
-
-import static java.lang.String.format;
-
 
 @Profile("!local")
 @Component
 public class OpenSearchRestClientBuilderProd extends OpenSearchRestClientBuilder {
 
-    OpenSearchRestClientBuilderProd(@Value("${metadata.opensearch.url}") String opensearchUrl) {
-        super(opensearchUrl);
-    }
-
-    public RestClient buildRestClient(String token) {
-        Header[] defaultHeaders = new Header[]{new BasicHeader("Authorization", format("Bearer %s", token))};
-        try {
-            SSLContext sslContext = new SSLContextBuilder().loadTrustMaterial(null, (cert, authType) -> true).build();
-
-            return RestClient.builder(HttpHost.create(opensearchUrl)).setDefaultHeaders(defaultHeaders).setHttpClientConfigCallback(httpClientBuilder -> httpClientBuilder.setSSLContext(sslContext).setSSLHostnameVerifier(new NoopHostnameVerifier())).build();
-        } catch (Exception e) {
-            // Error should never be thrown
-            return null;
-        }
+    OpenSearchRestClientBuilderProd(@Value("${metadata.opensearch.url}") String opensearchUrl, OpenSearchPoolProperties poolProperties) {
+        super(opensearchUrl, poolProperties);
     }
 }
@@ -16,19 +16,35 @@ limitations under the License.
 package com.efs.sdk.metadata.clients;
 
 import com.efs.sdk.metadata.commons.MetadataException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.JWTParser;
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Component;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
+import org.springframework.web.client.HttpStatusCodeException;
 import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
 
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.Collections;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 
 import static com.efs.sdk.metadata.commons.MetadataException.METADATA_ERROR.*;
@@ -37,24 +53,119 @@ import static java.lang.String.format;
 @Component
 public class OrganizationManagerClient {
 
+    /**
+     * Name of the cache holding the results of {@link #getSpace(String, String, String, Permissions)}
+     */
+    public static final String SPACE_PERMISSIONS_CACHE = "space-permissions";
+
+    private static final Logger LOG = LoggerFactory.getLogger(OrganizationManagerClient.class);
     private static final String PROP_ID = "id";
     private static final String PROP_NAME = "name";
     private final RestTemplate restTemplate;
     private final String organizationEndpoint;
     private final String spaceEndpoint;
+    private final Cache<Object, Object> permissionCache;
+    private final Duration ttl;
+    private final Duration negativeTtl;
 
     public enum Permissions {
         READ, WRITE, DELETE, GET
     }
 
+    /**
+     * Constructor.
+     *
+     * @param restTemplate         The rest-template
+     * @param organizationEndpoint The organization-endpoint of organizationmanager
+     * @param spaceEndpoint        The space-endpoint of organizationmanager
+     * @param cacheManager         The cache-manager providing the {@value SPACE_PERMISSIONS_CACHE}-cache
+     * @param ttl                  How long a granted permission is cached (at most until the token expires)
+     * @param negativeTtl          How long a denied permission is cached (at most until the token expires)
+     */
     public OrganizationManagerClient(RestTemplate restTemplate, @Value("${metadata.organizationmanager-endpoints.organization}") String organizationEndpoint,
-            @Value("${metadata.organizationmanager-endpoints.space}") String spaceEndpoint) {
+            @Value("${metadata.organizationmanager-endpoints.space}") String spaceEndpoint, CacheManager cacheManager,
+            @Value("${metadata.permission-cache.ttl:60s}") Duration ttl, @Value("${metadata.permission-cache.negative-ttl:10s}") Duration negativeTtl) {
         this.restTemplate = restTemplate;
         this.organizationEndpoint = organizationEndpoint;
         this.spaceEndpoint = spaceEndpoint;
+        this.permissionCache = ((CaffeineCache) cacheManager.getCache(SPACE_PERMISSIONS_CACHE)).getNativeCache();
+        this.ttl = ttl;
+        this.negativeTtl = negativeTtl;
+    }
+
+    /**
+     * Creates the (size-bounded) cache for space-permissions, in which every entry expires individually
+     *
+     * @param maximumSize maximum number of cached permissions
+     * @return the cache
+     */
+    public static Cache<Object, Object> newPermissionCache(long maximumSize) {
+        return Caffeine.newBuilder().maximumSize(maximumSize).expireAfter(new PermissionExpiry()).recordStats().build();
     }
 
+    /**
+     * Get space by name, if the user has the given permission on it
+     * <p>
+     * Results (including denials) are cached per subject of the token, organization, space and permission - never beyond the expiry of the token. Concurrent
+     * requests for the same key result in a single request to organizationmanager.
+     *
+     * @param token      the (user) token that is used to make the request
+     * @param orgaName   the name of the organization
+     * @param spaceName  the name of the space
+     * @param permission the requested permission
+     * @return the space or an empty map, if the space was not found
+     * @throws RestClientException on 4xx client error or 5xx server error
+     * @throws MetadataException   if organization or spaces are not in the expected format
+     */
     public Map<String, Object> getSpace(String token, String orgaName, String spaceName, Permissions permission) throws RestClientException, MetadataException {
+        JWTClaimsSet claims = parseClaims(token);
+        if (claims == null || claims.getSubject() == null || claims.getExpirationTime() == null) {
+            return fetchSpace(token, orgaName, spaceName, permission);
+        }
+        PermissionKey key = new PermissionKey(claims.getSubject(), orgaName, spaceName.toLowerCase(Locale.ROOT), permission);
+        Instant tokenExpiry = claims.getExpirationTime().toInstant();
+        PermissionEntry entry;
+        try {
+            entry = (PermissionEntry) permissionCache.get(key, k -> loadPermission(token, orgaName, spaceName, permission, tokenExpiry));
+        } catch (LoadingException e) {
+            throw e.getCause();
+        }
+        if (entry.denial() != null) {
+            throw entry.denial();
+        }
+        return entry.space();
+    }
+
+    private PermissionEntry loadPermission(String token, String orgaName, String spaceName, Permissions permission, Instant tokenExpiry) {
+        try {
+            Map<String, Object> space = fetchSpace(token, orgaName, spaceName, permission);
+            Duration entryTtl = space.isEmpty() ? negativeTtl : ttl;
+            return new PermissionEntry(space, null, earliest(Instant.now().plus(entryTtl), tokenExpiry));
+        } catch (HttpStatusCodeException e) {
+            if (e.getStatusCode().value() != HttpStatus.FORBIDDEN.value()) {
+                throw e;
+            }
+            return new PermissionEntry(Collections.emptyMap(), e, earliest(Instant.now().plus(negativeTtl), tokenExpiry));
+        } catch (MetadataException e) {
+            throw new LoadingException(e);
+        }
+    }
+
+    private static Instant earliest(Instant first, Instant second) {
+        return first.isBefore(second) ? first : second;
+    }
+
+    private static JWTClaimsSet parseClaims(String token) {
+        try {
+            return JWTParser.parse(token).getJWTClaimsSet();
+        } catch (ParseException e) {
+            LOG.debug("unable to parse token, permissions are not cached: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private Map<String, Object> fetchSpace(String token, String orgaName, String spaceName, Permissions permission) throws RestClientException,
+            MetadataException {
         Map<String, Object> organization = getOrganization(token, orgaName);
         if (organization == null) {
             throw new MetadataException(UNABLE_GET_ORGANIZATION);
@@ -127,4 +238,53 @@ public class OrganizationManagerClient {
         }
         return value;
     }
+
+    private record PermissionKey(String subject, String organization, String space, Permissions permission) {
+    }
+
+    /**
+     * Cached result of a permission-check
+     *
+     * @param space     the space (empty, if not found)
+     * @param denial    the error returned by organizationmanager, if access was denied
+     * @param expiresAt when the entry expires
+     */
+    private record PermissionEntry(Map<String, Object> space, HttpStatusCodeException denial, Instant expiresAt) {
+    }
+
+    private static class PermissionExpiry implements Expiry<Object, Object> {
+
+        @Override
+        public long expireAfterCreate(@NotNull Object key, @NotNull Object value, long currentTime) {
+            if (value instanceof PermissionEntry entry) {
+                return Math.max(0, Duration.between(Instant.now(), entry.expiresAt()).toNanos());
+            }
+            return 0;
+        }
+
+        @Override
+        public long expireAfterUpdate(@NotNull Object key, @NotNull Object value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(@NotNull Object key, @NotNull Object value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+
+    /**
+     * Transports checked exceptions out of the cache-loader
+     */
+    private static class LoadingException extends RuntimeException {
+
+        LoadingException(MetadataException cause) {
+            super(cause);
+        }
+
+        @Override
+        public synchronized MetadataException getCause() {
+            return (MetadataException) super.getCause();
+        }
+    }
 }
@@ -20,21 +20,28 @@ import org.springframework.http.HttpStatus;
 public class MetadataException extends Exception {
 
     private final HttpStatus httpStatus;
+    private final METADATA_ERROR error;
 
     public MetadataException(METADATA_ERROR error) {
         super(error.code + ": " + error.msg);
         httpStatus = error.status;
+        this.error = error;
     }
 
     public MetadataException(METADATA_ERROR error, String additionalMessage) {
         super(error.code + ": " + error.msg + " " + additionalMessage);
         httpStatus = error.status;
+        this.error = error;
     }
 
     public HttpStatus getHttpStatus() {
         return httpStatus;
     }
 
+    public METADATA_ERROR getError() {
+        return error;
+    }
+
 
     /**
      * Provides the errors to the application.
@@ -64,13 +71,22 @@ public class MetadataException extends Exception {
         INDEX_ALREADY_EXISTS(10030, HttpStatus.CONFLICT, "index already exists"),
         INDEX_NAME_INVALID(10031, HttpStatus.BAD_REQUEST, "index name invalid"),
         OPENSEARCH_BAD_REQUEST(10032, HttpStatus.BAD_REQUEST, "problems with open search request"),
+        VERSION_CONFLICT(10033, HttpStatus.CONFLICT, "document was modified concurrently, please retry"),
+        VERSION_MISMATCH(10034, HttpStatus.PRECONDITION_FAILED, "document has been modified since the given version"),
+        INVALID_VERSION(10035, HttpStatus.BAD_REQUEST, "invalid version, expected \"<seq_no>-<primary_term>\""),
+        INVALID_DOCUMENT(10036, HttpStatus.BAD_REQUEST, "document is not valid json"),
+        SYNC_JOB_NOT_FOUND(10037, HttpStatus.NOT_FOUND, "sync-job not found"),
+        UNABLE_RECORD_EVENT(10038, HttpStatus.SERVICE_UNAVAILABLE, "unable to record event"),
+        INDEX_JOB_NOT_FOUND(10039, HttpStatus.NOT_FOUND, "index-job not found"),
+        INDEX_QUEUE_FULL(10040, HttpStatus.TOO_MANY_REQUESTS, "too many documents waiting to be indexed, please retry later"),
+        PERMISSION_CHECK_FAILED(10041, HttpStatus.SERVICE_UNAVAILABLE, "unable to check permissions with organizationmanager, please retry later"),
         OPENSEARCH_ERROR(10050, HttpStatus.INTERNAL_SERVER_ERROR, "problems with open search service"),
         UNKNOWN_ERROR(10100, HttpStatus.INTERNAL_SERVER_ERROR, "something unexpected happened"),
 
         // unable creating resources
         UNABLE_CREATE_ESROLE(10003, HttpStatus.BAD_REQUEST, "unable to create role"), UNABLE_CREATE_ROLESMAPPING(10004, HttpStatus.INTERNAL_SERVER_ERROR, "unable to create rolesmapping"), UNABLE_CREATE_TENANT(10005, HttpStatus.INTERNAL_SERVER_ERROR, "unable to create tenant"), // unable deleting resources
         UNABLE_DELETE_INDEX(10011, HttpStatus.INTERNAL_SERVER_ERROR, "unable to delete index"), UNABLE_DELETE_ROLE(10012, HttpStatus.INTERNAL_SERVER_ERROR, "unable to delete role"), UNABLE_DELETE_ROLESMAPPING(10013, HttpStatus.INTERNAL_SERVER_ERROR, "unable to delete rolesmapping"), UNABLE_DELETE_TENANT(10014, HttpStatus.INTERNAL_SERVER_ERROR, "unable to delete tenant"), // unable getting resources
-        UNABLE_GET_TENANTS(10024, HttpStatus.BAD_REQUEST, "unable to get tenants"), UNABLE_GET_ORGANIZATION(20023, HttpStatus.BAD_REQUEST, "unable to retrieve organization"), UNABLE_GET_ORGANIZATIONS(20025, HttpStatus.BAD_REQUEST, "unable to retrieve organizations"), UNABLE_GET_SPACES(20026, HttpStatus.BAD_REQUEST, "unable to retrieve spaces"), VALIDATION_ERROR(30000, HttpStatus.BAD_REQUEST, "Validation error"),
+        UNABLE_GET_TENANTS(10024, HttpStatus.BAD_REQUEST, "unable to get tenants"), UNABLE_GET_ROLES(10025, HttpStatus.BAD_REQUEST, "unable to get roles"), UNABLE_GET_ROLESMAPPINGS(10026, HttpStatus.BAD_REQUEST, "unable to get rolesmappings"), UNABLE_GET_ORGANIZATION(20023, HttpStatus.BAD_REQUEST, "unable to retrieve organization"), UNABLE_GET_ORGANIZATIONS(20025, HttpStatus.BAD_REQUEST, "unable to retrieve organizations"), UNABLE_GET_SPACES(20026, HttpStatus.BAD_REQUEST, "unable to retrieve spaces"), VALIDATION_ERROR(30000, HttpStatus.BAD_REQUEST, "Validation error"),
 
 
         OPENSEARCH_CONNECTION_ERROR(50000, HttpStatus.BAD_GATEWAY, "opensearch connection error");
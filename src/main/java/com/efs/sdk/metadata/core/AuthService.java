@@ -16,61 +16,36 @@ limitations under the License.
 package com.efs.sdk.metadata.core;
 
 import com.efs.sdk.metadata.commons.MetadataException;
-import com.efs.sdk.metadata.model.TokenModel;
-import com.efs.sdk.metadata.security.oauth.OAuthConfiguration;
-import com.efs.sdk.metadata.security.oauth.OAuthConfigurationHelper;
+import com.efs.sdk.metadata.security.oauth.ServiceAccountTokenCache;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.util.LinkedMultiValueMap;
-import org.springframework.util.MultiValueMap;
-import org.springframework.web.client.RestTemplate;
-
-import java.util.Objects;
 
 @Service
 public class AuthService {
 
     private static final Logger LOG = LoggerFactory.getLogger(AuthService.class);
 
-    private final OAuthConfiguration oauthConfig;
-
-    private final String clientId;
-    private final String clientSecret;
-    private final RestTemplate restTemplate;
+    private final ServiceAccountTokenCache tokenCache;
 
     /**
      * Constructor.
      *
-     * @param restTemplate             The rest-template
-     * @param clientId                 OIDC-Client-Id (confidential client)
-     * @param clientSecret             OIDC-Client-Secret (confidential client)
-     * @param oAuthConfigurationHelper OAuthConfigurationHelper
+     * @param tokenCache The (shared) cache of the service-account token
      */
-    public AuthService(RestTemplate restTemplate, @Value("${metadata.auth.client-id}") String clientId,
-            @Value("${metadata.auth.client-secret}") String clientSecret, OAuthConfigurationHelper oAuthConfigurationHelper) {
-        this.restTemplate = restTemplate;
-        this.clientId = clientId;
-        this.clientSecret = clientSecret;
-        this.oauthConfig = oAuthConfigurationHelper.getOpenidConfigProperty();
+    public AuthService(ServiceAccountTokenCache tokenCache) {
+        this.tokenCache = tokenCache;
     }
 
 
     /**
-     * Create token for service account
+     * Get (cached) token for service account
      *
-     * @return the created token
+     * @return the access token
      */
     public String getSAAccessToken() throws MetadataException {
         try {
-            MultiValueMap<String, String> params = new LinkedMultiValueMap<>();
-            params.set("grant_type", "client_credentials");
-            params.set("client_id", clientId);
-            params.set("client_secret", clientSecret);
-            params.set("scope", "profile");
-
-            return Objects.requireNonNull(restTemplate.postForEntity(oauthConfig.tokenEndpoint(), params, TokenModel.class).getBody()).getAccessToken();
+            return tokenCache.getToken().getAccessToken();
         } catch (Exception e) {
             LOG.error(e.getMessage(), e);
             throw new MetadataException(MetadataException.METADATA_ERROR.UNABLE_GET_ACCESS_TOKEN);
@@ -0,0 +1,209 @@
+/*
+Copyright (C) 2023 e:fs TechHub GmbH (sdk@efs-techhub.com)
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+        http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+ */
+package com.efs.sdk.metadata.core.context;
+
+import com.efs.sdk.common.domain.dto.OrganizationContextDTO;
+import com.efs.sdk.metadata.commons.MetadataException;
+import com.efs.sdk.metadata.core.AuthService;
+import com.efs.sdk.metadata.core.OrganizationmanagerService;
+import com.efs.sdk.metadata.model.ContextChange;
+import com.efs.sdk.metadata.model.ContextChange.Resource;
+import com.efs.sdk.metadata.model.ReconcilePlan;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Periodically reconciles the OpenSearch-context, so that drift (e.g. roles changed or deleted by hand) is fixed without a manual synchronization.
+ * <p>
+ * Only the replica leading (see {@link ReconcilerLeadership}) reconciles. Each tick (<code>metadata.reconciler.interval</code>) reconciles the next slice
+ * of the organizations ordered by name, sized so that all organizations are reconciled once per <code>metadata.reconciler.cycle</code> - which spreads
+ * the load on the security-API evenly over the cycle.
+ */
+public class DriftReconciler implements SmartLifecycle, MeterBinder {
+
+    private static final Logger LOG = LoggerFactory.getLogger(DriftReconciler.class);
+    private static final String METRIC_PREFIX = "metadata.reconciler.";
+
+    private final OpensearchContextService contextService;
+    private final OrganizationmanagerService organizationmanagerService;
+    private final AuthService authService;
+    private final ReconcilerLeadership leadership;
+    private final Duration interval;
+    private final long ticksPerCycle;
+
+    private final Instant startedAt = Instant.now();
+    private final Map<String, Instant> lastReconciled = new ConcurrentHashMap<>();
+    private final Map<Resource, AtomicLong> drift = new EnumMap<>(Resource.class);
+    private final AtomicLong failures = new AtomicLong();
+    private volatile Set<String> organizationNames = Set.of();
+    private String cursor;
+
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * Constructor.
+     *
+     * @param contextService             The OpensearchContextService
+     * @param organizationmanagerService The OrganizationmanagerService
+     * @param authService                The AuthService (for the token of the service-account)
+     * @param leadership                 The leadership of this replica
+     * @param interval                   The interval between two ticks
+     * @param cycle                      The duration, within which all organizations are reconciled once
+     */
+    public DriftReconciler(OpensearchContextService contextService, OrganizationmanagerService organizationmanagerService, AuthService authService,
+            ReconcilerLeadership leadership, Duration interval, Duration cycle) {
+        this.contextService = contextService;
+        this.organizationmanagerService = organizationmanagerService;
+        this.authService = authService;
+        this.leadership = leadership;
+        this.interval = interval;
+        this.ticksPerCycle = Math.max(1, cycle.toMillis() / Math.max(1, interval.toMillis()));
+        for (Resource resource : Resource.values()) {
+            drift.put(resource, new AtomicLong());
+        }
+    }
+
+    /**
+     * Reconciles the next slice of organizations - if this replica leads
+     */
+    void tick() {
+        if (!leadership.isLeader()) {
+            return;
+        }
+        try {
+            String token = authService.getSAAccessToken();
+            List<OrganizationContextDTO> organizations = new ArrayList<>(organizationmanagerService.getOrganizations(token));
+            organizations.sort(Comparator.comparing(OrganizationContextDTO::getName));
+            Set<String> names = new HashSet<>();
+            organizations.forEach(organization -> names.add(organization.getName()));
+            lastReconciled.keySet().retainAll(names);
+            organizationNames = names;
+
+            List<OrganizationContextDTO> slice = nextSlice(organizations);
+            if (slice.isEmpty()) {
+                return;
+            }
+            ReconcilePlan plan = contextService.reconcileOrganizations(token, false, slice);
+            for (ContextChange change : plan.getChanges()) {
+                drift.get(change.getResource()).incrementAndGet();
+                if (change.getError() != null) {
+                    failures.incrementAndGet();
+                }
+            }
+            failures.addAndGet(plan.getFailures().size());
+            Instant now = Instant.now();
+            slice.forEach(organization -> lastReconciled.put(organization.getName(), now));
+            LOG.info("reconciled {} of {} organizations ({} to {}): {} changes, {} unchanged (successful: {})", slice.size(), organizations.size(),
+                    slice.get(0).getName(), slice.get(slice.size() - 1).getName(), plan.getChanges().size(), plan.getUnchanged(), plan.isSuccessful());
+        } catch (MetadataException | RuntimeException e) {
+            failures.incrementAndGet();
+            LOG.error("unable to reconcile OpenSearch context: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Gets the organizations following the last reconciled one (wrapping around), i.e. a <code>1 / ticksPerCycle</code> share of them
+     *
+     * @param organizations all organizations, ordered by name
+     * @return the slice
+     */
+    List<OrganizationContextDTO> nextSlice(List<OrganizationContextDTO> organizations) {
+        if (organizations.isEmpty()) {
+            return List.of();
+        }
+        int size = (int) Math.min(organizations.size(), (organizations.size() + ticksPerCycle - 1) / ticksPerCycle);
+        int start = 0;
+        if (cursor != null) {
+            while (start < organizations.size() && organizations.get(start).getName().compareTo(cursor) <= 0) {
+                start++;
+            }
+        }
+        List<OrganizationContextDTO> slice = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            slice.add(organizations.get((start + i) % organizations.size()));
+        }
+        cursor = slice.get(size - 1).getName();
+        return slice;
+    }
+
+    /**
+     * @return how long ago the least recently reconciled organization was reconciled (organizations not reconciled yet count from the start)
+     */
+    double lagSeconds() {
+        Instant oldest = Instant.now();
+        for (String organization : organizationNames) {
+            Instant reconciled = lastReconciled.getOrDefault(organization, startedAt);
+            if (reconciled.isBefore(oldest)) {
+                oldest = reconciled;
+            }
+        }
+        return Duration.between(oldest, Instant.now()).toMillis() / 1000d;
+    }
+
+    @Override
+    public void bindTo(@NotNull MeterRegistry registry) {
+        for (Map.Entry<Resource, AtomicLong> entry : drift.entrySet()) {
+            FunctionCounter.builder(METRIC_PREFIX + "drift", entry.getValue(), AtomicLong::get).description("resources changed to fix drift").tag(
+                    "resource", entry.getKey().name().toLowerCase(Locale.ROOT)).register(registry);
+        }
+        FunctionCounter.builder(METRIC_PREFIX + "failures", failures, AtomicLong::get).description("failed ticks and changes").register(registry);
+        TimeGauge.builder(METRIC_PREFIX + "lag", this, TimeUnit.SECONDS, DriftReconciler::lagSeconds).description(
+                "time since the least recently reconciled organization was reconciled").register(registry);
+        Gauge.builder(METRIC_PREFIX + "leader", leadership, l -> l.isLeader() ? 1 : 0).description("whether this replica runs the reconciler").register(
+                registry);
+    }
+
+    @Override
+    public synchronized void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "opensearch-drift-reconciler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long millis = interval.toMillis();
+        scheduler.scheduleWithFixedDelay(this::tick, millis, millis, TimeUnit.MILLISECONDS);
+        LOG.info("reconciling OpenSearch context every {} ({} ticks per cycle)", interval, ticksPerCycle);
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    @Override
+    public synchronized boolean isRunning() {
+        return scheduler != null;
+    }
+}
@@ -0,0 +1,208 @@
+/*
+Copyright (C) 2023 e:fs TechHub GmbH (sdk@efs-techhub.com)
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+        http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+ */
+package com.efs.sdk.metadata.core.context;
+
+import com.efs.sdk.metadata.clients.MetadataOpensearchClient;
+import com.efs.sdk.metadata.clients.OpenSearchRestClient;
+import com.efs.sdk.metadata.commons.MetadataException;
+import com.efs.sdk.metadata.core.context.SecurityCatalogue.Kind;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.StringEntity;
+import org.jetbrains.annotations.NotNull;
+import org.opensearch.client.Request;
+import org.opensearch.client.Response;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.annotation.RequestMethod;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Fingerprints (SHA-256 of the rendered definition) of the roles and rolesmappings last written to the security-API, so that identical writes can be
+ * skipped.
+ * <p>
+ * The fingerprints are kept in the index <code>metadata.context.fingerprint-index</code> (shared by all replicas) and read with a single request per
+ * write. The store is only an optimization: if it cannot be read, everything is written - if it cannot be updated, the next write is not skipped.
+ */
+@Component
+public class FingerprintStore implements MeterBinder {
+
+    private static final Logger LOG = LoggerFactory.getLogger(FingerprintStore.class);
+    private static final String METRIC_NAME = "metadata.context.writes";
+    private static final String PROPERTY_HASH = "hash";
+    private static final ContentType NDJSON = ContentType.create("application/x-ndjson", UTF_8);
+
+    private final MetadataOpensearchClient opensearchClient;
+    private final ObjectMapper objectMapper;
+    private final String index;
+    private final boolean enabled;
+    private final Map<Kind, AtomicLong> skipped = new EnumMap<>(Kind.class);
+    private final Map<Kind, AtomicLong> applied = new EnumMap<>(Kind.class);
+
+    /**
+     * Constructor.
+     *
+     * @param opensearchClient The MetadataOpensearchClient
+     * @param objectMapper     The object-mapper
+     * @param index            The index holding the fingerprints
+     * @param enabled          Whether identical writes are skipped
+     */
+    public FingerprintStore(MetadataOpensearchClient opensearchClient, ObjectMapper objectMapper,
+            @Value("${metadata.context.fingerprint-index:metadata-fingerprints}") String index,
+            @Value("${metadata.context.skip-unchanged:true}") boolean enabled) {
+        this.opensearchClient = opensearchClient;
+        this.objectMapper = objectMapper;
+        this.index = index;
+        this.enabled = enabled;
+        for (Kind kind : Kind.values()) {
+            skipped.put(kind, new AtomicLong());
+            applied.put(kind, new AtomicLong());
+        }
+    }
+
+    /**
+     * Gets the resources, whose definition is identical to the one last written
+     *
+     * @param restClient  The RestClient
+     * @param kind        The kind of the resources
+     * @param definitions The definitions of the resources by their name
+     * @return the names of the unchanged resources
+     */
+    public Set<String> unchanged(OpenSearchRestClient restClient, Kind kind, Map<String, JsonNode> definitions) {
+        if (!enabled || definitions.isEmpty()) {
+            return Set.of();
+        }
+        Map<String, Map<String, Object>> fingerprints;
+        try {
+            fingerprints = opensearchClient.getSourceDocuments(restClient, index, definitions.keySet().stream().map(name -> docid(kind, name)).toList(),
+                    PROPERTY_HASH);
+        } catch (MetadataException | RuntimeException e) {
+            LOG.warn("unable to read fingerprints of {}: {}", kind, e.getMessage());
+            return Set.of();
+        }
+        Set<String> unchanged = new HashSet<>();
+        for (Map.Entry<String, JsonNode> definition : definitions.entrySet()) {
+            Map<String, Object> fingerprint = fingerprints.get(docid(kind, definition.getKey()));
+            if (fingerprint != null && fingerprint(definition.getValue()).equals(fingerprint.get(PROPERTY_HASH))) {
+                unchanged.add(definition.getKey());
+            }
+        }
+        return unchanged;
+    }
+
+    /**
+     * Records writes as skipped
+     *
+     * @param kind  The kind of the resources
+     * @param count The number of resources not written
+     */
+    public void skipped(Kind kind, int count) {
+        skipped.get(kind).addAndGet(count);
+    }
+
+    /**
+     * Records the fingerprints of the resources written and removes those of the resources deleted
+     *
+     * @param restClient  The RestClient
+     * @param kind        The kind of the resources
+     * @param definitions The definitions written by the name of the resource
+     * @param removals    The names of the resources deleted
+     */
+    public void applied(OpenSearchRestClient restClient, Kind kind, Map<String, JsonNode> definitions, Collection<String> removals) {
+        applied.get(kind).addAndGet(definitions.size() + (long) removals.size());
+        if (!enabled || (definitions.isEmpty() && removals.isEmpty())) {
+            return;
+        }
+        String updated = Instant.now().toString();
+        StringBuilder body = new StringBuilder();
+        for (Map.Entry<String, JsonNode> definition : definitions.entrySet()) {
+            ObjectNode fingerprint = objectMapper.createObjectNode().put("kind", kind.name()).put("name", definition.getKey()).put(PROPERTY_HASH,
+                    fingerprint(definition.getValue())).put("updated", updated);
+            body.append(action("index", kind, definition.getKey())).append('\n').append(fingerprint).append('\n');
+        }
+        for (String removal : removals) {
+            body.append(action("delete", kind, removal)).append('\n');
+        }
+        sendBulk(restClient, body.toString());
+    }
+
+    /**
+     * Computes the fingerprint of a definition
+     *
+     * @param definition The definition
+     * @return the hex-encoded SHA-256 of the serialized definition
+     */
+    String fingerprint(JsonNode definition) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(objectMapper.writeValueAsBytes(definition)));
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("unable to compute fingerprint", e);
+        }
+    }
+
+    private String action(String action, Kind kind, String name) {
+        ObjectNode metadata = objectMapper.createObjectNode();
+        metadata.putObject(action).put("_index", index).put("_id", docid(kind, name));
+        return metadata.toString();
+    }
+
+    private static String docid(Kind kind, String name) {
+        return kind.name().toLowerCase(Locale.ROOT) + ":" + name;
+    }
+
+    private void sendBulk(OpenSearchRestClient restClient, String body) {
+        Request request = new Request(RequestMethod.POST.name(), "/_bulk");
+        request.setEntity(new StringEntity(body, NDJSON));
+        try {
+            Response response = restClient.performRequest(request);
+            try (InputStream content = response.getEntity().getContent()) {
+                if (objectMapper.readTree(content).path("errors").asBoolean()) {
+                    LOG.warn("unable to update some fingerprints");
+                }
+            }
+        } catch (IOException e) {
+            LOG.warn("unable to update fingerprints: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void bindTo(@NotNull MeterRegistry registry) {
+        for (Kind kind : Kind.values()) {
+            String resource = kind.name().toLowerCase(Locale.ROOT);
+            FunctionCounter.builder(METRIC_NAME, skipped.get(kind), AtomicLong::get).description("writes to the security-API skipped as unchanged").tags(
+                    "resource", resource, "result", "skipped").register(registry);
+            FunctionCounter.builder(METRIC_NAME, applied.get(kind), AtomicLong::get).description("writes to the security-API applied").tags("resource",
+                    resource, "result", "applied").register(registry);
+        }
+    }
+}
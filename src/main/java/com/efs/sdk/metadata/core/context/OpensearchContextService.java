@@ -21,37 +21,64 @@ import com.efs.sdk.common.domain.dto.SpaceContextDTO;
 import com.efs.sdk.common.domain.model.Capability;
 import com.efs.sdk.common.domain.model.Confidentiality;
 import com.efs.sdk.logging.AuditLogger;
+import com.efs.sdk.metadata.clients.OpenSearchRestClient;
 import com.efs.sdk.metadata.clients.OpenSearchRestClientBuilder;
 import com.efs.sdk.metadata.commons.MetadataException;
 import com.efs.sdk.metadata.core.OrganizationmanagerService;
+import com.efs.sdk.metadata.core.context.SecurityCatalogue.Kind;
 import com.efs.sdk.metadata.helper.OpensearchHelper;
 import com.efs.sdk.metadata.helper.Utils;
+import com.efs.sdk.metadata.model.ContextChange;
+import com.efs.sdk.metadata.model.ContextChange.Operation;
+import com.efs.sdk.metadata.model.ContextChange.Resource;
+import com.efs.sdk.metadata.model.ReconcilePlan;
+import com.efs.sdk.metadata.model.SyncReport;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import org.apache.http.entity.ByteArrayEntity;
 import org.apache.http.entity.ContentType;
 import org.apache.http.entity.StringEntity;
 import org.apache.http.util.EntityUtils;
 import org.opensearch.client.Request;
 import org.opensearch.client.Response;
 import org.opensearch.client.ResponseException;
-import org.opensearch.client.RestClient;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
 import org.springframework.stereotype.Service;
 import org.springframework.web.bind.annotation.RequestMethod;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.ConnectException;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.stream.Collectors;
 
 import static com.efs.sdk.metadata.commons.MetadataException.METADATA_ERROR.*;
 import static java.lang.String.format;
 
 @Service
-public class OpensearchContextService {
+public class OpensearchContextService implements DisposableBean {
 
+    /**
+     * Supplies the token for the requests of a (long-running) synchronization
+     */
+    @FunctionalInterface
+    public interface TokenSupplier {
+        String get() throws MetadataException;
+    }
 
     static final String MEASUREMENT_ALIAS = "measurements";
     static final String ENDPOINT_ALIAS = "/_alias";
@@ -62,6 +89,10 @@ public class OpensearchContextService {
     static final String SPC_ALL_PUBLIC = "spc_all_public";
 
     private static final Logger LOG = LoggerFactory.getLogger(OpensearchContextService.class);
+    private static final String STEP_TENANT = "tenant";
+    private static final String STEP_ROLES = "roles";
+    private static final String STEP_ROLESMAPPINGS = "rolesmappings";
+    private static final String STEP_INDEX = "index";
 
     private final OpenSearchRestClientBuilder clientBuilder;
 
@@ -72,15 +103,40 @@ public class OpensearchContextService {
     private final OpensearchHelper opensearchHelper;
 
     private final OrganizationmanagerService organizationmanagerService;
+    private final SecurityCatalogue securityCatalogue;
+    private final FingerprintStore fingerprintStore;
+
+    /**
+     * Number of organizations and spaces synchronized concurrently
+     */
+    private final int syncParallelism;
+    /**
+     * Limits the number of concurrent requests to the cluster
+     */
+    private final Semaphore requestBudget;
+    /**
+     * Serializes the writes of each kind of security-resource - the security-plugin keeps each kind in a single configuration-document, so concurrent
+     * writes of the same kind conflict (e.g. spaces synchronized in parallel)
+     */
+    private final Map<Kind, Lock> securityWriteLocks = new EnumMap<>(Kind.class);
+    /**
+     * Runs the independent steps of provisioning an organization or space concurrently
+     */
+    private final ExecutorService provisioningExecutor;
 
     /**
      * Constructor.
      *
      * @param organizationmanagerService The organizationmanager service
+     * @param securityCatalogue          The names of the existing tenants, roles and rolesmappings
+     * @param fingerprintStore           The fingerprints of the roles and rolesmappings last written
+     * @param syncParallelism            Number of organizations and spaces synchronized concurrently
+     * @param maxConcurrentRequests      Maximum number of concurrent requests to the cluster
      */
     public OpensearchContextService(OrganizationmanagerService organizationmanagerService, OpenSearchRestClientBuilder clientBuilder,
-            OpensearchHelper opensearchHelper, ObjectMapper objectMapper,
-            @Value("${metadata.opensearch.security-endpoint}") String opensearchSecurityEndpoint) {
+            OpensearchHelper opensearchHelper, ObjectMapper objectMapper, SecurityCatalogue securityCatalogue,
+            FingerprintStore fingerprintStore, @Value("${metadata.opensearch.security-endpoint}") String opensearchSecurityEndpoint,
+            @Value("${metadata.sync.parallelism:4}") int syncParallelism, @Value("${metadata.sync.max-concurrent-requests:8}") int maxConcurrentRequests) {
         this.clientBuilder = clientBuilder;
         this.objectMapper = objectMapper;
         this.endpointRoles = opensearchSecurityEndpoint + "/roles";
@@ -88,22 +144,41 @@ public class OpensearchContextService {
         this.endpointTenants = opensearchSecurityEndpoint + "/tenants";
         this.opensearchHelper = opensearchHelper;
         this.organizationmanagerService = organizationmanagerService;
+        this.securityCatalogue = securityCatalogue;
+        this.fingerprintStore = fingerprintStore;
+        this.syncParallelism = Math.max(1, syncParallelism);
+        this.requestBudget = new Semaphore(Math.max(1, maxConcurrentRequests));
+        for (Kind kind : Kind.values()) {
+            this.securityWriteLocks.put(kind, new ReentrantLock());
+        }
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("opensearch-provision-");
+        threadFactory.setDaemon(true);
+        this.provisioningExecutor = Executors.newFixedThreadPool(Math.max(1, maxConcurrentRequests), threadFactory);
+    }
+
+    @Override
+    public void destroy() {
+        provisioningExecutor.shutdownNow();
+    }
+
+    private OpenSearchRestClient restClient(String token) {
+        return clientBuilder.buildRestClient(token).withRequestBudget(requestBudget);
     }
 
     /**
      * Creates OpenSearch access control objects for a given organization.
-     * This includes creating a tenant, organization roles, and organization role mappings.
-     * The order of method calls within this method is important for proper setup.
+     * This includes creating a tenant, organization roles, and organization role mappings - in this order, as each depends on the former.
      *
      * @param token        The access token used for authenticating API calls
      * @param organization The organization for which access control objects will be created
      * @throws MetadataException Thrown if any error occurs during the creation of access control objects
      */
     public void createOrganizationContext(String token, OrganizationContextDTO organization) throws MetadataException {
-        // Order of method calls is important!
-        createTenant(organization, token);
-        createOrganizationRoles(organization, token);
-        createOrganizationRolesMappings(organization, token);
+        new ProvisioningGraph(provisioningExecutor)
+                .step(STEP_TENANT, () -> createTenant(organization, token))
+                .step(STEP_ROLES, () -> createOrganizationRoles(organization, token), STEP_TENANT)
+                .step(STEP_ROLESMAPPINGS, () -> createOrganizationRolesMappings(organization, token), STEP_ROLES)
+                .await();
     }
 
     /**
@@ -144,11 +219,10 @@ public class OpensearchContextService {
      */
     public void createTenant(String tenantName, String tenantDescription, String token) throws MetadataException {
 
-        RestClient restClient = clientBuilder.buildRestClient(token);
-        String jsonEntity = format("{\"description\":\"%s\"}", tenantDescription);
-        Set<String> existingTenants = getTenants(restClient);
+        OpenSearchRestClient restClient = restClient(token);
+        String jsonEntity = tenantDefinition(tenantDescription).toString();
 
-        if (existingTenants.contains(tenantName)) {
+        if (securityCatalogue.contains(Kind.TENANTS, tenantName, () -> getTenants(restClient))) {
             LOG.warn("tenant '{}' already exists", tenantName);
             return;
         }
@@ -156,7 +230,8 @@ public class OpensearchContextService {
         LOG.debug("creating tenant '{}': {}", tenantName, jsonEntity);
 
         String endpoint = format("%s/%s", endpointTenants, tenantName);
-        putObject(restClient, endpoint, jsonEntity, UNABLE_CREATE_TENANT);
+        writeSecurity(Kind.TENANTS, () -> putObject(restClient, endpoint, jsonEntity, UNABLE_CREATE_TENANT));
+        securityCatalogue.added(Kind.TENANTS, tenantName);
     }
 
     /**
@@ -176,21 +251,35 @@ public class OpensearchContextService {
      * @throws MetadataException if there is an error creating the roles.
      */
     public void createOrganizationRoles(OrganizationContextDTO organization, String token) throws MetadataException {
+        createOrganizationRoles(organization, token, true);
+    }
+
+    private void createOrganizationRoles(OrganizationContextDTO organization, String token, boolean skipUnchanged) throws MetadataException {
+        patchResources(restClient(token), Kind.ROLES, organizationRoles(organization), List.of(), skipUnchanged, UNABLE_CREATE_ESROLE);
+    }
 
-        RestClient restClient = clientBuilder.buildRestClient(token);
+    /**
+     * Gets the roles of the given organization (see {@link #createOrganizationRoles(OrganizationContextDTO, String)})
+     *
+     * @param organization The organization
+     * @return the definitions of the roles by their name
+     */
+    Map<String, JsonNode> organizationRoles(OrganizationContextDTO organization) {
         String organizationName = organization.getName();
+        Map<String, JsonNode> roles = new LinkedHashMap<>();
 
         if (Confidentiality.PUBLIC.equals(organization.getConfidentiality())) {
-            createRole(restClient, opensearchHelper.getTenantRoleRequest(KIBANA_ALL_READ, organizationName),
-                    opensearchHelper.getOrganizationRoleName(organizationName, PUBLIC));
+            roles.put(opensearchHelper.getOrganizationRoleName(organizationName, PUBLIC), opensearchHelper.getTenantRole(KIBANA_ALL_READ,
+                    organizationName));
         } else {
             for (RoleScopeOrganization scope : RoleScopeOrganization.values()) {
                 for (String role : scope.getRoles()) {
-                    createRole(restClient, opensearchHelper.getTenantRoleRequest(scope.getPermission(), organizationName),
-                            opensearchHelper.getOrganizationRoleName(organizationName, role));
+                    roles.put(opensearchHelper.getOrganizationRoleName(organizationName, role), opensearchHelper.getTenantRole(scope.getPermission(),
+                            organizationName));
                 }
             }
         }
+        return roles;
     }
 
     /**
@@ -201,21 +290,36 @@ public class OpensearchContextService {
      * @throws MetadataException if there is an error creating the role mappings.
      */
     public void createOrganizationRolesMappings(OrganizationContextDTO organization, String token) throws MetadataException {
+        createOrganizationRolesMappings(organization, token, true);
+    }
 
-        RestClient restClient = clientBuilder.buildRestClient(token);
+    private void createOrganizationRolesMappings(OrganizationContextDTO organization, String token, boolean skipUnchanged) throws MetadataException {
+        patchResources(restClient(token), Kind.ROLESMAPPINGS, organizationRolesMappings(organization), List.of(), skipUnchanged,
+                UNABLE_CREATE_ROLESMAPPING);
+    }
+
+    /**
+     * Gets the rolesmappings of the given organization (see {@link #createOrganizationRolesMappings(OrganizationContextDTO, String)})
+     *
+     * @param organization The organization
+     * @return the definitions of the rolesmappings by the name of their role
+     */
+    Map<String, JsonNode> organizationRolesMappings(OrganizationContextDTO organization) {
         String organizationName = organization.getName();
+        Map<String, JsonNode> rolesMappings = new LinkedHashMap<>();
 
         if (Confidentiality.PUBLIC.equals(organization.getConfidentiality())) {
-            createRolesMapping(restClient, opensearchHelper.getOrganizationRoleName(organizationName, PUBLIC),
-                    opensearchHelper.getRolesMappingJson(Collections.singletonList(ORG_ALL_PUBLIC)));
+            rolesMappings.put(opensearchHelper.getOrganizationRoleName(organizationName, PUBLIC),
+                    opensearchHelper.getRolesMapping(Collections.singletonList(ORG_ALL_PUBLIC)));
         } else {
             for (RoleScopeOrganization scope : RoleScopeOrganization.values()) {
                 for (String role : scope.getRoles()) {
-                    createRolesMapping(restClient, opensearchHelper.getOrganizationRoleName(organizationName, role),
-                            opensearchHelper.getRolesMappingJson(Collections.singletonList(format("org_%s_%s", organizationName, role))));
+                    rolesMappings.put(opensearchHelper.getOrganizationRoleName(organizationName, role),
+                            opensearchHelper.getRolesMapping(Collections.singletonList(format("org_%s_%s", organizationName, role))));
                 }
             }
         }
+        return rolesMappings;
     }
 
     /**
@@ -225,10 +329,14 @@ public class OpensearchContextService {
      * @return the names of all tenants
      * @throws MetadataException thrown on io-errors
      */
-    private Set<String> getTenants(RestClient restClient) throws MetadataException {
+    private Set<String> getTenants(OpenSearchRestClient restClient) throws MetadataException {
         return getResourceNames(restClient, endpointTenants, UNABLE_GET_TENANTS);
     }
 
+    private JsonNode tenantDefinition(String tenantDescription) {
+        return objectMapper.createObjectNode().put("description", tenantDescription);
+    }
+
     /**
      * helper function that puts an object to an opensearch endpoint
      *
@@ -238,7 +346,8 @@ public class OpensearchContextService {
      * @param metadataError The metadata error type
      * @throws MetadataException thrown on io-errors
      */
-    private void putObject(RestClient restClient, String endpoint, String requestBody, MetadataException.METADATA_ERROR metadataError) throws MetadataException {
+    private void putObject(OpenSearchRestClient restClient, String endpoint, String requestBody, MetadataException.METADATA_ERROR metadataError)
+            throws MetadataException {
         try {
             StringEntity entity = new StringEntity(requestBody);
             entity.setContentType(ContentType.APPLICATION_JSON.toString());
@@ -253,29 +362,98 @@ public class OpensearchContextService {
     }
 
     /**
-     * Creates a role with name
+     * Creates (or replaces) and removes resources of a security-endpoint with a single JSON-Patch request - i.e. with a single update of the
+     * security-index instead of one per resource
+     * <p>
+     * With <code>skipUnchanged</code> resources are not written, if they exist and their definition is identical to the one last written (see
+     * {@link FingerprintStore}).
      *
-     * @param restClient  The RestClient
-     * @param requestBody The request Body
-     * @param roleName    The name of the role
+     * @param restClient    The RestClient
+     * @param kind          The kind of the resources
+     * @param upserts       The definitions of the resources to create or replace by their name
+     * @param removals      The names of the resources to remove (have to exist)
+     * @param skipUnchanged Whether resources written identically before are skipped
+     * @param metadataError The metadata error type
      * @throws MetadataException thrown on io-errors
      */
-    private void createRole(RestClient restClient, String requestBody, String roleName) throws MetadataException {
-        LOG.debug("creating role {}", roleName);
-        String endpoint = format("%s/%s", endpointRoles, roleName);
-        putObject(restClient, endpoint, requestBody, UNABLE_CREATE_ESROLE);
+    private void patchResources(OpenSearchRestClient restClient, Kind kind, Map<String, JsonNode> upserts, Collection<String> removals,
+            boolean skipUnchanged, MetadataException.METADATA_ERROR metadataError) throws MetadataException {
+        String endpoint = switch (kind) {
+            case TENANTS -> endpointTenants;
+            case ROLES -> endpointRoles;
+            case ROLESMAPPINGS -> endpointRolesMapping;
+        };
+        Map<String, JsonNode> writes = skipUnchanged ? changedResources(restClient, kind, endpoint, upserts) : upserts;
+        if (writes.isEmpty() && removals.isEmpty()) {
+            return;
+        }
+        ArrayNode operations = objectMapper.createArrayNode();
+        for (Map.Entry<String, JsonNode> upsert : writes.entrySet()) {
+            operations.addObject().put("op", "add").put("path", jsonPointer(upsert.getKey())).set("value", upsert.getValue());
+        }
+        for (String removal : removals) {
+            operations.addObject().put("op", "remove").put("path", jsonPointer(removal));
+        }
+        LOG.debug("patching {}: {} created/replaced, {} removed", endpoint, writes.keySet(), removals);
+        writeSecurity(kind, () -> {
+            try {
+                Request request = new Request(RequestMethod.PATCH.name(), endpoint);
+                request.setEntity(new ByteArrayEntity(objectMapper.writeValueAsBytes(operations), ContentType.APPLICATION_JSON));
+                restClient.performRequest(request);
+            } catch (ConnectException e) {
+                LOG.error(e.getMessage(), e);
+                throw new MetadataException(OPENSEARCH_CONNECTION_ERROR);
+            } catch (IOException e) {
+                LOG.error(e.getMessage(), e);
+                throw new MetadataException(metadataError);
+            }
+        });
+        writes.keySet().forEach(name -> securityCatalogue.added(kind, name));
+        removals.forEach(name -> securityCatalogue.removed(kind, name));
+        fingerprintStore.applied(restClient, kind, writes, removals);
     }
 
     /**
-     * @param restClient       The RestClient
-     * @param roleName         The full role name in the format <org>_<spc>_("user", "supplier", "trustee")
-     * @param rolesMappingJson The mappings as a Json String
-     * @throws MetadataException Thrown on input-output errors
+     * Writes the given kind of security-resource, while no other write of the same kind is in progress (see {@link #securityWriteLocks})
+     *
+     * @param kind  The kind of the resources written
+     * @param write The write
+     * @throws MetadataException thrown by the write
      */
-    private void createRolesMapping(RestClient restClient, String roleName, String rolesMappingJson) throws MetadataException {
-        LOG.debug("creating rolesmapping {}", roleName);
-        String endpoint = format("%s/%s", endpointRolesMapping, roleName);
-        putObject(restClient, endpoint, rolesMappingJson, UNABLE_CREATE_ROLESMAPPING);
+    private void writeSecurity(Kind kind, ProvisioningGraph.Step write) throws MetadataException {
+        Lock lock = securityWriteLocks.get(kind);
+        lock.lock();
+        try {
+            write.run();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gets the resources, that have to be written - i.e. those not existing or written with a different definition before
+     */
+    private Map<String, JsonNode> changedResources(OpenSearchRestClient restClient, Kind kind, String endpoint, Map<String, JsonNode> upserts)
+            throws MetadataException {
+        Set<String> unchanged = fingerprintStore.unchanged(restClient, kind, upserts);
+        if (unchanged.isEmpty()) {
+            return upserts;
+        }
+        Map<String, JsonNode> changed = new LinkedHashMap<>();
+        for (Map.Entry<String, JsonNode> upsert : upserts.entrySet()) {
+            // resources deleted in the meantime (e.g. by hand) have to be written again
+            if (!unchanged.contains(upsert.getKey()) || !securityCatalogue.contains(kind, upsert.getKey(), () -> getResourceNames(restClient, endpoint,
+                    Kind.ROLES.equals(kind) ? UNABLE_GET_ROLES : UNABLE_GET_ROLESMAPPINGS))) {
+                changed.put(upsert.getKey(), upsert.getValue());
+            }
+        }
+        fingerprintStore.skipped(kind, upserts.size() - changed.size());
+        LOG.debug("skipping unchanged {}: {}", endpoint, upserts.keySet().stream().filter(name -> !changed.containsKey(name)).toList());
+        return changed;
+    }
+
+    private static String jsonPointer(String name) {
+        return "/" + name.replace("~", "~0").replace("/", "~1");
     }
 
     /**
@@ -286,7 +464,8 @@ public class OpensearchContextService {
      * @return the keys of the endpoints returnvalue
      * @throws MetadataException thrown on io-errors
      */
-    private Set<String> getResourceNames(RestClient restClient, String endpoint, MetadataException.METADATA_ERROR metadataError) throws MetadataException {
+    private Set<String> getResourceNames(OpenSearchRestClient restClient, String endpoint, MetadataException.METADATA_ERROR metadataError)
+            throws MetadataException {
         try {
             Request request = new Request(RequestMethod.GET.name(), endpoint);
             Response response = restClient.performRequest(request);
@@ -301,7 +480,7 @@ public class OpensearchContextService {
 
     /**
      * Deletes OpenSearch access control objects associated with a given organization.
-     * This includes deleting organization role mappings, organization roles, and the tenant.
+     * This includes deleting organization role mappings, organization roles, and the tenant - concurrently, as they do not depend on each other.
      *
      * @param token            The access token used for authenticating API calls
      * @param organizationName The organization identifier for which access control objects will be deleted
@@ -309,9 +488,11 @@ public class OpensearchContextService {
      */
     public void deleteOrganizationContext(String token, String organizationName) throws MetadataException {
         LOG.debug("deleting opensearch resources for organization '{}'", organizationName);
-        deleteOrganizationRolesMappings(organizationName, token);
-        deleteOrganizationRoles(organizationName, token);
-        deleteTenant(organizationName, token);
+        new ProvisioningGraph(provisioningExecutor)
+                .step(STEP_ROLESMAPPINGS, () -> deleteOrganizationRolesMappings(organizationName, token))
+                .step(STEP_ROLES, () -> deleteOrganizationRoles(organizationName, token))
+                .step(STEP_TENANT, () -> deleteTenant(organizationName, token))
+                .await();
     }
 
     /**
@@ -323,13 +504,9 @@ public class OpensearchContextService {
      */
     public void deleteOrganizationRolesMappings(String organizationName, String token) throws MetadataException {
 
-        RestClient restClient = clientBuilder.buildRestClient(token);
-
-        deleteRolesMapping(restClient, opensearchHelper.getOrganizationRoleName(organizationName, PUBLIC));
-        for (RoleScopeOrganization scope : RoleScopeOrganization.values()) {
-            for (String role : scope.getRoles()) {
-                deleteRolesMapping(restClient, opensearchHelper.getOrganizationRoleName(organizationName, role));
-            }
+        OpenSearchRestClient restClient = restClient(token);
+        for (String roleName : organizationRoleNames(organizationName)) {
+            deleteRolesMapping(restClient, roleName);
         }
     }
 
@@ -341,14 +518,27 @@ public class OpensearchContextService {
      * @throws MetadataException thrown on io-errors
      */
     public void deleteOrganizationRoles(String organization, String token) throws MetadataException {
-        RestClient restClient = clientBuilder.buildRestClient(token);
+        OpenSearchRestClient restClient = restClient(token);
+        for (String roleName : organizationRoleNames(organization)) {
+            deleteRole(restClient, roleName);
+        }
+    }
 
-        deleteRole(restClient, opensearchHelper.getOrganizationRoleName(organization, PUBLIC));
+    /**
+     * Gets the names of all roles (and rolesmappings), that could exist for the given organization - regardless of its confidentiality
+     *
+     * @param organizationName The name of the organization
+     * @return the names of the roles
+     */
+    List<String> organizationRoleNames(String organizationName) {
+        List<String> roleNames = new ArrayList<>();
+        roleNames.add(opensearchHelper.getOrganizationRoleName(organizationName, PUBLIC));
         for (RoleScopeOrganization scope : RoleScopeOrganization.values()) {
             for (String role : scope.getRoles()) {
-                deleteRole(restClient, opensearchHelper.getOrganizationRoleName(organization, role));
+                roleNames.add(opensearchHelper.getOrganizationRoleName(organizationName, role));
             }
         }
+        return roleNames;
     }
 
     /**
@@ -360,11 +550,12 @@ public class OpensearchContextService {
      */
     public void deleteTenant(String tenantName, String token) throws MetadataException {
 
-        RestClient restClient = clientBuilder.buildRestClient(token);
+        OpenSearchRestClient restClient = restClient(token);
 
         LOG.debug("deleting tenant '{}'", tenantName);
         String endpoint = format("%s/%s", endpointTenants, tenantName);
-        deleteObject(restClient, endpoint, UNABLE_DELETE_TENANT);
+        writeSecurity(Kind.TENANTS, () -> deleteObject(restClient, endpoint, UNABLE_DELETE_TENANT));
+        securityCatalogue.removed(Kind.TENANTS, tenantName);
     }
 
     /**
@@ -374,10 +565,11 @@ public class OpensearchContextService {
      * @param roleName   The name of the rolesmapping
      * @throws MetadataException thrown on io-errors
      */
-    private void deleteRolesMapping(RestClient restClient, String roleName) throws MetadataException {
+    private void deleteRolesMapping(OpenSearchRestClient restClient, String roleName) throws MetadataException {
         LOG.debug("deleting rolesmapping '{}'", roleName);
         String endpoint = format("%s/%s", endpointRolesMapping, roleName);
-        deleteObject(restClient, endpoint, UNABLE_DELETE_ROLESMAPPING);
+        writeSecurity(Kind.ROLESMAPPINGS, () -> deleteObject(restClient, endpoint, UNABLE_DELETE_ROLESMAPPING));
+        securityCatalogue.removed(Kind.ROLESMAPPINGS, roleName);
     }
 
     /**
@@ -388,12 +580,12 @@ public class OpensearchContextService {
      * @throws MetadataException thrown on io-errors
      */
 
-    private void deleteRole(RestClient restClient, String roleName) throws MetadataException {
+    private void deleteRole(OpenSearchRestClient restClient, String roleName) throws MetadataException {
 
         LOG.debug("deleting role '{}'", roleName);
         String endpoint = format("%s/%s", endpointRoles, roleName);
-        deleteObject(restClient, endpoint, UNABLE_DELETE_ROLE);
-
+        writeSecurity(Kind.ROLES, () -> deleteObject(restClient, endpoint, UNABLE_DELETE_ROLE));
+        securityCatalogue.removed(Kind.ROLES, roleName);
     }
 
     /**
@@ -404,7 +596,7 @@ public class OpensearchContextService {
      * @param metadataError the type of metadata-error
      * @throws MetadataException thrown on io-errors
      */
-    private void deleteObject(RestClient restClient, String endpoint, MetadataException.METADATA_ERROR metadataError) throws MetadataException {
+    private void deleteObject(OpenSearchRestClient restClient, String endpoint, MetadataException.METADATA_ERROR metadataError) throws MetadataException {
         try {
             Request request = new Request(RequestMethod.DELETE.name(), endpoint);
             restClient.performRequest(request);
@@ -435,9 +627,12 @@ public class OpensearchContextService {
      * @throws MetadataException Thrown if any error occurs during the deletion of access control objects
      */
     public void deleteSpaceContext(String token, String spaceName, String organizationName) throws MetadataException {
-        deleteSpaceRoles(organizationName, spaceName, token);
-        deleteSpaceRolesMappings(organizationName, spaceName, token);
-        deleteTenant(format("%s_%s", organizationName, spaceName), token);
+        // roles, rolesmappings and tenant do not depend on each other
+        new ProvisioningGraph(provisioningExecutor)
+                .step(STEP_ROLES, () -> deleteSpaceRoles(organizationName, spaceName, token))
+                .step(STEP_ROLESMAPPINGS, () -> deleteSpaceRolesMappings(organizationName, spaceName, token))
+                .step(STEP_TENANT, () -> deleteTenant(format("%s_%s", organizationName, spaceName), token))
+                .await();
         // TODO: how to handle? see capability ticket
         //        deleteMeasurementIndex(organizationName, spaceName, token);
     }
@@ -453,13 +648,9 @@ public class OpensearchContextService {
      * @throws MetadataException if there is an error deleting the roles.
      */
     public void deleteSpaceRoles(String organizationName, String spaceName, String token) throws MetadataException {
-        RestClient restClient = clientBuilder.buildRestClient(token);
-
-        deleteRole(restClient, opensearchHelper.getSpaceRoleName(organizationName, spaceName, ALL_PUBLIC));
-        for (RoleScopeSpace scope : RoleScopeSpace.values()) {
-            for (String role : scope.getRoles()) {
-                deleteRole(restClient, opensearchHelper.getSpaceRoleName(organizationName, spaceName, role));
-            }
+        OpenSearchRestClient restClient = restClient(token);
+        for (String roleName : spaceRoleNames(organizationName, spaceName)) {
+            deleteRole(restClient, roleName);
         }
     }
 
@@ -474,21 +665,32 @@ public class OpensearchContextService {
      * @throws MetadataException if there is an error deleting the role mappings.
      */
     public void deleteSpaceRolesMappings(String organizationName, String spaceName, String token) throws MetadataException {
-        RestClient restClient = clientBuilder.buildRestClient(token);
-
-        String roleName = opensearchHelper.getSpaceRoleName(organizationName, spaceName, ALL_PUBLIC);
-        deleteRolesMapping(restClient, roleName);
+        OpenSearchRestClient restClient = restClient(token);
+        for (String roleName : spaceRoleNames(organizationName, spaceName)) {
+            deleteRolesMapping(restClient, roleName);
+        }
+    }
 
+    /**
+     * Gets the names of all roles (and rolesmappings), that could exist for the given space - regardless of its confidentiality
+     *
+     * @param organizationName The name of the organization to which the space belongs.
+     * @param spaceName        The name of the space
+     * @return the names of the roles
+     */
+    List<String> spaceRoleNames(String organizationName, String spaceName) {
+        List<String> roleNames = new ArrayList<>();
+        roleNames.add(opensearchHelper.getSpaceRoleName(organizationName, spaceName, ALL_PUBLIC));
         for (RoleScopeSpace scope : RoleScopeSpace.values()) {
             for (String role : scope.getRoles()) {
-                roleName = opensearchHelper.getSpaceRoleName(organizationName, spaceName, role);
-                deleteRolesMapping(restClient, roleName);
+                roleNames.add(opensearchHelper.getSpaceRoleName(organizationName, spaceName, role));
             }
         }
+        return roleNames;
     }
 
     private void deleteMeasurementIndex(String orgName, String spcName, String token) throws MetadataException {
-        RestClient restClient = clientBuilder.buildRestClient(token);
+        OpenSearchRestClient restClient = restClient(token);
 
         // delete measurement index
         String indexName = format("%s_%s_%s", orgName, spcName, MEASUREMENT_ALIAS);
@@ -504,46 +706,454 @@ public class OpensearchContextService {
 
     /**
      * Recovers roles and role mappings
+     * <p>
+     * Organizations and spaces are synchronized concurrently (<code>metadata.sync.parallelism</code>), each space in the order tenant, roles,
+     * rolesmappings and index. A failing organization or space is reported and does not abort the synchronization of the others.
      *
      * @param token The Token
-     * @throws MetadataException thrown on MetadataException Errors
+     * @return the report of the synchronization
+     * @throws MetadataException thrown if the organizations could not be retrieved
      */
-    public void syncOpensearch(String token) throws MetadataException {
-        List<OrganizationContextDTO> organizations = organizationmanagerService.getOrganizations(token);
+    public SyncReport syncOpensearch(String token) throws MetadataException {
+        SyncReport report = new SyncReport();
+        syncOpensearch(() -> token, Utils.getSubjectAsToken(), report, SyncProgress.NONE, false);
+        return report;
+    }
 
-        for (OrganizationContextDTO organization : organizations) {
-            AuditLogger.info(LOG, "Updating OpenSearch context for organization {}", Utils.getSubjectAsToken(),
-                    organization.getName());
-            updateOrganizationContext(organization, token);
+    /**
+     * Recovers roles and role mappings, reporting into the given report while running
+     * <p>
+     * Organizations completed by a previous run (see {@link SyncProgress#isCompleted(String)}) are skipped. The token is obtained per organization and
+     * space, so that long-running synchronizations do not outlive it.
+     *
+     * @param tokens   Supplies the token
+     * @param subject  The subject, on whose behalf the synchronization runs (for the audit-log)
+     * @param report   The report, filled while the organizations and spaces are synchronized
+     * @param progress Control of the synchronization
+     * @param force    Whether roles and rolesmappings are written, even if they are unchanged
+     * @throws MetadataException thrown if the organizations could not be retrieved
+     */
+    public void syncOpensearch(TokenSupplier tokens, JwtAuthenticationToken subject, SyncReport report, SyncProgress progress, boolean force)
+            throws MetadataException {
+        List<OrganizationContextDTO> organizations = new ArrayList<>();
+        for (OrganizationContextDTO organization : organizationmanagerService.getOrganizations(tokens.get())) {
+            if (progress.isCompleted(organization.getName())) {
+                report.organizationSkipped();
+            } else {
+                organizations.add(organization);
+            }
+        }
+        report.setTotalOrganizations(organizations.size() + report.getSkippedOrganizations());
+
+        ExecutorService executor = Executors.newFixedThreadPool(syncParallelism, new CustomizableThreadFactory("opensearch-sync-"));
+        try {
+            CompletableFuture<?>[] organizationSyncs = organizations.stream().map(organization -> {
+                AtomicBoolean failed = new AtomicBoolean();
+                return CompletableFuture.supplyAsync(() -> syncOrganization(organization, tokens, subject, report, progress, force, failed), executor)
+                        .thenCompose(spaces -> CompletableFuture.allOf(spaces.stream().map(space -> CompletableFuture.runAsync(() -> syncSpace(space,
+                                tokens, subject, report, progress, force, failed), executor)).toArray(CompletableFuture[]::new))).thenRun(() -> {
+                    if (!failed.get() && !progress.isCancelled()) {
+                        progress.organizationCompleted(organization.getName());
+                    }
+                });
+            }).toArray(CompletableFuture[]::new);
+            CompletableFuture.allOf(organizationSyncs).join();
+        } finally {
+            executor.shutdownNow();
+        }
+        LOG.info("synchronized OpenSearch context of {} organizations and {} spaces ({} skipped, {} failures, cancelled: {})", report.getOrganizations(),
+                report.getSpaces(), report.getSkippedOrganizations(), report.getFailures().size(), progress.isCancelled());
+    }
+
+    /**
+     * Synchronizes the organization
+     *
+     * @return the spaces of the organization (to be synchronized next)
+     */
+    private List<SpaceContextDTO> syncOrganization(OrganizationContextDTO organization, TokenSupplier tokens, JwtAuthenticationToken subject,
+            SyncReport report, SyncProgress progress, boolean force, AtomicBoolean failed) {
+        if (progress.isCancelled()) {
+            return List.of();
+        }
+        AuditLogger.info(LOG, "Updating OpenSearch context for organization {}", subject, organization.getName());
+        try {
+            String token = tokens.get();
+            updateOrganizationContext(organization, token, force);
             createTenant(organization, token);
+            report.organizationSynced();
+        } catch (MetadataException | RuntimeException e) {
+            LOG.error("unable to update OpenSearch context for organization {}: {}", organization.getName(), e.getMessage());
+            report.addFailure(organization.getName(), null, e.getMessage());
+            failed.set(true);
+        }
+        try {
+            return organizationmanagerService.getSpaces(tokens.get(), organization);
+        } catch (MetadataException | RuntimeException e) {
+            LOG.error("unable to get spaces of organization {}: {}", organization.getName(), e.getMessage());
+            report.addFailure(organization.getName(), null, e.getMessage());
+            failed.set(true);
+            return List.of();
+        }
+    }
+
+    private void syncSpace(SpaceContextDTO space, TokenSupplier tokens, JwtAuthenticationToken subject, SyncReport report, SyncProgress progress,
+            boolean force, AtomicBoolean failed) {
+        if (progress.isCancelled()) {
+            return;
+        }
+        String organizationName = space.getOrganization().getName();
+        AuditLogger.info(LOG, "Updating OpenSearch context for space {} in organization {}", subject, space.getName(), organizationName);
+        try {
+            updateSpaceContext(space, tokens.get(), force);
+            report.spaceSynced();
+        } catch (MetadataException | RuntimeException e) {
+            LOG.error("unable to update OpenSearch context for space {} in organization {}: {}", space.getName(), organizationName, e.getMessage());
+            report.addFailure(organizationName, space.getName(), e.getMessage());
+            failed.set(true);
+        }
+    }
+
+    /**
+     * Reconciles the OpenSearch-context with the organizations and spaces
+     * <p>
+     * In contrast to {@link #syncOpensearch(String)} nothing is recreated: the current tenants, roles, rolesmappings and measurement-indices are fetched
+     * once, compared with the desired state and only the differences are written. Roles and rolesmappings are only deleted, if they are managed for a
+     * known organization or space (e.g. the roles of a confidential space, that became public). Tenants are never deleted, as they hold the saved objects
+     * of OpenSearch Dashboards.
+     *
+     * @param token  The Token
+     * @param dryRun Whether the changes are only planned, but not applied
+     * @return the plan, with the errors of the changes that could not be applied
+     * @throws MetadataException thrown if the organizations or the current state of OpenSearch could not be retrieved
+     */
+    public ReconcilePlan reconcileOpensearch(String token, boolean dryRun) throws MetadataException {
+        AuditLogger.info(LOG, "Reconciling OpenSearch context (dry-run: {})", Utils.getSubjectAsToken(), dryRun);
+        return reconcileOrganizations(token, dryRun, organizationmanagerService.getOrganizations(token));
+    }
+
+    /**
+     * Reconciles the OpenSearch-context of some organizations (and their spaces) - roles and rolesmappings of other organizations are left untouched
+     *
+     * @param token         The Token
+     * @param dryRun        Whether the changes are only planned, but not applied
+     * @param organizations The organizations
+     * @return the plan, with the errors of the changes that could not be applied
+     * @throws MetadataException thrown if the current state of OpenSearch could not be retrieved
+     * @see #reconcileOpensearch(String, boolean)
+     */
+    public ReconcilePlan reconcileOrganizations(String token, boolean dryRun, Collection<OrganizationContextDTO> organizations) throws MetadataException {
+        ReconcilePlan plan = new ReconcilePlan(dryRun);
+        DesiredContext desired = new DesiredContext();
+        for (OrganizationContextDTO organization : organizations) {
+            desired.addOrganization(organization);
+            try {
+                organizationmanagerService.getSpaces(token, organization).forEach(desired::addSpace);
+            } catch (MetadataException | RuntimeException e) {
+                LOG.error("unable to get spaces of organization {}: {}", organization.getName(), e.getMessage());
+                plan.addFailure(organization.getName(), e.getMessage());
+            }
+        }
+
+        OpenSearchRestClient restClient = restClient(token);
+        Set<String> currentTenants = new HashSet<>();
+        getResources(restClient, endpointTenants, UNABLE_GET_TENANTS).fieldNames().forEachRemaining(name -> currentTenants.add(name.toLowerCase(
+                Locale.getDefault())));
+        JsonNode currentRoles = getResources(restClient, endpointRoles, UNABLE_GET_ROLES);
+        JsonNode currentRolesMappings = getResources(restClient, endpointRolesMapping, UNABLE_GET_ROLESMAPPINGS);
+        Set<String> currentIndices = getMeasurementIndices(restClient);
+        securityCatalogue.replace(Kind.TENANTS, currentTenants);
+        securityCatalogue.replace(Kind.ROLES, fieldNames(currentRoles));
+        securityCatalogue.replace(Kind.ROLESMAPPINGS, fieldNames(currentRolesMappings));
+
+        // changes are planned in the order they have to be applied
+        for (Map.Entry<String, JsonNode> tenant : desired.tenants.entrySet()) {
+            if (currentTenants.contains(tenant.getKey().toLowerCase(Locale.getDefault()))) {
+                plan.unchanged();
+            } else {
+                plan.addChange(new ContextChange(Operation.CREATE, Resource.TENANT, tenant.getKey(), tenant.getValue()));
+            }
+        }
+        planUpserts(plan, Resource.ROLE, desired.roles, currentRoles);
+        planUpserts(plan, Resource.ROLESMAPPING, desired.rolesMappings, currentRolesMappings);
+        planDeletes(plan, Resource.ROLESMAPPING, desired.managedRoleNames, desired.rolesMappings.keySet(), currentRolesMappings);
+        planDeletes(plan, Resource.ROLE, desired.managedRoleNames, desired.roles.keySet(), currentRoles);
+        for (String index : desired.indices) {
+            if (currentIndices.contains(index)) {
+                plan.unchanged();
+            } else {
+                plan.addChange(new ContextChange(Operation.CREATE, Resource.INDEX, index, null));
+            }
+        }
+
+        if (!dryRun) {
+            applyChanges(restClient, plan.getChanges());
+        }
+        LOG.info("reconciled OpenSearch context: {} changes, {} unchanged (dry-run: {}, successful: {})", plan.getChanges().size(), plan.getUnchanged(),
+                dryRun, plan.isSuccessful());
+        return plan;
+    }
 
-            List<SpaceContextDTO> spaceContextDTOList = organizationmanagerService.getSpaces(token, organization);
+    private void planUpserts(ReconcilePlan plan, Resource resource, Map<String, JsonNode> desired, JsonNode current) {
+        for (Map.Entry<String, JsonNode> entry : desired.entrySet()) {
+            JsonNode existing = current.get(entry.getKey());
+            if (existing == null) {
+                plan.addChange(new ContextChange(Operation.CREATE, resource, entry.getKey(), entry.getValue()));
+            } else if (isReserved(existing)) {
+                LOG.warn("{} '{}' is reserved, skipping", resource, entry.getKey());
+            } else if (contains(existing, entry.getValue())) {
+                plan.unchanged();
+            } else {
+                plan.addChange(new ContextChange(Operation.UPDATE, resource, entry.getKey(), entry.getValue()));
+            }
+        }
+    }
+
+    private void planDeletes(ReconcilePlan plan, Resource resource, Set<String> managed, Set<String> desired, JsonNode current) {
+        for (String name : managed) {
+            JsonNode existing = current.get(name);
+            if (!desired.contains(name) && existing != null && !isReserved(existing)) {
+                plan.addChange(new ContextChange(Operation.DELETE, resource, name, null));
+            }
+        }
+    }
+
+    private static Set<String> fieldNames(JsonNode node) {
+        Set<String> names = new HashSet<>();
+        node.fieldNames().forEachRemaining(names::add);
+        return names;
+    }
+
+    private static boolean isReserved(JsonNode resource) {
+        return resource.path("reserved").asBoolean() || resource.path("static").asBoolean();
+    }
+
+    /**
+     * Checks, whether the current definition of a resource contains the desired one - OpenSearch adds defaults (e.g. <code>fls</code>,
+     * <code>hidden</code>) to the resources, which are not part of the desired definition
+     *
+     * @param current the current definition
+     * @param desired the desired definition
+     * @return whether all fields of the desired definition are equal in the current one
+     */
+    static boolean contains(JsonNode current, JsonNode desired) {
+        if (desired.isObject()) {
+            if (!current.isObject()) {
+                return false;
+            }
+            Iterator<Map.Entry<String, JsonNode>> fields = desired.fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                if (!contains(current.path(field.getKey()), field.getValue())) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        if (desired.isArray()) {
+            if (!current.isArray() || current.size() != desired.size()) {
+                return false;
+            }
+            for (int i = 0; i < desired.size(); i++) {
+                if (!contains(current.get(i), desired.get(i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return desired.equals(current);
+    }
+
+
+    /**
+     * Gets all resources of a security-endpoint (tenants, roles or rolesmappings)
+     *
+     * @param restClient    The RestClient
+     * @param endpoint      The endpoint
+     * @param metadataError The metadata error type
+     * @return the resources by their name
+     * @throws MetadataException thrown on io-errors
+     */
+    private JsonNode getResources(OpenSearchRestClient restClient, String endpoint, MetadataException.METADATA_ERROR metadataError) throws MetadataException {
+        try {
+            Response response = restClient.performRequest(new Request(RequestMethod.GET.name(), endpoint));
+            try (InputStream content = response.getEntity().getContent()) {
+                return objectMapper.readTree(content);
+            }
+        } catch (ConnectException e) {
+            LOG.error(e.getMessage(), e);
+            throw new MetadataException(OPENSEARCH_CONNECTION_ERROR);
+        } catch (IOException e) {
+            LOG.error(e.getMessage(), e);
+            throw new MetadataException(metadataError);
+        }
+    }
+
+    /**
+     * Gets the indices with the alias <code>measurements</code>
+     *
+     * @param restClient The RestClient
+     * @return the names of the indices
+     * @throws MetadataException thrown on io-errors
+     */
+    private Set<String> getMeasurementIndices(OpenSearchRestClient restClient) throws MetadataException {
+        Set<String> indices = new HashSet<>();
+        try {
+            Response response = restClient.performRequest(new Request(RequestMethod.GET.name(), format("%s/%s", ENDPOINT_ALIAS, MEASUREMENT_ALIAS)));
+            try (InputStream content = response.getEntity().getContent()) {
+                objectMapper.readTree(content).fieldNames().forEachRemaining(indices::add);
+            }
+        } catch (ResponseException e) {
+            if (HttpStatus.NOT_FOUND.value() != e.getResponse().getStatusLine().getStatusCode()) {
+                LOG.error(e.getMessage(), e);
+                throw new MetadataException(OPENSEARCH_ERROR);
+            }
+        } catch (ConnectException e) {
+            LOG.error(e.getMessage(), e);
+            throw new MetadataException(OPENSEARCH_CONNECTION_ERROR);
+        } catch (IOException e) {
+            LOG.error(e.getMessage(), e);
+            throw new MetadataException(OPENSEARCH_ERROR);
+        }
+        return indices;
+    }
+
+    /**
+     * Applies the changes - all changes of one kind with a single JSON-Patch request, in the order tenants, roles, rolesmappings, removals, indices (e.g.
+     * roles are created before they are mapped)
+     *
+     * @param restClient The RestClient
+     * @param changes    The changes
+     */
+    private void applyChanges(OpenSearchRestClient restClient, List<ContextChange> changes) {
+        Map<Integer, List<ContextChange>> phases = changes.stream().collect(Collectors.groupingBy(OpensearchContextService::phase, TreeMap::new,
+                Collectors.toList()));
+        for (List<ContextChange> phase : phases.values()) {
+            ContextChange first = phase.get(0);
+            if (Resource.INDEX.equals(first.getResource())) {
+                phase.forEach(change -> apply(change, () -> {
+                    createIndex(restClient, change.getName());
+                    createIndexAlias(restClient, change.getName());
+                }));
+                continue;
+            }
+            Kind kind = switch (first.getResource()) {
+                case TENANT -> Kind.TENANTS;
+                case ROLE -> Kind.ROLES;
+                default -> Kind.ROLESMAPPINGS;
+            };
+            Map<String, JsonNode> upserts = new LinkedHashMap<>();
+            List<String> removals = new ArrayList<>();
+            for (ContextChange change : phase) {
+                if (Operation.DELETE.equals(change.getOperation())) {
+                    removals.add(change.getName());
+                } else {
+                    upserts.put(change.getName(), change.getDefinition());
+                }
+            }
+            // the changes were planned against the current state, the fingerprints are only updated
+            apply(phase, () -> patchResources(restClient, kind, upserts, removals, false, OPENSEARCH_ERROR));
+        }
+    }
+
+    private static int phase(ContextChange change) {
+        boolean delete = Operation.DELETE.equals(change.getOperation());
+        return switch (change.getResource()) {
+            case TENANT -> 0;
+            case ROLE -> delete ? 4 : 1;
+            case ROLESMAPPING -> delete ? 3 : 2;
+            case INDEX -> 5;
+        };
+    }
+
+    private static void apply(ContextChange change, ContextOperation operation) {
+        apply(List.of(change), operation);
+    }
+
+    /**
+     * Runs the operation, recording its error on all the changes it applies
+     */
+    private static void apply(List<ContextChange> changes, ContextOperation operation) {
+        try {
+            operation.run();
+        } catch (MetadataException | RuntimeException e) {
+            ContextChange first = changes.get(0);
+            LOG.error("unable to {} {} '{}' ({} changes): {}", first.getOperation(), first.getResource(), first.getName(), changes.size(), e.getMessage());
+            changes.forEach(change -> change.setError(e.getMessage()));
+        }
+    }
+
+    @FunctionalInterface
+    private interface ContextOperation {
+        void run() throws MetadataException;
+    }
 
-            for (SpaceContextDTO space : spaceContextDTOList) {
-                AuditLogger.info(LOG, "Updating OpenSearch context for space {} in organization {}",
-                        Utils.getSubjectAsToken(), space.getName(), organization.getName());
-                updateSpaceContext(space, token);
+    /**
+     * The tenants, roles, rolesmappings and measurement-indices the organizations and spaces should have
+     */
+    private class DesiredContext {
+
+        private final Map<String, JsonNode> tenants = new LinkedHashMap<>();
+        private final Map<String, JsonNode> roles = new LinkedHashMap<>();
+        private final Map<String, JsonNode> rolesMappings = new LinkedHashMap<>();
+        /**
+         * Names of all roles (and rolesmappings) of the organizations and spaces, that might have to be deleted
+         */
+        private final Set<String> managedRoleNames = new LinkedHashSet<>();
+        private final Set<String> indices = new LinkedHashSet<>();
+
+        void addOrganization(OrganizationContextDTO organization) {
+            String description = organization.getDescription() == null ? "" : organization.getDescription();
+            tenants.put(organization.getName(), tenantDefinition(description));
+            roles.putAll(organizationRoles(organization));
+            rolesMappings.putAll(organizationRolesMappings(organization));
+            managedRoleNames.addAll(organizationRoleNames(organization.getName()));
+        }
+
+        void addSpace(SpaceContextDTO space) {
+            String organizationName = space.getOrganization().getName();
+            tenants.put(format("%s_%s", organizationName, space.getName()), tenantDefinition(""));
+            roles.putAll(spaceRoles(space));
+            rolesMappings.putAll(spaceRolesMappings(space));
+            managedRoleNames.addAll(spaceRoleNames(organizationName, space.getName()));
+            if (hasMetadataCapability(space)) {
+                indices.add(measurementIndexName(space));
             }
         }
     }
 
     /**
-     * Updates OpenSearch access control objects for a given organization, by recreating the whole context
+     * Updates OpenSearch access control objects for a given organization
+     * <p>
+     * The roles and rolesmappings are replaced in place, afterwards those not needed anymore (e.g. after a change of confidentiality) are deleted - so
+     * access is not revoked in between.
      *
      * @param organization The organization for which access control objects will be created
      * @param token        The access token used for authenticating API calls
      * @throws MetadataException Thrown if any error occurs during the creation of access control objects
      */
     public void updateOrganizationContext(OrganizationContextDTO organization, String token) throws MetadataException {
-        deleteOrganizationRolesMappings(organization.getName(), token);
-        deleteOrganizationRoles(organization.getName(), token);
+        updateOrganizationContext(organization, token, false);
+    }
 
-        createOrganizationRoles(organization, token);
-        createOrganizationRolesMappings(organization, token);
+    /**
+     * Updates OpenSearch access control objects for a given organization
+     *
+     * @param organization The organization
+     * @param token        The access token used for authenticating API calls
+     * @param force        Whether roles and rolesmappings are written, even if they are unchanged (e.g. to repair them)
+     * @throws MetadataException Thrown if any error occurs during the update of access control objects
+     * @see #updateOrganizationContext(OrganizationContextDTO, String)
+     */
+    public void updateOrganizationContext(OrganizationContextDTO organization, String token, boolean force) throws MetadataException {
+        createOrganizationRoles(organization, token, !force);
+        createOrganizationRolesMappings(organization, token, !force);
+
+        deleteStaleRoles(organizationRoleNames(organization.getName()), organizationRoles(organization).keySet(), token);
     }
 
     /**
-     * Updates OpenSearch access control objects for a given space, by recreating the whole context
+     * Updates OpenSearch access control objects for a given space - the roles and rolesmappings are replaced in place, afterwards those not needed
+     * anymore are deleted
      * !USE WITH CAUTION!
      * Updating space capabilities is a WIP - it is not clear what should be done with measurement indices if a space looses the METADATA capability
      *
@@ -552,33 +1162,71 @@ public class OpensearchContextService {
      * @throws MetadataException if there is an error creating the access control objects.
      */
     public void updateSpaceContext(SpaceContextDTO space, String token) throws MetadataException {
-        String organizationName = space.getOrganization().getName();
-        String spaceName = space.getName();
+        updateSpaceContext(space, token, false);
+    }
 
-        deleteSpaceRoles(organizationName, spaceName, token);
-        deleteSpaceRolesMappings(organizationName, spaceName, token);
+    /**
+     * Updates OpenSearch access control objects for a given space
+     *
+     * @param space The space
+     * @param token The authentication token to use.
+     * @param force Whether roles and rolesmappings are written, even if they are unchanged (e.g. to repair them)
+     * @throws MetadataException if there is an error updating the access control objects.
+     * @see #updateSpaceContext(SpaceContextDTO, String)
+     */
+    public void updateSpaceContext(SpaceContextDTO space, String token, boolean force) throws MetadataException {
         // deleteMeasurementIndex(organizationName, spaceName, token); // omit for now
+        createSpaceContext(space, token, !force);
 
-        createSpaceContext(space, token);
+        deleteStaleRoles(spaceRoleNames(space.getOrganization().getName(), space.getName()), spaceRoles(space).keySet(), token);
+    }
+
+    /**
+     * Deletes the roles (and their rolesmappings), that exist but are not needed
+     *
+     * @param roleNames The names of all roles, that could exist
+     * @param needed    The names of the roles needed
+     * @param token     The token
+     * @throws MetadataException thrown on io-errors
+     */
+    private void deleteStaleRoles(List<String> roleNames, Set<String> needed, String token) throws MetadataException {
+        OpenSearchRestClient restClient = restClient(token);
+        for (String roleName : roleNames) {
+            if (needed.contains(roleName)) {
+                continue;
+            }
+            if (securityCatalogue.contains(Kind.ROLESMAPPINGS, roleName, () -> getResourceNames(restClient, endpointRolesMapping, UNABLE_GET_ROLESMAPPINGS))) {
+                deleteRolesMapping(restClient, roleName);
+            }
+            if (securityCatalogue.contains(Kind.ROLES, roleName, () -> getResourceNames(restClient, endpointRoles, UNABLE_GET_ROLES))) {
+                deleteRole(restClient, roleName);
+            }
+        }
     }
 
     /**
      * Creates OpenSearch access control objects for a given space.
-     * This includes creating space roles, and space role mappings.
+     * This includes creating space roles, and space role mappings - all roles (and all rolesmappings) with a single request. The measurement-index
+     * is created concurrently, if one of the steps fails, the errors of all failed steps are reported.
      *
      * @param space The space for which to create access control objects.
      * @param token The authentication token to use.
      * @throws MetadataException if there is an error creating the access control objects.
      */
     public void createSpaceContext(SpaceContextDTO space, String token) throws MetadataException {
-        // Order of method calls is important!
-        createTenant(space, token);
-        createSpaceRoles(space, token);
-        createSpaceRolesMappings(space, token);
+        createSpaceContext(space, token, true);
+    }
 
+    private void createSpaceContext(SpaceContextDTO space, String token, boolean skipUnchanged) throws MetadataException {
+        // tenant before roles before rolesmappings - the measurement-index does not depend on them
+        ProvisioningGraph graph = new ProvisioningGraph(provisioningExecutor)
+                .step(STEP_TENANT, () -> createTenant(space, token))
+                .step(STEP_ROLES, () -> createSpaceRoles(space, token, skipUnchanged), STEP_TENANT)
+                .step(STEP_ROLESMAPPINGS, () -> createSpaceRolesMappings(space, token, skipUnchanged), STEP_ROLES);
         if (hasMetadataCapability(space)) {
-            createMeasurementIndex(space, token);
+            graph.step(STEP_INDEX, () -> createMeasurementIndex(space, token));
         }
+        graph.await();
     }
 
     /**
@@ -596,20 +1244,31 @@ public class OpensearchContextService {
      * @throws MetadataException If an error occurs while creating the roles.
      */
     public void createSpaceRoles(SpaceContextDTO space, String token) throws MetadataException {
-        RestClient restClient = clientBuilder.buildRestClient(token);
+        createSpaceRoles(space, token, true);
+    }
+
+    private void createSpaceRoles(SpaceContextDTO space, String token, boolean skipUnchanged) throws MetadataException {
+        patchResources(restClient(token), Kind.ROLES, spaceRoles(space), List.of(), skipUnchanged, UNABLE_CREATE_ESROLE);
+    }
+
+    /**
+     * Gets the roles of the given space (see {@link #createSpaceRoles(SpaceContextDTO, String)})
+     *
+     * @param space The space
+     * @return the definitions of the roles by their name
+     */
+    Map<String, JsonNode> spaceRoles(SpaceContextDTO space) {
+        Map<String, JsonNode> roles = new LinkedHashMap<>();
         if (Confidentiality.PUBLIC.equals(space.getConfidentiality())) {
-            String roleName = opensearchHelper.getRoleName(ALL_PUBLIC, space);
-            String roleRequestBody = opensearchHelper.createPublicRoleDefinition(space);
-            createRole(restClient, roleRequestBody, roleName);
+            roles.put(opensearchHelper.getRoleName(ALL_PUBLIC, space), opensearchHelper.getPublicRoleDefinition(space));
         } else {
             for (RoleScopeSpace scope : RoleScopeSpace.values()) {
                 for (String role : scope.getRoles()) {
-                    String roleName = opensearchHelper.getRoleName(role, space);
-                    String roleRequestBody = opensearchHelper.createRoleDefinition(space, scope);
-                    createRole(restClient, roleRequestBody, roleName);
+                    roles.put(opensearchHelper.getRoleName(role, space), opensearchHelper.getRoleDefinition(space, scope));
                 }
             }
         }
+        return roles;
     }
 
     /**
@@ -622,7 +1281,21 @@ public class OpensearchContextService {
      * @throws MetadataException if there is an error creating the role mappings.
      */
     public void createSpaceRolesMappings(SpaceContextDTO space, String token) throws MetadataException {
-        RestClient restClient = clientBuilder.buildRestClient(token);
+        createSpaceRolesMappings(space, token, true);
+    }
+
+    private void createSpaceRolesMappings(SpaceContextDTO space, String token, boolean skipUnchanged) throws MetadataException {
+        patchResources(restClient(token), Kind.ROLESMAPPINGS, spaceRolesMappings(space), List.of(), skipUnchanged, UNABLE_CREATE_ROLESMAPPING);
+    }
+
+    /**
+     * Gets the rolesmappings of the given space (see {@link #createSpaceRolesMappings(SpaceContextDTO, String)})
+     *
+     * @param space The space
+     * @return the definitions of the rolesmappings by the name of their role
+     */
+    Map<String, JsonNode> spaceRolesMappings(SpaceContextDTO space) {
+        Map<String, JsonNode> rolesMappings = new LinkedHashMap<>();
 
         String orgRole = format("org_%s_access", space.getOrganization().getName());
         if (Confidentiality.PUBLIC.equals(space.getOrganization().getConfidentiality())) {
@@ -630,58 +1303,59 @@ public class OpensearchContextService {
         }
 
         if (Confidentiality.PUBLIC.equals(space.getConfidentiality())) {
-            String roleName = opensearchHelper.getRoleName(ALL_PUBLIC, space);
-            LOG.debug("creating rolemapping {}", roleName);
             List<String> mappings = new ArrayList<>();
             mappings.add(SPC_ALL_PUBLIC);
             mappings.add(orgRole);
 
-            createRolesMapping(restClient, roleName, opensearchHelper.getRolesMappingJson(mappings));
+            rolesMappings.put(opensearchHelper.getRoleName(ALL_PUBLIC, space), opensearchHelper.getRolesMapping(mappings));
         } else {
             for (RoleScopeSpace scope : RoleScopeSpace.values()) {
                 for (String role : scope.getRoles()) {
-                    String roleName = opensearchHelper.getRoleName(role, space);
-                    LOG.debug("creating rolemapping '{}'", roleName);
-
                     List<String> mappings = new ArrayList<>();
                     mappings.add(format("%s_%s_%s", space.getOrganization().getName(), space.getName(), role));
                     mappings.add(orgRole);
 
-                    createRolesMapping(restClient, roleName, opensearchHelper.getRolesMappingJson(mappings));
+                    rolesMappings.put(opensearchHelper.getRoleName(role, space), opensearchHelper.getRolesMapping(mappings));
                 }
             }
         }
+        return rolesMappings;
     }
 
     private boolean hasMetadataCapability(SpaceContextDTO space) {
-        return space.getCapabilities().contains(Capability.METADATA);
+        return space.getCapabilities() != null && space.getCapabilities().contains(Capability.METADATA);
     }
 
     private void createMeasurementIndex(SpaceContextDTO space, String token) throws MetadataException {
-        RestClient restClient = clientBuilder.buildRestClient(token);
+        OpenSearchRestClient restClient = restClient(token);
 
         // create measurement index
-        String indexName = format("%s_%s_%s", space.getOrganization().getName(), space.getName(), MEASUREMENT_ALIAS).toLowerCase(Locale.getDefault());
+        String indexName = measurementIndexName(space);
 
         createIndex(restClient, indexName);
         createIndexAlias(restClient, indexName);
     }
 
-    private void createIndex(RestClient restClient, String indexName) throws MetadataException {
+    private static String measurementIndexName(SpaceContextDTO space) {
+        return format("%s_%s_%s", space.getOrganization().getName(), space.getName(), MEASUREMENT_ALIAS).toLowerCase(Locale.getDefault());
+    }
+
+    private void createIndex(OpenSearchRestClient restClient, String indexName) throws MetadataException {
         LOG.debug("creating index '{}'", indexName);
         String endpoint = format("/%s", indexName);
 
         putObjectWithoutBody(restClient, endpoint, UNABLE_CREATE_INDEX);
     }
 
-    private void createIndexAlias(RestClient restClient, String indexName) throws MetadataException {
+    private void createIndexAlias(OpenSearchRestClient restClient, String indexName) throws MetadataException {
         LOG.debug("creating index alias for '{}'", indexName);
         String endpoint = format("/%s/%s/%s", indexName, ENDPOINT_ALIAS, MEASUREMENT_ALIAS);
 
         putObjectWithoutBody(restClient, endpoint, UNABLE_CREATE_ALIAS);
     }
 
-    private void putObjectWithoutBody(RestClient restClient, String endpoint, MetadataException.METADATA_ERROR unableCreateIndex) throws MetadataException {
+    private void putObjectWithoutBody(OpenSearchRestClient restClient, String endpoint, MetadataException.METADATA_ERROR unableCreateIndex)
+            throws MetadataException {
         try {
             Request request = new Request(RequestMethod.PUT.name(), endpoint);
             restClient.performRequest(request);
@@ -18,15 +18,17 @@ package com.efs.sdk.metadata.core.context;
 import com.efs.sdk.metadata.commons.MetadataException;
 import com.efs.sdk.metadata.core.AuthService;
 import com.efs.sdk.metadata.helper.AuthHelper;
+import com.efs.sdk.metadata.model.ReconcilePlan;
+import com.efs.sdk.metadata.model.SyncJob;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
-import org.springframework.web.bind.annotation.PutMapping;
-import org.springframework.web.bind.annotation.RequestMapping;
-import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.bind.annotation.*;
+
+import java.net.URI;
 
 import static com.efs.sdk.metadata.commons.MetadataException.METADATA_ERROR.INSUFFICIENT_RIGHTS;
 
@@ -43,29 +45,80 @@ public class OpensearchGlobalContextController {
     private final OpensearchContextService osCtxService;
     private final AuthHelper authHelper;
     private final AuthService authService;
+    private final SyncJobService syncJobService;
 
-    public OpensearchGlobalContextController(OpensearchContextService osCtxService, AuthHelper authHelper, AuthService authService) {
+    public OpensearchGlobalContextController(OpensearchContextService osCtxService, AuthHelper authHelper, AuthService authService,
+            SyncJobService syncJobService) {
         this.osCtxService = osCtxService;
         this.authHelper = authHelper;
         this.authService = authService;
+        this.syncJobService = syncJobService;
     }
 
-    @Operation(summary = "Synchronize OpenSearch-context", description = "Recover all corresponding OpenSearch tenants, roles and rolesmappings by deleting " +
-            "them and recreate (indices are only being created)")
+    @Operation(summary = "Synchronize OpenSearch-context", description = "Starts a background job, that recovers all corresponding OpenSearch tenants, " +
+            "roles and rolesmappings by recreating them (indices are only being created). If a job is already running, that job is returned. With `resume` " +
+            "the organizations completed by the last unfinished job (within `metadata.sync.checkpoint-ttl`) are skipped, with `force` also unchanged roles " +
+            "and rolesmappings are written.")
     @PutMapping(value = "/sync_opensearch")
-    @ApiResponse(responseCode = "204", description = "Successfully synced OpenSearch")
-    @ApiResponse(responseCode = "400", description = "Unable to retrieve one of the following: all `Organizations`, all `Spaces`")
+    @ApiResponse(responseCode = "202", description = "Started (or already running) job - see the `Location` for its status")
     @ApiResponse(responseCode = "401", description = "User is not authorized")
     @ApiResponse(responseCode = "403", description = "User does not have permissions to sync OpenSearch")
-    @ApiResponse(responseCode = "500", description = "Unable to delete/create one of the context-types")
+    public ResponseEntity<SyncJob> syncOpensearch(@Parameter(hidden = true) JwtAuthenticationToken token,
+            @Parameter(description = "Skip the organizations completed by the last unfinished job") @RequestParam(defaultValue = "false") boolean resume,
+            @Parameter(description = "Write all roles and rolesmappings, even if unchanged") @RequestParam(defaultValue = "false") boolean force)
+            throws MetadataException {
+        if (!authHelper.isSuperuser(token)) {
+            throw new MetadataException(INSUFFICIENT_RIGHTS);
+        }
+        SyncJob job = syncJobService.start(token, resume, force);
+        return ResponseEntity.accepted().location(URI.create(ENDPOINT + "/sync_opensearch/" + job.getId())).body(job);
+    }
+
+    @Operation(summary = "Get OpenSearch-synchronization", description = "Gets the status and progress of a synchronization-job.")
+    @GetMapping(value = "/sync_opensearch/{jobId}")
+    @ApiResponse(responseCode = "200", description = "Status and progress of the job")
+    @ApiResponse(responseCode = "401", description = "User is not authorized")
+    @ApiResponse(responseCode = "403", description = "User does not have permissions to sync OpenSearch")
+    @ApiResponse(responseCode = "404", description = "There is no such job")
+    public ResponseEntity<SyncJob> getSyncJob(@Parameter(hidden = true) JwtAuthenticationToken token, @PathVariable String jobId)
+            throws MetadataException {
+        if (!authHelper.isSuperuser(token)) {
+            throw new MetadataException(INSUFFICIENT_RIGHTS);
+        }
+        return ResponseEntity.ok(syncJobService.getJob(jobId));
+    }
+
+    @Operation(summary = "Cancel OpenSearch-synchronization", description = "Cancels a synchronization-job. Organizations and spaces already being " +
+            "synchronized are finished, completed organizations are skipped by the next job.")
+    @DeleteMapping(value = "/sync_opensearch/{jobId}")
+    @ApiResponse(responseCode = "202", description = "Cancellation requested")
+    @ApiResponse(responseCode = "401", description = "User is not authorized")
+    @ApiResponse(responseCode = "403", description = "User does not have permissions to sync OpenSearch")
+    @ApiResponse(responseCode = "404", description = "There is no such job")
+    public ResponseEntity<SyncJob> cancelSyncJob(@Parameter(hidden = true) JwtAuthenticationToken token, @PathVariable String jobId)
+            throws MetadataException {
+        if (!authHelper.isSuperuser(token)) {
+            throw new MetadataException(INSUFFICIENT_RIGHTS);
+        }
+        return ResponseEntity.accepted().body(syncJobService.cancel(jobId));
+    }
+
+    @Operation(summary = "Reconcile OpenSearch-context", description = "Compares the OpenSearch tenants, roles, rolesmappings and measurement-indices with " +
+            "the organizations and spaces and only creates, updates and deletes what differs. With `dryRun` the changes are only planned, not applied.")
+    @PutMapping(value = "/reconcile_opensearch")
+    @ApiResponse(responseCode = "200", description = "Reconciled OpenSearch (or planned the changes) - see the plan for changes that failed")
+    @ApiResponse(responseCode = "400", description = "Unable to retrieve one of the following: all `Organizations`, tenants, roles, rolesmappings")
+    @ApiResponse(responseCode = "401", description = "User is not authorized")
+    @ApiResponse(responseCode = "403", description = "User does not have permissions to reconcile OpenSearch")
     @ApiResponse(responseCode = "502", description = "Connection to OpenSearch unavailable")
-    public ResponseEntity<Void> syncOpensearch(@Parameter(hidden = true) JwtAuthenticationToken token) throws MetadataException {
+    public ResponseEntity<ReconcilePlan> reconcileOpensearch(@Parameter(hidden = true) JwtAuthenticationToken token,
+            @Parameter(description = "Only plan the changes, without applying them") @RequestParam(defaultValue = "false") boolean dryRun)
+            throws MetadataException {
         if (!authHelper.isSuperuser(token)) {
             throw new MetadataException(INSUFFICIENT_RIGHTS);
         }
         String accessToken = authService.getSAAccessToken();
-        osCtxService.syncOpensearch(accessToken);
-        return ResponseEntity.noContent().build();
+        return ResponseEntity.ok(osCtxService.reconcileOpensearch(accessToken, dryRun));
     }
 
 
@@ -89,13 +89,14 @@ public class OpensearchOrganizationContextController {
     public ResponseEntity<Void> updateOrganizationResources(
             @Parameter(hidden = true) JwtAuthenticationToken token,
             @PathVariable String orgName,
-            @Valid @RequestBody OrganizationContextDTO dto
+            @Valid @RequestBody OrganizationContextDTO dto,
+            @Parameter(description = "Write all roles and rolesmappings, even if unchanged") @RequestParam(defaultValue = "false") boolean force
     ) throws MetadataException {
         AuditLogger.info(LOG, "Updating OpenSearch context for organization {}", token, dto.getName());
         LOG.debug("Updating OpenSearch context for organization {}", dto.getName());
         dto.setName(orgName);
         String accessToken = authService.getSAAccessToken();
-        osCtxService.updateOrganizationContext(dto, accessToken);
+        osCtxService.updateOrganizationContext(dto, accessToken, force);
 
         return ResponseEntity.ok().build();
     }
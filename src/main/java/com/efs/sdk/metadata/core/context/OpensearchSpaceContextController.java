@@ -92,14 +92,15 @@ public class OpensearchSpaceContextController {
             @Parameter(hidden = true) JwtAuthenticationToken token,
             @PathVariable String organizationName,
             @PathVariable String spaceName,
-            @Valid @RequestBody SpaceContextDTO dto
+            @Valid @RequestBody SpaceContextDTO dto,
+            @Parameter(description = "Write all roles and rolesmappings, even if unchanged") @RequestParam(defaultValue = "false") boolean force
     ) throws MetadataException {
         AuditLogger.info(LOG, "Updating OpenSearch context for space {} in organization {}", token, dto.getName(), dto.getOrganization().getName());
         if (!authHelper.isSuperuser(token)) {
             throw new MetadataException(INSUFFICIENT_RIGHTS);
         }
         String accessToken = authService.getSAAccessToken();
-        osCtxService.updateSpaceContext(dto, accessToken);
+        osCtxService.updateSpaceContext(dto, accessToken, force);
 
         LOG.debug("OpenSearch Space Context for {} updated", dto.getName());
         return ResponseEntity.ok().build();
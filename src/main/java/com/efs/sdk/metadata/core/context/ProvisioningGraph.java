@@ -0,0 +1,118 @@
+/*
+Copyright (C) 2023 e:fs TechHub GmbH (sdk@efs-techhub.com)
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+        http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+ */
+package com.efs.sdk.metadata.core.context;
+
+import com.efs.sdk.metadata.commons.MetadataException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.stream.Stream;
+
+/**
+ * The steps of provisioning (or deleting) an OpenSearch-context and their dependencies.
+ * <p>
+ * Every step is dispatched as soon as the steps it depends on have completed, independent steps run concurrently. Steps depending on a failed step are
+ * not run. {@link #await()} waits for all steps and reports the errors of all failed steps (the first one thrown, the others suppressed by it).
+ * <p>
+ * Steps writing the same kind of security-resource should depend on each other, as concurrent writes of the same security-configuration conflict -
+ * writes of different graphs (e.g. spaces synchronized in parallel) are serialized by {@link OpensearchContextService} per kind.
+ */
+final class ProvisioningGraph {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ProvisioningGraph.class);
+
+    /**
+     * A step of the provisioning
+     */
+    @FunctionalInterface
+    interface Step {
+        void run() throws MetadataException;
+    }
+
+    private final Executor executor;
+    private final Map<String, CompletableFuture<Void>> steps = new LinkedHashMap<>();
+
+    ProvisioningGraph(Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Adds a step and dispatches it, once its dependencies have completed
+     *
+     * @param name         the name of the step
+     * @param step         the step
+     * @param dependencies the names of the steps, that have to complete before (have to be added before)
+     * @return this graph
+     */
+    ProvisioningGraph step(String name, Step step, String... dependencies) {
+        CompletableFuture<?>[] prerequisites = Stream.of(dependencies).map(dependency -> {
+            CompletableFuture<Void> prerequisite = steps.get(dependency);
+            if (prerequisite == null) {
+                throw new IllegalArgumentException("unknown step '" + dependency + "'");
+            }
+            return prerequisite;
+        }).toArray(CompletableFuture[]::new);
+        steps.put(name, CompletableFuture.allOf(prerequisites).thenRunAsync(() -> {
+            try {
+                step.run();
+            } catch (MetadataException e) {
+                throw new CompletionException(e);
+            }
+        }, executor));
+        return this;
+    }
+
+    /**
+     * Waits for all steps to complete
+     *
+     * @throws MetadataException the error of the first failed step (with the errors of the other failed steps suppressed)
+     */
+    void await() throws MetadataException {
+        List<Throwable> errors = new ArrayList<>();
+        for (Map.Entry<String, CompletableFuture<Void>> step : steps.entrySet()) {
+            try {
+                step.getValue().join();
+            } catch (CompletionException e) {
+                Throwable cause = e.getCause() == null ? e : e.getCause();
+                if (errors.stream().anyMatch(error -> error == cause)) {
+                    LOG.debug("skipped step '{}', as a step it depends on failed", step.getKey());
+                } else {
+                    LOG.debug("step '{}' failed: {}", step.getKey(), cause.getMessage());
+                    errors.add(cause);
+                }
+            }
+        }
+        if (errors.isEmpty()) {
+            return;
+        }
+        Throwable first = errors.get(0);
+        errors.subList(1, errors.size()).forEach(first::addSuppressed);
+        if (first instanceof MetadataException metadataException) {
+            throw metadataException;
+        }
+        if (first instanceof RuntimeException runtimeException) {
+            throw runtimeException;
+        }
+        throw new IllegalStateException(first);
+    }
+}
@@ -0,0 +1,132 @@
+/*
+Copyright (C) 2023 e:fs TechHub GmbH (sdk@efs-techhub.com)
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+        http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+ */
+package com.efs.sdk.metadata.core.context;
+
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.extended.leaderelection.LeaderCallbacks;
+import io.fabric8.kubernetes.client.extended.leaderelection.LeaderElectionConfig;
+import io.fabric8.kubernetes.client.extended.leaderelection.LeaderElectionConfigBuilder;
+import io.fabric8.kubernetes.client.extended.leaderelection.resourcelock.LeaseLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+
+import java.time.Duration;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Leadership of the replica, that runs the {@link DriftReconciler} - elected with a Kubernetes lease, so that exactly one replica reconciles.
+ * <p>
+ * A replica, that loses the lease (e.g. because it could not renew it in time), stops leading and takes part in the next election. Without a Kubernetes
+ * client (i.e. outside of a cluster) the replica is considered the only one and always leads.
+ */
+public class ReconcilerLeadership implements SmartLifecycle {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ReconcilerLeadership.class);
+
+    private final KubernetesClient kubernetesClient;
+    private final String leaseName;
+    private final String identity;
+    private final Duration leaseDuration;
+
+    private volatile boolean running;
+    private volatile boolean leader;
+    private CompletableFuture<?> election;
+
+    /**
+     * Constructor.
+     *
+     * @param kubernetesClient The Kubernetes client (null, if not running in a cluster)
+     * @param leaseName        The name of the lease
+     * @param identity         The identity of this replica (e.g. the name of the pod)
+     * @param leaseDuration    How long a lease is valid without renewal
+     */
+    public ReconcilerLeadership(KubernetesClient kubernetesClient, String leaseName, String identity, Duration leaseDuration) {
+        this.kubernetesClient = kubernetesClient;
+        this.leaseName = leaseName;
+        this.identity = identity;
+        this.leaseDuration = leaseDuration;
+    }
+
+    /**
+     * @return whether this replica currently holds the lease
+     */
+    public boolean isLeader() {
+        return leader;
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        if (kubernetesClient == null) {
+            LOG.info("no kubernetes client available, '{}' leads the drift-reconciler", identity);
+            leader = true;
+            return;
+        }
+        elect();
+    }
+
+    private synchronized void elect() {
+        if (!running) {
+            return;
+        }
+        LeaderElectionConfig config = new LeaderElectionConfigBuilder().withName(leaseName)
+                .withLock(new LeaseLock(kubernetesClient.getNamespace(), leaseName, identity))
+                .withLeaseDuration(leaseDuration)
+                .withRenewDeadline(leaseDuration.multipliedBy(2).dividedBy(3))
+                .withRetryPeriod(leaseDuration.dividedBy(5))
+                .withReleaseOnCancel(true)
+                .withLeaderCallbacks(new LeaderCallbacks(this::startedLeading, this::stoppedLeading, newLeader -> LOG.info("'{}' leads the drift-reconciler",
+                        newLeader)))
+                .build();
+        election = kubernetesClient.leaderElector().withConfig(config).build().start();
+        election.whenComplete((result, e) -> {
+            leader = false;
+            if (e != null && !(e instanceof CancellationException)) {
+                LOG.warn("leader-election of the drift-reconciler failed: {}", e.getMessage());
+            }
+            // take part in the next election
+            CompletableFuture.delayedExecutor(leaseDuration.toMillis(), TimeUnit.MILLISECONDS).execute(this::elect);
+        });
+    }
+
+    private void startedLeading() {
+        LOG.info("'{}' started leading the drift-reconciler", identity);
+        leader = true;
+    }
+
+    private void stoppedLeading() {
+        LOG.info("'{}' stopped leading the drift-reconciler", identity);
+        leader = false;
+    }
+
+    @Override
+    public synchronized void stop() {
+        running = false;
+        leader = false;
+        if (election != null) {
+            // releases the lease, so that another replica takes over without waiting for it to expire
+            election.cancel(true);
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+}
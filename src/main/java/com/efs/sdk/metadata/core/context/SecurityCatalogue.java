@@ -0,0 +1,154 @@
+/*
+Copyright (C) 2023 e:fs TechHub GmbH (sdk@efs-techhub.com)
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+        http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+ */
+package com.efs.sdk.metadata.core.context;
+
+import com.efs.sdk.metadata.commons.MetadataException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Snapshot of the names of the tenants, roles and rolesmappings in OpenSearch, used for existence checks.
+ * <p>
+ * Each kind is listed from the security-API at most once per <code>metadata.context.catalogue-ttl</code> (instead of once per check) and updated locally
+ * on every successful create or delete. Names are compared case-insensitively, as OpenSearch lists tenants in lower case.
+ */
+@Component
+public class SecurityCatalogue {
+
+    public enum Kind {
+        TENANTS, ROLES, ROLESMAPPINGS
+    }
+
+    /**
+     * Lists the names of all resources of a kind from OpenSearch
+     */
+    @FunctionalInterface
+    public interface Loader {
+        Set<String> load() throws MetadataException;
+    }
+
+    private final Duration ttl;
+    private final Map<Kind, Snapshot> snapshots = new EnumMap<>(Kind.class);
+
+    /**
+     * Constructor.
+     *
+     * @param ttl How long a listing is used, before it is loaded again
+     */
+    public SecurityCatalogue(@Value("${metadata.context.catalogue-ttl:30s}") Duration ttl) {
+        this.ttl = ttl;
+    }
+
+    /**
+     * Checks, whether a resource exists - loading the listing of its kind, if there is none or it has expired
+     *
+     * @param kind   the kind of resource
+     * @param name   the name of the resource
+     * @param loader loads the listing
+     * @return whether the resource exists
+     * @throws MetadataException thrown if the listing could not be loaded
+     */
+    public boolean contains(Kind kind, String name, Loader loader) throws MetadataException {
+        return snapshot(kind, loader).names().contains(normalize(name));
+    }
+
+    /**
+     * Records a resource as created
+     *
+     * @param kind the kind of resource
+     * @param name the name of the resource
+     */
+    public void added(Kind kind, String name) {
+        Snapshot snapshot = current(kind);
+        if (snapshot != null) {
+            snapshot.names().add(normalize(name));
+        }
+    }
+
+    /**
+     * Records a resource as deleted
+     *
+     * @param kind the kind of resource
+     * @param name the name of the resource
+     */
+    public void removed(Kind kind, String name) {
+        Snapshot snapshot = current(kind);
+        if (snapshot != null) {
+            snapshot.names().remove(normalize(name));
+        }
+    }
+
+    /**
+     * Replaces the listing of a kind (e.g. after it was fetched for other purposes anyway)
+     *
+     * @param kind  the kind of resource
+     * @param names the names of all resources of that kind
+     */
+    public void replace(Kind kind, Set<String> names) {
+        store(kind, names);
+    }
+
+    /**
+     * Drops all listings, so they are loaded again on the next check
+     */
+    public void invalidate() {
+        synchronized (snapshots) {
+            snapshots.clear();
+        }
+    }
+
+    private Snapshot current(Kind kind) {
+        synchronized (snapshots) {
+            return snapshots.get(kind);
+        }
+    }
+
+    private Snapshot snapshot(Kind kind, Loader loader) throws MetadataException {
+        synchronized (snapshots) {
+            Snapshot snapshot = snapshots.get(kind);
+            if (snapshot != null && Instant.now().isBefore(snapshot.expiresAt())) {
+                return snapshot;
+            }
+        }
+        // loaded outside the lock, concurrent loads of an expired listing are harmless
+        return store(kind, loader.load());
+    }
+
+    private Snapshot store(Kind kind, Set<String> names) {
+        Set<String> normalized = ConcurrentHashMap.newKeySet();
+        names.forEach(name -> normalized.add(normalize(name)));
+        Snapshot snapshot = new Snapshot(normalized, Instant.now().plus(ttl));
+        synchronized (snapshots) {
+            snapshots.put(kind, snapshot);
+        }
+        return snapshot;
+    }
+
+    private static String normalize(String name) {
+        return name.toLowerCase(Locale.getDefault());
+    }
+
+    private record Snapshot(Set<String> names, Instant expiresAt) {
+    }
+}
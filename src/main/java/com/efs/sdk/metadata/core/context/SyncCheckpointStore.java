@@ -0,0 +1,169 @@
+/*
+Copyright (C) 2023 e:fs TechHub GmbH (sdk@efs-techhub.com)
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+        http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+ */
+package com.efs.sdk.metadata.core.context;
+
+import com.efs.sdk.metadata.clients.OpenSearchRestClientBuilder;
+import com.efs.sdk.metadata.commons.MetadataException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.StringEntity;
+import org.opensearch.client.Request;
+import org.opensearch.client.Response;
+import org.opensearch.client.ResponseException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.annotation.RequestMethod;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.ConnectException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+import static com.efs.sdk.metadata.commons.MetadataException.METADATA_ERROR.OPENSEARCH_CONNECTION_ERROR;
+import static com.efs.sdk.metadata.commons.MetadataException.METADATA_ERROR.OPENSEARCH_ERROR;
+import static java.lang.String.format;
+
+/**
+ * Checkpoint of the synchronization of the OpenSearch-context: the organizations completed by the last (unfinished) run.
+ * <p>
+ * The checkpoint is a single document in the index <code>metadata.sync.checkpoint-index</code>, so that it survives a restart of the service. It is
+ * removed once a run completes all organizations, and ignored once it has not been updated for <code>metadata.sync.checkpoint-ttl</code> - so that a
+ * persistently failing organization does not make every later run skip all others.
+ */
+@Component
+public class SyncCheckpointStore {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SyncCheckpointStore.class);
+    private static final String CHECKPOINT_ID = "opensearch-sync";
+    private static final String PROPERTY_ORGANIZATIONS = "completedOrganizations";
+    private static final String PROPERTY_UPDATED = "updated";
+
+    private final OpenSearchRestClientBuilder clientBuilder;
+    private final ObjectMapper objectMapper;
+    private final String endpoint;
+    private final Duration ttl;
+
+    /**
+     * Constructor.
+     *
+     * @param clientBuilder   The builder of the OpenSearch client
+     * @param objectMapper    The object-mapper
+     * @param checkpointIndex The index holding the checkpoint
+     * @param ttl             How long the checkpoint of an unfinished run is resumed after its last update
+     */
+    public SyncCheckpointStore(OpenSearchRestClientBuilder clientBuilder, ObjectMapper objectMapper,
+            @Value("${metadata.sync.checkpoint-index:metadata-sync-checkpoint}") String checkpointIndex,
+            @Value("${metadata.sync.checkpoint-ttl:24h}") Duration ttl) {
+        this.clientBuilder = clientBuilder;
+        this.objectMapper = objectMapper;
+        this.endpoint = format("/%s/_doc/%s", checkpointIndex, CHECKPOINT_ID);
+        this.ttl = ttl;
+    }
+
+    /**
+     * Loads the organizations completed by the last run
+     *
+     * @param token The Token
+     * @return the names of the organizations (empty, if there is no checkpoint or it has expired)
+     * @throws MetadataException thrown if the checkpoint could not be loaded
+     */
+    public Set<String> load(String token) throws MetadataException {
+        Set<String> organizations = new HashSet<>();
+        try {
+            Response response = clientBuilder.buildRestClient(token).performRequest(new Request(RequestMethod.GET.name(), endpoint));
+            try (InputStream content = response.getEntity().getContent()) {
+                JsonNode checkpoint = objectMapper.readTree(content).path("_source");
+                if (isExpired(checkpoint)) {
+                    LOG.info("ignoring checkpoint of sync-job {} last updated {}", checkpoint.path("jobId").asText(), checkpoint.path(PROPERTY_UPDATED)
+                            .asText());
+                    return organizations;
+                }
+                checkpoint.path(PROPERTY_ORGANIZATIONS).forEach(name -> organizations.add(name.asText()));
+            }
+        } catch (ResponseException e) {
+            // neither checkpoint nor index exist
+            if (HttpStatus.NOT_FOUND.value() != e.getResponse().getStatusLine().getStatusCode()) {
+                throw handle(e);
+            }
+        } catch (IOException e) {
+            throw handle(e);
+        }
+        return organizations;
+    }
+
+    /**
+     * Saves the organizations completed by the running job
+     *
+     * @param token         The Token
+     * @param jobId         The id of the running job
+     * @param organizations The names of the completed organizations
+     * @throws MetadataException thrown if the checkpoint could not be saved
+     */
+    public void save(String token, String jobId, Collection<String> organizations) throws MetadataException {
+        ObjectNode checkpoint = objectMapper.createObjectNode();
+        checkpoint.put("jobId", jobId);
+        checkpoint.put(PROPERTY_UPDATED, Instant.now().toString());
+        organizations.forEach(checkpoint.putArray(PROPERTY_ORGANIZATIONS)::add);
+        Request request = new Request(RequestMethod.PUT.name(), endpoint);
+        request.setEntity(new StringEntity(checkpoint.toString(), ContentType.APPLICATION_JSON));
+        try {
+            clientBuilder.buildRestClient(token).performRequest(request);
+        } catch (IOException e) {
+            throw handle(e);
+        }
+    }
+
+    /**
+     * Removes the checkpoint, so that the next run synchronizes all organizations
+     *
+     * @param token The Token
+     * @throws MetadataException thrown if the checkpoint could not be removed
+     */
+    public void clear(String token) throws MetadataException {
+        try {
+            clientBuilder.buildRestClient(token).performRequest(new Request(RequestMethod.DELETE.name(), endpoint));
+        } catch (ResponseException e) {
+            if (HttpStatus.NOT_FOUND.value() != e.getResponse().getStatusLine().getStatusCode()) {
+                throw handle(e);
+            }
+        } catch (IOException e) {
+            throw handle(e);
+        }
+    }
+
+    private boolean isExpired(JsonNode checkpoint) {
+        try {
+            return Instant.parse(checkpoint.path(PROPERTY_UPDATED).asText()).plus(ttl).isBefore(Instant.now());
+        } catch (DateTimeParseException e) {
+            return true;
+        }
+    }
+
+    private static MetadataException handle(IOException e) {
+        LOG.error(e.getMessage(), e);
+        return new MetadataException(e instanceof ConnectException ? OPENSEARCH_CONNECTION_ERROR : OPENSEARCH_ERROR);
+    }
+}
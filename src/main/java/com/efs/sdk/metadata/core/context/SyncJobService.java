@@ -0,0 +1,294 @@
+/*
+Copyright (C) 2023 e:fs TechHub GmbH (sdk@efs-techhub.com)
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+        http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+ */
+package com.efs.sdk.metadata.core.context;
+
+import com.efs.sdk.metadata.commons.MetadataException;
+import com.efs.sdk.metadata.core.AuthService;
+import com.efs.sdk.metadata.model.SyncJob;
+import com.efs.sdk.metadata.model.SyncJob.Status;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static com.efs.sdk.metadata.commons.MetadataException.METADATA_ERROR.SYNC_JOB_NOT_FOUND;
+
+/**
+ * Runs the synchronization of the OpenSearch-context as a background job.
+ * <p>
+ * At most one job runs at a time across all replicas - starting a job while another one is running returns the running one. The running job holds a
+ * lease (see {@link SyncJobStore}), renewed together with its progress every third of <code>metadata.sync.lease-duration</code>, so that every
+ * replica can report it and request its cancellation. A job, that cannot renew its lease in time, stops. Every organization completed by a job is
+ * checkpointed (see {@link SyncCheckpointStore}), so that a cancelled, failed or interrupted job can be resumed by the next one. The most recent jobs of
+ * this replica are kept in memory for status requests, all others are read from the store.
+ */
+@Service
+public class SyncJobService implements DisposableBean {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SyncJobService.class);
+    private static final int MAX_JOBS = 20;
+
+    private final OpensearchContextService contextService;
+    private final SyncCheckpointStore checkpointStore;
+    private final SyncJobStore jobStore;
+    private final AuthService authService;
+    private final Duration leaseDuration;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(new CustomizableThreadFactory("opensearch-sync-job-"));
+    private final ScheduledExecutorService heartbeats = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory(
+            "opensearch-sync-lease-"));
+    private final Map<String, SyncJob> jobs = new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, SyncJob> eldest) {
+            return size() > MAX_JOBS;
+        }
+    };
+    private SyncJob running;
+    /**
+     * When the running job last renewed its lease
+     */
+    private volatile Instant leaseRenewed;
+
+    /**
+     * Constructor.
+     *
+     * @param contextService  The OpensearchContextService
+     * @param checkpointStore The store of the checkpoint
+     * @param jobStore        The store of the jobs and the lease of the running one
+     * @param authService     The AuthService (for the token of the service-account)
+     * @param leaseDuration   How long the lease of the running job is valid without renewal
+     */
+    public SyncJobService(OpensearchContextService contextService, SyncCheckpointStore checkpointStore, SyncJobStore jobStore, AuthService authService,
+            @Value("${metadata.sync.lease-duration:1m}") Duration leaseDuration) {
+        this.contextService = contextService;
+        this.checkpointStore = checkpointStore;
+        this.jobStore = jobStore;
+        this.authService = authService;
+        this.leaseDuration = leaseDuration;
+    }
+
+    /**
+     * Starts a synchronization, unless one is already running
+     *
+     * @param subject The subject, on whose behalf the synchronization runs (for the audit-log)
+     * @param resume  Whether organizations completed by a previous job are skipped
+     * @param force   Whether roles and rolesmappings are written, even if they are unchanged
+     * @return the started (or already running) job
+     * @throws MetadataException thrown if the lease could not be acquired
+     */
+    public synchronized SyncJob start(JwtAuthenticationToken subject, boolean resume, boolean force) throws MetadataException {
+        if (running != null && running.getStatus() == Status.RUNNING) {
+            return running;
+        }
+        String token = authService.getSAAccessToken();
+        SyncJob job = new SyncJob(UUID.randomUUID().toString());
+        String holder = jobStore.acquireLease(token, job.getId(), leaseDuration);
+        if (!job.getId().equals(holder)) {
+            // running on another replica (which may not have saved it yet)
+            SyncJob other = jobStore.find(token, holder);
+            return other == null ? new SyncJob(holder) : other;
+        }
+        leaseRenewed = Instant.now();
+        jobs.put(job.getId(), job);
+        running = job;
+        save(job);
+        executor.execute(() -> run(job, subject, resume, force));
+        return job;
+    }
+
+    /**
+     * Gets a job
+     *
+     * @param id The id of the job
+     * @return the job
+     * @throws MetadataException thrown if there is no such job
+     */
+    public SyncJob getJob(String id) throws MetadataException {
+        SyncJob job;
+        synchronized (this) {
+            job = jobs.get(id);
+        }
+        if (job == null) {
+            job = jobStore.find(authService.getSAAccessToken(), id);
+        }
+        if (job == null) {
+            throw new MetadataException(SYNC_JOB_NOT_FOUND);
+        }
+        return job;
+    }
+
+    /**
+     * Cancels a job - organizations and spaces already being synchronized are finished, the completed organizations remain checkpointed. A job running
+     * on another replica stops, once that replica renews its lease.
+     *
+     * @param id The id of the job
+     * @return the job
+     * @throws MetadataException thrown if there is no such job
+     */
+    public SyncJob cancel(String id) throws MetadataException {
+        SyncJob job;
+        synchronized (this) {
+            job = jobs.get(id);
+        }
+        if (job != null) {
+            job.cancel();
+            return job;
+        }
+        job = getJob(id);
+        if (job.getStatus() == Status.RUNNING) {
+            jobStore.requestCancel(authService.getSAAccessToken(), id);
+        }
+        return job;
+    }
+
+    void run(SyncJob job, JwtAuthenticationToken subject, boolean resume, boolean force) {
+        long heartbeatMillis = Math.max(1, leaseDuration.toMillis() / 3);
+        ScheduledFuture<?> heartbeat = heartbeats.scheduleWithFixedDelay(() -> heartbeat(job), heartbeatMillis, heartbeatMillis, TimeUnit.MILLISECONDS);
+        try {
+            sync(job, subject, resume, force);
+        } finally {
+            heartbeat.cancel(false);
+        }
+        // not overtaken by a heartbeat in progress
+        synchronized (job) {
+            save(job);
+            try {
+                jobStore.releaseLease(authService.getSAAccessToken(), job.getId());
+            } catch (MetadataException | RuntimeException e) {
+                LOG.warn("unable to release lease of sync-job {}, it expires in {}: {}", job.getId(), leaseDuration, e.getMessage());
+            }
+        }
+    }
+
+    private void sync(SyncJob job, JwtAuthenticationToken subject, boolean resume, boolean force) {
+        Set<String> completed = ConcurrentHashMap.newKeySet();
+        try {
+            String token = authService.getSAAccessToken();
+            if (resume) {
+                completed.addAll(checkpointStore.load(token));
+            } else {
+                checkpointStore.clear(token);
+            }
+            Set<String> previouslyCompleted = Set.copyOf(completed);
+            LOG.info("starting sync-job {} ({} organizations already completed)", job.getId(), previouslyCompleted.size());
+
+            contextService.syncOpensearch(authService::getSAAccessToken, subject, job.getReport(), new SyncProgress() {
+                @Override
+                public boolean isCancelled() {
+                    return job.isCancelRequested();
+                }
+
+                @Override
+                public boolean isCompleted(String organization) {
+                    return previouslyCompleted.contains(organization);
+                }
+
+                @Override
+                public void organizationCompleted(String organization) {
+                    completed.add(organization);
+                    checkpoint(job, completed);
+                }
+            }, force);
+
+            if (job.isCancelRequested()) {
+                job.finish(Status.CANCELLED, null);
+            } else {
+                if (job.getReport().isSuccessful()) {
+                    checkpointStore.clear(authService.getSAAccessToken());
+                }
+                job.finish(Status.COMPLETED, null);
+            }
+        } catch (MetadataException | RuntimeException e) {
+            LOG.error("sync-job {} failed: {}", job.getId(), e.getMessage());
+            job.finish(Status.FAILED, e.getMessage());
+        }
+        LOG.info("sync-job {} finished with status {}", job.getId(), job.getStatus());
+    }
+
+    /**
+     * Renews the lease of the running job and saves its progress - stops the job, if it lost its lease or its cancellation was requested on another
+     * replica
+     */
+    void heartbeat(SyncJob job) {
+        synchronized (job) {
+            if (job.getStatus() == Status.RUNNING) {
+                renew(job);
+            }
+        }
+    }
+
+    private void renew(SyncJob job) {
+        try {
+            String token = authService.getSAAccessToken();
+            if (jobStore.renewLease(token, job.getId(), leaseDuration)) {
+                leaseRenewed = Instant.now();
+            } else {
+                LOG.warn("sync-job {} lost its lease, cancelling it", job.getId());
+                job.cancel();
+            }
+            if (jobStore.isCancelRequested(token, job.getId())) {
+                LOG.info("cancellation of sync-job {} requested", job.getId());
+                job.cancel();
+            }
+            jobStore.save(token, job);
+        } catch (MetadataException | RuntimeException e) {
+            LOG.warn("unable to renew lease of sync-job {}: {}", job.getId(), e.getMessage());
+            // another replica may take over once the lease expired
+            if (leaseRenewed == null || leaseRenewed.plus(leaseDuration).isBefore(Instant.now())) {
+                job.cancel();
+            }
+        }
+    }
+
+    private void save(SyncJob job) {
+        try {
+            jobStore.save(authService.getSAAccessToken(), job);
+        } catch (MetadataException | RuntimeException e) {
+            LOG.warn("unable to save sync-job {}: {}", job.getId(), e.getMessage());
+        }
+    }
+
+    private void checkpoint(SyncJob job, Set<String> completed) {
+        // the whole set is written, so concurrent completions must not overtake each other
+        synchronized (completed) {
+            try {
+                checkpointStore.save(authService.getSAAccessToken(), job.getId(), List.copyOf(completed));
+            } catch (MetadataException | RuntimeException e) {
+                LOG.warn("unable to checkpoint sync-job {}: {}", job.getId(), e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public void destroy() {
+        SyncJob job;
+        synchronized (this) {
+            job = running;
+        }
+        if (job != null) {
+            job.cancel();
+        }
+        heartbeats.shutdownNow();
+        executor.shutdownNow();
+    }
+}
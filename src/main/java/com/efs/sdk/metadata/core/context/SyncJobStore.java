@@ -0,0 +1,295 @@
+/*
+Copyright (C) 2023 e:fs TechHub GmbH (sdk@efs-techhub.com)
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+        http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+ */
+package com.efs.sdk.metadata.core.context;
+
+import com.efs.sdk.metadata.clients.OpenSearchRestClient;
+import com.efs.sdk.metadata.clients.OpenSearchRestClientBuilder;
+import com.efs.sdk.metadata.commons.MetadataException;
+import com.efs.sdk.metadata.model.SyncJob;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.StringEntity;
+import org.opensearch.client.Request;
+import org.opensearch.client.Response;
+import org.opensearch.client.ResponseException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.annotation.RequestMethod;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.ConnectException;
+import java.time.Duration;
+import java.time.Instant;
+
+import static com.efs.sdk.metadata.commons.MetadataException.METADATA_ERROR.OPENSEARCH_CONNECTION_ERROR;
+import static com.efs.sdk.metadata.commons.MetadataException.METADATA_ERROR.OPENSEARCH_ERROR;
+import static com.efs.sdk.metadata.commons.MetadataException.METADATA_ERROR.SYNC_JOB_NOT_FOUND;
+import static java.lang.String.format;
+
+/**
+ * Sync-jobs and the lease of the running one, kept in the index <code>metadata.sync.job-index</code>, so that every replica can report and cancel
+ * them and at most one job runs across all replicas.
+ * <p>
+ * The lease is a single document naming the running job and when the lease expires. It is taken over with optimistic concurrency control
+ * (<code>if_seq_no</code>, <code>if_primary_term</code>), so that of two replicas starting a job at the same time only one acquires it. A replica
+ * crashing while running a job does not block further jobs beyond the expiry of its lease.
+ */
+@Component
+public class SyncJobStore {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SyncJobStore.class);
+    private static final String LEASE_ID = "opensearch-sync-lease";
+    private static final String PROPERTY_JOB_ID = "jobId";
+    private static final String PROPERTY_EXPIRES = "expires";
+    private static final String PROPERTY_CANCEL_REQUESTED = "cancelRequested";
+    private static final int MAX_ATTEMPTS = 3;
+
+    private final OpenSearchRestClientBuilder clientBuilder;
+    private final ObjectMapper objectMapper;
+    private final String jobIndex;
+
+    /**
+     * Constructor.
+     *
+     * @param clientBuilder The builder of the OpenSearch client
+     * @param objectMapper  The object-mapper
+     * @param jobIndex      The index holding the jobs and the lease
+     */
+    public SyncJobStore(OpenSearchRestClientBuilder clientBuilder, ObjectMapper objectMapper,
+            @Value("${metadata.sync.job-index:metadata-sync-jobs}") String jobIndex) {
+        this.clientBuilder = clientBuilder;
+        this.objectMapper = objectMapper;
+        this.jobIndex = jobIndex;
+    }
+
+    /**
+     * Acquires the lease for the given job, unless another job holds an unexpired one
+     *
+     * @param token    The Token
+     * @param jobId    The id of the job to run
+     * @param duration How long the lease is valid without renewal
+     * @return the id of the job holding the lease (the given one, if it was acquired)
+     * @throws MetadataException thrown if the lease could not be acquired or read
+     */
+    public String acquireLease(String token, String jobId, Duration duration) throws MetadataException {
+        OpenSearchRestClient restClient = clientBuilder.buildRestClient(token);
+        for (int attempt = 1; attempt <= MAX_ATTEMPTS; attempt++) {
+            Lease lease = readLease(restClient);
+            if (lease != null && !lease.jobId().equals(jobId) && lease.expires().isAfter(Instant.now())) {
+                return lease.jobId();
+            }
+            if (writeLease(restClient, lease, jobId, duration)) {
+                return jobId;
+            }
+            // acquired by another replica in the meantime
+        }
+        LOG.error("unable to acquire sync-lease for job {} within {} attempts", jobId, MAX_ATTEMPTS);
+        throw new MetadataException(OPENSEARCH_ERROR);
+    }
+
+    /**
+     * Renews the lease of the given job
+     *
+     * @param token    The Token
+     * @param jobId    The id of the running job
+     * @param duration How long the lease is valid without renewal
+     * @return whether the job still holds the lease
+     * @throws MetadataException thrown if the lease could not be read or written
+     */
+    public boolean renewLease(String token, String jobId, Duration duration) throws MetadataException {
+        OpenSearchRestClient restClient = clientBuilder.buildRestClient(token);
+        Lease lease = readLease(restClient);
+        return lease != null && lease.jobId().equals(jobId) && writeLease(restClient, lease, jobId, duration);
+    }
+
+    /**
+     * Releases the lease of the given job (if it still holds it), so that the next job does not wait for it to expire
+     *
+     * @param token The Token
+     * @param jobId The id of the finished job
+     * @throws MetadataException thrown if the lease could not be read or removed
+     */
+    public void releaseLease(String token, String jobId) throws MetadataException {
+        OpenSearchRestClient restClient = clientBuilder.buildRestClient(token);
+        Lease lease = readLease(restClient);
+        if (lease == null || !lease.jobId().equals(jobId)) {
+            return;
+        }
+        try {
+            restClient.performRequest(new Request(RequestMethod.DELETE.name(), format("/%s/_doc/%s?if_seq_no=%d&if_primary_term=%d", jobIndex, LEASE_ID,
+                    lease.seqNo(), lease.primaryTerm())));
+        } catch (ResponseException e) {
+            // removed or taken over in the meantime
+            if (!isStatus(e, HttpStatus.NOT_FOUND) && !isStatus(e, HttpStatus.CONFLICT)) {
+                throw handle(e);
+            }
+        } catch (IOException e) {
+            throw handle(e);
+        }
+    }
+
+    /**
+     * Saves the state and progress of a job - a cancellation requested on another replica is kept
+     *
+     * @param token The Token
+     * @param job   The job
+     * @throws MetadataException thrown if the job could not be saved
+     */
+    public void save(String token, SyncJob job) throws MetadataException {
+        ObjectNode update = objectMapper.createObjectNode();
+        update.set("doc", objectMapper.valueToTree(job));
+        update.put("doc_as_upsert", true);
+        Request request = new Request(RequestMethod.POST.name(), format("/%s/_update/%s", jobIndex, job.getId()));
+        request.setEntity(new StringEntity(update.toString(), ContentType.APPLICATION_JSON));
+        try {
+            clientBuilder.buildRestClient(token).performRequest(request);
+        } catch (IOException e) {
+            throw handle(e);
+        }
+    }
+
+    /**
+     * Loads a job
+     *
+     * @param token The Token
+     * @param id    The id of the job
+     * @return the job (null, if there is no such job)
+     * @throws MetadataException thrown if the job could not be loaded
+     */
+    public SyncJob find(String token, String id) throws MetadataException {
+        JsonNode source = findSource(clientBuilder.buildRestClient(token), id);
+        // the lease is no job
+        if (source == null || !id.equals(source.path("id").asText())) {
+            return null;
+        }
+        return objectMapper.convertValue(source, SyncJob.class);
+    }
+
+    /**
+     * Requests a job to stop - the replica running it stops on its next renewal of the lease
+     *
+     * @param token The Token
+     * @param id    The id of the job
+     * @throws MetadataException thrown if there is no such job or the request could not be saved
+     */
+    public void requestCancel(String token, String id) throws MetadataException {
+        ObjectNode update = objectMapper.createObjectNode();
+        update.putObject("doc").put(PROPERTY_CANCEL_REQUESTED, true);
+        Request request = new Request(RequestMethod.POST.name(), format("/%s/_update/%s", jobIndex, id));
+        request.setEntity(new StringEntity(update.toString(), ContentType.APPLICATION_JSON));
+        try {
+            clientBuilder.buildRestClient(token).performRequest(request);
+        } catch (ResponseException e) {
+            throw isStatus(e, HttpStatus.NOT_FOUND) ? new MetadataException(SYNC_JOB_NOT_FOUND) : handle(e);
+        } catch (IOException e) {
+            throw handle(e);
+        }
+    }
+
+    /**
+     * Checks whether a job was requested to stop (see {@link #requestCancel(String, String)})
+     *
+     * @param token The Token
+     * @param id    The id of the job
+     * @return whether the job was requested to stop
+     * @throws MetadataException thrown if the job could not be loaded
+     */
+    public boolean isCancelRequested(String token, String id) throws MetadataException {
+        JsonNode source = findSource(clientBuilder.buildRestClient(token), id);
+        return source != null && source.path(PROPERTY_CANCEL_REQUESTED).asBoolean();
+    }
+
+    private JsonNode findSource(OpenSearchRestClient restClient, String id) throws MetadataException {
+        try {
+            Response response = restClient.performRequest(new Request(RequestMethod.GET.name(), format("/%s/_source/%s", jobIndex, id)));
+            try (InputStream content = response.getEntity().getContent()) {
+                return objectMapper.readTree(content);
+            }
+        } catch (ResponseException e) {
+            // neither job nor index exist
+            if (isStatus(e, HttpStatus.NOT_FOUND)) {
+                return null;
+            }
+            throw handle(e);
+        } catch (IOException e) {
+            throw handle(e);
+        }
+    }
+
+    private Lease readLease(OpenSearchRestClient restClient) throws MetadataException {
+        try {
+            Response response = restClient.performRequest(new Request(RequestMethod.GET.name(), format("/%s/_doc/%s", jobIndex, LEASE_ID)));
+            try (InputStream content = response.getEntity().getContent()) {
+                JsonNode document = objectMapper.readTree(content);
+                JsonNode source = document.path("_source");
+                return new Lease(source.path(PROPERTY_JOB_ID).asText(), Instant.parse(source.path(PROPERTY_EXPIRES).asText()),
+                        document.path("_seq_no").asLong(), document.path("_primary_term").asLong());
+            }
+        } catch (ResponseException e) {
+            // neither lease nor index exist
+            if (isStatus(e, HttpStatus.NOT_FOUND)) {
+                return null;
+            }
+            throw handle(e);
+        } catch (IOException e) {
+            throw handle(e);
+        }
+    }
+
+    /**
+     * Writes the lease - creates it, if there is none, otherwise replaces the given one, unless it was changed in the meantime
+     *
+     * @return whether the lease was written
+     */
+    private boolean writeLease(OpenSearchRestClient restClient, Lease current, String jobId, Duration duration) throws MetadataException {
+        ObjectNode lease = objectMapper.createObjectNode();
+        lease.put(PROPERTY_JOB_ID, jobId);
+        lease.put(PROPERTY_EXPIRES, Instant.now().plus(duration).toString());
+        String endpoint = current == null ? format("/%s/_create/%s", jobIndex, LEASE_ID) : format("/%s/_doc/%s?if_seq_no=%d&if_primary_term=%d", jobIndex,
+                LEASE_ID, current.seqNo(), current.primaryTerm());
+        Request request = new Request(RequestMethod.PUT.name(), endpoint);
+        request.setEntity(new StringEntity(lease.toString(), ContentType.APPLICATION_JSON));
+        try {
+            restClient.performRequest(request);
+            return true;
+        } catch (ResponseException e) {
+            if (isStatus(e, HttpStatus.CONFLICT)) {
+                return false;
+            }
+            throw handle(e);
+        } catch (IOException e) {
+            throw handle(e);
+        }
+    }
+
+    private static boolean isStatus(ResponseException e, HttpStatus status) {
+        return status.value() == e.getResponse().getStatusLine().getStatusCode();
+    }
+
+    private static MetadataException handle(IOException e) {
+        LOG.error(e.getMessage(), e);
+        return new MetadataException(e instanceof ConnectException ? OPENSEARCH_CONNECTION_ERROR : OPENSEARCH_ERROR);
+    }
+
+    private record Lease(String jobId, Instant expires, long seqNo, long primaryTerm) {
+    }
+}
@@ -0,0 +1,55 @@
+/*
+Copyright (C) 2023 e:fs TechHub GmbH (sdk@efs-techhub.com)
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+        http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+ */
+package com.efs.sdk.metadata.core.context;
+
+/**
+ * Control of a running synchronization of the OpenSearch-context: whether it has been cancelled, which organizations can be skipped (as they were
+ * completed by a previous run) and which organizations have been completed.
+ */
+public interface SyncProgress {
+
+    /**
+     * Progress of a synchronization that cannot be cancelled and does not skip any organization
+     */
+    SyncProgress NONE = new SyncProgress() {
+    };
+
+    /**
+     * Checked before each organization and space - once cancelled, no further organization or space is synchronized
+     *
+     * @return whether the synchronization has been cancelled
+     */
+    default boolean isCancelled() {
+        return false;
+    }
+
+    /**
+     * @param organization the name of the organization
+     * @return whether the organization was completed by a previous run and can be skipped
+     */
+    default boolean isCompleted(String organization) {
+        return false;
+    }
+
+    /**
+     * Called (concurrently) once the organization and all of its spaces were synchronized without failure
+     *
+     * @param organization the name of the organization
+     */
+    default void organizationCompleted(String organization) {
+        // nothing to record by default
+    }
+}
@@ -0,0 +1,432 @@
+/*
+Copyright (C) 2023 e:fs TechHub GmbH (sdk@efs-techhub.com)
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+        http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+ */
+package com.efs.sdk.metadata.core.events;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+import static java.lang.String.format;
+
+/**
+ * Durable, append-only log of the events to be sent to Kafka (transactional outbox).
+ * <p>
+ * Events are appended to memory-mapped segment-files in <code>metadata.outbox.directory</code> (which should be on a persistent volume) before the request
+ * producing them is acknowledged, and sent to Kafka by the {@link OutboxRelay}. The position up to which events have been relayed is kept in a cursor-file,
+ * so events not relayed yet when the service stops are replayed on restart - events may be sent more than once, but are not lost. Segments are deleted
+ * once all of their events have been relayed.
+ * <p>
+ * Events are appended after the write to OpenSearch they report has succeeded - the write and the append are not atomic. If the service dies between
+ * the two, the document is written, but its event is lost. The request producing the event is not acknowledged in that case (the client sees a failed
+ * request, the ingest-topic does not commit the offset), so the event is only recorded, once the request is repeated.
+ * <p>
+ * A record consists of the length of its payload (int), the CRC32 of the payload (int), the time it was appended (long, epoch-millis) and the payload (topic,
+ * key and message). Every record is followed by a zero length, so a torn write at the tail is never mistaken for a record.
+ */
+@Component
+public class EventOutbox implements MeterBinder, DisposableBean {
+
+    private static final Logger LOG = LoggerFactory.getLogger(EventOutbox.class);
+    private static final String METRIC_PREFIX = "metadata.outbox.";
+    private static final String SEGMENT_SUFFIX = ".segment";
+    private static final String CURSOR_FILE = "cursor";
+    private static final int RECORD_HEADER = Integer.BYTES + Integer.BYTES + Long.BYTES;
+    private static final int CURSOR_SIZE = Long.BYTES + Integer.BYTES + Integer.BYTES;
+    private static final String NO_KEY = "";
+
+    private final Path directory;
+    private final int segmentSize;
+    private final long maxSegments;
+    private final boolean fsync;
+
+    private final NavigableMap<Long, MappedByteBuffer> segments = new TreeMap<>();
+    private final MappedByteBuffer cursor;
+    private long writeSegment;
+    private int writePosition;
+    private long readSegment;
+    private int readPosition;
+    private long backlog;
+    private long backlogBytes;
+    private boolean closed;
+
+    private final AtomicLong appended = new AtomicLong();
+
+    /**
+     * Constructor.
+     *
+     * @param directory   The directory holding the segments and the cursor
+     * @param segmentSize The size of a segment
+     * @param maxSize     The maximum size of all segments - events are rejected, if the events not relayed yet exceed it
+     * @param fsync       Whether appended events are forced to the storage device before the request is acknowledged
+     */
+    public EventOutbox(@Value("${metadata.outbox.directory:${java.io.tmpdir}/metadata-outbox}") Path directory,
+            @Value("${metadata.outbox.segment-size:16MB}") DataSize segmentSize, @Value("${metadata.outbox.max-size:1GB}") DataSize maxSize,
+            @Value("${metadata.outbox.fsync:true}") boolean fsync) {
+        this.directory = directory;
+        this.segmentSize = (int) Math.min(Integer.MAX_VALUE, segmentSize.toBytes());
+        this.maxSegments = Math.max(2, maxSize.toBytes() / this.segmentSize);
+        this.fsync = fsync;
+        try {
+            Files.createDirectories(directory);
+            this.cursor = map(directory.resolve(CURSOR_FILE), CURSOR_SIZE);
+            open();
+        } catch (IOException e) {
+            throw new IllegalStateException(format("unable to open event outbox in '%s'", directory), e);
+        }
+    }
+
+    /**
+     * Maps the existing segments and restores the positions of reading (from the cursor) and writing (after the last valid record)
+     */
+    private void open() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.filter(f -> f.getFileName().toString().endsWith(SEGMENT_SUFFIX)).toList()) {
+                String name = file.getFileName().toString();
+                segments.put(Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length())), map(file, Files.size(file)));
+            }
+        }
+        long cursorSegment = cursor.getLong(0);
+        int cursorPosition = cursor.getInt(Long.BYTES);
+        boolean cursorValid = cursor.getInt(Long.BYTES + Integer.BYTES) == cursorChecksum(cursorSegment, cursorPosition);
+        readSegment = cursorValid ? cursorSegment : 0;
+        readPosition = cursorValid ? cursorPosition : 0;
+        if (!segments.containsKey(readSegment)) {
+            Long next = segments.ceilingKey(readSegment);
+            if (next == null) {
+                segments.put(readSegment, map(segmentPath(readSegment), segmentSize));
+            } else {
+                readSegment = next;
+            }
+            readPosition = 0;
+        }
+        deleteSegmentsBefore(readSegment);
+
+        // replay: everything from the cursor up to the last valid record is still to be relayed
+        for (Map.Entry<Long, MappedByteBuffer> segment : segments.entrySet()) {
+            int position = segment.getKey() == readSegment ? readPosition : 0;
+            int size;
+            while ((size = recordSize(segment.getValue(), position)) > 0) {
+                backlog++;
+                backlogBytes += size;
+                position += size;
+            }
+            writeSegment = segment.getKey();
+            writePosition = position;
+        }
+        MappedByteBuffer last = segments.get(writeSegment);
+        if (writePosition + Integer.BYTES <= last.capacity()) {
+            last.putInt(writePosition, 0);
+        }
+        LOG.info("opened event outbox in '{}' with {} events ({} bytes) to relay", directory, backlog, backlogBytes);
+    }
+
+    /**
+     * Appends the events - they are durable, once this returns
+     *
+     * @param events the events
+     * @throws IOException if the outbox is full or closed, or an event exceeds the size of a segment (events appended before are relayed nevertheless)
+     */
+    public void append(List<OutboxEvent> events) throws IOException {
+        if (events.isEmpty()) {
+            return;
+        }
+        List<byte[]> payloads = new ArrayList<>(events.size());
+        for (OutboxEvent event : events) {
+            payloads.add(encode(event));
+        }
+        synchronized (this) {
+            if (closed) {
+                throw new IOException("event outbox is closed");
+            }
+            long now = System.currentTimeMillis();
+            Set<MappedByteBuffer> written = Collections.newSetFromMap(new IdentityHashMap<>());
+            try {
+                for (byte[] payload : payloads) {
+                    int size = RECORD_HEADER + payload.length;
+                    MappedByteBuffer segment = segments.get(writeSegment);
+                    if (writePosition + size > segment.capacity()) {
+                        segment = roll(size);
+                    }
+                    CRC32 crc = new CRC32();
+                    crc.update(payload);
+                    segment.putInt(writePosition + Integer.BYTES, (int) crc.getValue());
+                    segment.putLong(writePosition + Integer.BYTES + Integer.BYTES, now);
+                    segment.put(writePosition + RECORD_HEADER, payload);
+                    if (writePosition + size + Integer.BYTES <= segment.capacity()) {
+                        segment.putInt(writePosition + size, 0);
+                    }
+                    // the length is written last, so the record becomes visible once it is complete
+                    segment.putInt(writePosition, payload.length);
+                    writePosition += size;
+                    backlog++;
+                    backlogBytes += size;
+                    appended.incrementAndGet();
+                    written.add(segment);
+                }
+            } finally {
+                if (fsync) {
+                    written.forEach(MappedByteBuffer::force);
+                }
+                notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Starts a new segment for a record of the given size
+     *
+     * @param size the size of the record
+     * @return the new segment
+     * @throws IOException if the record does not fit into a segment or the outbox is full
+     */
+    private MappedByteBuffer roll(int size) throws IOException {
+        if (size > segmentSize) {
+            throw new IOException(format("event of %d bytes exceeds the segment-size of the event outbox", size));
+        }
+        if (segments.size() >= maxSegments) {
+            throw new IOException(format("event outbox is full (%d events not relayed yet)", backlog));
+        }
+        MappedByteBuffer segment = map(segmentPath(writeSegment + 1), segmentSize);
+        writeSegment++;
+        writePosition = 0;
+        segments.put(writeSegment, segment);
+        return segment;
+    }
+
+    /**
+     * Reads the next events to relay (starting at the cursor)
+     *
+     * @param maxEvents the maximum number of events
+     * @return the events (with the position following them)
+     */
+    synchronized Batch read(int maxEvents) {
+        List<OutboxEvent> events = new ArrayList<>();
+        long segmentIndex = readSegment;
+        int position = readPosition;
+        long bytes = 0;
+        long oldestAppendedAt = 0;
+        while (events.size() < maxEvents) {
+            MappedByteBuffer segment = segments.get(segmentIndex);
+            int size = segmentIndex == writeSegment && position >= writePosition ? -1 : recordSize(segment, position);
+            if (size < 0) {
+                if (segmentIndex == writeSegment) {
+                    if (position < writePosition) {
+                        LOG.error("skipping corrupt events in segment {} of event outbox (position {} to {})", segmentIndex, position, writePosition);
+                        position = writePosition;
+                    }
+                    break;
+                }
+                segmentIndex = segments.higherKey(segmentIndex);
+                position = 0;
+                continue;
+            }
+            if (events.isEmpty()) {
+                oldestAppendedAt = segment.getLong(position + Integer.BYTES + Integer.BYTES);
+            }
+            events.add(decode(segment, position));
+            position += size;
+            bytes += size;
+        }
+        return new Batch(events, segmentIndex, position, bytes, oldestAppendedAt);
+    }
+
+    /**
+     * Marks the events of the batch (and all events before) as relayed, i.e. moves the cursor behind them
+     *
+     * @param batch the batch (read last)
+     */
+    synchronized void commit(Batch batch) {
+        readSegment = batch.segment();
+        readPosition = batch.position();
+        cursor.putLong(0, readSegment);
+        cursor.putInt(Long.BYTES, readPosition);
+        cursor.putInt(Long.BYTES + Integer.BYTES, cursorChecksum(readSegment, readPosition));
+        if (fsync) {
+            cursor.force();
+        }
+        backlog = Math.max(0, backlog - batch.events().size());
+        backlogBytes = Math.max(0, backlogBytes - batch.bytes());
+        if (readSegment == writeSegment && readPosition >= writePosition) {
+            backlog = 0;
+            backlogBytes = 0;
+        }
+        deleteSegmentsBefore(readSegment);
+    }
+
+    /**
+     * Waits until events are appended (returns immediately, if there are events to relay)
+     *
+     * @param timeout the maximum time to wait
+     * @throws InterruptedException if interrupted while waiting
+     */
+    synchronized void awaitEvents(Duration timeout) throws InterruptedException {
+        if (backlog == 0 && !closed) {
+            wait(Math.max(1, timeout.toMillis()));
+        }
+    }
+
+    /**
+     * @return the number of events not relayed yet
+     */
+    public synchronized long getBacklog() {
+        return backlog;
+    }
+
+    /**
+     * @return the size (in bytes) of the events not relayed yet
+     */
+    public synchronized long getBacklogBytes() {
+        return backlogBytes;
+    }
+
+    /**
+     * @return how long ago the oldest event not relayed yet was appended
+     */
+    double lagSeconds() {
+        Batch oldest = read(1);
+        if (oldest.events().isEmpty()) {
+            return 0;
+        }
+        return Math.max(0, System.currentTimeMillis() - oldest.oldestAppendedAt()) / 1000d;
+    }
+
+    private void deleteSegmentsBefore(long segmentIndex) {
+        Iterator<Long> drained = segments.headMap(segmentIndex, false).keySet().iterator();
+        while (drained.hasNext()) {
+            long index = drained.next();
+            drained.remove();
+            try {
+                Files.deleteIfExists(segmentPath(index));
+            } catch (IOException e) {
+                LOG.warn("unable to delete relayed segment {} of event outbox: {}", index, e.getMessage());
+            }
+        }
+    }
+
+    private Path segmentPath(long segmentIndex) {
+        return directory.resolve(format("%020d%s", segmentIndex, SEGMENT_SUFFIX));
+    }
+
+    private static MappedByteBuffer map(Path file, long size) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+    }
+
+    /**
+     * Gets the size of the (valid) record at the given position
+     *
+     * @param segment  the segment
+     * @param position the position
+     * @return the size of the record (including its header) or -1, if there is no valid record at the position
+     */
+    private static int recordSize(ByteBuffer segment, int position) {
+        if (position + RECORD_HEADER > segment.capacity()) {
+            return -1;
+        }
+        int length = segment.getInt(position);
+        if (length <= 0 || length > segment.capacity() - position - RECORD_HEADER) {
+            return -1;
+        }
+        CRC32 crc = new CRC32();
+        crc.update(segment.slice(position + RECORD_HEADER, length));
+        return (int) crc.getValue() == segment.getInt(position + Integer.BYTES) ? RECORD_HEADER + length : -1;
+    }
+
+    private static byte[] encode(OutboxEvent event) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeUTF(event.topic());
+            out.writeUTF(event.key() == null ? NO_KEY : event.key());
+            out.write(event.message().getBytes(StandardCharsets.UTF_8));
+        }
+        return bytes.toByteArray();
+    }
+
+    private static OutboxEvent decode(ByteBuffer segment, int position) {
+        byte[] payload = new byte[segment.getInt(position)];
+        segment.get(position + RECORD_HEADER, payload);
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload))) {
+            String topic = in.readUTF();
+            String key = in.readUTF();
+            int remaining = in.available();
+            String message = new String(payload, payload.length - remaining, remaining, StandardCharsets.UTF_8);
+            return new OutboxEvent(topic, NO_KEY.equals(key) ? null : key, message);
+        } catch (IOException e) {
+            throw new UncheckedIOException("unable to decode event of outbox", e);
+        }
+    }
+
+    private static int cursorChecksum(long segmentIndex, int position) {
+        CRC32 crc = new CRC32();
+        crc.update(ByteBuffer.allocate(Long.BYTES + Integer.BYTES).putLong(segmentIndex).putInt(position).flip());
+        return (int) crc.getValue();
+    }
+
+    @Override
+    public void bindTo(@NotNull MeterRegistry registry) {
+        Gauge.builder(METRIC_PREFIX + "backlog", this, EventOutbox::getBacklog).description("events not relayed to kafka yet").register(registry);
+        Gauge.builder(METRIC_PREFIX + "backlog.bytes", this, EventOutbox::getBacklogBytes).baseUnit("bytes").description(
+                "size of the events not relayed to kafka yet").register(registry);
+        TimeGauge.builder(METRIC_PREFIX + "lag", this, TimeUnit.SECONDS, EventOutbox::lagSeconds).description(
+                "time since the oldest event not relayed to kafka yet was appended").register(registry);
+        FunctionCounter.builder(METRIC_PREFIX + "appended", appended, AtomicLong::get).description("events appended to the outbox").register(registry);
+    }
+
+    @Override
+    public synchronized void destroy() {
+        closed = true;
+        segments.values().forEach(MappedByteBuffer::force);
+        cursor.force();
+        notifyAll();
+    }
+
+    /**
+     * Events read from the outbox
+     *
+     * @param events           the events
+     * @param segment          the segment following the events
+     * @param position         the position following the events (within that segment)
+     * @param bytes            the size of the events
+     * @param oldestAppendedAt the time the first event was appended (epoch-millis)
+     */
+    record Batch(List<OutboxEvent> events, long segment, int position, long bytes, long oldestAppendedAt) {
+    }
+}
@@ -15,17 +15,21 @@ limitations under the License.
  */
 package com.efs.sdk.metadata.core.events;
 
+import com.efs.sdk.metadata.commons.MetadataException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.core.task.TaskExecutor;
-import org.springframework.kafka.core.KafkaTemplate;
-import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Component;
 
-import java.util.concurrent.CompletableFuture;
+import java.io.IOException;
+import java.util.List;
+
+import static com.efs.sdk.metadata.commons.MetadataException.METADATA_ERROR.UNABLE_RECORD_EVENT;
 
 /**
  * Service for Event-publishing
+ * <p>
+ * Events are recorded in the {@link EventOutbox} (durably, before the request producing them is acknowledged) and sent to Kafka by the
+ * {@link OutboxRelay}.
  *
  * @author e:fs TechHub GmbH
  */
@@ -38,71 +42,52 @@ public class EventPublisher {
     private static final Logger LOG = LoggerFactory.getLogger(EventPublisher.class);
 
     /**
-     * Instance of the KafkaTemplate
+     * Instance of the EventOutbox
      */
-    private final KafkaTemplate<String, String> kafkaTemplate;
-
-    private final TaskExecutor taskExecutor;
+    private final EventOutbox outbox;
 
     /**
      * Constructor.
      *
-     * @param kafkaTemplate The KafkaTemplate
-     * @param taskExecutor  The TaskExecutor
+     * @param outbox The EventOutbox
      */
-    public EventPublisher(KafkaTemplate<String, String> kafkaTemplate, TaskExecutor taskExecutor) {
-        this.kafkaTemplate = kafkaTemplate;
-        this.taskExecutor = taskExecutor;
+    public EventPublisher(EventOutbox outbox) {
+        this.outbox = outbox;
     }
 
     /**
      * Sends the message
      *
      * @param topicName The name of the topic
+     * @param key       The key of the message (the id of the document) - messages with the same key are sent in order
      * @param message   The message
+     * @throws MetadataException if the message could not be recorded
      */
-    public void sendMessage(String topicName, String message) {
+    public void sendMessage(String topicName, String key, String message) throws MetadataException {
         LOG.debug("sending event '{}' to topic '{}'", message, topicName);
-        this.taskExecutor.execute(new EventTask(kafkaTemplate, topicName, message));
+        record(List.of(new OutboxEvent(topicName, key, message)));
     }
 
     /**
-     * Runnable for publishing event
+     * Sends the messages as one batch (i.e. recorded at once)
+     *
+     * @param events The messages (with their topics and keys)
+     * @throws MetadataException if the messages could not be recorded
      */
-    private static class EventTask implements Runnable {
-
-        private final KafkaTemplate<String, String> kafkaTemplate;
-        private final String topicName;
-        private final String message;
-
-        /**
-         * Constructor.
-         *
-         * @param kafkaTemplate The KafkaTemplate
-         * @param topicName     The name of the topic
-         * @param message       The message which should be published
-         */
-        EventTask(KafkaTemplate<String, String> kafkaTemplate, String topicName, String message) {
-            this.kafkaTemplate = kafkaTemplate;
-            this.topicName = topicName;
-            this.message = message;
+    public void sendMessages(List<OutboxEvent> events) throws MetadataException {
+        if (events.isEmpty()) {
+            return;
         }
+        LOG.debug("sending {} events", events.size());
+        record(events);
+    }
 
-        /**
-         * Publish UUID
-         */
-        @Override
-        public void run() {
-
-            CompletableFuture<SendResult<String, String>> future = kafkaTemplate.send(topicName, message);
-
-            future.whenComplete((result, ex) -> {
-                if (ex == null) {
-                    LOG.debug("Sent message=[{}] with offset=[{}]", message, result.getRecordMetadata().offset());
-                } else {
-                    LOG.error("Unable to send message=[{}] due to : {}", message, ex.getMessage(), ex);
-                }
-            });
+    private void record(List<OutboxEvent> events) throws MetadataException {
+        try {
+            outbox.append(events);
+        } catch (IOException e) {
+            LOG.error("unable to record {} events: {}", events.size(), e.getMessage());
+            throw new MetadataException(UNABLE_RECORD_EVENT, e.getMessage());
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,26 @@
+/*
+Copyright (C) 2023 e:fs TechHub GmbH (sdk@efs-techhub.com)
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+        http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+ */
+package com.efs.sdk.metadata.core.events;
+
+/**
+ * An event recorded in the {@link EventOutbox}
+ *
+ * @param topic   the name of the topic
+ * @param key     the key of the message (the id of the document) - messages with the same key are sent to the same partition in order, may be null
+ * @param message the message
+ */
+public record OutboxEvent(String topic, String key, String message) {
+}
@@ -0,0 +1,206 @@
+/*
+Copyright (C) 2023 e:fs TechHub GmbH (sdk@efs-techhub.com)
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+        http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+ */
+package com.efs.sdk.metadata.core.events;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sends the events of the {@link EventOutbox} to Kafka.
+ * <p>
+ * A single thread reads the events in batches (<code>metadata.outbox.batch-size</code>) in the order they were appended, sends them with the id of the
+ * document as key (so events of the same document end up in the same partition, in order) and moves the cursor of the outbox once Kafka acknowledged all
+ * of them. If sending fails, the batch is sent again after a backoff (doubled per failure up to <code>metadata.outbox.max-backoff</code>).
+ * <p>
+ * The events of a batch are handed to the producer without waiting for each other, so the producer groups them into its own batches per partition
+ * (see <code>spring.kafka.producer.batch-size</code>, <code>linger.ms</code> and <code>compression-type</code>). The number of events in flight is bounded
+ * by the batch-size, the events waiting meanwhile are kept in the outbox (bounded by <code>metadata.outbox.max-size</code>).
+ */
+@Component
+public class OutboxRelay implements SmartLifecycle {
+
+    private static final Logger LOG = LoggerFactory.getLogger(OutboxRelay.class);
+    private static final String METRIC_PREFIX = "metadata.outbox.";
+    private static final long INITIAL_BACKOFF_MILLIS = 100;
+
+    private final EventOutbox outbox;
+    private final KafkaTemplate<String, String> kafkaTemplate;
+    private final int batchSize;
+    private final Duration pollInterval;
+    private final Duration sendTimeout;
+    private final Duration maxBackoff;
+
+    private final MeterRegistry meterRegistry;
+    private final AtomicLong relayed = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final DistributionSummary batchSizes;
+    private final Map<String, Timer> sendTimers = new ConcurrentHashMap<>();
+    private final Map<String, Counter> sendErrors = new ConcurrentHashMap<>();
+    private volatile boolean running;
+    private Thread thread;
+
+    /**
+     * Constructor.
+     *
+     * @param outbox        The EventOutbox
+     * @param kafkaTemplate The KafkaTemplate
+     * @param meterRegistry The MeterRegistry
+     * @param batchSize     The maximum number of events sent at once
+     * @param pollInterval  The maximum time to wait for new events (new events are usually relayed immediately)
+     * @param sendTimeout   The maximum time to wait for Kafka to acknowledge a batch
+     * @param maxBackoff    The maximum time to wait before sending a failed batch again
+     */
+    public OutboxRelay(EventOutbox outbox, KafkaTemplate<String, String> kafkaTemplate, MeterRegistry meterRegistry,
+            @Value("${metadata.outbox.batch-size:500}") int batchSize, @Value("${metadata.outbox.poll-interval:1s}") Duration pollInterval,
+            @Value("${metadata.outbox.send-timeout:30s}") Duration sendTimeout, @Value("${metadata.outbox.max-backoff:30s}") Duration maxBackoff) {
+        this.outbox = outbox;
+        this.kafkaTemplate = kafkaTemplate;
+        this.meterRegistry = meterRegistry;
+        this.batchSize = Math.max(1, batchSize);
+        this.pollInterval = pollInterval;
+        this.sendTimeout = sendTimeout;
+        this.maxBackoff = maxBackoff;
+
+        FunctionCounter.builder(METRIC_PREFIX + "relayed", relayed, AtomicLong::get).description("events sent to kafka").register(meterRegistry);
+        FunctionCounter.builder(METRIC_PREFIX + "failures", failures, AtomicLong::get).description("failed attempts to send a batch of events to kafka")
+                .register(meterRegistry);
+        this.batchSizes = DistributionSummary.builder(METRIC_PREFIX + "batch.size").description("events per batch sent to kafka").register(meterRegistry);
+    }
+
+    /**
+     * Sends the next batch of events and marks them as relayed, once Kafka acknowledged all of them
+     *
+     * @return the number of events relayed
+     * @throws ExecutionException   if an event could not be sent
+     * @throws TimeoutException     if Kafka did not acknowledge the batch in time
+     * @throws InterruptedException if interrupted while waiting for Kafka
+     */
+    int relay() throws ExecutionException, TimeoutException, InterruptedException {
+        EventOutbox.Batch batch = outbox.read(batchSize);
+        if (batch.events().isEmpty()) {
+            return 0;
+        }
+        List<OutboxEvent> events = batch.events();
+        CompletableFuture<?>[] sends = new CompletableFuture[events.size()];
+        for (int i = 0; i < sends.length; i++) {
+            sends[i] = send(events.get(i));
+        }
+        batchSizes.record(sends.length);
+        CompletableFuture.allOf(sends).get(sendTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        outbox.commit(batch);
+        relayed.addAndGet(sends.length);
+        LOG.debug("relayed {} events to kafka", sends.length);
+        return sends.length;
+    }
+
+    private CompletableFuture<?> send(OutboxEvent event) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        return kafkaTemplate.send(event.topic(), event.key(), event.message()).whenComplete((result, ex) -> {
+            sample.stop(sendTimer(event.topic()));
+            if (ex != null) {
+                sendError(event.topic()).increment();
+            }
+        });
+    }
+
+    private Timer sendTimer(String topic) {
+        return sendTimers.computeIfAbsent(topic, t -> Timer.builder(METRIC_PREFIX + "send").description("time until kafka acknowledged an event").tag(
+                "topic", t).register(meterRegistry));
+    }
+
+    private Counter sendError(String topic) {
+        return sendErrors.computeIfAbsent(topic, t -> Counter.builder(METRIC_PREFIX + "send.errors").description("events kafka did not acknowledge").tag(
+                "topic", t).register(meterRegistry));
+    }
+
+    private void run() {
+        long backoff = 0;
+        while (running) {
+            try {
+                if (relay() == 0) {
+                    outbox.awaitEvents(pollInterval);
+                }
+                backoff = 0;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException | TimeoutException | RuntimeException e) {
+                failures.incrementAndGet();
+                backoff = Math.min(backoff == 0 ? INITIAL_BACKOFF_MILLIS : backoff * 2, Math.max(INITIAL_BACKOFF_MILLIS, maxBackoff.toMillis()));
+                Throwable cause = e instanceof ExecutionException && e.getCause() != null ? e.getCause() : e;
+                LOG.warn("unable to relay events to kafka ({} not relayed yet), retrying in {} ms: {}", outbox.getBacklog(), backoff, cause.getMessage());
+                try {
+                    Thread.sleep(backoff);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    @Override
+    public synchronized void start() {
+        running = true;
+        thread = new Thread(this::run, "event-outbox-relay");
+        thread.setDaemon(true);
+        thread.start();
+        LOG.info("relaying events to kafka ({} not relayed yet)", outbox.getBacklog());
+    }
+
+    /**
+     * Stops relaying - the batch in flight is completed (for at most <code>metadata.outbox.send-timeout</code>), the events not relayed yet are relayed
+     * on the next start
+     */
+    @Override
+    public synchronized void stop() {
+        if (thread == null) {
+            return;
+        }
+        running = false;
+        try {
+            thread.join(sendTimeout.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        thread.interrupt();
+        thread = null;
+    }
+
+    @Override
+    public synchronized boolean isRunning() {
+        return thread != null;
+    }
+}
@@ -16,6 +16,7 @@ limitations under the License.
 package com.efs.sdk.metadata.core.index.application;
 
 
+import com.efs.sdk.metadata.clients.OpenSearchRestClient;
 import com.efs.sdk.metadata.clients.OpenSearchRestClientBuilder;
 import com.efs.sdk.metadata.commons.MetadataException;
 import com.efs.sdk.metadata.core.AuthService;
@@ -26,7 +27,6 @@ import com.fasterxml.jackson.databind.node.JsonNodeFactory;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.opensearch.client.Request;
 import org.opensearch.client.ResponseException;
-import org.opensearch.client.RestClient;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
@@ -75,7 +75,7 @@ public class IndexService {
             throw new MetadataException(INSUFFICIENT_RIGHTS);
         }
 
-        RestClient client = clientBuilder.buildRestClient(authService.getSAAccessToken());
+        OpenSearchRestClient client = clientBuilder.buildRestClient(authService.getSAAccessToken());
         if (indexExists(client, indexName)) {
             throw new MetadataException(INDEX_ALREADY_EXISTS, format("(%s)", indexName));
         }
@@ -95,7 +95,7 @@ public class IndexService {
         return INDEX_NAME_PATTERN.matcher(indexName).find();
     }
 
-    private boolean indexExists(RestClient client, String indexName) throws IOException {
+    private boolean indexExists(OpenSearchRestClient client, String indexName) throws IOException {
         try {
             Request request = new Request(RequestMethod.GET.name(), format("/_cat/indices/%s", indexName));
             client.performRequest(request);
@@ -113,7 +113,7 @@ public class IndexService {
         return token.getAuthorities().stream().map(GrantedAuthority::getAuthority).anyMatch(validRoles::contains);
     }
 
-    private void createIndexWithMapping(RestClient client, String indexName, JsonNode indexMappings) throws IOException {
+    private void createIndexWithMapping(OpenSearchRestClient client, String indexName, JsonNode indexMappings) throws IOException {
         LOG.info("creating index '{}'", indexName);
         String endpoint = format("/%s", indexName);
         Request request = new Request(RequestMethod.PUT.name(), endpoint);
@@ -133,7 +133,7 @@ public class IndexService {
             throw new MetadataException(INDEX_NAME_INVALID, format("- does not contain application index prefix; pattern is '*_PREFIX_*' with possible " +
                     "values: %s", ApplicationIndexType.getIndexNamePrefixes()));
         }
-        RestClient client = clientBuilder.buildRestClient(authService.getSAAccessToken());
+        OpenSearchRestClient client = clientBuilder.buildRestClient(authService.getSAAccessToken());
         deleteApplicationIndex(indexName, client);
     }
 
@@ -154,7 +154,7 @@ public class IndexService {
         return ApplicationIndexType.getIndexNamePrefixes().contains(applicationPrefix);
     }
 
-    private void deleteApplicationIndex(String indexName, RestClient client) throws IOException {
+    private void deleteApplicationIndex(String indexName, OpenSearchRestClient client) throws IOException {
         String endpoint = format("/%s", indexName);
         try {
             client.performRequest(new Request(RequestMethod.DELETE.name(), endpoint));
@@ -0,0 +1,288 @@
+/*
+Copyright (C) 2023 e:fs TechHub GmbH (sdk@efs-techhub.com)
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+        http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+ */
+package com.efs.sdk.metadata.core.metadata;
+
+import com.efs.sdk.metadata.commons.MetadataException;
+import com.efs.sdk.metadata.core.AuthService;
+import com.efs.sdk.metadata.helper.IngestDocument;
+import com.efs.sdk.metadata.model.IndexJob;
+import com.efs.sdk.metadata.model.IndexJob.Priority;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static com.efs.sdk.metadata.commons.MetadataException.METADATA_ERROR.INDEX_JOB_NOT_FOUND;
+import static com.efs.sdk.metadata.commons.MetadataException.METADATA_ERROR.INDEX_QUEUE_FULL;
+
+/**
+ * Indexes documents asynchronously: the caller only waits for the validation (and the permission-check), the document is written to OpenSearch by a
+ * pool of <code>metadata.index.async.workers</code> threads.
+ * <p>
+ * Waiting documents are queued in one lane per {@link Priority} (see {@link PriorityLanes}), each holding at most
+ * <code>metadata.index.async.queue-capacity</code> documents - further documents are rejected. The most recent jobs are kept in memory for status
+ * requests, jobs are additionally persisted (see {@link IndexJobStore}) - when queued (before the caller is answered) and when finished. Jobs still
+ * waiting when the service stops are failed with 503, jobs still unfinished after <code>metadata.index.async.retention</code> (the replica crashed
+ * before indexing them) are reported as failed with 503 as well.
+ * <p>
+ * The status of a job is only available to the user, that submitted it (and to superusers).
+ */
+@Service
+public class IndexJobService implements DisposableBean {
+
+    private static final Logger LOG = LoggerFactory.getLogger(IndexJobService.class);
+    private static final String METRIC_PREFIX = "metadata.index.async.";
+    private static final int PERSIST_BATCH_SIZE = 1000;
+    private static final Duration SHUTDOWN_TIMEOUT = Duration.ofSeconds(10);
+
+    private final MetadataService metadataService;
+    private final IndexJobStore jobStore;
+    private final AuthService authService;
+    private final Cache<String, IndexJob> jobs;
+    private final PriorityLanes<Task> lanes;
+    private final Queue<IndexJob> unpersisted = new ConcurrentLinkedQueue<>();
+    private final int maxJobs;
+    private final Duration retention;
+    private final ExecutorService workers;
+    private final ScheduledExecutorService persister;
+    private volatile boolean stopped;
+
+    private final Timer waitTimer;
+    private final Counter completed;
+    private final Counter failed;
+    private final Counter rejected;
+
+    /**
+     * Constructor.
+     *
+     * @param metadataService The MetadataService
+     * @param jobStore        The store of the finished jobs
+     * @param authService     The AuthService (for the token of the service-account)
+     * @param meterRegistry   The meter-registry
+     * @param workerCount     Number of threads writing the documents
+     * @param queueCapacity   Maximum number of waiting documents per lane
+     * @param maxJobs         Maximum number of jobs kept in memory
+     * @param retention       How long jobs are kept in memory
+     * @param persistInterval How often finished jobs are persisted
+     */
+    public IndexJobService(MetadataService metadataService, IndexJobStore jobStore, AuthService authService, MeterRegistry meterRegistry,
+            @Value("${metadata.index.async.workers:4}") int workerCount, @Value("${metadata.index.async.queue-capacity:1000}") int queueCapacity,
+            @Value("${metadata.index.async.max-jobs:10000}") int maxJobs, @Value("${metadata.index.async.retention:1h}") Duration retention,
+            @Value("${metadata.index.async.persist-interval:1s}") Duration persistInterval) {
+        this.metadataService = metadataService;
+        this.jobStore = jobStore;
+        this.authService = authService;
+        this.maxJobs = maxJobs;
+        this.retention = retention;
+        this.jobs = Caffeine.newBuilder().maximumSize(maxJobs).expireAfterWrite(retention).build();
+        this.lanes = new PriorityLanes<>(queueCapacity);
+
+        for (Priority priority : Priority.values()) {
+            Gauge.builder(METRIC_PREFIX + "queued", lanes, l -> l.size(priority)).description("documents waiting to be indexed").tag("priority",
+                    priority.name().toLowerCase(Locale.ROOT)).register(meterRegistry);
+        }
+        this.waitTimer = Timer.builder(METRIC_PREFIX + "wait").description("time documents waited to be indexed").register(meterRegistry);
+        this.completed = jobCounter(meterRegistry, "completed");
+        this.failed = jobCounter(meterRegistry, "failed");
+        this.rejected = jobCounter(meterRegistry, "rejected");
+
+        this.workers = Executors.newFixedThreadPool(workerCount, new CustomizableThreadFactory("index-job-"));
+        for (int i = 0; i < workerCount; i++) {
+            workers.execute(this::work);
+        }
+        long interval = persistInterval.toMillis();
+        this.persister = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("index-job-persister-"));
+        persister.scheduleWithFixedDelay(this::persist, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    private static Counter jobCounter(MeterRegistry meterRegistry, String status) {
+        return Counter.builder(METRIC_PREFIX + "jobs").description("documents accepted for asynchronous indexing").tag("status", status).register(
+                meterRegistry);
+    }
+
+    /**
+     * Validates the measurement and queues it for indexing
+     *
+     * @param accessToken The access-token
+     * @param subject     The subject of the user
+     * @param body        The measurement (UTF-8 encoded json)
+     * @param priority    The lane to queue the measurement in
+     * @return the queued job
+     * @throws MetadataException thrown if the measurement is invalid, permissions are missing, the job could not be persisted or the lane is full
+     */
+    public IndexJob submit(String accessToken, String subject, byte[] body, Priority priority) throws MetadataException {
+        IngestDocument document = metadataService.authorize(accessToken, body);
+        IndexJob job = IndexJob.queued(UUID.randomUUID().toString(), priority, document.getDocid(), document.getOrganization(), document.getSpace(),
+                subject);
+        // persisted before it is queued, so that it cannot overwrite the state written by the worker
+        jobStore.save(authService.getSAAccessToken(), job);
+        jobs.put(job.id(), job);
+        if (stopped || !lanes.offer(priority, new Task(job, document))) {
+            rejected.increment();
+            // replaces the persisted state, so that the job is not reported as lost later on
+            IndexJob rejectedJob = job.failed(HttpStatus.TOO_MANY_REQUESTS, INDEX_QUEUE_FULL.name());
+            jobs.put(rejectedJob.id(), rejectedJob);
+            unpersisted.add(rejectedJob);
+            throw new MetadataException(INDEX_QUEUE_FULL);
+        }
+        return job;
+    }
+
+    /**
+     * Gets a job - from memory or, if evicted already, from OpenSearch
+     *
+     * @param id        The id of the job
+     * @param subject   The subject of the user
+     * @param superuser Whether the user is a superuser (and may get the jobs of other users)
+     * @return the job
+     * @throws MetadataException thrown if there is no such job (or it was submitted by another user)
+     */
+    public IndexJob getJob(String id, String subject, boolean superuser) throws MetadataException {
+        IndexJob job = getJob(id);
+        // not found rather than forbidden, so that the ids of other users' jobs are not disclosed
+        if (!superuser && !Objects.equals(subject, job.subject())) {
+            throw new MetadataException(INDEX_JOB_NOT_FOUND);
+        }
+        return job;
+    }
+
+    IndexJob getJob(String id) throws MetadataException {
+        IndexJob job = jobs.getIfPresent(id);
+        if (job != null) {
+            return job;
+        }
+        job = jobStore.find(authService.getSAAccessToken(), id);
+        if (job == null) {
+            throw new MetadataException(INDEX_JOB_NOT_FOUND);
+        }
+        // unfinished jobs are kept in memory (of the replica, that accepted them) at most this long
+        if (!job.isFinished() && job.acceptedAt().plus(retention).isBefore(Instant.now())) {
+            return job.failed(HttpStatus.SERVICE_UNAVAILABLE, "service stopped before the document was indexed");
+        }
+        return job;
+    }
+
+    private void work() {
+        while (!Thread.currentThread().isInterrupted()) {
+            Task task;
+            try {
+                task = lanes.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            run(task);
+        }
+    }
+
+    void run(Task task) {
+        IndexJob job = task.job().running();
+        jobs.put(job.id(), job);
+        waitTimer.record(Duration.between(job.acceptedAt(), job.startedAt()));
+        try {
+            metadataService.index(task.document());
+            job = job.completed();
+        } catch (MetadataException e) {
+            LOG.warn("index-job {} failed: {}", job.id(), e.getMessage());
+            job = job.failed(e.getHttpStatus(), e.getMessage());
+        } catch (RuntimeException e) {
+            LOG.error("index-job {} failed", job.id(), e);
+            job = job.failed(HttpStatus.INTERNAL_SERVER_ERROR, e.getMessage());
+        }
+        finish(job);
+    }
+
+    private void finish(IndexJob job) {
+        (job.status() == IndexJob.Status.COMPLETED ? completed : failed).increment();
+        unpersisted.add(job);
+        jobs.put(job.id(), job);
+    }
+
+    /**
+     * Persists the jobs finished since the last run - jobs that could not be persisted are retried with the next run
+     */
+    void persist() {
+        // only the jobs present now, so that the ones put back are not retried immediately
+        int pending = unpersisted.size();
+        List<IndexJob> batch = new ArrayList<>();
+        for (int i = 0; i < pending; i++) {
+            IndexJob job = unpersisted.poll();
+            if (job == null) {
+                break;
+            }
+            batch.add(job);
+            if (batch.size() >= PERSIST_BATCH_SIZE) {
+                save(batch);
+                batch = new ArrayList<>();
+            }
+        }
+        if (!batch.isEmpty()) {
+            save(batch);
+        }
+    }
+
+    private void save(List<IndexJob> batch) {
+        List<IndexJob> failedJobs;
+        try {
+            failedJobs = jobStore.save(authService.getSAAccessToken(), batch);
+        } catch (MetadataException | RuntimeException e) {
+            LOG.warn("unable to persist index-jobs: {}", e.getMessage());
+            failedJobs = batch;
+        }
+        if (failedJobs.isEmpty()) {
+            return;
+        }
+        // bounded like the jobs in memory - beyond that, jobs are only available from memory (until evicted)
+        if (unpersisted.size() + failedJobs.size() > maxJobs) {
+            LOG.warn("giving up persisting {} index-jobs", failedJobs.size());
+            return;
+        }
+        unpersisted.addAll(failedJobs);
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        stopped = true;
+        workers.shutdownNow();
+        for (Task task : lanes.drain()) {
+            finish(task.job().failed(HttpStatus.SERVICE_UNAVAILABLE, "service stopped before the document was indexed"));
+        }
+        if (!workers.awaitTermination(SHUTDOWN_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS)) {
+            LOG.warn("index-jobs still running after {}", SHUTDOWN_TIMEOUT);
+        }
+        persister.shutdown();
+        if (persister.awaitTermination(SHUTDOWN_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS)) {
+            persist();
+        }
+    }
+
+    record Task(IndexJob job, IngestDocument document) {
+    }
+}
@@ -0,0 +1,151 @@
+/*
+Copyright (C) 2023 e:fs TechHub GmbH (sdk@efs-techhub.com)
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+        http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+ */
+package com.efs.sdk.metadata.core.metadata;
+
+import com.efs.sdk.metadata.clients.BulkDocument;
+import com.efs.sdk.metadata.clients.MetadataOpensearchClient;
+import com.efs.sdk.metadata.clients.OpenSearchRestClientBuilder;
+import com.efs.sdk.metadata.commons.MetadataException;
+import com.efs.sdk.metadata.model.BulkItemResult;
+import com.efs.sdk.metadata.model.IndexJob;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.StringEntity;
+import org.opensearch.client.Request;
+import org.opensearch.client.Response;
+import org.opensearch.client.ResponseException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.annotation.RequestMethod;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.ConnectException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.efs.sdk.metadata.commons.MetadataException.METADATA_ERROR.OPENSEARCH_CONNECTION_ERROR;
+import static com.efs.sdk.metadata.commons.MetadataException.METADATA_ERROR.OPENSEARCH_ERROR;
+import static java.lang.String.format;
+
+/**
+ * Index-jobs, kept in the index <code>metadata.index.async.job-index</code>, so that their status can still be retrieved after they were evicted from
+ * memory or the service was restarted.
+ */
+@Component
+public class IndexJobStore {
+
+    private static final Logger LOG = LoggerFactory.getLogger(IndexJobStore.class);
+
+    private final OpenSearchRestClientBuilder clientBuilder;
+    private final MetadataOpensearchClient mOSClient;
+    private final ObjectMapper objectMapper;
+    private final String jobIndex;
+
+    /**
+     * Constructor.
+     *
+     * @param clientBuilder The builder of the OpenSearch client
+     * @param mOSClient     The OpenSearch client
+     * @param objectMapper  The object-mapper
+     * @param jobIndex      The index holding the jobs
+     */
+    public IndexJobStore(OpenSearchRestClientBuilder clientBuilder, MetadataOpensearchClient mOSClient, ObjectMapper objectMapper,
+            @Value("${metadata.index.async.job-index:metadata-index-jobs}") String jobIndex) {
+        this.clientBuilder = clientBuilder;
+        this.mOSClient = mOSClient;
+        this.objectMapper = objectMapper;
+        this.jobIndex = jobIndex;
+    }
+
+    /**
+     * Saves a job
+     *
+     * @param token The Token
+     * @param job   The job
+     * @throws MetadataException thrown if the job could not be saved
+     */
+    public void save(String token, IndexJob job) throws MetadataException {
+        Request request = new Request(RequestMethod.PUT.name(), format("/%s/_doc/%s", jobIndex, job.id()));
+        try {
+            request.setEntity(new StringEntity(objectMapper.writeValueAsString(job), ContentType.APPLICATION_JSON));
+            clientBuilder.buildRestClient(token).performRequest(request);
+        } catch (IOException e) {
+            throw handle(e);
+        }
+    }
+
+    /**
+     * Saves the jobs (with a single _bulk-request)
+     *
+     * @param token The Token
+     * @param jobs  The jobs
+     * @return the jobs, that could not be saved
+     */
+    public List<IndexJob> save(String token, List<IndexJob> jobs) {
+        List<BulkDocument> documents = new ArrayList<>(jobs.size());
+        for (IndexJob job : jobs) {
+            try {
+                documents.add(new BulkDocument(jobIndex, job.id(), objectMapper.writeValueAsString(job)));
+            } catch (JsonProcessingException e) {
+                throw new IllegalArgumentException(e.getMessage(), e);
+            }
+        }
+        List<BulkItemResult> results = mOSClient.bulkIndex(clientBuilder.buildRestClient(token), documents, documents.size(), Long.MAX_VALUE);
+        List<IndexJob> failed = new ArrayList<>();
+        for (int i = 0; i < results.size(); i++) {
+            if (!results.get(i).successful()) {
+                failed.add(jobs.get(i));
+            }
+        }
+        return failed;
+    }
+
+    /**
+     * Loads a job
+     *
+     * @param token The Token
+     * @param id    The id of the job
+     * @return the job (null, if there is no such job)
+     * @throws MetadataException thrown if the job could not be loaded
+     */
+    public IndexJob find(String token, String id) throws MetadataException {
+        try {
+            Response response = clientBuilder.buildRestClient(token).performRequest(new Request(RequestMethod.GET.name(), format("/%s/_source/%s", jobIndex,
+                    id)));
+            try (InputStream content = response.getEntity().getContent()) {
+                return objectMapper.readValue(content, IndexJob.class);
+            }
+        } catch (ResponseException e) {
+            // neither job nor index exist
+            if (HttpStatus.NOT_FOUND.value() == e.getResponse().getStatusLine().getStatusCode()) {
+                return null;
+            }
+            throw handle(e);
+        } catch (IOException e) {
+            throw handle(e);
+        }
+    }
+
+    private static MetadataException handle(IOException e) {
+        LOG.error(e.getMessage(), e);
+        return new MetadataException(e instanceof ConnectException ? OPENSEARCH_CONNECTION_ERROR : OPENSEARCH_ERROR);
+    }
+}
@@ -0,0 +1,171 @@
+/*
+Copyright (C) 2023 e:fs TechHub GmbH (sdk@efs-techhub.com)
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+        http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+ */
+package com.efs.sdk.metadata.core.metadata;
+
+import com.efs.sdk.metadata.commons.MetadataException;
+import com.efs.sdk.metadata.core.AuthService;
+import com.efs.sdk.metadata.helper.EntityConverter;
+import com.efs.sdk.metadata.model.BulkItemResult;
+import com.efs.sdk.metadata.model.MeasurementDTO;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.kafka.support.Acknowledgment;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static java.lang.String.format;
+
+/**
+ * Indexes the measurements read from the ingest-topic (<code>metadata.ingest.topic</code>), as an alternative to <code>POST /v1.0/index</code>.
+ * <p>
+ * Each poll is indexed as one batch via {@link MetadataService#indexBulk(String, List)} with the token of the service-account (permissions and
+ * validation once per index). Offsets are committed only after the _bulk-responses: records that cannot be indexed (invalid json, missing space, ...)
+ * are logged and skipped, records failing temporarily (e.g. OpenSearch or organizationmanager unavailable) are redelivered from the first one failing -
+ * the records before are committed (see the error-handler of {@link com.efs.sdk.metadata.IngestConfiguration}). As the id of the document is part of
+ * the record, indexing a redelivered record again just overwrites the document.
+ * <p>
+ * The records carry no token of their producer, so the permission-check only verifies that the space exists and is writable by the service-account.
+ * Which organizations and spaces the topic may write to is configured by <code>metadata.ingest.allowed-spaces</code> (<code>organization/space</code>,
+ * <code>organization/*</code> or <code>*&#47;*</code>) - records of other spaces are rejected.
+ * <p>
+ * The replicas share the consumer-group (<code>metadata.ingest.group-id</code>), so the partitions of the topic are distributed among them.
+ */
+public class MeasurementIngestListener {
+
+    private static final Logger LOG = LoggerFactory.getLogger(MeasurementIngestListener.class);
+    private static final String METRIC_PREFIX = "metadata.ingest.";
+    private static final String WILDCARD = "*";
+
+    private final MetadataService metadataService;
+    private final AuthService authService;
+    private final EntityConverter converter;
+    private final Set<String> allowedSpaces;
+
+    private final Counter indexed;
+    private final Counter rejected;
+    private final Counter redelivered;
+    private final DistributionSummary batchSizes;
+    private final Timer delay;
+
+    /**
+     * Constructor.
+     *
+     * @param metadataService The MetadataService
+     * @param authService     The AuthService (for the token of the service-account)
+     * @param converter       The EntityConverter
+     * @param meterRegistry   The MeterRegistry
+     * @param allowedSpaces   The organizations and spaces the topic may write to (<code>organization/space</code>, with <code>*</code> for all)
+     */
+    public MeasurementIngestListener(MetadataService metadataService, AuthService authService, EntityConverter converter, MeterRegistry meterRegistry,
+            Collection<String> allowedSpaces) {
+        this.metadataService = metadataService;
+        this.authService = authService;
+        this.converter = converter;
+        this.allowedSpaces = allowedSpaces.stream().map(String::trim).map(allowed -> allowed.toLowerCase(Locale.ROOT)).collect(Collectors.toSet());
+        this.indexed = Counter.builder(METRIC_PREFIX + "records").description("records read from the ingest-topic").tag("result", "indexed").register(
+                meterRegistry);
+        this.rejected = Counter.builder(METRIC_PREFIX + "records").description("records read from the ingest-topic").tag("result", "rejected").register(
+                meterRegistry);
+        this.redelivered = Counter.builder(METRIC_PREFIX + "records").description("records read from the ingest-topic").tag("result", "redelivered")
+                .register(meterRegistry);
+        this.batchSizes = DistributionSummary.builder(METRIC_PREFIX + "batch.size").description("records per poll of the ingest-topic").register(
+                meterRegistry);
+        this.delay = Timer.builder(METRIC_PREFIX + "delay").description("time between producing a record and reading it from the ingest-topic").register(
+                meterRegistry);
+    }
+
+    /**
+     * Indexes the records of a poll and acknowledges them, once all of them are indexed (or rejected)
+     *
+     * @param records         the records (values are measurements as json)
+     * @param acknowledgment  the acknowledgment of the records
+     * @throws MetadataException if the token of the service-account could not be retrieved (the records are redelivered)
+     */
+    @KafkaListener(id = "metadata-ingest", topics = "${metadata.ingest.topic:measurement-metadata}", groupId = "${metadata.ingest.group-id:metadata-ingest}",
+            containerFactory = "ingestListenerContainerFactory", batch = "true")
+    public void consume(List<ConsumerRecord<String, String>> records, Acknowledgment acknowledgment) throws MetadataException {
+        batchSizes.record(records.size());
+        long now = System.currentTimeMillis();
+        List<MeasurementDTO> measurements = new ArrayList<>(records.size());
+        List<Integer> positions = new ArrayList<>(records.size());
+        for (int i = 0; i < records.size(); i++) {
+            ConsumerRecord<String, String> consumerRecord = records.get(i);
+            delay.record(Duration.ofMillis(Math.max(0, now - consumerRecord.timestamp())));
+            MeasurementDTO measurement;
+            try {
+                measurement = converter.measurementValue(consumerRecord.value());
+            } catch (JsonProcessingException | IllegalArgumentException e) {
+                reject(consumerRecord, e.getMessage());
+                continue;
+            }
+            if (!isAllowed(measurement.getOrganization(), measurement.getSpace())) {
+                reject(consumerRecord, format("%s/%s is not in metadata.ingest.allowed-spaces", measurement.getOrganization(), measurement.getSpace()));
+                continue;
+            }
+            measurements.add(measurement);
+            positions.add(i);
+        }
+        if (!measurements.isEmpty()) {
+            List<BulkItemResult> results = metadataService.indexBulk(authService.getSAAccessToken(), measurements).getItems();
+            for (int i = 0; i < results.size(); i++) {
+                BulkItemResult result = results.get(i);
+                ConsumerRecord<String, String> consumerRecord = records.get(positions.get(i));
+                if (result.successful()) {
+                    indexed.increment();
+                } else if (isTemporary(result.getStatus())) {
+                    redelivered.increment();
+                    throw new BatchListenerFailedException(format("unable to index '%s' (status %d): %s", result.getDocid(), result.getStatus(),
+                            result.getError()), consumerRecord);
+                } else {
+                    reject(consumerRecord, format("status %d: %s", result.getStatus(), result.getError()));
+                }
+            }
+        }
+        acknowledgment.acknowledge();
+        LOG.debug("indexed {} of {} records from ingest-topic", measurements.size(), records.size());
+    }
+
+    private void reject(ConsumerRecord<String, String> consumerRecord, String reason) {
+        rejected.increment();
+        LOG.warn("skipping record {}-{}@{} of ingest-topic, as it cannot be indexed: {}", consumerRecord.topic(), consumerRecord.partition(),
+                consumerRecord.offset(), reason);
+    }
+
+    private boolean isAllowed(String organization, String space) {
+        if (organization == null || space == null) {
+            // rejected by the validation
+            return true;
+        }
+        String orga = organization.toLowerCase(Locale.ROOT);
+        String spc = space.toLowerCase(Locale.ROOT);
+        return allowedSpaces.contains(orga + "/" + spc) || allowedSpaces.contains(orga + "/" + WILDCARD) || allowedSpaces.contains(WILDCARD + "/" + WILDCARD);
+    }
+
+    private static boolean isTemporary(int status) {
+        return status == HttpStatus.TOO_MANY_REQUESTS.value() || status >= HttpStatus.INTERNAL_SERVER_ERROR.value();
+    }
+}
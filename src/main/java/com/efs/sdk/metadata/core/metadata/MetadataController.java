@@ -17,19 +17,32 @@ package com.efs.sdk.metadata.core.metadata;
 
 import com.efs.sdk.metadata.commons.MetadataException;
 import com.efs.sdk.metadata.core.SchemaService;
+import com.efs.sdk.metadata.helper.AuthHelper;
+import com.efs.sdk.metadata.model.BulkIndexResult;
+import com.efs.sdk.metadata.model.IndexJob;
 import com.efs.sdk.metadata.model.MeasurementDTO;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.github.fge.jsonschema.core.exceptions.ProcessingException;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import static org.springframework.http.HttpStatus.UNAUTHORIZED;
 
@@ -41,13 +54,20 @@ public class MetadataController {
 
     static final String VERSION = "v1.0";
     static final String ENDPOINT = "/" + VERSION;
+    static final String APPLICATION_NDJSON = "application/x-ndjson";
     private final MetadataService service;
 
     private final SchemaService schemaService;
 
-    public MetadataController(MetadataService service, SchemaService schemaService) {
+    private final IndexJobService indexJobService;
+
+    private final AuthHelper authHelper;
+
+    public MetadataController(MetadataService service, SchemaService schemaService, IndexJobService indexJobService, AuthHelper authHelper) {
         this.service = service;
         this.schemaService = schemaService;
+        this.indexJobService = indexJobService;
+        this.authHelper = authHelper;
     }
 
     /**
@@ -71,16 +91,21 @@ public class MetadataController {
 
     /**
      * Provides a REST interface for manual indexing.
+     * <p>
+     * The measurement is read as bytes and passed through to OpenSearch without being deserialized (see {@link MetadataService#index(String, byte[])}).
      *
      * @return Boolean
      */
-    @PostMapping(path = "/index")
+    @PostMapping(path = "/index", consumes = MediaType.APPLICATION_JSON_VALUE)
     @Operation(summary = "Index", description = "Endpoint for indexing a metadata-document")
     @ApiResponse(responseCode = "200", description = "Successfully indexed document")
+    @ApiResponse(responseCode = "400", description = "The document is not valid json")
     @ApiResponse(responseCode = "401", description = "User is not authorized")
     @ApiResponse(responseCode = "403", description = "User does not have permissions to index document")
     @ApiResponse(responseCode = "409", description = "One of the following properties is missing: \"organization\", \"space\", \"rootdir\"")
-    public ResponseEntity<Boolean> index(@Parameter(hidden = true) JwtAuthenticationToken token, @RequestBody(required = true) MeasurementDTO measurement) throws MetadataException {
+    @io.swagger.v3.oas.annotations.parameters.RequestBody(content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE, schema =
+    @Schema(implementation = MeasurementDTO.class)))
+    public ResponseEntity<Boolean> index(@Parameter(hidden = true) JwtAuthenticationToken token, @RequestBody(required = true) byte[] measurement) throws MetadataException {
         if (token == null) {
             throw new ResponseStatusException(UNAUTHORIZED);
         }
@@ -88,6 +113,107 @@ public class MetadataController {
         return ResponseEntity.ok(service.index(token.getToken().getTokenValue(), measurement));
     }
 
+    /**
+     * Provides a REST interface for asynchronous indexing.
+     * <p>
+     * The measurement is validated (including the permissions) right away, but written by a background worker (see {@link IndexJobService}).
+     *
+     * @return the queued job
+     */
+    @PostMapping(path = "/index", consumes = MediaType.APPLICATION_JSON_VALUE, params = "async=true")
+    @Operation(summary = "Index asynchronously", description = """
+            Endpoint for indexing a metadata-document in the background
+            
+            Returns as soon as the document is validated. The document is queued in the lane of the given `priority` and indexed by a background worker -
+            its progress can be retrieved from the `Location` of the job.
+            """)
+    @ApiResponse(responseCode = "202", description = "Document accepted - see the `Location` for the status of its job")
+    @ApiResponse(responseCode = "400", description = "The document is not valid json")
+    @ApiResponse(responseCode = "401", description = "User is not authorized")
+    @ApiResponse(responseCode = "403", description = "User does not have permissions to index document")
+    @ApiResponse(responseCode = "409", description = "One of the following properties is missing: \"organization\", \"space\", \"rootdir\"")
+    @ApiResponse(responseCode = "429", description = "Too many documents waiting in the lane, retry later")
+    @io.swagger.v3.oas.annotations.parameters.RequestBody(content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE, schema =
+    @Schema(implementation = MeasurementDTO.class)))
+    public ResponseEntity<IndexJob> indexAsync(@Parameter(hidden = true) JwtAuthenticationToken token, @RequestBody(required = true) byte[] measurement,
+            @Parameter(description = "Index in the background") @RequestParam boolean async,
+            @Parameter(description = "Lane to queue the document in") @RequestParam(defaultValue = "NORMAL") IndexJob.Priority priority)
+            throws MetadataException {
+        if (token == null) {
+            throw new ResponseStatusException(UNAUTHORIZED);
+        }
+
+        IndexJob job = indexJobService.submit(token.getToken().getTokenValue(), token.getToken().getSubject(), measurement, priority);
+        return ResponseEntity.accepted().location(URI.create(ENDPOINT + "/index/jobs/" + job.id())).body(job);
+    }
+
+    /**
+     * Provides a REST interface for the status of asynchronous indexing.
+     *
+     * @return the job
+     */
+    @GetMapping(path = "/index/jobs/{jobId}")
+    @Operation(summary = "Get index-job", description = "Gets the status of a document accepted for asynchronous indexing (by the user or, for "
+            + "superusers, by any user)")
+    @ApiResponse(responseCode = "200", description = "Status of the job")
+    @ApiResponse(responseCode = "401", description = "User is not authorized")
+    @ApiResponse(responseCode = "404", description = "There is no such job (submitted by the user)")
+    public ResponseEntity<IndexJob> getIndexJob(@Parameter(hidden = true) JwtAuthenticationToken token, @PathVariable String jobId)
+            throws MetadataException {
+        if (token == null) {
+            throw new ResponseStatusException(UNAUTHORIZED);
+        }
+
+        return ResponseEntity.ok(indexJobService.getJob(jobId, token.getToken().getSubject(), authHelper.isSuperuser(token)));
+    }
+
+    /**
+     * Provides a REST interface for indexing multiple documents at once.
+     *
+     * @return the results per document
+     */
+    @PostMapping(path = "/index/_bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(summary = "Bulk-Index", description = """
+            Endpoint for indexing multiple metadata-documents at once
+            
+            Returns one result per document (in the order of the request). Failed documents are marked with their http-status and error.
+            """)
+    @ApiResponse(responseCode = "200", description = "Request processed - see the results per document")
+    @ApiResponse(responseCode = "401", description = "User is not authorized")
+    public ResponseEntity<BulkIndexResult> indexBulk(@Parameter(hidden = true) JwtAuthenticationToken token,
+            @RequestBody(required = true) List<MeasurementDTO> measurements) {
+        if (token == null) {
+            throw new ResponseStatusException(UNAUTHORIZED);
+        }
+
+        return ResponseEntity.ok(service.indexBulk(token.getToken().getTokenValue(), measurements));
+    }
+
+    /**
+     * Provides a REST interface for streaming (NDJSON) indexing of multiple documents.
+     *
+     * @return the results per line (NDJSON), streamed as the documents are processed
+     */
+    @PostMapping(path = "/index/_bulk", consumes = APPLICATION_NDJSON, produces = APPLICATION_NDJSON)
+    @Operation(summary = "Bulk-Index (NDJSON)", description = """
+            Endpoint for indexing metadata-documents sent as NDJSON (one document per line)
+            
+            The documents are read and indexed in batches while the upload is in progress. One result per line is streamed back (including the
+            line-number), as soon as the batch containing the line has been processed.
+            """)
+    @ApiResponse(responseCode = "200", description = "Request accepted - see the results per line")
+    @ApiResponse(responseCode = "401", description = "User is not authorized")
+    public ResponseEntity<StreamingResponseBody> indexStream(@Parameter(hidden = true) JwtAuthenticationToken token,
+            @Parameter(hidden = true) HttpServletRequest request) throws IOException {
+        if (token == null) {
+            throw new ResponseStatusException(UNAUTHORIZED);
+        }
+
+        String accessToken = token.getToken().getTokenValue();
+        InputStream input = request.getInputStream();
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType(APPLICATION_NDJSON)).body(output -> service.indexStream(accessToken, input, output));
+    }
+
     /**
      * Provides a REST interface for manual adding metadata attributes
      *
@@ -99,19 +225,25 @@ public class MetadataController {
             
             **CAUTION** Updating only supports appending properties! No existing data will be updated!
             """)
-    @ApiResponse(responseCode = "200", description = "Successfully indexed document")
+    @ApiResponse(responseCode = "200", description = "Successfully indexed document (the new version of the document is returned as ETag)")
     @ApiResponse(responseCode = "401", description = "User is not authorized")
     @ApiResponse(responseCode = "403", description = "User does not have permissions to update document")
+    @ApiResponse(responseCode = "409", description = "Document is being modified concurrently, retry later")
+    @ApiResponse(responseCode = "412", description = "Document has been modified since the version given in `If-Match`")
     @ApiResponse(responseCode = "507", description = "Unable to retrieve the indexed document")
-    public ResponseEntity<Boolean> indexPut(@Parameter(hidden = true) JwtAuthenticationToken token, @Parameter(description = "Name of the `Organization`",
-            example = "myorga") @RequestParam String organization,
+    public CompletableFuture<ResponseEntity<Boolean>> indexPut(@Parameter(hidden = true) JwtAuthenticationToken token,
+            @Parameter(description = "Name of the `Organization`", example = "myorga") @RequestParam String organization,
             @Parameter(description = "Name of the `Space`", example = "myspace") @RequestParam String space, @Parameter(description = "id of the document",
             example = "d2a3cf15-cd6c-4a85-9752-da0628ce949e") @RequestParam String docid,
-            @Parameter(description = "the new metadata") @RequestBody MeasurementDTO metadata) throws IOException, MetadataException {
+            @Parameter(description = "the new metadata") @RequestBody MeasurementDTO metadata,
+            @Parameter(description = "only update, if the document still has this version (ETag of a previous update)", example = "\"12-1\"")
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) throws IOException, MetadataException {
         if (token == null) {
             throw new ResponseStatusException(UNAUTHORIZED);
         }
 
-        return ResponseEntity.ok(service.update(metadata, token.getToken().getTokenValue(), organization, space, docid));
+        // completes once the (possibly coalesced) write is done, without blocking the request-thread meanwhile
+        return service.update(metadata, token.getToken().getTokenValue(), organization, space, docid, ifMatch).thenApply(
+                result -> ResponseEntity.ok().eTag(result.version()).body(result.successful()));
     }
 }
@@ -15,38 +15,57 @@ limitations under the License.
  */
 package com.efs.sdk.metadata.core.metadata;
 
+import com.efs.sdk.metadata.clients.BulkDocument;
 import com.efs.sdk.metadata.clients.MetadataOpensearchClient;
 import com.efs.sdk.metadata.clients.MetadataRestClient;
+import com.efs.sdk.metadata.clients.OpenSearchRestClient;
 import com.efs.sdk.metadata.clients.OpenSearchRestClientBuilder;
 import com.efs.sdk.metadata.clients.OrganizationManagerClient;
+import com.efs.sdk.metadata.clients.VersionedDocument;
 import com.efs.sdk.metadata.commons.MetadataException;
 import com.efs.sdk.metadata.core.events.EventPublisher;
+import com.efs.sdk.metadata.core.events.OutboxEvent;
 import com.efs.sdk.metadata.helper.EntityConverter;
+import com.efs.sdk.metadata.helper.IngestDocument;
+import com.efs.sdk.metadata.helper.JsonMerger;
+import com.efs.sdk.metadata.model.BulkIndexResult;
+import com.efs.sdk.metadata.model.BulkItemResult;
+import com.efs.sdk.metadata.model.DocumentVersion;
 import com.efs.sdk.metadata.model.EventPublisherModelDTO;
-import com.efs.sdk.metadata.model.MassdataFile;
 import com.efs.sdk.metadata.model.MeasurementDTO;
 import com.efs.sdk.metadata.model.MetadataDTO;
-import com.github.wnameless.json.flattener.JsonFlattener;
-import com.github.wnameless.json.unflattener.JsonUnflattener;
-import org.opensearch.client.RestClient;
+import com.efs.sdk.metadata.model.UpdateResult;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.nimbusds.jwt.JWTParser;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestClientException;
 
-import java.io.IOException;
+import java.io.*;
+import java.text.ParseException;
+import java.time.Duration;
 import java.util.*;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
 
 import static com.efs.sdk.metadata.clients.OrganizationManagerClient.Permissions.WRITE;
 import static com.efs.sdk.metadata.commons.MetadataException.METADATA_ERROR.*;
 import static java.lang.String.format;
+import static java.nio.charset.StandardCharsets.UTF_8;
 
 @Service
 public class MetadataService {
 
     private static final Logger LOG = LoggerFactory.getLogger(MetadataService.class);
+    private static final String PROP_METADATA = "metadata";
+    private static final String PROP_MASSDATA = "massdata";
 
 
     /**
@@ -58,63 +77,330 @@ public class MetadataService {
     @Value("${metadata.topics.metadata-update-topic}")
     private String metadataUpdateTopic;
 
+    /**
+     * Where documents are merged on update
+     */
+    @Value("${metadata.update.strategy:script}")
+    private UpdateStrategy updateStrategy = UpdateStrategy.SCRIPT;
+
+    /**
+     * How often OpenSearch retries an update on concurrent modification
+     */
+    @Value("${metadata.update.retry-on-conflict:3}")
+    private int retryOnConflict;
+
+    /**
+     * How often an update is attempted, if OpenSearch still reports a version conflict
+     */
+    @Value("${metadata.update.max-attempts:3}")
+    private int updateMaxAttempts = 3;
+
+    /**
+     * Base of the (exponential, jittered) backoff between attempts
+     */
+    @Value("${metadata.update.retry-backoff:50ms}")
+    private Duration updateRetryBackoff = Duration.ofMillis(50);
+
+    /**
+     * Maximum number of documents per _bulk-request
+     */
+    @Value("${metadata.bulk.max-actions:1000}")
+    private int bulkMaxActions;
+
+    /**
+     * Maximum size of a _bulk-request in bytes
+     */
+    @Value("${metadata.bulk.max-bytes:5242880}")
+    private long bulkMaxBytes;
+
     private final EventPublisher publisher;
     private final EntityConverter converter;
     private final OpenSearchRestClientBuilder esBuilder;
     private final MetadataRestClient client;
     private final MetadataOpensearchClient mOSClient;
     private final OrganizationManagerClient orgaClient;
+    private final UpdateCoalescer updateCoalescer;
 
     public MetadataService(EventPublisher publisher, EntityConverter converter, OpenSearchRestClientBuilder esBuilder, MetadataRestClient client,
-            MetadataOpensearchClient mOSClient, OrganizationManagerClient orgaClient) {
+            MetadataOpensearchClient mOSClient, OrganizationManagerClient orgaClient, UpdateCoalescer updateCoalescer) {
         this.publisher = publisher;
         this.converter = converter;
         this.esBuilder = esBuilder;
         this.client = client;
         this.mOSClient = mOSClient;
         this.orgaClient = orgaClient;
+        this.updateCoalescer = updateCoalescer;
     }
 
+    /**
+     * Indexes the measurement (see {@link #index(String, byte[])} - it is serialized and indexed like a received measurement)
+     *
+     * @param accessToken The access-token
+     * @param measurement The measurement
+     * @return whether the document was indexed
+     * @throws MetadataException thrown on errors
+     */
     public boolean index(String accessToken, MeasurementDTO measurement) throws MetadataException {
+        return index(accessToken, converter.metadataValue(measurement).getBytes(UTF_8));
+    }
 
-        if (!canWrite(accessToken, measurement.getOrganization(), measurement.getSpace())) {
+    /**
+     * Indexes the measurement as it was received.
+     * <p>
+     * The body is only tokenized to read and validate the routing-fields, <code>metadata</code> and <code>massdata</code> are passed through to
+     * OpenSearch as they are (see {@link IngestDocument}).
+     *
+     * @param accessToken The access-token
+     * @param body        The measurement (UTF-8 encoded json)
+     * @return whether the document was indexed
+     * @throws MetadataException thrown on errors
+     */
+    public boolean index(String accessToken, byte[] body) throws MetadataException {
+        return index(authorize(accessToken, body));
+    }
+
+    /**
+     * Reads the routing-fields of the measurement and checks, that the caller may index it into its organization and space.
+     *
+     * @param accessToken The access-token
+     * @param body        The measurement (UTF-8 encoded json)
+     * @return the measurement, ready to be indexed (see {@link #index(IngestDocument)})
+     * @throws MetadataException thrown if the measurement is invalid or permissions are missing
+     */
+    public IngestDocument authorize(String accessToken, byte[] body) throws MetadataException {
+        IngestDocument document = IngestDocument.parse(body);
+        if (!canWrite(accessToken, document.getOrganization(), document.getSpace())) {
             throw new MetadataException(INSUFFICIENT_RIGHTS);
         }
-        // validate that required attributes are present
-        validate(measurement);
+        validate(document.getOrganization(), document.getSpace(), document.getRootdir());
+        return document;
+    }
 
-        EventPublisherModelDTO eventPublisherModelDTO = getEventPublisherModelDTO(measurement);
+    /**
+     * Indexes a measurement, that has been authorized before (see {@link #authorize(String, byte[])}) - the caller's token is not needed anymore.
+     *
+     * @param document The measurement
+     * @return whether the document was indexed
+     * @throws MetadataException thrown on errors
+     */
+    public boolean index(IngestDocument document) throws MetadataException {
         // create Service Account Token, as supplier does not have write-permission in elasticsearch otherwise
-        String saToken = client.getSAToken().getAccessToken();
-        return index(measurement, saToken, eventPublisherModelDTO);
+        OpenSearchRestClient restClient = esBuilder.buildRestClient(client.getSAToken().getAccessToken());
+        LOG.debug("indexing");
+        int indexed = mOSClient.createMetadata(restClient, getIndex(document.getOrganization(), document.getSpace()), document.toDocument(),
+                document.getDocid());
+        LOG.debug("indexing done");
+        EventPublisherModelDTO eventPublisherModelDTO = getEventPublisherModelDTO(document.getOrganization(), document.getSpace(), document.getRootdir(),
+                document.getDocid());
+        publisher.sendMessage(indexingDoneTopic, document.getDocid(), converter.eventPublisherModelAsMessage(eventPublisherModelDTO));
+        return indexed > 0;
+    }
+
+    /**
+     * Indexes the given measurements using the _bulk-API of OpenSearch.
+     * <p>
+     * Permissions are checked once per organization and space. Measurements that are invalid or where permissions are missing are reported as failed, the
+     * others are written. One indexing-done event is published per indexed document (as one batch).
+     *
+     * @param accessToken  The access-token
+     * @param measurements The measurements
+     * @return the results per measurement, in the order of the measurements
+     */
+    public BulkIndexResult indexBulk(String accessToken, List<MeasurementDTO> measurements) {
+        return new BulkIndexResult(indexBatch(accessToken, measurements, new HashMap<>()));
+    }
+
+    /**
+     * Indexes the measurements read line by line (NDJSON) from the given stream.
+     * <p>
+     * Lines are collected into batches (bounded by <code>metadata.bulk.max-actions</code> and <code>metadata.bulk.max-bytes</code>), so memory does not
+     * depend on the size of the upload. After each batch, the results of its lines are written to the output (one json per line, including the
+     * line-number).
+     *
+     * @param accessToken The access-token
+     * @param input       The measurements (one json-object per line)
+     * @param output      The results (one json-object per line)
+     * @throws IOException thrown on io-errors reading the input or writing the output
+     */
+    public void indexStream(String accessToken, InputStream input, OutputStream output) throws IOException {
+        Map<String, Boolean> permissions = new HashMap<>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, UTF_8));
+        List<MeasurementDTO> batch = new ArrayList<>();
+        List<Integer> lineNumbers = new ArrayList<>();
+        long batchBytes = 0;
+        int lineNumber = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            MeasurementDTO measurement;
+            try {
+                measurement = converter.measurementValue(line);
+            } catch (JsonProcessingException e) {
+                writeResult(output, lineNumber, new BulkItemResult(null, null, HttpStatus.BAD_REQUEST.value(), e.getOriginalMessage()));
+                continue;
+            }
+            batch.add(measurement);
+            lineNumbers.add(lineNumber);
+            // bytes, not chars - bulkMaxBytes bounds the encoded request
+            batchBytes += line.getBytes(UTF_8).length;
+            if (batch.size() >= bulkMaxActions || batchBytes >= bulkMaxBytes) {
+                flushStream(accessToken, batch, lineNumbers, permissions, output);
+                batchBytes = 0;
+            }
+        }
+        flushStream(accessToken, batch, lineNumbers, permissions, output);
+    }
+
+    private void flushStream(String accessToken, List<MeasurementDTO> batch, List<Integer> lineNumbers, Map<String, Boolean> permissions,
+            OutputStream output) throws IOException {
+        if (batch.isEmpty()) {
+            return;
+        }
+        List<BulkItemResult> results = indexBatch(accessToken, batch, permissions);
+        for (int i = 0; i < results.size(); i++) {
+            writeResult(output, lineNumbers.get(i), results.get(i));
+        }
+        output.flush();
+        batch.clear();
+        lineNumbers.clear();
+    }
+
+    private void writeResult(OutputStream output, int lineNumber, BulkItemResult result) throws IOException {
+        result.setLine(lineNumber);
+        output.write(converter.bulkItemResultValue(result).getBytes(UTF_8));
+        output.write('\n');
+    }
+
+    private List<BulkItemResult> indexBatch(String accessToken, List<MeasurementDTO> measurements, Map<String, Boolean> permissions) {
+        BulkItemResult[] results = new BulkItemResult[measurements.size()];
+        List<BulkDocument> documents = new ArrayList<>();
+        List<Integer> positions = new ArrayList<>();
+        // failed checks are only remembered for this batch, so the next batch checks again
+        Map<String, MetadataException> failedChecks = new HashMap<>();
+
+        for (int i = 0; i < measurements.size(); i++) {
+            MeasurementDTO measurement = measurements.get(i);
+            try {
+                validate(measurement);
+            } catch (MetadataException e) {
+                results[i] = new BulkItemResult(measurement.getDocid(), null, e.getHttpStatus().value(), e.getMessage());
+                continue;
+            }
+            String index = getIndex(measurement);
+            MetadataException denial = checkWrite(accessToken, measurement.getOrganization(), measurement.getSpace(), permissions, failedChecks);
+            if (denial != null) {
+                results[i] = new BulkItemResult(measurement.getDocid(), index, denial.getHttpStatus().value(), denial.getMessage());
+                continue;
+            }
+            documents.add(new BulkDocument(index, measurement.getDocid(), converter.metadataValue(getMetadataDTO(measurement))));
+            positions.add(i);
+        }
+
+        List<OutboxEvent> events = new ArrayList<>();
+        List<Integer> eventPositions = new ArrayList<>();
+        if (!documents.isEmpty()) {
+            // create Service Account Token, as supplier does not have write-permission in elasticsearch otherwise
+            OpenSearchRestClient restClient = esBuilder.buildRestClient(client.getSAToken().getAccessToken());
+            LOG.debug("bulk-indexing {} documents", documents.size());
+            List<BulkItemResult> indexed = mOSClient.bulkIndex(restClient, documents, bulkMaxActions, bulkMaxBytes);
+            for (int i = 0; i < indexed.size(); i++) {
+                BulkItemResult result = indexed.get(i);
+                int position = positions.get(i);
+                results[position] = result;
+                if (result.successful()) {
+                    EventPublisherModelDTO event = getEventPublisherModelDTO(measurements.get(position));
+                    event.setUuid(result.getDocid());
+                    events.add(new OutboxEvent(indexingDoneTopic, result.getDocid(), converter.eventPublisherModelAsMessage(event)));
+                    eventPositions.add(position);
+                }
+            }
+        }
+        try {
+            publisher.sendMessages(events);
+        } catch (MetadataException e) {
+            // the documents are indexed, but without their events - reported as failed, so they are sent again
+            for (int position : eventPositions) {
+                results[position] = new BulkItemResult(results[position].getDocid(), results[position].getIndex(), e.getHttpStatus().value(), e.getMessage());
+            }
+        }
+        return Arrays.asList(results);
+    }
+
+    /**
+     * Checks the write-permission once per index
+     *
+     * @return null, if writing is permitted - otherwise the error to report (403 if denied, 503 if organizationmanager could not be asked)
+     */
+    private MetadataException checkWrite(String accessToken, String organization, String space, Map<String, Boolean> permissions,
+            Map<String, MetadataException> failedChecks) {
+        String index = getIndex(organization, space);
+        MetadataException failed = failedChecks.get(index);
+        if (failed != null) {
+            return failed;
+        }
+        Boolean permitted = permissions.get(index);
+        if (permitted == null) {
+            try {
+                permitted = canWrite(accessToken, organization, space);
+                permissions.put(index, permitted);
+            } catch (MetadataException e) {
+                LOG.warn("unable to check permissions on {}/{}: {}", organization, space, e.getMessage());
+                failedChecks.put(index, e);
+                return e;
+            }
+        }
+        return permitted ? null : new MetadataException(INSUFFICIENT_RIGHTS);
     }
 
     private boolean canWrite(String accessToken, String organization, String space) throws MetadataException {
-        Map<String, Object> spaceObj = orgaClient.getSpace(accessToken, organization, space, WRITE);
-        return spaceObj != null;
+        Map<String, Object> spaceObj;
+        try {
+            spaceObj = orgaClient.getSpace(accessToken, organization, space, WRITE);
+        } catch (HttpClientErrorException e) {
+            if (e.getStatusCode().value() == HttpStatus.TOO_MANY_REQUESTS.value()) {
+                throw new MetadataException(PERMISSION_CHECK_FAILED, e.getMessage());
+            }
+            // organizationmanager denies access to the organization
+            return false;
+        } catch (RestClientException e) {
+            throw new MetadataException(PERMISSION_CHECK_FAILED, e.getMessage());
+        }
+        // spaces that do not exist (or are not writable) are not listed by organizationmanager
+        return spaceObj != null && !spaceObj.isEmpty();
     }
 
     private void validate(MeasurementDTO measurement) throws MetadataException {
+        validate(measurement.getOrganization(), measurement.getSpace(), measurement.getRootdir());
+    }
+
+    private void validate(String organization, String space, String rootdir) throws MetadataException {
         // validate that required attributes are present
-        if (measurement.getOrganization() == null) {
+        if (organization == null) {
             throw new MetadataException(NO_ORGANIZATION);
         }
 
-        if (measurement.getSpace() == null) {
+        if (space == null) {
             throw new MetadataException(NO_SPACE);
         }
 
-        if (measurement.getRootdir() == null) {
+        if (rootdir == null) {
             throw new MetadataException(NO_ROOT_DIR);
         }
     }
 
     private EventPublisherModelDTO getEventPublisherModelDTO(MeasurementDTO measurement) {
+        return getEventPublisherModelDTO(measurement.getOrganization(), measurement.getSpace(), measurement.getRootdir(), measurement.getDocid());
+    }
+
+    private EventPublisherModelDTO getEventPublisherModelDTO(String organization, String space, String rootdir, String docid) {
         EventPublisherModelDTO eventPublisherModelDTO = new EventPublisherModelDTO();
-        eventPublisherModelDTO.setAccountName(measurement.getOrganization());
-        eventPublisherModelDTO.setContainerName(measurement.getSpace());
-        eventPublisherModelDTO.setRootDir(measurement.getRootdir());
-        eventPublisherModelDTO.setUuid(measurement.getDocid());
+        eventPublisherModelDTO.setAccountName(organization);
+        eventPublisherModelDTO.setContainerName(space);
+        eventPublisherModelDTO.setRootDir(rootdir);
+        eventPublisherModelDTO.setUuid(docid);
         return eventPublisherModelDTO;
     }
 
@@ -122,84 +408,157 @@ public class MetadataService {
      * Updating documents in OpenSearch.
      * <br>
      * <b>CAUTION</b> currently only appending
+     * <p>
+     * The merge is performed on server-side, so only the new metadata and massdata are sent to OpenSearch. Concurrent modifications are retried by
+     * OpenSearch (<code>metadata.update.retry-on-conflict</code>) and - if still conflicting - up to <code>metadata.update.max-attempts</code> times with
+     * jittered backoff.
+     * <p>
+     * If a version is given (<code>If-Match</code>), the update is only applied if the document still has this version - it is not retried.
+     * <p>
+     * Other updates of the same document by the same subject (user or client of the access-token) within <code>metadata.update.coalesce-window</code>
+     * are combined into a single write and a single event (see {@link UpdateCoalescer}), all of them return the result of that write - written with the
+     * access-token of the first update in the background once the window has passed, so the result completes later on. Without window (and for
+     * conditional updates or access-tokens without subject), the update is written right away and the result is complete.
      *
      * @param input        The input-document
      * @param accessToken  The access-token
      * @param organization The organization
      * @param space        The space
      * @param documentId   The document-id
-     * @return whether update was successful
+     * @param ifMatch      The version the document is expected to have (optional)
+     * @return the result of the update, including the new version of the document (failing with a {@link MetadataException} on errors of the
+     * coalesced write)
      * @throws IOException       thrown on io-errors
      * @throws MetadataException thrown on errors
      */
-    public boolean update(MeasurementDTO input, String accessToken, String organization, String space, String documentId) throws MetadataException,
-            IOException {
+    public CompletableFuture<UpdateResult> update(MeasurementDTO input, String accessToken, String organization, String space, String documentId,
+            String ifMatch) throws MetadataException, IOException {
         // may be canDelete if "update" is defined as "real update" - but now only appending properties is supported!
         if (!canWrite(accessToken, organization, space)) {
             throw new MetadataException(INSUFFICIENT_RIGHTS);
         }
-        RestClient restClient = esBuilder.buildRestClient(accessToken);
+        DocumentVersion expectedVersion = ifMatch == null ? null : DocumentVersion.fromETag(ifMatch);
+        OpenSearchRestClient restClient = esBuilder.buildRestClient(accessToken);
         String index = getIndex(organization, space);
 
-        Map<String, Object> document = mOSClient.getSourceDocument(restClient, index, documentId);
-        MetadataDTO source = MetadataDTO.fromDocument(document);
+        MetadataDTO delta = new MetadataDTO();
+        delta.setMetadata(input.getMetadata());
+        delta.setMassdata(input.getMassdata());
 
-        if (source.getMetadata() == null) {
-            source.setMetadata(Collections.emptyMap());
-        }
-        if (source.getMassdata() == null) {
-            source.setMassdata(Collections.emptyList());
+        EventPublisherModelDTO eventPublisherModelDTO = getEventPublisherModelDTO(input);
+        UpdateCoalescer.Write write = combinedDelta -> {
+            UpdateResult result = writeUpdate(restClient, index, documentId, combinedDelta, expectedVersion);
+            LOG.debug("publishing event");
+            publisher.sendMessage(metadataUpdateTopic, documentId, converter.eventPublisherModelAsMessage(eventPublisherModelDTO));
+            LOG.debug("publishing event done");
+            return result;
+        };
+        ObjectNode deltaNode = converter.jsonValue(delta);
+        // conditional updates are checked against their own version, so they are never combined with others - and the combined delta is written
+        // with the token of one of the updates, so only updates of the same subject are combined
+        String subject = expectedVersion == null ? getSubject(accessToken) : null;
+        if (subject == null) {
+            return CompletableFuture.completedFuture(write.write(deltaNode));
         }
+        return updateCoalescer.update(index + "/" + documentId + "/" + subject, deltaNode, write);
+    }
 
-        Map<String, Object> inputMetadataFlatten = JsonFlattener.flattenAsMap(converter.metadataValue(input.getMetadata()));
-        Map<String, Object> sourceMetadataFlatten = JsonFlattener.flattenAsMap(converter.metadataValue(source.getMetadata()));
-
-        Map<String, Object> mergedFlatten =
-                Stream.of(sourceMetadataFlatten, inputMetadataFlatten).flatMap(map -> map.entrySet().stream()).collect(Collectors.toMap(Map.Entry::getKey,
-                        Map.Entry::getValue, (v1, v2) -> v1));
-
-        Map<String, Object> mergedMetadata = converter.metadataValue(JsonUnflattener.unflatten(converter.metadataValue(mergedFlatten)));
-
-        Set<MassdataFile> massdataFiles = new HashSet<>();
-        massdataFiles.addAll(source.getMassdata());
-        massdataFiles.addAll(input.getMassdata());
-
-        MetadataDTO result = new MetadataDTO();
-        result.setUuid(source.getUuid());
-        result.setSpace(source.getSpace());
-        result.setOrganization(source.getOrganization());
-        result.setMetadata(mergedMetadata);
-        result.setMassdata(List.copyOf(massdataFiles));
-
-        EventPublisherModelDTO eventPublisherModelDTO = getEventPublisherModelDTO(input);
+    private static String getSubject(String accessToken) {
+        try {
+            return JWTParser.parse(accessToken).getJWTClaimsSet().getSubject();
+        } catch (ParseException e) {
+            LOG.debug("unable to parse token, update is not coalesced: {}", e.getMessage());
+            return null;
+        }
+    }
 
-        LOG.debug("updating");
-        int updated = mOSClient.updateMetadata(restClient, index, documentId, converter.metadataValue(result));
-        LOG.debug("updating done");
-        LOG.debug("publishing event");
-        publisher.sendMessage(metadataUpdateTopic, converter.eventPublisherModelAsMessage(eventPublisherModelDTO));
-        LOG.debug("publishing event done");
-        return updated > 0;
+    private UpdateResult writeUpdate(OpenSearchRestClient restClient, String index, String documentId, ObjectNode delta, DocumentVersion expectedVersion)
+            throws MetadataException {
+        LOG.debug("updating ({})", updateStrategy);
+        UpdateResult result;
+        if (updateStrategy == UpdateStrategy.CLIENT) {
+            result = updateWithRetry(documentId, expectedVersion, () -> mergeOnClient(restClient, index, documentId, delta, expectedVersion));
+        } else {
+            String deltaValue = delta.toString();
+            result = updateWithRetry(documentId, expectedVersion, () -> mOSClient.updateMetadata(restClient, index, documentId, deltaValue, expectedVersion,
+                    retryOnConflict));
+        }
+        LOG.debug("updating done ({})", result.getResult());
+        return result;
     }
 
-    private boolean index(MeasurementDTO indexDTO, String accessToken, EventPublisherModelDTO eventPublisherModelDTO) throws MetadataException {
-        LOG.debug("starting indexing");
+    /**
+     * Reads the document (with its version), merges the delta using {@link JsonMerger} and writes the document back - if it has not been modified
+     * in the meantime.
+     */
+    private UpdateResult mergeOnClient(OpenSearchRestClient restClient, String index, String documentId, ObjectNode delta,
+            DocumentVersion expectedVersion) throws MetadataException {
+        VersionedDocument document = mOSClient.getVersionedDocument(restClient, index, documentId);
+        DocumentVersion version = document.version();
+        if (expectedVersion != null && !expectedVersion.equals(version)) {
+            throw new MetadataException(VERSION_CONFLICT);
+        }
+        ObjectNode source = document.source();
+        JsonNode metadata = source.get(PROP_METADATA);
+        boolean changed = JsonMerger.merge(metadata instanceof ObjectNode ? (ObjectNode) metadata : source.putObject(PROP_METADATA), delta.get(PROP_METADATA));
+        JsonNode massdata = source.get(PROP_MASSDATA);
+        if (JsonMerger.appendMissing(massdata instanceof ArrayNode ? (ArrayNode) massdata : source.putArray(PROP_MASSDATA), delta.get(PROP_MASSDATA))) {
+            changed = true;
+        }
+        if (!changed) {
+            return new UpdateResult("noop", version.seqNo(), version.primaryTerm());
+        }
+        return mOSClient.replaceDocument(restClient, index, documentId, source.toString(), version);
+    }
 
-        RestClient restClient = esBuilder.buildRestClient(accessToken);
-        String index = getIndex(indexDTO);
+    private UpdateResult updateWithRetry(String documentId, DocumentVersion expectedVersion, UpdateAttempt updateAttempt) throws MetadataException {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return updateAttempt.run();
+            } catch (MetadataException e) {
+                if (e.getError() != VERSION_CONFLICT) {
+                    throw e;
+                }
+                if (expectedVersion != null) {
+                    throw new MetadataException(VERSION_MISMATCH, expectedVersion.toETag());
+                }
+                if (attempt >= updateMaxAttempts) {
+                    throw e;
+                }
+                LOG.debug("version conflict updating '{}' (attempt {}), retrying", documentId, attempt);
+                backoff(attempt);
+            }
+        }
+    }
 
-        eventPublisherModelDTO.setUuid(indexDTO.getDocid());
-        MetadataDTO metadata = getMetadataDTO(indexDTO);
+    private void backoff(int attempt) throws MetadataException {
+        // "full jitter": random delay up to the exponentially growing backoff
+        long maxDelay = updateRetryBackoff.toMillis() << Math.min(attempt - 1, 10);
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(maxDelay + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MetadataException(UNABLE_UPDATE);
+        }
+    }
 
-        String metadataValue = converter.metadataValue(metadata);
-        LOG.debug("indexing");
+    /**
+     * Where documents are merged on update
+     */
+    public enum UpdateStrategy {
+        /**
+         * on server-side, using a painless-script (_update)
+         */
+        SCRIPT,
+        /**
+         * on client-side, reading the document and writing it back conditionally
+         */
+        CLIENT
+    }
 
-        int indexed = mOSClient.createMetadata(restClient, index, metadataValue, indexDTO.getDocid());
-        LOG.debug("indexing done");
-        LOG.debug("publishing event");
-        publisher.sendMessage(indexingDoneTopic, converter.eventPublisherModelAsMessage(eventPublisherModelDTO));
-        LOG.debug("publishing event done");
-        return indexed > 0;
+    @FunctionalInterface
+    private interface UpdateAttempt {
+        UpdateResult run() throws MetadataException;
     }
 
     private MetadataDTO getMetadataDTO(MeasurementDTO measurement) {
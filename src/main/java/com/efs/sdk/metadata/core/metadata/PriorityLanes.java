@@ -0,0 +1,110 @@
+/*
+Copyright (C) 2023 e:fs TechHub GmbH (sdk@efs-techhub.com)
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+        http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+ */
+package com.efs.sdk.metadata.core.metadata;
+
+import com.efs.sdk.metadata.model.IndexJob.Priority;
+
+import java.util.*;
+
+import static com.efs.sdk.metadata.model.IndexJob.Priority.HIGH;
+import static com.efs.sdk.metadata.model.IndexJob.Priority.LOW;
+import static com.efs.sdk.metadata.model.IndexJob.Priority.NORMAL;
+
+/**
+ * Bounded queue with one lane per {@link Priority}.
+ * <p>
+ * Lanes are served by weighted round-robin (4 high : 2 normal : 1 low) - a lane without waiting elements passes its turn to the highest non-empty lane.
+ * So higher lanes are preferred, but a lower lane still gets its share while higher lanes are busy.
+ *
+ * @param <T> the type of the elements
+ */
+final class PriorityLanes<T> {
+
+    private static final Priority[] SCHEDULE = {HIGH, HIGH, NORMAL, HIGH, HIGH, NORMAL, LOW};
+
+    private final Map<Priority, Deque<T>> lanes = new EnumMap<>(Priority.class);
+    private final int capacity;
+    private int size;
+    private int turn;
+
+    /**
+     * Constructor.
+     *
+     * @param capacity the maximum number of elements per lane
+     */
+    PriorityLanes(int capacity) {
+        this.capacity = capacity;
+        for (Priority priority : Priority.values()) {
+            lanes.put(priority, new ArrayDeque<>());
+        }
+    }
+
+    /**
+     * Adds an element to a lane, unless that lane is full
+     *
+     * @param priority the lane
+     * @param element  the element
+     * @return whether the element was added
+     */
+    synchronized boolean offer(Priority priority, T element) {
+        Deque<T> lane = lanes.get(priority);
+        if (lane.size() >= capacity) {
+            return false;
+        }
+        lane.addLast(element);
+        size++;
+        notifyAll();
+        return true;
+    }
+
+    /**
+     * Takes the next element - waits until there is one
+     *
+     * @return the element
+     * @throws InterruptedException if interrupted while waiting
+     */
+    synchronized T take() throws InterruptedException {
+        while (size == 0) {
+            wait();
+        }
+        Deque<T> lane = lanes.get(SCHEDULE[turn]);
+        turn = (turn + 1) % SCHEDULE.length;
+        if (lane.isEmpty()) {
+            lane = lanes.values().stream().filter(l -> !l.isEmpty()).findFirst().orElseThrow();
+        }
+        size--;
+        return lane.removeFirst();
+    }
+
+    /**
+     * Removes all waiting elements
+     *
+     * @return the elements, in the order of their lanes
+     */
+    synchronized List<T> drain() {
+        List<T> drained = new ArrayList<>(size);
+        lanes.values().forEach(lane -> {
+            drained.addAll(lane);
+            lane.clear();
+        });
+        size = 0;
+        return drained;
+    }
+
+    synchronized int size(Priority priority) {
+        return lanes.get(priority).size();
+    }
+}
@@ -0,0 +1,204 @@
+/*
+Copyright (C) 2023 e:fs TechHub GmbH (sdk@efs-techhub.com)
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+        http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+ */
+package com.efs.sdk.metadata.core.metadata;
+
+import com.efs.sdk.metadata.commons.MetadataException;
+import com.efs.sdk.metadata.helper.JsonMerger;
+import com.efs.sdk.metadata.model.UpdateResult;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.*;
+
+import static com.efs.sdk.metadata.commons.MetadataException.METADATA_ERROR.UNABLE_UPDATE;
+
+/**
+ * Coalesces updates of the same document arriving within <code>metadata.update.coalesce-window</code> into a single write.
+ * <p>
+ * The first update of a document opens the window, the updates arriving meanwhile merge their deltas into the pending one (with {@link JsonMerger} -
+ * the earlier update wins, i.e. the combined delta has the same effect as applying the deltas one after the other). When the window has passed, the
+ * combined delta is written by one of <code>metadata.update.coalesce-writers</code> threads, and all updates receive the outcome of that write (its
+ * result or its error) - none of them blocks its request thread meanwhile. Updates arriving after the write started open the next window.
+ * <p>
+ * Without window, updates are written right away on the calling thread (and no threads are started). Windows still open when the service stops are
+ * written right away, updates whose write is not done by then fail.
+ */
+@Component
+public class UpdateCoalescer implements DisposableBean {
+
+    private static final Logger LOG = LoggerFactory.getLogger(UpdateCoalescer.class);
+    private static final String PROP_METADATA = "metadata";
+    private static final String PROP_MASSDATA = "massdata";
+    private static final Duration SHUTDOWN_TIMEOUT = Duration.ofSeconds(10);
+
+    /**
+     * Writes a (combined) delta
+     */
+    @FunctionalInterface
+    interface Write {
+        UpdateResult write(ObjectNode delta) throws MetadataException;
+    }
+
+    private final Map<String, Pending> pending = new ConcurrentHashMap<>();
+    private final Duration window;
+    private final Duration timeout;
+    private final ScheduledThreadPoolExecutor writers;
+    private volatile boolean stopped;
+
+    /**
+     * Constructor.
+     *
+     * @param window      How long updates of the same document are collected (zero disables coalescing)
+     * @param timeout     How long an update waits for the combined write at most
+     * @param writerCount Number of threads writing the combined deltas
+     */
+    public UpdateCoalescer(@Value("${metadata.update.coalesce-window:0ms}") Duration window, @Value("${metadata.update.coalesce-timeout:30s}") Duration timeout,
+            @Value("${metadata.update.coalesce-writers:4}") int writerCount) {
+        this.window = window;
+        this.timeout = timeout;
+        if (isEnabled()) {
+            CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("update-coalescer-");
+            threadFactory.setDaemon(true);
+            this.writers = new ScheduledThreadPoolExecutor(Math.max(1, writerCount), threadFactory);
+            // windows are flushed right away on shutdown, their scheduled flushes are obsolete then
+            writers.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        } else {
+            this.writers = null;
+        }
+    }
+
+    private boolean isEnabled() {
+        return !window.isZero() && !window.isNegative();
+    }
+
+    /**
+     * Updates the document - together with the other updates of the document within the window
+     *
+     * @param documentKey identifies the document (and the identity it is written with - only updates with the same key are combined)
+     * @param delta       the delta of this update
+     * @param write       writes the combined delta (once per window)
+     * @return the result of the combined write - failing with {@link MetadataException.METADATA_ERROR#UNABLE_UPDATE}, if it is not available within
+     * the timeout (starting with this update)
+     * @throws MetadataException the error of the write (only without window - otherwise the returned result fails with it)
+     */
+    CompletableFuture<UpdateResult> update(String documentKey, ObjectNode delta, Write write) throws MetadataException {
+        if (!isEnabled() || stopped) {
+            return CompletableFuture.completedFuture(write.write(delta));
+        }
+        Pending candidate = new Pending(delta.deepCopy(), write);
+        Pending joined = pending.compute(documentKey, (key, existing) -> {
+            if (existing == null) {
+                return candidate;
+            }
+            existing.merge(delta);
+            return existing;
+        });
+        if (joined == candidate) {
+            writers.schedule(() -> flush(documentKey, candidate), window.toMillis(), TimeUnit.MILLISECONDS);
+        }
+        return joined.outcome(timeout);
+    }
+
+    private void flush(String documentKey, Pending candidate) {
+        // no more updates are merged from here on - and the window is only written once (see destroy)
+        if (!pending.remove(documentKey, candidate)) {
+            return;
+        }
+        if (candidate.updates > 1) {
+            LOG.debug("coalesced {} updates of '{}' into one write", candidate.updates, documentKey);
+        }
+        try {
+            candidate.result.complete(candidate.write.write(candidate.delta));
+        } catch (MetadataException | RuntimeException e) {
+            candidate.result.completeExceptionally(e);
+        }
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        if (writers == null) {
+            return;
+        }
+        stopped = true;
+        pending.forEach((documentKey, candidate) -> writers.execute(() -> flush(documentKey, candidate)));
+        writers.shutdown();
+        if (!writers.awaitTermination(SHUTDOWN_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS)) {
+            LOG.warn("coalesced updates still being written after {}", SHUTDOWN_TIMEOUT);
+            writers.shutdownNow();
+        }
+        // opened concurrently with stopping
+        pending.forEach((documentKey, candidate) -> {
+            if (pending.remove(documentKey, candidate)) {
+                candidate.result.completeExceptionally(new MetadataException(UNABLE_UPDATE, "service stopped before the update was written"));
+            }
+        });
+    }
+
+    /**
+     * The combined delta of the updates within a window
+     */
+    private static final class Pending {
+
+        private final ObjectNode delta;
+        private final Write write;
+        private final CompletableFuture<UpdateResult> result = new CompletableFuture<>();
+        private int updates = 1;
+
+        private Pending(ObjectNode delta, Write write) {
+            this.delta = delta;
+            this.write = write;
+        }
+
+        /**
+         * Merges the delta of a later update (only called within {@link ConcurrentHashMap#compute}, i.e. never concurrently)
+         */
+        private void merge(ObjectNode later) {
+            JsonNode metadata = delta.get(PROP_METADATA);
+            JsonMerger.merge(metadata instanceof ObjectNode object ? object : delta.putObject(PROP_METADATA), later.get(PROP_METADATA));
+            JsonNode massdata = delta.get(PROP_MASSDATA);
+            JsonMerger.appendMissing(massdata instanceof ArrayNode array ? array : delta.putArray(PROP_MASSDATA), later.get(PROP_MASSDATA));
+            updates++;
+        }
+
+        /**
+         * The outcome of the write for one of the updates - failed, if not available within the timeout
+         */
+        private CompletableFuture<UpdateResult> outcome(Duration timeout) {
+            CompletableFuture<UpdateResult> outcome = new CompletableFuture<>();
+            // the timer of orTimeout is cancelled as soon as the write is done
+            result.copy().orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS).whenComplete((value, error) -> {
+                if (error == null) {
+                    outcome.complete(value);
+                } else if (error instanceof TimeoutException) {
+                    outcome.completeExceptionally(new MetadataException(UNABLE_UPDATE, "timed out waiting for the combined write"));
+                } else {
+                    // the copy wraps the error of the write
+                    outcome.completeExceptionally(error instanceof CompletionException && error.getCause() != null ? error.getCause() : error);
+                }
+            });
+            return outcome;
+        }
+    }
+}
@@ -15,12 +15,15 @@ limitations under the License.
  */
 package com.efs.sdk.metadata.helper;
 
+import com.efs.sdk.metadata.model.BulkItemResult;
 import com.efs.sdk.metadata.model.EventPublisherModelDTO;
+import com.efs.sdk.metadata.model.MeasurementDTO;
 import com.efs.sdk.metadata.model.MetadataDTO;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 
 import java.io.IOException;
@@ -78,4 +81,20 @@ public class EntityConverter {
         return objectMapper.readValue(metadata, new TypeReference<Map<String, Object>>() {
         });
     }
+
+    public ObjectNode jsonValue(Map<String, Object> map) {
+        return objectMapper.valueToTree(map);
+    }
+
+    public MeasurementDTO measurementValue(String measurement) throws JsonProcessingException {
+        return objectMapper.readValue(measurement, MeasurementDTO.class);
+    }
+
+    public String bulkItemResultValue(BulkItemResult result) {
+        try {
+            return objectMapper.writeValueAsString(result);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException(e.getMessage(), e);
+        }
+    }
 }
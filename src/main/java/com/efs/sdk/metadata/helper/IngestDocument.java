@@ -0,0 +1,182 @@
+/*
+Copyright (C) 2023 e:fs TechHub GmbH (sdk@efs-techhub.com)
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+        http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+ */
+package com.efs.sdk.metadata.helper;
+
+import com.efs.sdk.metadata.commons.MetadataException;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+
+import java.io.IOException;
+
+import static com.efs.sdk.metadata.commons.MetadataException.METADATA_ERROR.INVALID_DOCUMENT;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * A measurement to be indexed, kept as the (UTF-8) bytes it was received as.
+ * <p>
+ * The body is tokenized once to read the routing-fields (<code>organization</code>, <code>space</code>, <code>rootdir</code> and <code>docid</code>) and
+ * to validate it - <code>metadata</code> and <code>massdata</code> are only skipped over and later copied verbatim into the document, so no object-graph
+ * is ever built. The document contains the same fields as before: <code>uuid</code> (formerly <code>docid</code>), <code>organization</code>,
+ * <code>space</code>, <code>metadata</code> and <code>massdata</code> - <code>rootdir</code> and any other top-level field are dropped.
+ */
+public final class IngestDocument {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+    private static final byte[] EMPTY_OBJECT = "{}".getBytes(UTF_8);
+    private static final byte[] EMPTY_ARRAY = "[]".getBytes(UTF_8);
+
+    private static final String PROP_DOCID = "docid";
+    private static final String PROP_UUID = "uuid";
+    private static final String PROP_ORGANIZATION = "organization";
+    private static final String PROP_SPACE = "space";
+    private static final String PROP_ROOTDIR = "rootdir";
+    private static final String PROP_METADATA = "metadata";
+    private static final String PROP_MASSDATA = "massdata";
+
+    private final byte[] body;
+    private String docid;
+    private String organization;
+    private String space;
+    private String rootdir;
+    private Slice metadata;
+    private Slice massdata;
+
+    private IngestDocument(byte[] body) {
+        this.body = body;
+    }
+
+    /**
+     * Reads the routing-fields of the measurement and validates that it is well-formed json
+     *
+     * @param body the measurement (UTF-8)
+     * @return the document
+     * @throws MetadataException if the body is not a (UTF-8 encoded) json-object
+     */
+    public static IngestDocument parse(byte[] body) throws MetadataException {
+        IngestDocument document = new IngestDocument(body);
+        try (JsonParser parser = JSON_FACTORY.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new MetadataException(INVALID_DOCUMENT, "expected a json-object");
+            }
+            if (parser.getTokenLocation().getByteOffset() < 0) {
+                throw new MetadataException(INVALID_DOCUMENT, "expected UTF-8");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                switch (field) {
+                    case PROP_DOCID -> document.docid = text(parser, value);
+                    case PROP_ORGANIZATION -> document.organization = text(parser, value);
+                    case PROP_SPACE -> document.space = text(parser, value);
+                    case PROP_ROOTDIR -> document.rootdir = text(parser, value);
+                    case PROP_METADATA -> document.metadata = slice(parser, value == JsonToken.START_OBJECT);
+                    case PROP_MASSDATA -> document.massdata = slice(parser, value == JsonToken.START_ARRAY);
+                    default -> parser.skipChildren();
+                }
+            }
+            if (parser.nextToken() != null) {
+                throw new MetadataException(INVALID_DOCUMENT, "unexpected content after the json-object");
+            }
+        } catch (IOException e) {
+            throw new MetadataException(INVALID_DOCUMENT, e.getMessage());
+        }
+        return document;
+    }
+
+    private static String text(JsonParser parser, JsonToken value) throws IOException {
+        if (value == JsonToken.VALUE_STRING) {
+            return parser.getText();
+        }
+        parser.skipChildren();
+        return null;
+    }
+
+    private static Slice slice(JsonParser parser, boolean expectedType) throws IOException {
+        int start = (int) parser.getTokenLocation().getByteOffset();
+        parser.skipChildren();
+        int end = (int) parser.getCurrentLocation().getByteOffset();
+        return expectedType ? new Slice(start, end) : null;
+    }
+
+    public String getDocid() {
+        return docid;
+    }
+
+    public String getOrganization() {
+        return organization;
+    }
+
+    public String getSpace() {
+        return space;
+    }
+
+    public String getRootdir() {
+        return rootdir;
+    }
+
+    /**
+     * Assembles the document to be indexed - the envelope is written anew, <code>metadata</code> and <code>massdata</code> are copied from the body as
+     * they are
+     *
+     * @return the document (UTF-8 encoded json)
+     */
+    public byte[] toDocument() {
+        byte[] head = ("{\"" + PROP_UUID + "\":" + quoted(docid) + ",\"" + PROP_ORGANIZATION + "\":" + quoted(organization) + ",\"" + PROP_SPACE + "\":"
+                + quoted(space) + ",\"" + PROP_METADATA + "\":").getBytes(UTF_8);
+        byte[] separator = (",\"" + PROP_MASSDATA + "\":").getBytes(UTF_8);
+
+        byte[] document = new byte[head.length + length(metadata, EMPTY_OBJECT) + separator.length + length(massdata, EMPTY_ARRAY) + 1];
+        int position = copy(head, document, 0);
+        position = copy(metadata, EMPTY_OBJECT, document, position);
+        position = copy(separator, document, position);
+        position = copy(massdata, EMPTY_ARRAY, document, position);
+        document[position] = '}';
+        return document;
+    }
+
+    private static String quoted(String value) {
+        return value == null ? "null" : "\"" + new String(JsonStringEncoder.getInstance().quoteAsString(value)) + "\"";
+    }
+
+    private static int length(Slice slice, byte[] fallback) {
+        return slice == null ? fallback.length : slice.length();
+    }
+
+    private int copy(Slice slice, byte[] fallback, byte[] target, int position) {
+        if (slice == null) {
+            return copy(fallback, target, position);
+        }
+        System.arraycopy(body, slice.start(), target, position, slice.length());
+        return position + slice.length();
+    }
+
+    private static int copy(byte[] source, byte[] target, int position) {
+        System.arraycopy(source, 0, target, position, source.length);
+        return position + source.length;
+    }
+
+    /**
+     * Range of a value within the body
+     */
+    private record Slice(int start, int end) {
+
+        int length() {
+            return end - start;
+        }
+    }
+}
@@ -0,0 +1,126 @@
+/*
+Copyright (C) 2023 e:fs TechHub GmbH (sdk@efs-techhub.com)
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+        http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+ */
+package com.efs.sdk.metadata.helper;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Merges json-trees in place - without copying or flattening the documents.
+ * <p>
+ * Semantics are "target wins, arrays preserved": values already present in the target are never replaced, objects are merged recursively and arrays are
+ * only extended by the elements at indices the target does not have yet (i.e. the same semantics as the update-script and the former
+ * flatten/unflatten-merge).
+ */
+public class JsonMerger {
+
+    private JsonMerger() {
+        // do nothing
+    }
+
+    /**
+     * Merges the input into the target
+     *
+     * @param target the target (modified in place)
+     * @param input  the values to add
+     * @return whether the target was modified
+     */
+    public static boolean merge(ObjectNode target, JsonNode input) {
+        if (input == null || !input.isObject()) {
+            return false;
+        }
+        boolean changed = false;
+        Iterator<Map.Entry<String, JsonNode>> fields = input.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            JsonNode existing = target.get(field.getKey());
+            if (existing == null) {
+                target.set(field.getKey(), field.getValue());
+                changed = true;
+            } else if (mergeValue(existing, field.getValue())) {
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Merges the input-array into the target-array - elements at existing indices are merged, the remaining elements are appended
+     *
+     * @param target the target (modified in place)
+     * @param input  the values to add
+     * @return whether the target was modified
+     */
+    public static boolean merge(ArrayNode target, JsonNode input) {
+        if (input == null || !input.isArray()) {
+            return false;
+        }
+        boolean changed = false;
+        for (int i = 0; i < input.size(); i++) {
+            if (i >= target.size()) {
+                target.add(input.get(i));
+                changed = true;
+            } else if (mergeValue(target.get(i), input.get(i))) {
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Appends the elements of the input-array, which are not (deeply) equal to an element of the target-array (e.g. massdata-files)
+     *
+     * @param target the target (modified in place)
+     * @param input  the elements to add
+     * @return whether the target was modified
+     */
+    public static boolean appendMissing(ArrayNode target, JsonNode input) {
+        if (input == null || !input.isArray()) {
+            return false;
+        }
+        boolean changed = false;
+        for (JsonNode element : input) {
+            if (!contains(target, element)) {
+                target.add(element);
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    private static boolean mergeValue(JsonNode target, JsonNode input) {
+        if (target instanceof ObjectNode targetObject) {
+            return merge(targetObject, input);
+        }
+        if (target instanceof ArrayNode targetArray) {
+            return merge(targetArray, input);
+        }
+        return false;
+    }
+
+    private static boolean contains(ArrayNode array, JsonNode element) {
+        for (JsonNode candidate : array) {
+            if (candidate.equals(element)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
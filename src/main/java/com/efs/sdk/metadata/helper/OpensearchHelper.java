@@ -17,25 +17,58 @@ package com.efs.sdk.metadata.helper;
 
 import com.efs.sdk.common.domain.dto.SpaceContextDTO;
 import com.efs.sdk.metadata.core.context.RoleScopeSpace;
-import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonPointer;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import io.micrometer.core.instrument.util.IOUtils;
 import org.springframework.stereotype.Component;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Objects;
 
 import static java.lang.String.format;
 
+/**
+ * Names and definitions of the OpenSearch roles and rolesmappings.
+ * <p>
+ * The templates of the definitions are parsed once on construction. A definition is rendered by copying its template and adding the values to the
+ * (empty) arrays of the template directly - there is no text-substitution and no escaping of values.
+ */
 @Component
 public class OpensearchHelper {
 
-    private static final String ROLE_TEMPLATE_PATH = "/role_space_tpl.json";
-    private final ObjectMapper objectMapper;
+    private static final String ROLE_SPACE_TEMPLATE_PATH = "/role_space_tpl.json";
+    private static final String ROLE_ORGANIZATION_TEMPLATE_PATH = "/role_organization_tpl.json";
+    private static final String ROLESMAPPING_TEMPLATE_PATH = "/rolemapping_tpl.json";
+
+    private static final JsonPointer TENANT_PATTERNS = JsonPointer.compile("/tenant_permissions/0/tenant_patterns");
+    private static final JsonPointer TENANT_ALLOWED_ACTIONS = JsonPointer.compile("/tenant_permissions/0/allowed_actions");
+    private static final JsonPointer INDEX_PATTERNS = JsonPointer.compile("/index_permissions/0/index_patterns");
+    private static final JsonPointer INDEX_ALLOWED_ACTIONS = JsonPointer.compile("/index_permissions/0/allowed_actions");
+    private static final JsonPointer AND_BACKEND_ROLES = JsonPointer.compile("/and_backend_roles");
+
+    private static final String[] PUBLIC_INDEX_PERMISSIONS = {"read", "indices:data/read/scroll", "indices:admin/mappings/get"};
+
+    private final ObjectNode roleSpaceTemplate;
+    private final ObjectNode roleOrganizationTemplate;
+    private final ObjectNode rolesMappingTemplate;
 
     public OpensearchHelper(ObjectMapper objectMapper) {
-        this.objectMapper = objectMapper;
+        this.roleSpaceTemplate = readTemplate(objectMapper, ROLE_SPACE_TEMPLATE_PATH);
+        this.roleOrganizationTemplate = readTemplate(objectMapper, ROLE_ORGANIZATION_TEMPLATE_PATH);
+        this.rolesMappingTemplate = readTemplate(objectMapper, ROLESMAPPING_TEMPLATE_PATH);
+    }
+
+    private ObjectNode readTemplate(ObjectMapper objectMapper, String path) {
+        try (InputStream template = Objects.requireNonNull(getClass().getResourceAsStream(path))) {
+            return (ObjectNode) objectMapper.readTree(template);
+        } catch (IOException e) {
+            throw new IllegalStateException(format("unable to read template %s", path), e);
+        }
     }
 
     /**
@@ -74,12 +107,20 @@ public class OpensearchHelper {
      * @return the rolesmapping json
      */
     public String getRolesMappingJson(List<String> mappings) {
+        return getRolesMapping(mappings).toString();
+    }
 
-        List<String> mappingsQuoted = mappings.stream().map(n -> format("\"%s\"", n)).toList();
-
-        String rolesMappingTemplate = getResourceAsString("/rolemapping_tpl.json");
-
-        return format(rolesMappingTemplate, mappingsQuoted);
+    /**
+     * Creates a rolesmapping (see {@link #getRolesMappingJson(List)})
+     *
+     * @param mappings The role mappings
+     * @return the rolesmapping
+     */
+    public ObjectNode getRolesMapping(List<String> mappings) {
+        ObjectNode rolesMapping = rolesMappingTemplate.deepCopy();
+        ArrayNode backendRoles = (ArrayNode) rolesMapping.at(AND_BACKEND_ROLES);
+        mappings.forEach(backendRoles::add);
+        return rolesMapping;
     }
 
     /**
@@ -101,11 +142,21 @@ public class OpensearchHelper {
      * @return the tenant role request json
      */
     public String getTenantRoleRequest(String permission, String tenantName) {
+        return getTenantRole(permission, tenantName).toString();
+    }
 
-        String jsonTemplate = getResourceAsString("/role_organization_tpl.json");
-
-        return format(jsonTemplate, tenantName, permission);
-
+    /**
+     * Gets a tenant role (see {@link #getTenantRoleRequest(String, String)})
+     *
+     * @param permission The Permission
+     * @param tenantName The name of the tenant
+     * @return the tenant role
+     */
+    public ObjectNode getTenantRole(String permission, String tenantName) {
+        ObjectNode role = roleOrganizationTemplate.deepCopy();
+        ((ArrayNode) role.at(TENANT_PATTERNS)).add(tenantName);
+        ((ArrayNode) role.at(TENANT_ALLOWED_ACTIONS)).add(permission);
+        return role;
     }
 
 
@@ -117,12 +168,18 @@ public class OpensearchHelper {
      * @return String containing the role definition
      */
     public String createRoleDefinition(SpaceContextDTO space, RoleScopeSpace scope) {
-        String tenantPattern = format("%s_%s", space.getOrganization().getName(), space.getName());
-        String tenantPermission = scope.getTenantPermission();
-        String indexPattern = format("%s_%s_*", space.getOrganization().getName(), space.getName());
-        String[] indexPermissions = scope.getIndexPermissions();
+        return getRoleDefinition(space, scope).toString();
+    }
 
-        return replaceTemplateParameters(tenantPattern, tenantPermission, indexPattern, indexPermissions);
+    /**
+     * Creates a role definition for a specific space and scope (see {@link #createRoleDefinition(SpaceContextDTO, RoleScopeSpace)})
+     *
+     * @param space SpaceContextDTO object representing the space context
+     * @param scope RoleScopeSpace object representing the role scope
+     * @return the role definition
+     */
+    public ObjectNode getRoleDefinition(SpaceContextDTO space, RoleScopeSpace scope) {
+        return spaceRole(space, scope.getTenantPermission(), scope.getIndexPermissions());
     }
 
     /**
@@ -132,37 +189,39 @@ public class OpensearchHelper {
      * @return String containing the public role definition
      */
     public String createPublicRoleDefinition(SpaceContextDTO space) {
-        String tenantPattern = format("%s_%s", space.getOrganization().getName(), space.getName());
-        String tenantPermission = "kibana_all_read";
-        String indexPattern = format("%s_%s_*", space.getOrganization().getName(), space.getName());
-        String[] indexPermissions = new String[]{"read", "indices:data/read/scroll", "indices:admin/mappings/get"};
+        return getPublicRoleDefinition(space).toString();
+    }
 
-        return replaceTemplateParameters(tenantPattern, tenantPermission, indexPattern, indexPermissions);
+    /**
+     * Creates a public role definition for a specific space (see {@link #createPublicRoleDefinition(SpaceContextDTO)})
+     *
+     * @param space SpaceContextDTO object representing the space context
+     * @return the public role definition
+     */
+    public ObjectNode getPublicRoleDefinition(SpaceContextDTO space) {
+        return spaceRole(space, "kibana_all_read", PUBLIC_INDEX_PERMISSIONS);
     }
 
     /**
-     * Replaces placeholders in the role template with provided parameters and returns the processed template.
+     * Renders the role template of spaces
      *
-     * @param tenantPattern        a String representing the tenant pattern
-     * @param tenantPermission     a String representing the tenant permission
-     * @param indexPattern         a String representing the index pattern
-     * @param indexPermissions     an array of Strings representing index permissions
-     * @return a String containing the processed role definition template
+     * @param space            the space
+     * @param tenantPermission a String representing the tenant permission
+     * @param indexPermissions an array of Strings representing index permissions
+     * @return the role definition
      */
-    private String replaceTemplateParameters(String tenantPattern, String tenantPermission, String indexPattern, String[] indexPermissions) {
-        String roleTemplate = getResourceAsString(ROLE_TEMPLATE_PATH);
-        roleTemplate = roleTemplate.replace("<tenant_pattern>", tenantPattern);
-        roleTemplate = roleTemplate.replace("<tenant_allowed_action>", tenantPermission);
-        roleTemplate = roleTemplate.replace("<index_pattern>", indexPattern);
-        String permissionsJson;
-        try {
-            permissionsJson = objectMapper.writeValueAsString(indexPermissions);
-        } catch (JsonProcessingException e) {
-            throw new IllegalStateException("Error while converting index permissions to JSON", e);
-        }
-        roleTemplate = roleTemplate.replace("<index_allowed_actions>", permissionsJson);
+    private ObjectNode spaceRole(SpaceContextDTO space, String tenantPermission, String[] indexPermissions) {
+        String tenantPattern = format("%s_%s", space.getOrganization().getName(), space.getName());
 
-        return roleTemplate;
+        ObjectNode role = roleSpaceTemplate.deepCopy();
+        ((ArrayNode) role.at(TENANT_PATTERNS)).add(tenantPattern);
+        ((ArrayNode) role.at(TENANT_ALLOWED_ACTIONS)).add(tenantPermission);
+        ((ArrayNode) role.at(INDEX_PATTERNS)).add(tenantPattern + "_*");
+        ArrayNode allowedActions = (ArrayNode) role.at(INDEX_ALLOWED_ACTIONS);
+        for (String indexPermission : indexPermissions) {
+            allowedActions.add(indexPermission);
+        }
+        return role;
     }
 
 }
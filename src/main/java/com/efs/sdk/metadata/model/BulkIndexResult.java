@@ -0,0 +1,55 @@
+/*
+Copyright (C) 2023 e:fs TechHub GmbH (sdk@efs-techhub.com)
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+        http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+ */
+package com.efs.sdk.metadata.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+/**
+ * Result of a bulk-request - one item per document, in the order of the request
+ */
+public class BulkIndexResult {
+
+    @Schema(description = "Whether at least one document failed")
+    private boolean errors;
+    @Schema(description = "The results per document")
+    private List<BulkItemResult> items;
+
+    public BulkIndexResult() {
+    }
+
+    public BulkIndexResult(List<BulkItemResult> items) {
+        this.items = items;
+        this.errors = items.stream().anyMatch(item -> !item.successful());
+    }
+
+    public boolean isErrors() {
+        return errors;
+    }
+
+    public void setErrors(boolean errors) {
+        this.errors = errors;
+    }
+
+    public List<BulkItemResult> getItems() {
+        return items;
+    }
+
+    public void setItems(List<BulkItemResult> items) {
+        this.items = items;
+    }
+}
@@ -0,0 +1,91 @@
+/*
+Copyright (C) 2023 e:fs TechHub GmbH (sdk@efs-techhub.com)
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+        http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+ */
+package com.efs.sdk.metadata.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+/**
+ * Result of a single document within a bulk-request
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BulkItemResult {
+
+    @Schema(description = "The line of the document (NDJSON only)")
+    private Integer line;
+    @Schema(description = "The id of the document")
+    private String docid;
+    @Schema(description = "The index the document was written to")
+    private String index;
+    @Schema(description = "The http-status of the operation")
+    private int status;
+    @Schema(description = "The reason, if the operation failed")
+    private String error;
+
+    public BulkItemResult() {
+    }
+
+    public BulkItemResult(String docid, String index, int status, String error) {
+        this.docid = docid;
+        this.index = index;
+        this.status = status;
+        this.error = error;
+    }
+
+    public boolean successful() {
+        return status >= 200 && status <= 299;
+    }
+
+    public Integer getLine() {
+        return line;
+    }
+
+    public void setLine(Integer line) {
+        this.line = line;
+    }
+
+    public String getDocid() {
+        return docid;
+    }
+
+    public void setDocid(String docid) {
+        this.docid = docid;
+    }
+
+    public String getIndex() {
+        return index;
+    }
+
+    public void setIndex(String index) {
+        this.index = index;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public void setStatus(int status) {
+        this.status = status;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+}
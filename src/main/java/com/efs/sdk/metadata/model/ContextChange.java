@@ -0,0 +1,100 @@
+/*
+Copyright (C) 2023 e:fs TechHub GmbH (sdk@efs-techhub.com)
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+        http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+ */
+package com.efs.sdk.metadata.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.JsonNode;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+/**
+ * A single change to the OpenSearch-context (tenant, role, rolesmapping or index), as planned by the reconciliation
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ContextChange {
+
+    public enum Operation {
+        CREATE, UPDATE, DELETE
+    }
+
+    public enum Resource {
+        TENANT, ROLE, ROLESMAPPING, INDEX
+    }
+
+    @Schema(description = "What is done to the resource")
+    private Operation operation;
+    @Schema(description = "The type of the resource")
+    private Resource resource;
+    @Schema(description = "The name of the resource")
+    private String name;
+    @JsonIgnore
+    private JsonNode definition;
+    @Schema(description = "The error, if the change could not be applied")
+    private String error;
+
+    public ContextChange() {
+    }
+
+    public ContextChange(Operation operation, Resource resource, String name, JsonNode definition) {
+        this.operation = operation;
+        this.resource = resource;
+        this.name = name;
+        this.definition = definition;
+    }
+
+    public Operation getOperation() {
+        return operation;
+    }
+
+    public void setOperation(Operation operation) {
+        this.operation = operation;
+    }
+
+    public Resource getResource() {
+        return resource;
+    }
+
+    public void setResource(Resource resource) {
+        this.resource = resource;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    /**
+     * @return the definition (request-body) of the resource to be created or updated
+     */
+    public JsonNode getDefinition() {
+        return definition;
+    }
+
+    public void setDefinition(JsonNode definition) {
+        this.definition = definition;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+}
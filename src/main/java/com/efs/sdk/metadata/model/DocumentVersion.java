@@ -0,0 +1,59 @@
+/*
+Copyright (C) 2023 e:fs TechHub GmbH (sdk@efs-techhub.com)
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+        http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+ */
+package com.efs.sdk.metadata.model;
+
+import com.efs.sdk.metadata.commons.MetadataException;
+
+import static com.efs.sdk.metadata.commons.MetadataException.METADATA_ERROR.INVALID_VERSION;
+
+/**
+ * Version of a document in OpenSearch (as used for optimistic concurrency control)
+ *
+ * @param seqNo       the sequence-number of the last modification
+ * @param primaryTerm the primary-term of the last modification
+ */
+public record DocumentVersion(long seqNo, long primaryTerm) {
+
+    /**
+     * Parses the version from an ETag (<code>"&lt;seqNo&gt;-&lt;primaryTerm&gt;"</code>)
+     *
+     * @param eTag the ETag, e.g. taken from an If-Match-header
+     * @return the version
+     * @throws MetadataException if the ETag is not a valid version
+     */
+    public static DocumentVersion fromETag(String eTag) throws MetadataException {
+        String value = eTag.trim();
+        if (value.startsWith("W/")) {
+            value = value.substring(2);
+        }
+        if (value.length() >= 2 && value.startsWith("\"") && value.endsWith("\"")) {
+            value = value.substring(1, value.length() - 1);
+        }
+        int separator = value.indexOf('-');
+        try {
+            return new DocumentVersion(Long.parseLong(value.substring(0, separator)), Long.parseLong(value.substring(separator + 1)));
+        } catch (NumberFormatException | IndexOutOfBoundsException e) {
+            throw new MetadataException(INVALID_VERSION, eTag);
+        }
+    }
+
+    /**
+     * @return the version as ETag-value (<code>&lt;seqNo&gt;-&lt;primaryTerm&gt;</code>)
+     */
+    public String toETag() {
+        return seqNo + "-" + primaryTerm;
+    }
+}
@@ -0,0 +1,82 @@
+/*
+Copyright (C) 2023 e:fs TechHub GmbH (sdk@efs-techhub.com)
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+        http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+ */
+package com.efs.sdk.metadata.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import io.swagger.v3.oas.annotations.media.Schema;
+import org.springframework.http.HttpStatus;
+
+import java.time.Instant;
+
+/**
+ * A document accepted for asynchronous indexing - its state at one point in time (every transition yields a new instance)
+ */
+public record IndexJob(@Schema(description = "Id of the job") String id,
+                       @Schema(description = "Status of the job") Status status,
+                       @Schema(description = "Lane the job was queued in") Priority priority,
+                       @Schema(description = "Id of the document (null, if generated by OpenSearch)") String docid,
+                       @Schema(description = "Organization of the document") String organization,
+                       @Schema(description = "Space of the document") String space,
+                       @Schema(description = "Subject of the user, that submitted the job") String subject,
+                       @Schema(description = "When the job was accepted") Instant acceptedAt,
+                       @Schema(description = "When the document was started to be indexed") Instant startedAt,
+                       @Schema(description = "When the job finished") Instant finishedAt,
+                       @Schema(description = "Http-status of the error, that failed the job") Integer errorStatus,
+                       @Schema(description = "The error, that failed the job") String error) {
+
+    public enum Status {
+        QUEUED, RUNNING, COMPLETED, FAILED
+    }
+
+    /**
+     * Lanes of the queue - higher lanes are served more often, but lower lanes are never starved
+     */
+    public enum Priority {
+        HIGH, NORMAL, LOW
+    }
+
+    /**
+     * Creates a job waiting to be run
+     *
+     * @param id           the id of the job
+     * @param priority     the lane of the job
+     * @param docid        the id of the document
+     * @param organization the organization of the document
+     * @param space        the space of the document
+     * @param subject      the subject of the user, that submitted the job
+     * @return the job
+     */
+    public static IndexJob queued(String id, Priority priority, String docid, String organization, String space, String subject) {
+        return new IndexJob(id, Status.QUEUED, priority, docid, organization, space, subject, Instant.now(), null, null, null, null);
+    }
+
+    public IndexJob running() {
+        return new IndexJob(id, Status.RUNNING, priority, docid, organization, space, subject, acceptedAt, Instant.now(), null, null, null);
+    }
+
+    public IndexJob completed() {
+        return new IndexJob(id, Status.COMPLETED, priority, docid, organization, space, subject, acceptedAt, startedAt, Instant.now(), null, null);
+    }
+
+    public IndexJob failed(HttpStatus status, String message) {
+        return new IndexJob(id, Status.FAILED, priority, docid, organization, space, subject, acceptedAt, startedAt, Instant.now(), status.value(), message);
+    }
+
+    @JsonIgnore
+    public boolean isFinished() {
+        return status == Status.COMPLETED || status == Status.FAILED;
+    }
+}
@@ -0,0 +1,87 @@
+/*
+Copyright (C) 2023 e:fs TechHub GmbH (sdk@efs-techhub.com)
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+        http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+ */
+package com.efs.sdk.metadata.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Plan (and result) of reconciling the OpenSearch-context: the changes needed to get from the current to the desired state
+ */
+public class ReconcilePlan {
+
+    private final boolean dryRun;
+    private final List<ContextChange> changes = new ArrayList<>();
+    private final List<SyncFailure> failures = new ArrayList<>();
+    private int unchanged;
+
+    public ReconcilePlan(boolean dryRun) {
+        this.dryRun = dryRun;
+    }
+
+    /**
+     * Adds a change to the plan - changes are applied in the order they were added
+     *
+     * @param change the change
+     */
+    public void addChange(ContextChange change) {
+        changes.add(change);
+    }
+
+    /**
+     * Records a resource, that is already in the desired state
+     */
+    public void unchanged() {
+        unchanged++;
+    }
+
+    /**
+     * Records an organization, whose desired state could not be determined (its resources are left untouched)
+     *
+     * @param organization the name of the organization
+     * @param error        the error
+     */
+    public void addFailure(String organization, String error) {
+        failures.add(new SyncFailure(organization, null, error));
+    }
+
+    @Schema(description = "Whether the changes were only planned, but not applied")
+    public boolean isDryRun() {
+        return dryRun;
+    }
+
+    @Schema(description = "The changes, in the order they are applied")
+    public List<ContextChange> getChanges() {
+        return changes;
+    }
+
+    @Schema(description = "Number of tenants, roles, rolesmappings and indices already in the desired state")
+    public int getUnchanged() {
+        return unchanged;
+    }
+
+    @Schema(description = "The organizations, whose spaces could not be retrieved")
+    public List<SyncFailure> getFailures() {
+        return failures;
+    }
+
+    @Schema(description = "Whether the desired state was determined and all changes were applied")
+    public boolean isSuccessful() {
+        return failures.isEmpty() && changes.stream().allMatch(change -> change.getError() == null);
+    }
+}
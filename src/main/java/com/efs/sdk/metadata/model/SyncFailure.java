@@ -0,0 +1,66 @@
+/*
+Copyright (C) 2023 e:fs TechHub GmbH (sdk@efs-techhub.com)
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+        http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+ */
+package com.efs.sdk.metadata.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+/**
+ * An organization or space, that could not be synchronized
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class SyncFailure {
+
+    @Schema(description = "The name of the organization")
+    private String organization;
+    @Schema(description = "The name of the space (missing, if the organization itself failed)")
+    private String space;
+    @Schema(description = "The error")
+    private String error;
+
+    public SyncFailure() {
+    }
+
+    public SyncFailure(String organization, String space, String error) {
+        this.organization = organization;
+        this.space = space;
+        this.error = error;
+    }
+
+    public String getOrganization() {
+        return organization;
+    }
+
+    public void setOrganization(String organization) {
+        this.organization = organization;
+    }
+
+    public String getSpace() {
+        return space;
+    }
+
+    public void setSpace(String space) {
+        this.space = space;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+}
@@ -0,0 +1,123 @@
+/*
+Copyright (C) 2023 e:fs TechHub GmbH (sdk@efs-techhub.com)
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+        http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+ */
+package com.efs.sdk.metadata.model;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * A synchronization of the OpenSearch-context running in the background - its state and progress
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class SyncJob {
+
+    public enum Status {
+        RUNNING, COMPLETED, CANCELLED, FAILED
+    }
+
+    private final String id;
+    private final Instant startedAt;
+    private final SyncReport report;
+    private volatile Status status;
+    private volatile Instant finishedAt;
+    private volatile String error;
+    private volatile boolean cancelRequested;
+
+    public SyncJob(String id) {
+        this(id, Status.RUNNING, Instant.now(), null, null, new SyncReport());
+    }
+
+    /**
+     * Restores a job (e.g. one run by another replica)
+     */
+    @JsonCreator
+    public SyncJob(@JsonProperty("id") String id, @JsonProperty("status") Status status, @JsonProperty("startedAt") Instant startedAt,
+            @JsonProperty("finishedAt") Instant finishedAt, @JsonProperty("error") String error, @JsonProperty("report") SyncReport report) {
+        this.id = id;
+        this.status = status;
+        this.startedAt = startedAt;
+        this.finishedAt = finishedAt;
+        this.error = error;
+        this.report = report == null ? new SyncReport() : report;
+    }
+
+    /**
+     * Requests the job to stop - organizations and spaces already being synchronized are finished
+     */
+    public void cancel() {
+        cancelRequested = true;
+    }
+
+    /**
+     * Finishes the job
+     *
+     * @param status the final status
+     * @param error  the error, that aborted the job (null, if it was not aborted)
+     */
+    public void finish(Status status, String error) {
+        this.error = error;
+        this.finishedAt = Instant.now();
+        this.status = status;
+    }
+
+    @JsonIgnore
+    public boolean isCancelRequested() {
+        return cancelRequested;
+    }
+
+    @Schema(description = "Id of the job")
+    public String getId() {
+        return id;
+    }
+
+    @Schema(description = "Status of the job")
+    public Status getStatus() {
+        return status;
+    }
+
+    @Schema(description = "When the job was started")
+    public Instant getStartedAt() {
+        return startedAt;
+    }
+
+    @Schema(description = "When the job finished (null, while it is running)")
+    public Instant getFinishedAt() {
+        return finishedAt;
+    }
+
+    @Schema(description = "The error, that aborted the job")
+    public String getError() {
+        return error;
+    }
+
+    @Schema(description = "Progress of the job (organizations and spaces synchronized, skipped and failed)")
+    public SyncReport getReport() {
+        return report;
+    }
+
+    @Schema(description = "Organizations and spaces synchronized per second")
+    public double getThroughput() {
+        Instant end = finishedAt == null ? Instant.now() : finishedAt;
+        long millis = Math.max(1, Duration.between(startedAt, end).toMillis());
+        return (report.getOrganizations() + report.getSpaces()) * 1000d / millis;
+    }
+}
@@ -0,0 +1,125 @@
+/*
+Copyright (C) 2023 e:fs TechHub GmbH (sdk@efs-techhub.com)
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+        http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+ */
+package com.efs.sdk.metadata.model;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Result of synchronizing the OpenSearch-context - filled concurrently while the organizations and spaces are synchronized
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class SyncReport {
+
+    private final AtomicInteger organizations = new AtomicInteger();
+    private final AtomicInteger spaces = new AtomicInteger();
+    private final AtomicInteger skippedOrganizations = new AtomicInteger();
+    private volatile int totalOrganizations;
+    private final Queue<SyncFailure> failures = new ConcurrentLinkedQueue<>();
+
+    public SyncReport() {
+    }
+
+    /**
+     * Restores a report (e.g. of a job run by another replica)
+     */
+    @JsonCreator
+    public SyncReport(@JsonProperty("organizations") int organizations, @JsonProperty("spaces") int spaces,
+            @JsonProperty("skippedOrganizations") int skippedOrganizations, @JsonProperty("totalOrganizations") int totalOrganizations,
+            @JsonProperty("failures") List<SyncFailure> failures) {
+        this.organizations.set(organizations);
+        this.spaces.set(spaces);
+        this.skippedOrganizations.set(skippedOrganizations);
+        this.totalOrganizations = totalOrganizations;
+        if (failures != null) {
+            this.failures.addAll(failures);
+        }
+    }
+
+    /**
+     * Records an organization as synchronized
+     */
+    public void organizationSynced() {
+        organizations.incrementAndGet();
+    }
+
+    /**
+     * Records an organization as skipped, as it was completed by a previous run
+     */
+    public void organizationSkipped() {
+        skippedOrganizations.incrementAndGet();
+    }
+
+    /**
+     * Records a space as synchronized
+     */
+    public void spaceSynced() {
+        spaces.incrementAndGet();
+    }
+
+    /**
+     * Records an organization or space as failed
+     *
+     * @param organization the name of the organization
+     * @param space        the name of the space (null, if the organization itself failed)
+     * @param error        the error
+     */
+    public void addFailure(String organization, String space, String error) {
+        failures.add(new SyncFailure(organization, space, error));
+    }
+
+    @Schema(description = "Number of organizations synchronized")
+    public int getOrganizations() {
+        return organizations.get();
+    }
+
+    @Schema(description = "Number of spaces synchronized")
+    public int getSpaces() {
+        return spaces.get();
+    }
+
+    @Schema(description = "Number of organizations skipped, as they were completed by a previous run")
+    public int getSkippedOrganizations() {
+        return skippedOrganizations.get();
+    }
+
+    @Schema(description = "Number of organizations to synchronize (including the skipped ones)")
+    public int getTotalOrganizations() {
+        return totalOrganizations;
+    }
+
+    public void setTotalOrganizations(int totalOrganizations) {
+        this.totalOrganizations = totalOrganizations;
+    }
+
+    @Schema(description = "The organizations and spaces that could not be synchronized")
+    public List<SyncFailure> getFailures() {
+        return new ArrayList<>(failures);
+    }
+
+    @Schema(description = "Whether all organizations and spaces were synchronized")
+    public boolean isSuccessful() {
+        return failures.isEmpty();
+    }
+}
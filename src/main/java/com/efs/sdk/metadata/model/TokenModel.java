@@ -24,6 +24,12 @@ public class TokenModel {
     @JsonProperty("access_token")
     private String accessToken;
 
+    /**
+     * Lifetime of the access-token in seconds
+     */
+    @JsonProperty("expires_in")
+    private long expiresIn;
+
     public TokenModel() {
     }
 
@@ -31,6 +37,11 @@ public class TokenModel {
         this.accessToken = accessToken;
     }
 
+    public TokenModel(String accessToken, long expiresIn) {
+        this.accessToken = accessToken;
+        this.expiresIn = expiresIn;
+    }
+
     public String getAccessToken() {
         return accessToken;
     }
@@ -38,4 +49,12 @@ public class TokenModel {
     public void setAccessToken(String accessToken) {
         this.accessToken = accessToken;
     }
+
+    public long getExpiresIn() {
+        return expiresIn;
+    }
+
+    public void setExpiresIn(long expiresIn) {
+        this.expiresIn = expiresIn;
+    }
 }
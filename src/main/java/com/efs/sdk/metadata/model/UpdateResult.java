@@ -0,0 +1,61 @@
+/*
+Copyright (C) 2023 e:fs TechHub GmbH (sdk@efs-techhub.com)
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+        http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+ */
+package com.efs.sdk.metadata.model;
+
+/**
+ * Outcome of an update of a document in OpenSearch
+ */
+public class UpdateResult {
+
+    private static final String RESULT_NOOP = "noop";
+    private static final String RESULT_UPDATED = "updated";
+
+    /**
+     * "updated" or "noop" (nothing to append)
+     */
+    private final String result;
+    private final long seqNo;
+    private final long primaryTerm;
+
+    public UpdateResult(String result, long seqNo, long primaryTerm) {
+        this.result = result;
+        this.seqNo = seqNo;
+        this.primaryTerm = primaryTerm;
+    }
+
+    public boolean successful() {
+        return RESULT_UPDATED.equals(result) || RESULT_NOOP.equals(result);
+    }
+
+    /**
+     * @return the version of the document as ETag-value ("&lt;seqNo&gt;-&lt;primaryTerm&gt;")
+     */
+    public String version() {
+        return new DocumentVersion(seqNo, primaryTerm).toETag();
+    }
+
+    public String getResult() {
+        return result;
+    }
+
+    public long getSeqNo() {
+        return seqNo;
+    }
+
+    public long getPrimaryTerm() {
+        return primaryTerm;
+    }
+}
@@ -0,0 +1,210 @@
+/*
+Copyright (C) 2023 e:fs TechHub GmbH (sdk@efs-techhub.com)
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+        http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+ */
+package com.efs.sdk.metadata.security.oauth;
+
+import com.efs.sdk.metadata.model.TokenModel;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Cache for the token of the service-account (client_credentials grant).
+ * <p>
+ * The token is requested once and then reused until shortly before it expires (according to <code>expires_in</code>). It is refreshed in the background
+ * <code>metadata.auth.token-refresh-skew</code> before expiry, and concurrent refreshes are collapsed into a single request to the token-endpoint.
+ */
+@Component
+public class ServiceAccountTokenCache implements MeterBinder, DisposableBean {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ServiceAccountTokenCache.class);
+    private static final String METRIC_NAME = "metadata.auth.service-account.token";
+    /**
+     * Tokens are not handed out anymore, if they expire within this duration
+     */
+    private static final Duration MIN_REMAINING_LIFETIME = Duration.ofSeconds(5);
+    /**
+     * Delay before retrying a failed background-refresh
+     */
+    private static final Duration RETRY_DELAY = Duration.ofSeconds(5);
+
+    private final RestTemplate restTemplate;
+    private final String tokenEndpoint;
+    private final String clientId;
+    private final String clientSecret;
+    private final Duration refreshSkew;
+
+    private final ScheduledExecutorService scheduler;
+    private final AtomicReference<CompletableFuture<CachedToken>> inFlight = new AtomicReference<>();
+    private volatile CachedToken current;
+    private ScheduledFuture<?> scheduledRefresh;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong refreshes = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+
+    /**
+     * Constructor.
+     *
+     * @param restTemplate             The rest-template
+     * @param clientId                 OIDC-Client-Id (confidential client)
+     * @param clientSecret             OIDC-Client-Secret (confidential client)
+     * @param refreshSkew              How long before expiry the token is refreshed
+     * @param oAuthConfigurationHelper OAuthConfigurationHelper
+     */
+    public ServiceAccountTokenCache(RestTemplate restTemplate, @Value("${metadata.auth.client-id}") String clientId,
+            @Value("${metadata.auth.client-secret}") String clientSecret, @Value("${metadata.auth.token-refresh-skew:30s}") Duration refreshSkew,
+            OAuthConfigurationHelper oAuthConfigurationHelper) {
+        this.restTemplate = restTemplate;
+        this.clientId = clientId;
+        this.clientSecret = clientSecret;
+        this.refreshSkew = refreshSkew;
+        this.tokenEndpoint = oAuthConfigurationHelper.getOpenidConfigProperty().tokenEndpoint();
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "service-account-token-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Gets the token of the service account - from cache if still valid, otherwise from the token-endpoint
+     *
+     * @return the token
+     * @throws RestClientException if the token could not be retrieved
+     */
+    public TokenModel getToken() {
+        CachedToken cached = current;
+        if (cached != null && cached.isUsable()) {
+            hits.incrementAndGet();
+            return cached.token();
+        }
+        try {
+            return refresh().join().token();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Requests a new token, unless a request is already in flight - in which case the result of that request is shared
+     *
+     * @return the (possibly shared) refresh
+     */
+    private CompletableFuture<CachedToken> refresh() {
+        CompletableFuture<CachedToken> refresh = new CompletableFuture<>();
+        CompletableFuture<CachedToken> running = inFlight.compareAndExchange(null, refresh);
+        if (running != null) {
+            return running;
+        }
+        try {
+            CachedToken token = requestToken();
+            current = token;
+            refreshes.incrementAndGet();
+            if (token.refreshAt().isAfter(Instant.now())) {
+                scheduleRefresh(token.refreshAt());
+            }
+            refresh.complete(token);
+        } catch (RuntimeException e) {
+            failures.incrementAndGet();
+            refresh.completeExceptionally(e);
+        } finally {
+            inFlight.set(null);
+        }
+        return refresh;
+    }
+
+    private void refreshInBackground() {
+        try {
+            refresh().join();
+            LOG.debug("refreshed service-account token");
+        } catch (CompletionException e) {
+            LOG.warn("unable to refresh service-account token: {}", e.getCause().getMessage());
+            CachedToken cached = current;
+            if (cached != null && Instant.now().plus(RETRY_DELAY).isBefore(cached.expiresAt())) {
+                scheduleRefresh(Instant.now().plus(RETRY_DELAY));
+            }
+        }
+    }
+
+    private synchronized void scheduleRefresh(Instant refreshAt) {
+        if (scheduledRefresh != null) {
+            scheduledRefresh.cancel(false);
+        }
+        if (scheduler.isShutdown()) {
+            return;
+        }
+        long delay = Math.max(0, Duration.between(Instant.now(), refreshAt).toMillis());
+        scheduledRefresh = scheduler.schedule(this::refreshInBackground, delay, TimeUnit.MILLISECONDS);
+    }
+
+    private CachedToken requestToken() {
+        MultiValueMap<String, String> params = new LinkedMultiValueMap<>();
+        params.set("grant_type", "client_credentials");
+        params.set("client_id", clientId);
+        params.set("client_secret", clientSecret);
+        params.set("scope", "profile");
+
+        Instant requestedAt = Instant.now();
+        TokenModel token = restTemplate.postForEntity(tokenEndpoint, params, TokenModel.class).getBody();
+        if (token == null || token.getAccessToken() == null) {
+            throw new RestClientException("token-endpoint did not return an access-token");
+        }
+        Duration lifetime = Duration.ofSeconds(Math.max(0, token.getExpiresIn()));
+        Duration skew = refreshSkew.compareTo(lifetime.dividedBy(2)) > 0 ? lifetime.dividedBy(2) : refreshSkew;
+        Instant expiresAt = requestedAt.plus(lifetime);
+        return new CachedToken(token, expiresAt, expiresAt.minus(skew));
+    }
+
+    @Override
+    public void bindTo(@NotNull MeterRegistry registry) {
+        FunctionCounter.builder(METRIC_NAME, hits, AtomicLong::get).description("service-account token served from cache").tag("result", "hit").register(registry);
+        FunctionCounter.builder(METRIC_NAME, refreshes, AtomicLong::get).description("service-account token requested from token-endpoint").tag("result",
+                "refresh").register(registry);
+        FunctionCounter.builder(METRIC_NAME, failures, AtomicLong::get).description("failed requests to token-endpoint").tag("result", "failure").register(
+                registry);
+    }
+
+    @Override
+    public void destroy() {
+        scheduler.shutdownNow();
+    }
+
+    private record CachedToken(TokenModel token, Instant expiresAt, Instant refreshAt) {
+
+        boolean isUsable() {
+            return Instant.now().plus(MIN_REMAINING_LIFETIME).isBefore(expiresAt);
+        }
+    }
+}
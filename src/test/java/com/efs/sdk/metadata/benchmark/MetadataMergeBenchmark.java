@@ -0,0 +1,130 @@
+/*
+Copyright (C) 2023 e:fs TechHub GmbH (sdk@efs-techhub.com)
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+        http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+ */
+package com.efs.sdk.metadata.benchmark;
+
+import com.efs.sdk.metadata.helper.EntityConverter;
+import com.efs.sdk.metadata.helper.JsonMerger;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.github.wnameless.json.flattener.JsonFlattener;
+import com.github.wnameless.json.unflattener.JsonUnflattener;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Compares the merge of metadata on update: the former flatten/merge/unflatten-approach against {@link JsonMerger}.
+ * <p>
+ * Both variants start with the json of the stored document and of the input and end with the json of the merged document. Run with the
+ * gc-profiler to compare allocations, e.g. <code>java -cp &lt;test-classpath&gt; org.openjdk.jmh.Main MetadataMergeBenchmark -prof gc</code> or via
+ * {@link #main(String[])}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MetadataMergeBenchmark {
+
+    /**
+     * Approximate size of the stored metadata in bytes (10 KB, 1 MB, 10 MB)
+     */
+    @Param({"10240", "1048576", "10485760"})
+    private int documentSize;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final EntityConverter converter = new EntityConverter(new ObjectMapper());
+    private String sourceJson;
+    private String inputJson;
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(MetadataMergeBenchmark.class.getSimpleName()).addProfiler("gc").build()).run();
+    }
+
+    @Setup
+    public void setup() throws IOException {
+        ObjectNode source = objectMapper.createObjectNode();
+        ObjectNode input = objectMapper.createObjectNode();
+        int group = 0;
+        long size = 0;
+        while (size < documentSize) {
+            ObjectNode block = createBlock(group, "stored");
+            source.set("group_" + group, block);
+            size += objectMapper.writeValueAsBytes(block).length;
+            // every other block is also part of the input (with other values), every tenth block is new
+            if (group % 2 == 0) {
+                input.set("group_" + group, createBlock(group, "input"));
+            }
+            if (group % 10 == 0) {
+                input.set("new_group_" + group, createBlock(group, "input"));
+            }
+            group++;
+        }
+        sourceJson = objectMapper.writeValueAsString(source);
+        inputJson = objectMapper.writeValueAsString(input);
+    }
+
+    private ObjectNode createBlock(int group, String value) {
+        ObjectNode block = objectMapper.createObjectNode();
+        for (int i = 0; i < 10; i++) {
+            block.put("field_" + i, value + "-" + group + "-" + i);
+        }
+        ObjectNode nested = block.putObject("nested");
+        nested.put("count", group);
+        nested.put("enabled", group % 2 == 0);
+        ObjectNode deeper = nested.putObject("deeper");
+        deeper.put("description", "some description of group " + group + " (" + value + ")");
+        ArrayNode values = nested.putArray("values");
+        for (int i = 0; i < 20; i++) {
+            values.add(group * 20 + i);
+        }
+        return block;
+    }
+
+    @Benchmark
+    public String flattenMerge() throws IOException {
+        Map<String, Object> source = converter.metadataValue(sourceJson);
+        Map<String, Object> input = converter.metadataValue(inputJson);
+
+        Map<String, Object> inputMetadataFlatten = JsonFlattener.flattenAsMap(converter.metadataValue(input));
+        Map<String, Object> sourceMetadataFlatten = JsonFlattener.flattenAsMap(converter.metadataValue(source));
+        Map<String, Object> mergedFlatten = Stream.of(sourceMetadataFlatten, inputMetadataFlatten).flatMap(map -> map.entrySet().stream()).collect(
+                Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue, (v1, v2) -> v1));
+        Map<String, Object> mergedMetadata = converter.metadataValue(JsonUnflattener.unflatten(converter.metadataValue(mergedFlatten)));
+
+        return converter.metadataValue(mergedMetadata);
+    }
+
+    @Benchmark
+    public String treeMerge() throws IOException {
+        ObjectNode source = (ObjectNode) objectMapper.readTree(sourceJson);
+        JsonNode input = objectMapper.readTree(inputJson);
+
+        JsonMerger.merge(source, input);
+
+        return objectMapper.writeValueAsString(source);
+    }
+}
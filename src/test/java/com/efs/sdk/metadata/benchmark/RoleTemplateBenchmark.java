@@ -0,0 +1,145 @@
+/*
+Copyright (C) 2023 e:fs TechHub GmbH (sdk@efs-techhub.com)
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+        http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+ */
+package com.efs.sdk.metadata.benchmark;
+
+import com.efs.sdk.common.domain.dto.OrganizationContextDTO;
+import com.efs.sdk.common.domain.dto.SpaceContextDTO;
+import com.efs.sdk.metadata.core.context.RoleScopeSpace;
+import com.efs.sdk.metadata.helper.OpensearchHelper;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+import static java.lang.String.format;
+
+/**
+ * Measures rendering the definitions of roles and rolesmappings with {@link OpensearchHelper} - once per role of every space during a sync.
+ * <p>
+ * The benchmarks render the definitions as they are sent to OpenSearch. The <code>former*</code>-benchmarks render the same definitions like the
+ * helper did before: reading the template from the classpath and substituting the values as text. Run e.g. with
+ * <code>java -cp &lt;test-classpath&gt; org.openjdk.jmh.Main RoleTemplateBenchmark -prof gc</code> or via
+ * {@link #main(String[])}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RoleTemplateBenchmark {
+
+    private static final String FORMER_ROLE_SPACE_TEMPLATE = """
+            {
+              "cluster_permissions": [
+                "indices:data/read/scroll/clear"
+              ],
+              "tenant_permissions": [
+                {
+                  "tenant_patterns": ["<tenant_pattern>"],
+                  "allowed_actions": ["<tenant_allowed_action>"]
+                }
+              ],
+              "index_permissions": [
+                {
+                  "index_patterns": ["<index_pattern>"],
+                  "allowed_actions": <index_allowed_actions>
+                }
+              ]
+            }
+            """;
+    private static final String FORMER_ROLE_ORGANIZATION_TEMPLATE = """
+            {
+              "tenant_permissions": [
+                {
+                  "tenant_patterns": [
+                    "%s"
+                  ],
+                  "allowed_actions": [
+                    "%s"
+                  ]
+                }
+              ]
+            }""";
+    private static final String FORMER_ROLESMAPPING_TEMPLATE = """
+            {
+              "and_backend_roles": %s
+            }""";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final OpensearchHelper opensearchHelper = new OpensearchHelper(objectMapper);
+    private final SpaceContextDTO space = SpaceContextDTO.builder().organization(OrganizationContextDTO.builder().name("myorganization").build()).name(
+            "myspace").build();
+    private final List<String> mappings = List.of("myorganization_myspace_trustee", "org_myorganization_access");
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(RoleTemplateBenchmark.class.getSimpleName()).addProfiler("gc").build()).run();
+    }
+
+    @Benchmark
+    public String createRoleDefinition() {
+        return opensearchHelper.createRoleDefinition(space, RoleScopeSpace.CRUD);
+    }
+
+    @Benchmark
+    public String getTenantRoleRequest() {
+        return opensearchHelper.getTenantRoleRequest("kibana_all_write", "myorganization");
+    }
+
+    @Benchmark
+    public String getRolesMappingJson() {
+        return opensearchHelper.getRolesMappingJson(mappings);
+    }
+
+    @Benchmark
+    public String formerCreateRoleDefinition() throws IOException {
+        // the template was read from the classpath on every call (the file has changed since, so the former template is substituted)
+        readResource("/role_space_tpl.json");
+        String roleTemplate = FORMER_ROLE_SPACE_TEMPLATE;
+        String tenantPattern = format("%s_%s", space.getOrganization().getName(), space.getName());
+        roleTemplate = roleTemplate.replace("<tenant_pattern>", tenantPattern);
+        roleTemplate = roleTemplate.replace("<tenant_allowed_action>", RoleScopeSpace.CRUD.getTenantPermission());
+        roleTemplate = roleTemplate.replace("<index_pattern>", format("%s_%s_*", space.getOrganization().getName(), space.getName()));
+        return roleTemplate.replace("<index_allowed_actions>", objectMapper.writeValueAsString(RoleScopeSpace.CRUD.getIndexPermissions()));
+    }
+
+    @Benchmark
+    public String formerGetTenantRoleRequest() throws IOException {
+        readResource("/role_organization_tpl.json");
+        return format(FORMER_ROLE_ORGANIZATION_TEMPLATE, "myorganization", "kibana_all_write");
+    }
+
+    @Benchmark
+    public String formerGetRolesMappingJson() throws IOException {
+        List<String> mappingsQuoted = mappings.stream().map(n -> format("\"%s\"", n)).toList();
+        readResource("/rolemapping_tpl.json");
+        return format(FORMER_ROLESMAPPING_TEMPLATE, mappingsQuoted);
+    }
+
+    private String readResource(String fileName) throws IOException {
+        try (InputStream resource = Objects.requireNonNull(getClass().getResourceAsStream(fileName))) {
+            return new String(resource.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -16,6 +16,11 @@ limitations under the License.
 package com.efs.sdk.metadata.clients;
 
 import com.efs.sdk.metadata.commons.MetadataException;
+import com.efs.sdk.metadata.model.BulkItemResult;
+import com.efs.sdk.metadata.model.DocumentVersion;
+import com.efs.sdk.metadata.model.UpdateResult;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import io.micrometer.core.instrument.util.IOUtils;
 import io.swagger.models.HttpMethod;
 import org.junit.jupiter.api.AfterEach;
@@ -26,9 +31,15 @@ import org.mockserver.integration.ClientAndServer;
 import org.mockserver.model.HttpError;
 import org.mockserver.model.HttpRequest;
 import org.mockserver.model.HttpResponse;
-import org.opensearch.client.RestClient;
+import org.mockserver.model.JsonBody;
+import org.mockserver.verify.VerificationTimes;
 import org.springframework.boot.test.mock.mockito.MockBean;
 
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static com.efs.sdk.metadata.commons.MetadataException.METADATA_ERROR.OPENSEARCH_UNABLE_QUERY_UUID;
 import static com.efs.sdk.metadata.utils.TestHelper.findRandomPort;
 import static java.lang.String.format;
 import static org.junit.jupiter.api.Assertions.*;
@@ -40,7 +51,8 @@ class MetadataOpensearchClientTest {
     @MockBean
     private OpenSearchRestClientBuilder esBuilder;
 
-    private RestClient restClient;
+    private OpenSearchRestClient restClient;
+    private MeterRegistry meterRegistry;
 
     @BeforeEach
     void setup() throws Exception {
@@ -48,9 +60,10 @@ class MetadataOpensearchClientTest {
         ConfigurationProperties.logLevel("INFO");
         mockServer = ClientAndServer.startClientAndServer(port);
 
-        this.esBuilder = new OpenSearchRestClientBuilderTest("http://127.0.0.1:" + port);
+        this.esBuilder = new OpenSearchRestClientBuilderTest("http://127.0.0.1:" + port, new OpenSearchPoolProperties());
         this.restClient = esBuilder.buildRestClient("");
-        this.mESClient = new MetadataOpensearchClient();
+        this.meterRegistry = new SimpleMeterRegistry();
+        this.mESClient = new MetadataOpensearchClient(meterRegistry);
 
     }
 
@@ -64,9 +77,8 @@ class MetadataOpensearchClientTest {
         String index = "test";
         String uuid = "123";
 
-        String searchResult = IOUtils.toString(getClass().getResourceAsStream("/uuidFoundResult.json"));
-        HttpRequest idRequest = HttpRequest.request().withMethod(HttpMethod.GET.name()).withPath(format("/%s/_search", index));
-        mockServer.when(idRequest).respond(HttpResponse.response().withBody(searchResult).withStatusCode(200));
+        HttpRequest idRequest = HttpRequest.request().withMethod("HEAD").withPath(format("/%s/_doc/%s", index, uuid));
+        mockServer.when(idRequest).respond(HttpResponse.response().withStatusCode(200));
 
         assertTrue(mESClient.documentExists(restClient, index, uuid));
     }
@@ -76,13 +88,52 @@ class MetadataOpensearchClientTest {
         String index = "test";
         String uuid = "123";
 
-        String searchResult = IOUtils.toString(getClass().getResourceAsStream("/noUuidFoundResult.json"));
-        HttpRequest idRequest = HttpRequest.request().withMethod(HttpMethod.GET.name()).withPath(format("/%s/_search", index));
-        mockServer.when(idRequest).respond(HttpResponse.response().withBody(searchResult).withStatusCode(200));
+        HttpRequest idRequest = HttpRequest.request().withMethod("HEAD").withPath(format("/%s/_doc/%s", index, uuid));
+        mockServer.when(idRequest).respond(HttpResponse.response().withStatusCode(404));
 
         assertFalse(mESClient.documentExists(restClient, index, uuid));
     }
 
+    @Test
+    void givenUnexpectedStatus_whenUuidExists_thenError() {
+        String index = "test";
+        String uuid = "123";
+
+        HttpRequest idRequest = HttpRequest.request().withMethod("HEAD").withPath(format("/%s/_doc/%s", index, uuid));
+        mockServer.when(idRequest).respond(HttpResponse.response().withStatusCode(204));
+
+        MetadataException e = assertThrows(MetadataException.class, () -> mESClient.documentExists(restClient, index, uuid));
+        assertEquals(OPENSEARCH_UNABLE_QUERY_UUID, e.getError());
+    }
+
+    @Test
+    void givenSomeUuidsExist_whenDocumentsExist_thenExistingUuids() throws Exception {
+        String index = "test";
+
+        String mgetResult = IOUtils.toString(getClass().getResourceAsStream("/mgetResult.json"));
+        HttpRequest mgetRequest = HttpRequest.request().withMethod(HttpMethod.POST.name()).withPath(format("/%s/_mget", index)).withQueryStringParameter(
+                "_source", "false");
+        mockServer.when(mgetRequest).respond(HttpResponse.response().withBody(mgetResult).withStatusCode(200));
+
+        assertEquals(Set.of("123"), mESClient.documentsExist(restClient, index, List.of("123", "456")));
+        mockServer.verify(mgetRequest.withBody(JsonBody.json("{\"ids\": [\"123\", \"456\"]}")), VerificationTimes.once());
+    }
+
+    @Test
+    void givenSomeUuidsExist_whenGetSourceDocuments_thenSourcesOfExisting() throws Exception {
+        String index = "test";
+
+        String mgetResult = IOUtils.toString(getClass().getResourceAsStream("/mgetResult.json"));
+        HttpRequest mgetRequest = HttpRequest.request().withMethod(HttpMethod.POST.name()).withPath(format("/%s/_mget", index)).withQueryStringParameter(
+                "_source_includes", "uuid,metadata");
+        mockServer.when(mgetRequest).respond(HttpResponse.response().withBody(mgetResult).withStatusCode(200));
+
+        Map<String, Map<String, Object>> sources = mESClient.getSourceDocuments(restClient, index, List.of("123", "456"), "uuid", "metadata");
+
+        assertEquals(Set.of("123"), sources.keySet());
+        assertEquals(Map.of("key", "value"), sources.get("123").get("metadata"));
+    }
+
     @Test
     void givenMetadata_whenCreateMetadata_thenOk() throws Exception {
         String metadataValue = IOUtils.toString(getClass().getResourceAsStream("/metadataPutQuery.json"));
@@ -96,6 +147,30 @@ class MetadataOpensearchClientTest {
         assertTrue(mESClient.createMetadata(restClient, index, metadataValue, uuid) > 0);
     }
 
+    @Test
+    void givenResponse_whenCreateMetadata_thenParseTimeRecorded() throws Exception {
+        String index = "test";
+        String uuid = "123";
+
+        String searchResult = IOUtils.toString(getClass().getResourceAsStream("/putMetadataResult.json"));
+        HttpRequest putRequest = HttpRequest.request().withMethod(HttpMethod.PUT.name()).withPath(format("/%s/_doc/%s", index, uuid));
+        mockServer.when(putRequest).respond(HttpResponse.response().withBody(searchResult).withStatusCode(200));
+
+        assertEquals(1, mESClient.createMetadata(restClient, index, "{}", uuid));
+        assertEquals(1, meterRegistry.get("metadata.opensearch.response.parse").tag("method", "createMetadata").timer().count());
+    }
+
+    @Test
+    void givenUnexpectedResponse_whenCreateMetadata_thenThrowMetadataException() {
+        String index = "test";
+        String uuid = "123";
+
+        HttpRequest putRequest = HttpRequest.request().withMethod(HttpMethod.PUT.name()).withPath(format("/%s/_doc/%s", index, uuid));
+        mockServer.when(putRequest).respond(HttpResponse.response().withBody("{\"result\": \"created\"}").withStatusCode(200));
+
+        assertThrows(MetadataException.class, () -> mESClient.createMetadata(restClient, index, "{}", uuid));
+    }
+
     @Test
     void givenMetadata_whenUpdateData_thenOk() throws Exception {
         String metadataValue = IOUtils.toString(getClass().getResourceAsStream("/metadataPutQuery.json"));
@@ -123,4 +198,91 @@ class MetadataOpensearchClientTest {
         mockServer.when(putRequest).error(HttpError.error().withDropConnection(true));
         assertThrows(MetadataException.class, () -> mESClient.updateMetadata(restClient, index, uuid, metadataValue));
     }
+
+    @Test
+    void givenDelta_whenUpdateMetadata_thenScriptedUpdateWithNewVersion() throws Exception {
+        String index = "test";
+        String uuid = "123";
+
+        String result = IOUtils.toString(getClass().getResourceAsStream("/updateMetadataResult.json"));
+        HttpRequest updateRequest = HttpRequest.request().withMethod(HttpMethod.POST.name()).withPath(format("/%s/_update/%s", index, uuid))
+                .withQueryStringParameter("retry_on_conflict", "3");
+        mockServer.when(updateRequest).respond(HttpResponse.response().withBody(result).withStatusCode(200));
+
+        UpdateResult updateResult = mESClient.updateMetadata(restClient, index, uuid, "{\"metadata\": {\"key\": \"value\"}, \"massdata\": []}", null, 3);
+
+        assertTrue(updateResult.successful());
+        assertEquals(3, updateResult.getSeqNo());
+        assertEquals(1, updateResult.getPrimaryTerm());
+    }
+
+    @Test
+    void givenDocumentMissing_whenUpdateMetadata_thenThrowMetadataException() {
+        String index = "test";
+        String uuid = "123";
+
+        HttpRequest updateRequest = HttpRequest.request().withMethod(HttpMethod.POST.name()).withPath(format("/%s/_update/%s", index, uuid));
+        mockServer.when(updateRequest).respond(HttpResponse.response().withStatusCode(404));
+
+        assertThrows(MetadataException.class, () -> mESClient.updateMetadata(restClient, index, uuid, "{\"metadata\": {}, \"massdata\": []}", null, 3));
+    }
+
+    @Test
+    void givenOutdatedVersion_whenUpdateMetadata_thenVersionConflict() {
+        String index = "test";
+        String uuid = "123";
+
+        HttpRequest updateRequest = HttpRequest.request().withMethod(HttpMethod.POST.name()).withPath(format("/%s/_update/%s", index, uuid))
+                .withQueryStringParameter("if_seq_no", "3").withQueryStringParameter("if_primary_term", "1");
+        mockServer.when(updateRequest).respond(HttpResponse.response().withStatusCode(409));
+
+        MetadataException e = assertThrows(MetadataException.class, () -> mESClient.updateMetadata(restClient, index, uuid, "{\"metadata\": {}, " +
+                "\"massdata\": []}", new DocumentVersion(3, 1), 3));
+        assertEquals(MetadataException.METADATA_ERROR.VERSION_CONFLICT, e.getError());
+    }
+
+    @Test
+    void givenDocument_whenGetVersionedDocument_thenSourceAndVersion() throws Exception {
+        String index = "test";
+        String uuid = "123";
+
+        String result = IOUtils.toString(getClass().getResourceAsStream("/versionedDocumentResult.json"));
+        HttpRequest getRequest = HttpRequest.request().withMethod(HttpMethod.GET.name()).withPath(format("/%s/_doc/%s", index, uuid));
+        mockServer.when(getRequest).respond(HttpResponse.response().withBody(result).withStatusCode(200));
+
+        VersionedDocument document = mESClient.getVersionedDocument(restClient, index, uuid);
+
+        assertEquals("value", document.source().path("metadata").path("key").asText());
+        assertEquals(new DocumentVersion(7, 1), document.version());
+    }
+
+    @Test
+    void givenDocuments_whenBulkIndex_thenResultPerDocument() throws Exception {
+        String bulkResult = IOUtils.toString(getClass().getResourceAsStream("/bulkResult.json"));
+        HttpRequest bulkRequest = HttpRequest.request().withMethod(HttpMethod.POST.name()).withPath("/_bulk");
+        mockServer.when(bulkRequest).respond(HttpResponse.response().withBody(bulkResult).withStatusCode(200));
+
+        List<BulkDocument> documents = List.of(new BulkDocument("test", "123", "{}"), new BulkDocument("test", "456", "{}"));
+        List<BulkItemResult> results = mESClient.bulkIndex(restClient, documents, 10, 1024);
+
+        assertEquals(2, results.size());
+        assertTrue(results.get(0).successful());
+        assertFalse(results.get(1).successful());
+        assertEquals("456", results.get(1).getDocid());
+        assertEquals("mapper_parsing_exception: failed to parse field [metadata.value]", results.get(1).getError());
+        mockServer.verify(bulkRequest, VerificationTimes.once());
+    }
+
+    @Test
+    void givenBulkRequestFails_whenBulkIndex_thenAllDocumentsFailed() {
+        HttpRequest bulkRequest = HttpRequest.request().withMethod(HttpMethod.POST.name()).withPath("/_bulk");
+        mockServer.when(bulkRequest).respond(HttpResponse.response().withStatusCode(503));
+
+        List<BulkDocument> documents = List.of(new BulkDocument("test", "123", "{}"), new BulkDocument("test", "456", "{}"));
+        List<BulkItemResult> results = mESClient.bulkIndex(restClient, documents, 1, 1024);
+
+        assertEquals(2, results.size());
+        assertTrue(results.stream().noneMatch(BulkItemResult::successful));
+        mockServer.verify(bulkRequest, VerificationTimes.exactly(2));
+    }
 }
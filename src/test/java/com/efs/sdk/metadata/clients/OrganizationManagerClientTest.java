@@ -15,6 +15,7 @@ limitations under the License.
  */
 package com.efs.sdk.metadata.clients;
 
+import com.efs.sdk.metadata.CacheConfiguration;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
@@ -22,17 +23,24 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatusCode;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestTemplate;
 
+import java.time.Duration;
+import java.util.Base64;
 import java.util.List;
 import java.util.Map;
 
 import static java.lang.String.format;
-import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 
 class OrganizationManagerClientTest {
     private static final String ORGA_ENDPOINT_ORGA = "http://localhost:8090/organizationmanager/api/v1.0/organization";
@@ -45,7 +53,8 @@ class OrganizationManagerClientTest {
     @BeforeEach
     void setup() {
         this.restTemplate = Mockito.mock(RestTemplate.class);
-        this.client = new OrganizationManagerClient(restTemplate, ORGA_ENDPOINT_ORGA, ORGA_ENDPOINT_SPACE);
+        this.client = new OrganizationManagerClient(restTemplate, ORGA_ENDPOINT_ORGA, ORGA_ENDPOINT_SPACE, new CacheConfiguration().cacheManager(100),
+                Duration.ofSeconds(60), Duration.ofSeconds(10));
     }
 
     @Test
@@ -70,4 +79,50 @@ class OrganizationManagerClientTest {
         assertNotNull(client.getSpace("my-token", orgaName, spaceName, OrganizationManagerClient.Permissions.GET));
     }
 
+    @Test
+    void givenSpaceRequestedTwice_whenGetSpace_thenOrganizationmanagerCalledOnce() throws Exception {
+        long orgaId = 1L;
+        String orgaName = "myorga";
+        String spaceName = "myspace";
+        String token = unsignedToken("user-1", System.currentTimeMillis() / 1000 + 300);
+
+        String orgaUrl = format("%s/name/%s", ORGA_ENDPOINT_ORGA, orgaName);
+        ParameterizedTypeReference<Map<String, Object>> responseType = new ParameterizedTypeReference<>() {
+        };
+        given(restTemplate.exchange(eq(orgaUrl), eq(HttpMethod.GET), any(HttpEntity.class), eq(responseType))).willReturn(ResponseEntity.ok(Map.of("id",
+                orgaId)));
+
+        String spacesUrl = format("%s/%d?permissions=%s", ORGA_ENDPOINT_SPACE, orgaId, OrganizationManagerClient.Permissions.WRITE);
+        ParameterizedTypeReference<List<Map<String, Object>>> spacesResponseType = new ParameterizedTypeReference<>() {
+        };
+        given(restTemplate.exchange(eq(spacesUrl), eq(HttpMethod.GET), any(HttpEntity.class), eq(spacesResponseType))).willReturn(ResponseEntity.ok(List.of(
+                Map.of("name", spaceName))));
+
+        assertFalse(client.getSpace(token, orgaName, spaceName, OrganizationManagerClient.Permissions.WRITE).isEmpty());
+        assertFalse(client.getSpace(token, orgaName, spaceName, OrganizationManagerClient.Permissions.WRITE).isEmpty());
+        verify(restTemplate, times(1)).exchange(eq(orgaUrl), eq(HttpMethod.GET), any(HttpEntity.class), eq(responseType));
+    }
+
+    @Test
+    void givenAccessDenied_whenGetSpaceTwice_thenDenialCached() {
+        String orgaName = "myorga";
+        String token = unsignedToken("user-1", System.currentTimeMillis() / 1000 + 300);
+
+        String orgaUrl = format("%s/name/%s", ORGA_ENDPOINT_ORGA, orgaName);
+        ParameterizedTypeReference<Map<String, Object>> responseType = new ParameterizedTypeReference<>() {
+        };
+        given(restTemplate.exchange(eq(orgaUrl), eq(HttpMethod.GET), any(HttpEntity.class), eq(responseType))).willThrow(new HttpClientErrorException(
+                HttpStatusCode.valueOf(403)));
+
+        assertThrows(HttpClientErrorException.class, () -> client.getSpace(token, orgaName, "myspace", OrganizationManagerClient.Permissions.WRITE));
+        assertThrows(HttpClientErrorException.class, () -> client.getSpace(token, orgaName, "myspace", OrganizationManagerClient.Permissions.WRITE));
+        verify(restTemplate, times(1)).exchange(eq(orgaUrl), eq(HttpMethod.GET), any(HttpEntity.class), eq(responseType));
+    }
+
+    private static String unsignedToken(String subject, long expiresAt) {
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        String header = encoder.encodeToString("{\"alg\":\"none\"}".getBytes(UTF_8));
+        String payload = encoder.encodeToString(format("{\"sub\":\"%s\",\"exp\":%d}", subject, expiresAt).getBytes(UTF_8));
+        return format("%s.%s.", header, payload);
+    }
 }
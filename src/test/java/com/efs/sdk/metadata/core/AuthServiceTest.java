@@ -19,6 +19,7 @@ import com.efs.sdk.metadata.commons.MetadataException;
 import com.efs.sdk.metadata.model.TokenModel;
 import com.efs.sdk.metadata.security.oauth.OAuthConfiguration;
 import com.efs.sdk.metadata.security.oauth.OAuthConfigurationHelper;
+import com.efs.sdk.metadata.security.oauth.ServiceAccountTokenCache;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -29,6 +30,8 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestTemplate;
 
+import java.time.Duration;
+
 import static java.lang.String.format;
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -58,8 +61,10 @@ class AuthServiceTest {
         String clientId = "my-client-id";
         this.oauthConfig = Mockito.mock(OAuthConfiguration.class);
         given(oAuthConfigurationHelper.getOpenidConfigProperty()).willReturn(oauthConfig);
+        given(oauthConfig.tokenEndpoint()).willReturn(TOKEN_ENDPOINT);
         this.objectMapper = new ObjectMapper();
-        this.service = new AuthService(restTemplate, clientId, clientSecret, oAuthConfigurationHelper);
+        ServiceAccountTokenCache tokenCache = new ServiceAccountTokenCache(restTemplate, clientId, clientSecret, Duration.ofSeconds(30), oAuthConfigurationHelper);
+        this.service = new AuthService(tokenCache);
     }
 
     //    @AfterEach
@@ -82,7 +87,6 @@ class AuthServiceTest {
                     "session_state": "c34d128d-3949-4686-9c6f-9afd02e09c9c",
                     "scope": "profile email"
                 }""", jwt);
-        given(oauthConfig.tokenEndpoint()).willReturn(TOKEN_ENDPOINT);
         given(restTemplate.postForEntity(eq(TOKEN_ENDPOINT), any(), eq(TokenModel.class))).willReturn(ResponseEntity.ok(objectMapper.readValue(response,
                 TokenModel.class)));
         assertDoesNotThrow(() -> service.getSAAccessToken());
@@ -90,7 +94,6 @@ class AuthServiceTest {
 
     @Test
     void givenUnableFetchingToken_thenError() throws Exception {
-        given(oauthConfig.tokenEndpoint()).willReturn(TOKEN_ENDPOINT);
         given(restTemplate.postForEntity(eq(TOKEN_ENDPOINT), any(), any())).willThrow(new HttpClientErrorException(HttpStatusCode.valueOf(409)));
         assertThrows(MetadataException.class, () -> service.getSAAccessToken());
     }
@@ -0,0 +1,107 @@
+/*
+Copyright (C) 2023 e:fs TechHub GmbH (sdk@efs-techhub.com)
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+        http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+ */
+package com.efs.sdk.metadata.core.context;
+
+import com.efs.sdk.common.domain.dto.OrganizationContextDTO;
+import com.efs.sdk.metadata.core.AuthService;
+import com.efs.sdk.metadata.core.OrganizationmanagerService;
+import com.efs.sdk.metadata.model.ContextChange;
+import com.efs.sdk.metadata.model.ContextChange.Operation;
+import com.efs.sdk.metadata.model.ContextChange.Resource;
+import com.efs.sdk.metadata.model.ReconcilePlan;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.*;
+
+class DriftReconcilerTest {
+
+    private static final String TOKEN = "token";
+
+    private OpensearchContextService contextService;
+    private OrganizationmanagerService organizationmanagerService;
+    private AuthService authService;
+    private ReconcilerLeadership leadership;
+    private DriftReconciler reconciler;
+
+    @BeforeEach
+    void setup() throws Exception {
+        contextService = mock(OpensearchContextService.class);
+        organizationmanagerService = mock(OrganizationmanagerService.class);
+        authService = mock(AuthService.class);
+        given(authService.getSAAccessToken()).willReturn(TOKEN);
+        leadership = new ReconcilerLeadership(null, "metadata-reconciler", "test", Duration.ofSeconds(15));
+        // three ticks per cycle
+        reconciler = new DriftReconciler(contextService, organizationmanagerService, authService, leadership, Duration.ofMinutes(1), Duration.ofMinutes(3));
+    }
+
+    @Test
+    void givenFiveOrganizations_whenNextSlice_thenRotatedInSlicesOfTwo() {
+        List<OrganizationContextDTO> organizations = organizations("a", "b", "c", "d", "e");
+
+        assertEquals(List.of("a", "b"), names(reconciler.nextSlice(organizations)));
+        assertEquals(List.of("c", "d"), names(reconciler.nextSlice(organizations)));
+        assertEquals(List.of("e", "a"), names(reconciler.nextSlice(organizations)));
+        // an organization was deleted in the meantime
+        assertEquals(List.of("b"), names(reconciler.nextSlice(organizations("b", "d", "e"))));
+    }
+
+    @Test
+    void givenNotLeader_whenTick_thenNothingReconciled() {
+        reconciler.tick();
+
+        verifyNoInteractions(organizationmanagerService, contextService);
+    }
+
+    @Test
+    void givenLeader_whenTick_thenSliceReconciledAndDriftCounted() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        reconciler.bindTo(registry);
+        leadership.start();
+        List<OrganizationContextDTO> organizations = organizations("b", "a", "c");
+        given(organizationmanagerService.getOrganizations(TOKEN)).willReturn(organizations);
+        ReconcilePlan plan = new ReconcilePlan(false);
+        plan.addChange(new ContextChange(Operation.UPDATE, Resource.ROLE, "a_trustee", null));
+        given(contextService.reconcileOrganizations(eq(TOKEN), eq(false), any())).willReturn(plan);
+
+        reconciler.tick();
+
+        verify(contextService).reconcileOrganizations(TOKEN, false, List.of(organizations.get(1)));
+        assertEquals(1, registry.get("metadata.reconciler.drift").tag("resource", "role").functionCounter().count());
+        assertEquals(0, registry.get("metadata.reconciler.drift").tag("resource", "tenant").functionCounter().count());
+        assertEquals(1, registry.get("metadata.reconciler.leader").gauge().value());
+        // b and c have not been reconciled yet
+        assertTrue(registry.get("metadata.reconciler.lag").timeGauge().value() >= 0);
+    }
+
+    private static List<OrganizationContextDTO> organizations(String... names) {
+        return Stream.of(names).map(name -> OrganizationContextDTO.builder().name(name).build()).toList();
+    }
+
+    private static List<String> names(List<OrganizationContextDTO> organizations) {
+        return organizations.stream().map(OrganizationContextDTO::getName).toList();
+    }
+}
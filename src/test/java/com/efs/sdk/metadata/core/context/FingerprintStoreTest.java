@@ -0,0 +1,131 @@
+/*
+Copyright (C) 2023 e:fs TechHub GmbH (sdk@efs-techhub.com)
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+        http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+ */
+package com.efs.sdk.metadata.core.context;
+
+import com.efs.sdk.metadata.clients.MetadataOpensearchClient;
+import com.efs.sdk.metadata.clients.OpenSearchRestClient;
+import com.efs.sdk.metadata.commons.MetadataException;
+import com.efs.sdk.metadata.core.context.SecurityCatalogue.Kind;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.opensearch.client.Request;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static com.efs.sdk.metadata.commons.MetadataException.METADATA_ERROR.OPENSEARCH_CONNECTION_ERROR;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+class FingerprintStoreTest {
+
+    private static final String INDEX = "metadata-fingerprints";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private MetadataOpensearchClient opensearchClient;
+    private OpenSearchRestClient restClient;
+    private FingerprintStore fingerprintStore;
+
+    @BeforeEach
+    void setup() {
+        opensearchClient = mock(MetadataOpensearchClient.class);
+        restClient = mock(OpenSearchRestClient.class);
+        fingerprintStore = new FingerprintStore(opensearchClient, objectMapper, INDEX, true);
+    }
+
+    @Test
+    void givenDefinitions_whenFingerprint_thenSha256OfDefinition() throws Exception {
+        JsonNode definition = objectMapper.readTree("{\"cluster_permissions\":[],\"index_permissions\":[{\"index_patterns\":[\"orga_space_*\"]}]}");
+
+        String fingerprint = fingerprintStore.fingerprint(definition);
+
+        assertEquals(64, fingerprint.length());
+        assertEquals(fingerprint, fingerprintStore.fingerprint(definition.deepCopy()));
+        assertNotEquals(fingerprint, fingerprintStore.fingerprint(objectMapper.readTree("{\"cluster_permissions\":[]}")));
+    }
+
+    @Test
+    void givenFingerprints_whenUnchanged_thenOnlyIdenticalDefinitions() throws Exception {
+        JsonNode same = objectMapper.readTree("{\"users\":[\"a\"]}");
+        JsonNode changed = objectMapper.readTree("{\"users\":[\"b\"]}");
+        given(opensearchClient.getSourceDocuments(eq(restClient), eq(INDEX), anyCollection(), eq("hash"))).willReturn(Map.of(
+                "rolesmappings:same", Map.of("hash", fingerprintStore.fingerprint(same)),
+                "rolesmappings:changed", Map.of("hash", fingerprintStore.fingerprint(same))));
+
+        Set<String> unchanged = fingerprintStore.unchanged(restClient, Kind.ROLESMAPPINGS, Map.of("same", same, "changed", changed, "new", same));
+
+        assertEquals(Set.of("same"), unchanged);
+        // a single _mget for all definitions
+        verify(opensearchClient).getSourceDocuments(eq(restClient), eq(INDEX), argThat(ids -> Set.copyOf(ids).equals(Set.of("rolesmappings:same",
+                "rolesmappings:changed", "rolesmappings:new"))), eq("hash"));
+    }
+
+    @Test
+    void givenNoFingerprints_whenUnchanged_thenAllWritten() throws Exception {
+        given(opensearchClient.getSourceDocuments(eq(restClient), eq(INDEX), anyCollection(), eq("hash"))).willReturn(Map.of());
+
+        assertTrue(fingerprintStore.unchanged(restClient, Kind.ROLES, Map.of("role", objectMapper.createObjectNode())).isEmpty());
+    }
+
+    @Test
+    void givenFingerprintsUnreadable_whenUnchanged_thenAllWritten() throws Exception {
+        given(opensearchClient.getSourceDocuments(eq(restClient), eq(INDEX), anyCollection(), eq("hash"))).willThrow(new MetadataException(
+                OPENSEARCH_CONNECTION_ERROR));
+
+        assertTrue(fingerprintStore.unchanged(restClient, Kind.ROLES, Map.of("role", objectMapper.createObjectNode())).isEmpty());
+    }
+
+    @Test
+    void givenDisabled_whenUnchanged_thenFingerprintsNotRead() {
+        fingerprintStore = new FingerprintStore(opensearchClient, objectMapper, INDEX, false);
+
+        assertTrue(fingerprintStore.unchanged(restClient, Kind.ROLES, Map.of("role", objectMapper.createObjectNode())).isEmpty());
+        verifyNoInteractions(opensearchClient);
+    }
+
+    @Test
+    void givenSkippedAndAppliedWrites_whenBindTo_thenCountedPerResource() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        fingerprintStore.bindTo(registry);
+        // fingerprints that cannot be recorded do not fail the write
+        given(restClient.performRequest(any())).willThrow(new IOException("unavailable"));
+
+        fingerprintStore.skipped(Kind.ROLES, 2);
+        fingerprintStore.applied(restClient, Kind.ROLES, Map.of("role", objectMapper.createObjectNode()), List.of("stale"));
+
+        assertEquals(2, registry.get("metadata.context.writes").tags("resource", "roles", "result", "skipped").functionCounter().count());
+        assertEquals(2, registry.get("metadata.context.writes").tags("resource", "roles", "result", "applied").functionCounter().count());
+        assertEquals(0, registry.get("metadata.context.writes").tags("resource", "rolesmappings", "result", "applied").functionCounter().count());
+        ArgumentCaptor<Request> bulk = ArgumentCaptor.forClass(Request.class);
+        verify(restClient).performRequest(bulk.capture());
+        assertEquals("/_bulk", bulk.getValue().getEndpoint());
+    }
+}
@@ -17,12 +17,20 @@ package com.efs.sdk.metadata.core.context;
 
 import com.efs.sdk.common.domain.dto.OrganizationContextDTO;
 import com.efs.sdk.common.domain.dto.SpaceContextDTO;
+import com.efs.sdk.common.domain.model.Confidentiality;
+import com.efs.sdk.metadata.clients.MetadataOpensearchClient;
+import com.efs.sdk.metadata.clients.OpenSearchPoolProperties;
 import com.efs.sdk.metadata.clients.OpenSearchRestClientBuilder;
 import com.efs.sdk.metadata.clients.OpenSearchRestClientBuilderTest;
 import com.efs.sdk.metadata.commons.MetadataException;
 import com.efs.sdk.metadata.core.OrganizationmanagerService;
 import com.efs.sdk.metadata.helper.OpensearchHelper;
+import com.efs.sdk.metadata.model.ReconcilePlan;
+import com.efs.sdk.metadata.model.SyncReport;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -30,16 +38,40 @@ import org.mockito.Mockito;
 import org.mockserver.configuration.ConfigurationProperties;
 import org.mockserver.integration.ClientAndServer;
 import org.mockserver.model.HttpRequest;
+import org.mockserver.verify.VerificationTimes;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
 
 import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
 
 import static com.efs.sdk.metadata.utils.TestHelper.*;
+import static com.efs.sdk.metadata.commons.MetadataException.METADATA_ERROR.UNABLE_CREATE_ESROLE;
 import static java.lang.String.format;
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockserver.model.HttpResponse.response;
 import static org.springframework.http.HttpStatus.*;
 import static org.springframework.security.oauth2.core.endpoint.OAuth2ParameterNames.TOKEN;
@@ -48,6 +80,7 @@ class OpensearchContextServiceTest {
     private static final String ENDPOINT_ROLES = "/_plugins/_security/api/roles";
     private static final String ENDPOINT_ROLESMAPPING = "/_plugins/_security/api/rolesmapping";
     private static final String ENDPOINT_TENANTS = "/_plugins/_security/api/tenants";
+    private static final String FINGERPRINT_INDEX = "metadata-fingerprints";
 
     @MockBean
     private OrganizationmanagerService organizationmanagerService;
@@ -62,6 +95,7 @@ class OpensearchContextServiceTest {
     private OpensearchHelper opensearchHelper;
     @MockBean
     private ObjectMapper objectMapper;
+    private FingerprintStore fingerprintStore;
     private ClientAndServer mockServer;
 
     @AfterEach
@@ -93,14 +127,15 @@ class OpensearchContextServiceTest {
     void setup() throws IOException {
         Integer port = findRandomPort();
         ConfigurationProperties.logLevel("INFO");
-        this.clientBuilder = new OpenSearchRestClientBuilderTest("http://127.0.0.1:" + port);
+        this.clientBuilder = new OpenSearchRestClientBuilderTest("http://127.0.0.1:" + port, new OpenSearchPoolProperties());
         this.mockServer = ClientAndServer.startClientAndServer(port);
         this.objectMapper = Mockito.spy(ObjectMapper.class);
         this.opensearchHelper = Mockito.spy(new OpensearchHelper(this.objectMapper));
         this.organizationmanagerService = Mockito.mock(OrganizationmanagerService.class);
         String opensearch_security_endpoint = "/_plugins/_security/api";
+        this.fingerprintStore = new FingerprintStore(new MetadataOpensearchClient(new SimpleMeterRegistry()), objectMapper, FINGERPRINT_INDEX, true);
         this.opensearchContextServiceSpy = Mockito.spy(new OpensearchContextService(organizationmanagerService, clientBuilder, opensearchHelper, objectMapper
-                , opensearch_security_endpoint));
+                , new SecurityCatalogue(Duration.ofSeconds(30)), fingerprintStore, opensearch_security_endpoint, 2, 4));
         OpensearchContextService opensearchContextServiceMock = Mockito.mock(OpensearchContextService.class);
         this.testOrganization = OrganizationContextDTO.builder().id(1L).name("test").description("description").build();
         this.testSpace = SpaceContextDTO.builder().name("test").organization(testOrganization).build();
@@ -182,6 +217,307 @@ class OpensearchContextServiceTest {
         }
     }
 
+    @Test
+    void givenFailingSpace_whenSyncOpensearch_thenOthersSyncedAndFailureReported() throws Exception {
+        Jwt jwt = Jwt.withTokenValue(TOKEN).header("alg", "none").subject("superuser").build();
+        SecurityContextHolder.getContext().setAuthentication(new JwtAuthenticationToken(jwt));
+        try {
+            OrganizationContextDTO otherOrganization = OrganizationContextDTO.builder().id(2L).name("other").build();
+            SpaceContextDTO failingSpace = SpaceContextDTO.builder().name("failing").organization(testOrganization).build();
+            SpaceContextDTO otherSpace = SpaceContextDTO.builder().name("test").organization(otherOrganization).build();
+            given(organizationmanagerService.getOrganizations(TOKEN)).willReturn(List.of(testOrganization, otherOrganization));
+            given(organizationmanagerService.getSpaces(TOKEN, testOrganization)).willReturn(List.of(testSpace, failingSpace));
+            given(organizationmanagerService.getSpaces(TOKEN, otherOrganization)).willReturn(List.of(otherSpace));
+            doNothing().when(opensearchContextServiceSpy).updateOrganizationContext(any(OrganizationContextDTO.class), anyString(), anyBoolean());
+            doNothing().when(opensearchContextServiceSpy).createTenant(any(OrganizationContextDTO.class), anyString());
+            doNothing().when(opensearchContextServiceSpy).updateSpaceContext(any(SpaceContextDTO.class), anyString(), anyBoolean());
+            doThrow(new MetadataException(UNABLE_CREATE_ESROLE)).when(opensearchContextServiceSpy).updateSpaceContext(failingSpace, TOKEN, false);
+
+            SyncReport report = opensearchContextServiceSpy.syncOpensearch(TOKEN);
+
+            assertFalse(report.isSuccessful());
+            assertEquals(2, report.getOrganizations());
+            assertEquals(2, report.getSpaces());
+            assertEquals(1, report.getFailures().size());
+            assertEquals("failing", report.getFailures().get(0).getSpace());
+            verify(opensearchContextServiceSpy).updateSpaceContext(otherSpace, TOKEN, false);
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    @Test
+    void givenCompletedOrganization_whenSyncOpensearch_thenSkippedAndOthersCompleted() throws Exception {
+        OrganizationContextDTO otherOrganization = OrganizationContextDTO.builder().id(2L).name("other").build();
+        given(organizationmanagerService.getOrganizations(TOKEN)).willReturn(List.of(testOrganization, otherOrganization));
+        given(organizationmanagerService.getSpaces(TOKEN, otherOrganization)).willReturn(List.of());
+        doNothing().when(opensearchContextServiceSpy).updateOrganizationContext(any(OrganizationContextDTO.class), anyString(), anyBoolean());
+        doNothing().when(opensearchContextServiceSpy).createTenant(any(OrganizationContextDTO.class), anyString());
+        Set<String> completed = ConcurrentHashMap.newKeySet();
+        SyncReport report = new SyncReport();
+        JwtAuthenticationToken subject = new JwtAuthenticationToken(Jwt.withTokenValue(TOKEN).header("alg", "none").subject("superuser").build());
+
+        opensearchContextServiceSpy.syncOpensearch(() -> TOKEN, subject, report, new SyncProgress() {
+            @Override
+            public boolean isCompleted(String organization) {
+                return testOrganization.getName().equals(organization);
+            }
+
+            @Override
+            public void organizationCompleted(String organization) {
+                completed.add(organization);
+            }
+        }, false);
+
+        assertEquals(1, report.getSkippedOrganizations());
+        assertEquals(2, report.getTotalOrganizations());
+        assertEquals(1, report.getOrganizations());
+        assertEquals(Set.of("other"), completed);
+        verify(opensearchContextServiceSpy, never()).updateOrganizationContext(eq(testOrganization), anyString(), anyBoolean());
+    }
+
+    @Test
+    void givenSpacesSyncedConcurrently_whenSyncOpensearch_thenSecurityWritesSerializedPerKind() throws Exception {
+        List<SpaceContextDTO> spaces = IntStream.range(0, 6).mapToObj(i -> SpaceContextDTO.builder().name("space" + i).organization(testOrganization)
+                .build()).toList();
+        given(organizationmanagerService.getOrganizations(TOKEN)).willReturn(List.of(testOrganization));
+        given(organizationmanagerService.getSpaces(TOKEN, testOrganization)).willReturn(spaces);
+        doNothing().when(opensearchContextServiceSpy).updateOrganizationContext(any(OrganizationContextDTO.class), anyString(), anyBoolean());
+        doNothing().when(opensearchContextServiceSpy).createTenant(any(OrganizationContextDTO.class), anyString());
+        mockServer.when(HttpRequest.request().withMethod(HttpMethod.GET.name()).withPath(ENDPOINT_TENANTS)).respond(response().withBody(
+                getInputContent(RESULT_PATH, "tenants.json")).withStatusCode(OK.value()));
+        mockServer.when(HttpRequest.request().withMethod(HttpMethod.GET.name()).withPath(ENDPOINT_ROLES)).respond(response().withBody("{}")
+                .withStatusCode(OK.value()));
+        mockServer.when(HttpRequest.request().withMethod(HttpMethod.GET.name()).withPath(ENDPOINT_ROLESMAPPING)).respond(response().withBody("{}")
+                .withStatusCode(OK.value()));
+        AtomicInteger maxConcurrentWrites = new AtomicInteger();
+        for (String endpoint : List.of(ENDPOINT_ROLES, ENDPOINT_ROLESMAPPING)) {
+            mockConflictingWrites(HttpRequest.request().withMethod(HttpMethod.PATCH.name()).withPath(endpoint), maxConcurrentWrites);
+        }
+        mockConflictingWrites(HttpRequest.request().withMethod(HttpMethod.PUT.name()).withPath(ENDPOINT_TENANTS + "/.*"), maxConcurrentWrites);
+
+        SyncReport report = new SyncReport();
+        JwtAuthenticationToken subject = new JwtAuthenticationToken(Jwt.withTokenValue(TOKEN).header("alg", "none").subject("superuser").build());
+
+        opensearchContextServiceSpy.syncOpensearch(() -> TOKEN, subject, report, SyncProgress.NONE, false);
+
+        assertEquals(List.of(), report.getFailures());
+        assertEquals(spaces.size(), report.getSpaces());
+        assertEquals(1, maxConcurrentWrites.get());
+        mockServer.verify(HttpRequest.request().withMethod(HttpMethod.PATCH.name()).withPath(ENDPOINT_ROLES), VerificationTimes.exactly(spaces.size()));
+    }
+
+    /**
+     * Mocks writes to the security-configuration, that fail with a conflict while another write to the same endpoint is in progress (like the
+     * security-plugin does for concurrent writes of the same configuration)
+     */
+    private void mockConflictingWrites(HttpRequest request, AtomicInteger maxConcurrentWrites) {
+        AtomicInteger inProgress = new AtomicInteger();
+        mockServer.when(request).respond(httpRequest -> {
+            int concurrentWrites = inProgress.incrementAndGet();
+            maxConcurrentWrites.accumulateAndGet(concurrentWrites, Math::max);
+            try {
+                Thread.sleep(50);
+                return response().withStatusCode(concurrentWrites > 1 ? CONFLICT.value() : OK.value());
+            } finally {
+                inProgress.decrementAndGet();
+            }
+        });
+    }
+
+    @Test
+    void givenDifferingContext_whenReconcileDryRun_thenOnlyDifferencesPlanned() throws Exception {
+        mockCurrentContext();
+        SecurityContextHolder.getContext().setAuthentication(new JwtAuthenticationToken(Jwt.withTokenValue(TOKEN).header("alg", "none").subject(
+                "superuser").build()));
+        try {
+            ReconcilePlan plan = opensearchContextServiceSpy.reconcileOpensearch(TOKEN, true);
+
+            assertTrue(plan.isDryRun());
+            assertTrue(plan.getFailures().isEmpty());
+            // organization-tenant, test_admin
+            assertEquals(2, plan.getUnchanged());
+            List<String> changes = plan.getChanges().stream().map(c -> format("%s %s %s", c.getOperation(), c.getResource(), c.getName())).toList();
+            assertEquals(List.of("CREATE TENANT test_test", "CREATE ROLE test_access", "UPDATE ROLE test_trustee", "CREATE ROLE test_test_user",
+                    "CREATE ROLE test_test_supplier", "CREATE ROLE test_test_trustee", "CREATE ROLESMAPPING test_access", "CREATE ROLESMAPPING test_admin",
+                    "CREATE ROLESMAPPING test_trustee", "CREATE ROLESMAPPING test_test_user", "CREATE ROLESMAPPING test_test_supplier",
+                    "CREATE ROLESMAPPING test_test_trustee", "DELETE ROLE test_public"), changes);
+            mockServer.verify(HttpRequest.request().withMethod(HttpMethod.PUT.name()), VerificationTimes.never());
+            mockServer.verify(HttpRequest.request().withMethod(HttpMethod.DELETE.name()), VerificationTimes.never());
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    @Test
+    void givenDifferingContext_whenReconcile_thenOnlyDifferencesApplied() throws Exception {
+        mockCurrentContext();
+        mockServer.when(HttpRequest.request().withMethod(HttpMethod.PATCH.name())).respond(response().withStatusCode(OK.value()));
+        SecurityContextHolder.getContext().setAuthentication(new JwtAuthenticationToken(Jwt.withTokenValue(TOKEN).header("alg", "none").subject(
+                "superuser").build()));
+        try {
+            ReconcilePlan plan = opensearchContextServiceSpy.reconcileOpensearch(TOKEN, false);
+
+            assertTrue(plan.isSuccessful());
+            assertEquals(13, plan.getChanges().size());
+            // tenants, roles, rolesmappings and removed roles - one request each
+            mockServer.verify(HttpRequest.request().withMethod(HttpMethod.PATCH.name()).withPath(ENDPOINT_TENANTS), VerificationTimes.once());
+            mockServer.verify(HttpRequest.request().withMethod(HttpMethod.PATCH.name()).withPath(ENDPOINT_ROLESMAPPING), VerificationTimes.once());
+            mockServer.verify(HttpRequest.request().withMethod(HttpMethod.PATCH.name()).withPath(ENDPOINT_ROLES), VerificationTimes.exactly(2));
+            HttpRequest[] rolePatches = mockServer.retrieveRecordedRequests(HttpRequest.request().withMethod(HttpMethod.PATCH.name()).withPath(
+                    ENDPOINT_ROLES));
+            assertEquals(5, new ObjectMapper().readTree(rolePatches[0].getBodyAsString()).size());
+            assertEquals("[{\"op\":\"remove\",\"path\":\"/test_public\"}]", rolePatches[1].getBodyAsString());
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    /**
+     * Current context: organization-tenant and role test_admin are up-to-date (OpenSearch adds defaults), test_trustee differs, the role of the public
+     * organization is left over
+     */
+    private void mockCurrentContext() throws Exception {
+        given(organizationmanagerService.getOrganizations(TOKEN)).willReturn(List.of(testOrganization));
+        given(organizationmanagerService.getSpaces(TOKEN, testOrganization)).willReturn(List.of(testSpace));
+
+        ObjectMapper mapper = new ObjectMapper();
+        ObjectNode tenants = mapper.createObjectNode();
+        tenants.putObject("test").put("reserved", false).put("description", "description");
+        ObjectNode roles = mapper.createObjectNode();
+        ObjectNode admin = opensearchHelper.getTenantRole("kibana_all_write", "test");
+        admin.put("reserved", false).putArray("cluster_permissions");
+        roles.set("test_admin", admin);
+        roles.set("test_trustee", opensearchHelper.getTenantRole("kibana_all_read", "test"));
+        roles.set("test_public", opensearchHelper.getTenantRole("kibana_all_read", "test"));
+
+        mockServer.when(HttpRequest.request().withMethod(HttpMethod.GET.name()).withPath(ENDPOINT_TENANTS)).respond(response().withBody(
+                tenants.toString()).withStatusCode(OK.value()));
+        mockServer.when(HttpRequest.request().withMethod(HttpMethod.GET.name()).withPath(ENDPOINT_ROLES)).respond(response().withBody(
+                roles.toString()).withStatusCode(OK.value()));
+        mockServer.when(HttpRequest.request().withMethod(HttpMethod.GET.name()).withPath(ENDPOINT_ROLESMAPPING)).respond(response().withBody(
+                "{}").withStatusCode(OK.value()));
+        mockServer.when(HttpRequest.request().withMethod(HttpMethod.GET.name()).withPath("/_alias/measurements")).respond(response().withStatusCode(
+                NOT_FOUND.value()));
+    }
+
+    @Test
+    void givenPrivateSpace_whenCreateSpaceContext_thenRolesAndRolesMappingsInOneRequestEach() throws Exception {
+        String tenantsResult = getInputContent(RESULT_PATH, "tenants.json");
+        mockServer.when(HttpRequest.request().withMethod(HttpMethod.GET.name()).withPath(ENDPOINT_TENANTS)).respond(response().withBody(
+                tenantsResult).withStatusCode(OK.value()));
+        mockServer.when(HttpRequest.request().withMethod(HttpMethod.PUT.name()).withPath(ENDPOINT_TENANTS + "/test_test")).respond(
+                response().withStatusCode(OK.value()));
+        mockPatchEndpoint(ENDPOINT_ROLES, OK);
+        mockPatchEndpoint(ENDPOINT_ROLESMAPPING, OK);
+
+        opensearchContextServiceSpy.createSpaceContext(testSpace, TOKEN);
+
+        mockServer.verify(HttpRequest.request().withMethod(HttpMethod.PUT.name()), VerificationTimes.once());
+        HttpRequest[] rolePatches = mockServer.retrieveRecordedRequests(HttpRequest.request().withMethod(HttpMethod.PATCH.name()).withPath(ENDPOINT_ROLES));
+        assertEquals(1, rolePatches.length);
+        JsonNode operations = new ObjectMapper().readTree(rolePatches[0].getBodyAsString());
+        assertEquals(3, operations.size());
+        assertEquals("add", operations.get(0).get("op").asText());
+        assertEquals("/test_test_user", operations.get(0).get("path").asText());
+        assertEquals("test_test_*", operations.get(0).at("/value/index_permissions/0/index_patterns/0").asText());
+        mockServer.verify(HttpRequest.request().withMethod(HttpMethod.PATCH.name()).withPath(ENDPOINT_ROLESMAPPING), VerificationTimes.once());
+    }
+
+    @Test
+    void givenUnchangedRoles_whenCreateSpaceRoles_thenNotWrittenAgain() throws Exception {
+        Map<String, JsonNode> roles = opensearchContextServiceSpy.spaceRoles(testSpace);
+        mockFingerprints(roles);
+        ObjectNode existingRoles = new ObjectMapper().createObjectNode();
+        roles.keySet().forEach(existingRoles::putObject);
+        mockServer.when(HttpRequest.request().withMethod(HttpMethod.GET.name()).withPath(ENDPOINT_ROLES)).respond(response().withBody(
+                existingRoles.toString()).withStatusCode(OK.value()));
+        mockPatchEndpoint(ENDPOINT_ROLES, OK);
+
+        opensearchContextServiceSpy.createSpaceRoles(testSpace, TOKEN);
+
+        mockServer.verify(HttpRequest.request().withMethod(HttpMethod.PATCH.name()), VerificationTimes.never());
+    }
+
+    @Test
+    void givenUnchangedRolesDeletedByHand_whenCreateSpaceRoles_thenWrittenAgain() throws Exception {
+        Map<String, JsonNode> roles = opensearchContextServiceSpy.spaceRoles(testSpace);
+        mockFingerprints(roles);
+        mockServer.when(HttpRequest.request().withMethod(HttpMethod.GET.name()).withPath(ENDPOINT_ROLES)).respond(response().withBody("{}")
+                .withStatusCode(OK.value()));
+        mockPatchEndpoint(ENDPOINT_ROLES, OK);
+
+        opensearchContextServiceSpy.createSpaceRoles(testSpace, TOKEN);
+
+        mockServer.verify(HttpRequest.request().withMethod(HttpMethod.PATCH.name()).withPath(ENDPOINT_ROLES), VerificationTimes.once());
+        // the fingerprints of the written roles are recorded
+        mockServer.verify(HttpRequest.request().withMethod(HttpMethod.POST.name()).withPath("/_bulk"), VerificationTimes.once());
+    }
+
+    @Test
+    void givenUnchangedRoles_whenUpdateSpaceContextForced_thenWrittenWithoutReadingFingerprints() throws Exception {
+        Map<String, JsonNode> roles = opensearchContextServiceSpy.spaceRoles(testSpace);
+        mockFingerprints(roles);
+        ObjectNode existingRoles = new ObjectMapper().createObjectNode();
+        roles.keySet().forEach(existingRoles::putObject);
+        mockServer.when(HttpRequest.request().withMethod(HttpMethod.GET.name()).withPath(ENDPOINT_TENANTS)).respond(response().withBody(
+                getInputContent(RESULT_PATH, "tenants.json")).withStatusCode(OK.value()));
+        mockServer.when(HttpRequest.request().withMethod(HttpMethod.PUT.name())).respond(response().withStatusCode(OK.value()));
+        mockServer.when(HttpRequest.request().withMethod(HttpMethod.GET.name()).withPath(ENDPOINT_ROLES)).respond(response().withBody(
+                existingRoles.toString()).withStatusCode(OK.value()));
+        mockServer.when(HttpRequest.request().withMethod(HttpMethod.GET.name()).withPath(ENDPOINT_ROLESMAPPING)).respond(response().withBody("{}")
+                .withStatusCode(OK.value()));
+        mockPatchEndpoint(ENDPOINT_ROLES, OK);
+        mockPatchEndpoint(ENDPOINT_ROLESMAPPING, OK);
+
+        opensearchContextServiceSpy.updateSpaceContext(testSpace, TOKEN, true);
+
+        mockServer.verify(HttpRequest.request().withMethod(HttpMethod.PATCH.name()).withPath(ENDPOINT_ROLES), VerificationTimes.once());
+        mockServer.verify(HttpRequest.request().withMethod(HttpMethod.PATCH.name()).withPath(ENDPOINT_ROLESMAPPING), VerificationTimes.once());
+        mockServer.verify(HttpRequest.request().withPath("/" + FINGERPRINT_INDEX + "/_mget"), VerificationTimes.never());
+    }
+
+    private void mockFingerprints(Map<String, JsonNode> roles) {
+        ObjectNode fingerprints = new ObjectMapper().createObjectNode();
+        roles.forEach((name, definition) -> fingerprints.withArray("docs").addObject().put("_id", "roles:" + name).put("found", true).putObject(
+                "_source").put("hash", fingerprintStore.fingerprint(definition)));
+        mockServer.when(HttpRequest.request().withMethod(HttpMethod.POST.name()).withPath("/" + FINGERPRINT_INDEX + "/_mget")).respond(response()
+                .withBody(fingerprints.toString()).withStatusCode(OK.value()));
+    }
+
+    @Test
+    void givenPublicSpace_whenUpdateSpaceContext_thenConfidentialRolesDeletedAfterwards() throws Exception {
+        testSpace.setConfidentiality(Confidentiality.PUBLIC);
+        String tenantsResult = getInputContent(RESULT_PATH, "tenants.json");
+        mockServer.when(HttpRequest.request().withMethod(HttpMethod.GET.name()).withPath(ENDPOINT_TENANTS)).respond(response().withBody(
+                tenantsResult).withStatusCode(OK.value()));
+        mockServer.when(HttpRequest.request().withMethod(HttpMethod.PUT.name())).respond(response().withStatusCode(OK.value()));
+        mockPatchEndpoint(ENDPOINT_ROLES, OK);
+        mockPatchEndpoint(ENDPOINT_ROLESMAPPING, OK);
+        mockSpaceRoleEndpoints(testSpace, HttpMethod.DELETE, OK);
+        mockServer.when(HttpRequest.request().withMethod(HttpMethod.GET.name()).withPath(ENDPOINT_ROLES)).respond(response().withBody(
+                "{\"test_test_user\":{},\"test_test_trustee\":{}}").withStatusCode(OK.value()));
+        mockServer.when(HttpRequest.request().withMethod(HttpMethod.GET.name()).withPath(ENDPOINT_ROLESMAPPING)).respond(response().withBody(
+                "{}").withStatusCode(OK.value()));
+
+        opensearchContextServiceSpy.updateSpaceContext(testSpace, TOKEN);
+
+        mockServer.verify(HttpRequest.request().withMethod(HttpMethod.DELETE.name()).withPath(ENDPOINT_ROLES + "/test_test_all_public"),
+                VerificationTimes.never());
+        mockServer.verify(HttpRequest.request().withMethod(HttpMethod.DELETE.name()).withPath(ENDPOINT_ROLES + "/test_test_trustee"),
+                VerificationTimes.once());
+        // neither the supplier-role nor any rolesmapping exists
+        mockServer.verify(HttpRequest.request().withMethod(HttpMethod.DELETE.name()).withPath(ENDPOINT_ROLES + "/test_test_supplier"),
+                VerificationTimes.never());
+        mockServer.verify(HttpRequest.request().withMethod(HttpMethod.DELETE.name()).withPath(ENDPOINT_ROLESMAPPING + "/.*"), VerificationTimes.never());
+        mockServer.verify(HttpRequest.request().withMethod(HttpMethod.PATCH.name()).withPath(ENDPOINT_ROLES), HttpRequest.request().withMethod(
+                HttpMethod.DELETE.name()).withPath(ENDPOINT_ROLES + "/test_test_user"));
+    }
+
+    private void mockPatchEndpoint(String endpoint, HttpStatus status) {
+        mockServer.when(HttpRequest.request().withMethod(HttpMethod.PATCH.name()).withPath(endpoint)).respond(response().withStatusCode(status.value()));
+    }
+
     @Test
     void givenErrorCreatingTenant_whenCreateTenant_thenError() throws Exception {
 
@@ -214,6 +550,22 @@ class OpensearchContextServiceTest {
                 testOrganization.getDescription(), TOKEN));
     }
 
+    @Test
+    void givenSeveralTenants_whenCreateTenant_thenTenantsListedOnce() throws Exception {
+        String tenantsResult = getInputContent(RESULT_PATH, "tenants.json");
+        HttpRequest tenantsRequest = HttpRequest.request().withMethod(HttpMethod.GET.name()).withPath(ENDPOINT_TENANTS);
+        mockServer.when(tenantsRequest).respond(response().withBody(tenantsResult).withStatusCode(OK.value()));
+        mockServer.when(HttpRequest.request().withMethod(HttpMethod.PUT.name())).respond(response().withStatusCode(OK.value()));
+
+        opensearchContextServiceSpy.createTenant("first", "", TOKEN);
+        opensearchContextServiceSpy.createTenant("second", "", TOKEN);
+        // created before, known without listing again
+        opensearchContextServiceSpy.createTenant("first", "", TOKEN);
+
+        mockServer.verify(tenantsRequest, VerificationTimes.once());
+        mockServer.verify(HttpRequest.request().withMethod(HttpMethod.PUT.name()).withPath(ENDPOINT_TENANTS + "/first"), VerificationTimes.once());
+    }
+
     @Test
     void givenTenantExists_whenCreatingTenant_thenFalse() throws Exception {
 
@@ -233,49 +585,49 @@ class OpensearchContextServiceTest {
 
     @Test
     void givenAllOk_whenCreateOrganizationRoles_thenOk() throws IOException {
-        mockOrganizationRoleEndpoints(testOrganization, HttpMethod.PUT, OK);
+        mockPatchEndpoint(ENDPOINT_ROLES, OK);
         assertDoesNotThrow(() -> opensearchContextServiceSpy.createOrganizationRoles(testOrganization, TOKEN));
     }
 
     @Test
     void givenAllOk_whenCreateSpaceRoles_thenOk() {
-        mockSpaceRoleEndpoints(testSpace, HttpMethod.PUT, OK);
+        mockPatchEndpoint(ENDPOINT_ROLES, OK);
         assertDoesNotThrow(() -> opensearchContextServiceSpy.createSpaceRoles(testSpace, TOKEN));
     }
 
     @Test
     void givenOpensearchError_whenCreateOrganizationRoles_thenError() throws IOException {
-        mockOrganizationRoleEndpoints(testOrganization, HttpMethod.PUT, INTERNAL_SERVER_ERROR);
+        mockPatchEndpoint(ENDPOINT_ROLES, INTERNAL_SERVER_ERROR);
         assertThrows(MetadataException.class, () -> opensearchContextServiceSpy.createOrganizationRoles(testOrganization, TOKEN));
     }
 
     @Test
     void givenOpensearchError_whenCreateSpaceRoles_thenError() {
-        mockSpaceRoleEndpoints(testSpace, HttpMethod.PUT, INTERNAL_SERVER_ERROR);
+        mockPatchEndpoint(ENDPOINT_ROLES, INTERNAL_SERVER_ERROR);
         assertThrows(MetadataException.class, () -> opensearchContextServiceSpy.createSpaceRoles(testSpace, TOKEN));
     }
 
     @Test
     void givenAllOk_whenCreateOrgRoleMappings_thenOk() {
-        mockOrganizationRolesmappingEndpoints(testOrganization, HttpMethod.PUT, OK);
+        mockPatchEndpoint(ENDPOINT_ROLESMAPPING, OK);
         assertDoesNotThrow(() -> opensearchContextServiceSpy.createOrganizationRolesMappings(testOrganization, TOKEN));
     }
 
     @Test
     void givenAllOk_whenCreateSpaceRoleMappings_thenOk() {
-        mockSpaceRolesmappingEndpoints(testSpace, HttpMethod.PUT, OK);
+        mockPatchEndpoint(ENDPOINT_ROLESMAPPING, OK);
         assertDoesNotThrow(() -> opensearchContextServiceSpy.createSpaceRolesMappings(testSpace, TOKEN));
     }
 
     @Test
     void givenOpensearchError_whenCreateOrgRoleMappings_thenError() {
-        mockOrganizationRolesmappingEndpoints(testOrganization, HttpMethod.PUT, INTERNAL_SERVER_ERROR);
+        mockPatchEndpoint(ENDPOINT_ROLESMAPPING, INTERNAL_SERVER_ERROR);
         assertThrows(MetadataException.class, () -> opensearchContextServiceSpy.createOrganizationRolesMappings(testOrganization, TOKEN));
     }
 
     @Test
     void givenOpensearchError_whenCreateSpaceRolesMappings_thenError() {
-        mockSpaceRolesmappingEndpoints(testSpace, HttpMethod.PUT, INTERNAL_SERVER_ERROR);
+        mockPatchEndpoint(ENDPOINT_ROLESMAPPING, INTERNAL_SERVER_ERROR);
         assertThrows(MetadataException.class, () -> opensearchContextServiceSpy.createSpaceRolesMappings(testSpace, TOKEN));
     }
 
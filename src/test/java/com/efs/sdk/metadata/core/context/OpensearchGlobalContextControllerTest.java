@@ -15,10 +15,13 @@ limitations under the License.
  */
 package com.efs.sdk.metadata.core.context;
 
+import com.efs.sdk.metadata.commons.MetadataException;
 import com.efs.sdk.metadata.core.AuthService;
 import com.efs.sdk.metadata.core.index.application.IndexService;
 import com.efs.sdk.metadata.helper.AuthHelper;
+import com.efs.sdk.metadata.model.SyncJob;
 import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
@@ -28,6 +31,18 @@ import org.springframework.security.oauth2.server.resource.authentication.JwtAut
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
 
+import static com.efs.sdk.metadata.commons.MetadataException.METADATA_ERROR.SYNC_JOB_NOT_FOUND;
+import static com.efs.sdk.metadata.core.context.OpensearchGlobalContextController.ENDPOINT;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.verify;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.jwt;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
 @WebMvcTest(OpensearchGlobalContextController.class)
 @ActiveProfiles("test")
 class OpensearchGlobalContextControllerTest {
@@ -42,6 +57,8 @@ class OpensearchGlobalContextControllerTest {
     private AuthHelper authHelper;
     @MockBean
     private AuthService authService;
+    @MockBean
+    private SyncJobService syncJobService;
 
     /* required for security tests to run. Do not remove! */
     @MockBean
@@ -54,4 +71,29 @@ class OpensearchGlobalContextControllerTest {
         this.token = Mockito.mock(JwtAuthenticationToken.class);
     }
 
+    @Test
+    void givenSuperuser_whenSyncOpensearch_thenAcceptedWithJobLocation() throws Exception {
+        given(authHelper.isSuperuser(any())).willReturn(true);
+        given(syncJobService.start(any(), anyBoolean(), anyBoolean())).willReturn(new SyncJob("job"));
+
+        mvc.perform(put(ENDPOINT + "/sync_opensearch").with(jwt())).andExpect(status().isAccepted()).andExpect(header().string("Location",
+                ENDPOINT + "/sync_opensearch/job")).andExpect(jsonPath("$.status").value("RUNNING"));
+        // a checkpoint is only resumed on request
+        verify(syncJobService).start(any(), eq(false), eq(false));
+    }
+
+    @Test
+    void givenNoSuperuser_whenSyncOpensearch_thenForbidden() throws Exception {
+        given(authHelper.isSuperuser(any())).willReturn(false);
+
+        mvc.perform(put(ENDPOINT + "/sync_opensearch").with(jwt())).andExpect(status().isForbidden());
+    }
+
+    @Test
+    void givenUnknownJob_whenGetSyncJob_thenNotFound() throws Exception {
+        given(authHelper.isSuperuser(any())).willReturn(true);
+        given(syncJobService.getJob("unknown")).willThrow(new MetadataException(SYNC_JOB_NOT_FOUND));
+
+        mvc.perform(get(ENDPOINT + "/sync_opensearch/unknown").with(jwt())).andExpect(status().isNotFound());
+    }
 }
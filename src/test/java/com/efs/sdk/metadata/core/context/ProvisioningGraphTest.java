@@ -0,0 +1,99 @@
+/*
+Copyright (C) 2023 e:fs TechHub GmbH (sdk@efs-techhub.com)
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+        http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+ */
+package com.efs.sdk.metadata.core.context;
+
+import com.efs.sdk.metadata.commons.MetadataException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static com.efs.sdk.metadata.commons.MetadataException.METADATA_ERROR.UNABLE_CREATE_ESROLE;
+import static com.efs.sdk.metadata.commons.MetadataException.METADATA_ERROR.UNABLE_CREATE_INDEX;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProvisioningGraphTest {
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void givenDependencies_whenAwait_thenStepsRunInOrder() throws Exception {
+        List<String> order = new CopyOnWriteArrayList<>();
+
+        new ProvisioningGraph(executor)
+                .step("tenant", () -> order.add("tenant"))
+                .step("roles", () -> order.add("roles"), "tenant")
+                .step("rolesmappings", () -> order.add("rolesmappings"), "roles")
+                .await();
+
+        assertEquals(List.of("tenant", "roles", "rolesmappings"), order);
+    }
+
+    @Test
+    void givenIndependentSteps_whenAwait_thenRunConcurrently() throws Exception {
+        // both steps only complete, if they run at the same time
+        CountDownLatch running = new CountDownLatch(2);
+        ProvisioningGraph.Step step = () -> {
+            running.countDown();
+            try {
+                assertTrue(running.await(5, TimeUnit.SECONDS));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+
+        new ProvisioningGraph(executor).step("roles", step).step("index", step).await();
+
+        assertEquals(0, running.getCount());
+    }
+
+    @Test
+    void givenFailingSteps_whenAwait_thenDependentsSkippedAndErrorsAggregated() {
+        List<String> run = new CopyOnWriteArrayList<>();
+
+        MetadataException e = assertThrows(MetadataException.class, () -> new ProvisioningGraph(executor)
+                .step("roles", () -> {
+                    throw new MetadataException(UNABLE_CREATE_ESROLE);
+                })
+                .step("rolesmappings", () -> run.add("rolesmappings"), "roles")
+                .step("index", () -> {
+                    throw new MetadataException(UNABLE_CREATE_INDEX);
+                })
+                .await());
+
+        assertTrue(run.isEmpty());
+        assertEquals(UNABLE_CREATE_ESROLE, e.getError());
+        assertEquals(1, e.getSuppressed().length);
+    }
+
+    @Test
+    void givenUnknownDependency_whenStep_thenRejected() {
+        ProvisioningGraph graph = new ProvisioningGraph(executor);
+
+        assertThrows(IllegalArgumentException.class, () -> graph.step("roles", () -> {
+        }, "tenant"));
+    }
+}
@@ -0,0 +1,82 @@
+/*
+Copyright (C) 2023 e:fs TechHub GmbH (sdk@efs-techhub.com)
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+        http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+ */
+package com.efs.sdk.metadata.core.context;
+
+import com.efs.sdk.metadata.core.context.SecurityCatalogue.Kind;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SecurityCatalogueTest {
+
+    @Test
+    void givenListingLoaded_whenContains_thenNotLoadedAgain() throws Exception {
+        SecurityCatalogue catalogue = new SecurityCatalogue(Duration.ofMinutes(1));
+        AtomicInteger loads = new AtomicInteger();
+        SecurityCatalogue.Loader loader = () -> {
+            loads.incrementAndGet();
+            return Set.of("myorga", "myorga_myspace");
+        };
+
+        assertTrue(catalogue.contains(Kind.TENANTS, "myorga", loader));
+        assertTrue(catalogue.contains(Kind.TENANTS, "MyOrga_MySpace", loader));
+        assertFalse(catalogue.contains(Kind.TENANTS, "other", loader));
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void givenListingExpired_whenContains_thenLoadedAgain() throws Exception {
+        SecurityCatalogue catalogue = new SecurityCatalogue(Duration.ZERO);
+        AtomicInteger loads = new AtomicInteger();
+        SecurityCatalogue.Loader loader = () -> {
+            loads.incrementAndGet();
+            return Set.of("myorga_admin");
+        };
+
+        catalogue.contains(Kind.ROLES, "myorga_admin", loader);
+        catalogue.contains(Kind.ROLES, "myorga_admin", loader);
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void givenCreatedAndDeleted_whenContains_thenUpdatedLocally() throws Exception {
+        SecurityCatalogue catalogue = new SecurityCatalogue(Duration.ofMinutes(1));
+        SecurityCatalogue.Loader loader = () -> Set.of("myorga_admin");
+        catalogue.contains(Kind.ROLES, "myorga_admin", loader);
+
+        catalogue.added(Kind.ROLES, "myorga_trustee");
+        catalogue.removed(Kind.ROLES, "myorga_admin");
+
+        SecurityCatalogue.Loader failing = () -> fail("listing should not be loaded again");
+        assertTrue(catalogue.contains(Kind.ROLES, "myorga_trustee", failing));
+        assertFalse(catalogue.contains(Kind.ROLES, "myorga_admin", failing));
+        // other kinds are independent
+        assertFalse(catalogue.contains(Kind.ROLESMAPPINGS, "myorga_trustee", Set::of));
+    }
+
+    @Test
+    void givenInvalidated_whenContains_thenLoadedAgain() throws Exception {
+        SecurityCatalogue catalogue = new SecurityCatalogue(Duration.ofMinutes(1));
+        catalogue.replace(Kind.TENANTS, Set.of("myorga"));
+        catalogue.invalidate();
+
+        assertFalse(catalogue.contains(Kind.TENANTS, "myorga", Set::of));
+    }
+}
@@ -0,0 +1,85 @@
+/*
+Copyright (C) 2023 e:fs TechHub GmbH (sdk@efs-techhub.com)
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+        http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+ */
+package com.efs.sdk.metadata.core.context;
+
+import com.efs.sdk.metadata.clients.OpenSearchPoolProperties;
+import com.efs.sdk.metadata.clients.OpenSearchRestClientBuilderTest;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockserver.integration.ClientAndServer;
+import org.mockserver.model.HttpRequest;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Set;
+
+import static com.efs.sdk.metadata.utils.TestHelper.findRandomPort;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockserver.model.HttpResponse.response;
+
+class SyncCheckpointStoreTest {
+
+    private static final String TOKEN = "token";
+    private static final String ENDPOINT = "/metadata-sync-checkpoint/_doc/opensearch-sync";
+
+    private ClientAndServer mockServer;
+    private SyncCheckpointStore checkpointStore;
+
+    @BeforeEach
+    void setup() throws IOException {
+        Integer port = findRandomPort();
+        mockServer = ClientAndServer.startClientAndServer(port);
+        checkpointStore = new SyncCheckpointStore(new OpenSearchRestClientBuilderTest("http://127.0.0.1:" + port, new OpenSearchPoolProperties()),
+                new ObjectMapper(), "metadata-sync-checkpoint", Duration.ofHours(24));
+    }
+
+    @AfterEach
+    void destroy() {
+        mockServer.stop();
+    }
+
+    @Test
+    void givenRecentCheckpoint_whenLoad_thenCompletedOrganizations() throws Exception {
+        mockCheckpoint(Instant.now().minus(Duration.ofHours(1)));
+
+        assertEquals(Set.of("orga", "other"), checkpointStore.load(TOKEN));
+    }
+
+    @Test
+    void givenExpiredCheckpoint_whenLoad_thenNothingSkipped() throws Exception {
+        mockCheckpoint(Instant.now().minus(Duration.ofHours(25)));
+
+        assertTrue(checkpointStore.load(TOKEN).isEmpty());
+    }
+
+    @Test
+    void givenNoCheckpoint_whenLoad_thenNothingSkipped() throws Exception {
+        mockServer.when(HttpRequest.request().withMethod("GET").withPath(ENDPOINT)).respond(response().withStatusCode(404));
+
+        assertTrue(checkpointStore.load(TOKEN).isEmpty());
+    }
+
+    private void mockCheckpoint(Instant updated) {
+        String checkpoint = """
+                {"_id": "opensearch-sync", "found": true, "_source": {"jobId": "job", "updated": "%s", "completedOrganizations": ["orga", "other"]}}
+                """.formatted(updated);
+        mockServer.when(HttpRequest.request().withMethod("GET").withPath(ENDPOINT)).respond(response().withBody(checkpoint).withStatusCode(200));
+    }
+}
@@ -0,0 +1,172 @@
+/*
+Copyright (C) 2023 e:fs TechHub GmbH (sdk@efs-techhub.com)
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+        http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+ */
+package com.efs.sdk.metadata.core.context;
+
+import com.efs.sdk.metadata.commons.MetadataException;
+import com.efs.sdk.metadata.core.AuthService;
+import com.efs.sdk.metadata.model.SyncJob;
+import com.efs.sdk.metadata.model.SyncJob.Status;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.*;
+
+class SyncJobServiceTest {
+
+    private static final String TOKEN = "token";
+
+    private OpensearchContextService contextService;
+    private SyncCheckpointStore checkpointStore;
+    private SyncJobStore jobStore;
+    private SyncJobService syncJobService;
+
+    @BeforeEach
+    void setup() throws Exception {
+        contextService = mock(OpensearchContextService.class);
+        checkpointStore = mock(SyncCheckpointStore.class);
+        jobStore = mock(SyncJobStore.class);
+        given(jobStore.acquireLease(eq(TOKEN), anyString(), any())).willAnswer(invocation -> invocation.getArgument(1));
+        given(jobStore.renewLease(eq(TOKEN), anyString(), any())).willReturn(true);
+        AuthService authService = mock(AuthService.class);
+        given(authService.getSAAccessToken()).willReturn(TOKEN);
+        syncJobService = new SyncJobService(contextService, checkpointStore, jobStore, authService, Duration.ofMinutes(1));
+    }
+
+    @AfterEach
+    void tearDown() {
+        syncJobService.destroy();
+    }
+
+    @Test
+    void givenCheckpoint_whenRun_thenCompletedOrganizationsSkippedAndCheckpointed() throws Exception {
+        given(checkpointStore.load(TOKEN)).willReturn(Set.of("done"));
+        doAnswer(invocation -> {
+            SyncProgress progress = invocation.getArgument(3);
+            assertTrue(progress.isCompleted("done"));
+            assertFalse(progress.isCompleted("other"));
+            progress.organizationCompleted("other");
+            return null;
+        }).when(contextService).syncOpensearch(any(), any(), any(), any(), anyBoolean());
+        SyncJob job = new SyncJob("job");
+
+        syncJobService.run(job, null, true, false);
+
+        assertEquals(Status.COMPLETED, job.getStatus());
+        assertNotNull(job.getFinishedAt());
+        verify(checkpointStore).save(eq(TOKEN), eq("job"), argThat(organizations -> Set.copyOf(organizations).equals(Set.of("done", "other"))));
+        // all organizations completed, the next job starts over
+        verify(checkpointStore).clear(TOKEN);
+        verify(jobStore).save(TOKEN, job);
+        verify(jobStore).releaseLease(TOKEN, "job");
+    }
+
+    @Test
+    void givenNoResumeAndForce_whenRun_thenCheckpointClearedAndUnchangedWritten() throws Exception {
+        SyncJob job = new SyncJob("job");
+
+        syncJobService.run(job, null, false, true);
+
+        verify(checkpointStore, never()).load(anyString());
+        verify(checkpointStore, times(2)).clear(TOKEN);
+        verify(contextService).syncOpensearch(any(), any(), any(), any(), eq(true));
+    }
+
+    @Test
+    void givenCancelledJob_whenRun_thenCancelledAndCheckpointKept() throws Exception {
+        given(checkpointStore.load(TOKEN)).willReturn(Set.of());
+        SyncJob job = new SyncJob("job");
+        job.cancel();
+
+        syncJobService.run(job, null, true, false);
+
+        assertEquals(Status.CANCELLED, job.getStatus());
+        verify(checkpointStore, never()).clear(anyString());
+    }
+
+    @Test
+    void givenRunningJob_whenStart_thenRunningJobReturned() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return null;
+        }).when(contextService).syncOpensearch(any(), any(), any(), any(), anyBoolean());
+
+        SyncJob first = syncJobService.start(null, true, false);
+        SyncJob second = syncJobService.start(null, true, false);
+        release.countDown();
+
+        assertSame(first, second);
+        assertSame(first, syncJobService.getJob(first.getId()));
+        assertSame(first, syncJobService.cancel(first.getId()));
+        assertTrue(first.isCancelRequested());
+        assertThrows(MetadataException.class, () -> syncJobService.getJob("unknown"));
+    }
+
+    @Test
+    void givenJobRunningOnOtherReplica_whenStart_thenThatJobReturned() throws Exception {
+        SyncJob other = new SyncJob("other");
+        given(jobStore.acquireLease(eq(TOKEN), anyString(), any())).willReturn("other");
+        given(jobStore.find(TOKEN, "other")).willReturn(other);
+
+        assertSame(other, syncJobService.start(null, false, false));
+        verify(contextService, never()).syncOpensearch(any(), any(), any(), any(), anyBoolean());
+        verify(jobStore, never()).save(anyString(), any());
+    }
+
+    @Test
+    void givenJobOfOtherReplica_whenGetAndCancel_thenReadFromStoreAndCancelRequested() throws Exception {
+        SyncJob other = new SyncJob("other");
+        given(jobStore.find(TOKEN, "other")).willReturn(other);
+
+        assertSame(other, syncJobService.getJob("other"));
+        syncJobService.cancel("other");
+
+        verify(jobStore).requestCancel(TOKEN, "other");
+        assertThrows(MetadataException.class, () -> syncJobService.cancel("unknown"));
+    }
+
+    @Test
+    void givenCancelRequestedOnOtherReplica_whenHeartbeat_thenCancelledAndProgressSaved() throws Exception {
+        given(jobStore.isCancelRequested(TOKEN, "job")).willReturn(true);
+        SyncJob job = new SyncJob("job");
+
+        syncJobService.heartbeat(job);
+
+        assertTrue(job.isCancelRequested());
+        verify(jobStore).save(TOKEN, job);
+    }
+
+    @Test
+    void givenLeaseLost_whenHeartbeat_thenCancelled() throws Exception {
+        given(jobStore.renewLease(eq(TOKEN), eq("job"), any())).willReturn(false);
+        SyncJob job = new SyncJob("job");
+
+        syncJobService.heartbeat(job);
+
+        assertTrue(job.isCancelRequested());
+    }
+}
@@ -0,0 +1,120 @@
+/*
+Copyright (C) 2023 e:fs TechHub GmbH (sdk@efs-techhub.com)
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+        http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+ */
+package com.efs.sdk.metadata.core.context;
+
+import com.efs.sdk.metadata.clients.OpenSearchPoolProperties;
+import com.efs.sdk.metadata.clients.OpenSearchRestClientBuilderTest;
+import com.efs.sdk.metadata.model.SyncJob;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockserver.integration.ClientAndServer;
+import org.mockserver.model.HttpRequest;
+import org.mockserver.verify.VerificationTimes;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+
+import static com.efs.sdk.metadata.utils.TestHelper.findRandomPort;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockserver.model.HttpResponse.response;
+
+class SyncJobStoreTest {
+
+    private static final String TOKEN = "token";
+    private static final String LEASE = "/metadata-sync-jobs/_doc/opensearch-sync-lease";
+    private static final Duration LEASE_DURATION = Duration.ofMinutes(1);
+
+    private ClientAndServer mockServer;
+    private SyncJobStore jobStore;
+
+    @BeforeEach
+    void setup() throws IOException {
+        Integer port = findRandomPort();
+        mockServer = ClientAndServer.startClientAndServer(port);
+        ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules().disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        jobStore = new SyncJobStore(new OpenSearchRestClientBuilderTest("http://127.0.0.1:" + port, new OpenSearchPoolProperties()), objectMapper,
+                "metadata-sync-jobs");
+    }
+
+    @AfterEach
+    void destroy() {
+        mockServer.stop();
+    }
+
+    @Test
+    void givenNoLease_whenAcquireLease_thenCreated() throws Exception {
+        mockServer.when(HttpRequest.request().withMethod("GET").withPath(LEASE)).respond(response().withStatusCode(404));
+        mockServer.when(HttpRequest.request().withMethod("PUT").withPath("/metadata-sync-jobs/_create/opensearch-sync-lease")).respond(response()
+                .withStatusCode(201));
+
+        assertEquals("job", jobStore.acquireLease(TOKEN, "job", LEASE_DURATION));
+    }
+
+    @Test
+    void givenLeaseOfRunningJob_whenAcquireLease_thenHolderReturned() throws Exception {
+        mockLease("other", Instant.now().plus(LEASE_DURATION));
+
+        assertEquals("other", jobStore.acquireLease(TOKEN, "job", LEASE_DURATION));
+        mockServer.verify(HttpRequest.request().withMethod("PUT"), VerificationTimes.never());
+    }
+
+    @Test
+    void givenExpiredLease_whenAcquireLease_thenTakenOverConditionally() throws Exception {
+        mockLease("crashed", Instant.now().minus(LEASE_DURATION));
+        mockServer.when(HttpRequest.request().withMethod("PUT").withPath(LEASE).withQueryStringParameter("if_seq_no", "7")
+                .withQueryStringParameter("if_primary_term", "1")).respond(response().withStatusCode(200));
+
+        assertEquals("job", jobStore.acquireLease(TOKEN, "job", LEASE_DURATION));
+    }
+
+    @Test
+    void givenLeaseTakenOver_whenRenewLease_thenLost() throws Exception {
+        mockLease("other", Instant.now().plus(LEASE_DURATION));
+
+        assertFalse(jobStore.renewLease(TOKEN, "job", LEASE_DURATION));
+    }
+
+    @Test
+    void givenSavedJob_whenFind_thenRestored() throws Exception {
+        SyncJob job = new SyncJob("job");
+        job.getReport().organizationSynced();
+        job.getReport().addFailure("orga", "space", "error");
+        String source = new ObjectMapper().findAndRegisterModules().disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS).writeValueAsString(job);
+        mockServer.when(HttpRequest.request().withMethod("GET").withPath("/metadata-sync-jobs/_source/job")).respond(response().withBody(source)
+                .withStatusCode(200));
+
+        SyncJob found = jobStore.find(TOKEN, "job");
+
+        assertEquals(SyncJob.Status.RUNNING, found.getStatus());
+        assertEquals(job.getStartedAt(), found.getStartedAt());
+        assertEquals(1, found.getReport().getOrganizations());
+        assertEquals("space", found.getReport().getFailures().get(0).getSpace());
+        assertNull(jobStore.find(TOKEN, "unknown"));
+    }
+
+    private void mockLease(String jobId, Instant expires) {
+        String lease = """
+                {"_id": "opensearch-sync-lease", "_seq_no": 7, "_primary_term": 1, "found": true, "_source": {"jobId": "%s", "expires": "%s"}}
+                """.formatted(jobId, expires);
+        mockServer.when(HttpRequest.request().withMethod("GET").withPath(LEASE)).respond(response().withBody(lease).withStatusCode(200));
+    }
+}
@@ -0,0 +1,126 @@
+/*
+Copyright (C) 2023 e:fs TechHub GmbH (sdk@efs-techhub.com)
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+        http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+ */
+package com.efs.sdk.metadata.core.events;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EventOutboxTest {
+
+    @TempDir
+    Path directory;
+
+    private EventOutbox open(DataSize segmentSize, DataSize maxSize) {
+        return new EventOutbox(directory, segmentSize, maxSize, true);
+    }
+
+    private long segmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(".segment")).count();
+        }
+    }
+
+    @Test
+    void givenEvents_whenReadAndCommit_thenRelayedInOrder() throws Exception {
+        EventOutbox outbox = open(DataSize.ofKilobytes(64), DataSize.ofMegabytes(1));
+        outbox.append(List.of(new OutboxEvent("indexing-done", "a", "{\"uuid\":\"a\"}"), new OutboxEvent("metadata-update", null, "ümlaut")));
+
+        EventOutbox.Batch batch = outbox.read(10);
+
+        assertEquals(List.of(new OutboxEvent("indexing-done", "a", "{\"uuid\":\"a\"}"), new OutboxEvent("metadata-update", null, "ümlaut")),
+                batch.events());
+        assertEquals(2, outbox.getBacklog());
+        outbox.commit(batch);
+        assertEquals(0, outbox.getBacklog());
+        assertEquals(0, outbox.getBacklogBytes());
+        assertTrue(outbox.read(10).events().isEmpty());
+    }
+
+    @Test
+    void givenEventsNotRelayed_whenReopened_thenReplayed() throws Exception {
+        EventOutbox outbox = open(DataSize.ofKilobytes(64), DataSize.ofMegabytes(1));
+        outbox.append(List.of(new OutboxEvent("topic", "a", "1"), new OutboxEvent("topic", "b", "2"), new OutboxEvent("topic", "c", "3")));
+        outbox.commit(outbox.read(1));
+        outbox.destroy();
+
+        EventOutbox reopened = open(DataSize.ofKilobytes(64), DataSize.ofMegabytes(1));
+
+        assertEquals(2, reopened.getBacklog());
+        assertEquals(List.of("2", "3"), reopened.read(10).events().stream().map(OutboxEvent::message).toList());
+        reopened.append(List.of(new OutboxEvent("topic", "d", "4")));
+        assertEquals(List.of("2", "3", "4"), reopened.read(10).events().stream().map(OutboxEvent::message).toList());
+    }
+
+    @Test
+    void givenSegmentExceeded_whenAppend_thenRolledAndRelayedSegmentsDeleted() throws Exception {
+        EventOutbox outbox = open(DataSize.ofBytes(256), DataSize.ofKilobytes(64));
+        for (int i = 0; i < 10; i++) {
+            outbox.append(List.of(new OutboxEvent("topic", "key-" + i, "message-" + "x".repeat(50))));
+        }
+        assertTrue(segmentFiles() > 1);
+
+        EventOutbox.Batch batch = outbox.read(100);
+
+        assertEquals(10, batch.events().size());
+        assertEquals("key-9", batch.events().get(9).key());
+        outbox.commit(batch);
+        assertEquals(1, segmentFiles());
+    }
+
+    @Test
+    void givenOutboxFull_whenAppend_thenRejected() throws Exception {
+        EventOutbox outbox = open(DataSize.ofBytes(128), DataSize.ofBytes(256));
+        OutboxEvent event = new OutboxEvent("topic", "key", "x".repeat(80));
+        outbox.append(List.of(event));
+        outbox.append(List.of(event));
+
+        assertThrows(IOException.class, () -> outbox.append(List.of(event)));
+        assertThrows(IOException.class, () -> outbox.append(List.of(new OutboxEvent("topic", "key", "x".repeat(200)))));
+
+        outbox.commit(outbox.read(100));
+        assertDoesNotThrow(() -> outbox.append(List.of(event)));
+    }
+
+    @Test
+    void givenTornWrite_whenReopened_thenIgnored() throws Exception {
+        EventOutbox outbox = open(DataSize.ofKilobytes(64), DataSize.ofMegabytes(1));
+        outbox.append(List.of(new OutboxEvent("topic", "a", "complete")));
+        outbox.destroy();
+        Path segment;
+        try (Stream<Path> files = Files.list(directory)) {
+            segment = files.filter(file -> file.getFileName().toString().endsWith(".segment")).findFirst().orElseThrow();
+        }
+        // a record, whose length was written, but whose payload does not match its checksum
+        byte[] content = Files.readAllBytes(segment);
+        int tail = 16 + 2 + "topic".length() + 2 + "a".length() + "complete".length();
+        content[tail + 3] = 20;
+        Files.write(segment, content);
+
+        EventOutbox reopened = open(DataSize.ofKilobytes(64), DataSize.ofMegabytes(1));
+
+        assertEquals(1, reopened.getBacklog());
+        assertEquals(List.of("complete"), reopened.read(10).events().stream().map(OutboxEvent::message).toList());
+    }
+}
@@ -0,0 +1,105 @@
+/*
+Copyright (C) 2023 e:fs TechHub GmbH (sdk@efs-techhub.com)
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+        http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+ */
+package com.efs.sdk.metadata.core.events;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.*;
+
+class OutboxRelayTest {
+
+    @TempDir
+    Path directory;
+
+    private EventOutbox outbox;
+    private KafkaTemplate<String, String> kafkaTemplate;
+    private SimpleMeterRegistry meterRegistry;
+    private OutboxRelay relay;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setup() {
+        outbox = new EventOutbox(directory, DataSize.ofKilobytes(64), DataSize.ofMegabytes(1), false);
+        kafkaTemplate = mock(KafkaTemplate.class);
+        meterRegistry = new SimpleMeterRegistry();
+        relay = new OutboxRelay(outbox, kafkaTemplate, meterRegistry, 2, Duration.ofMillis(10), Duration.ofSeconds(1), Duration.ofMillis(10));
+    }
+
+    @Test
+    void givenEvents_whenRelay_thenSentInBatchesWithKey() throws Exception {
+        given(kafkaTemplate.send(anyString(), anyString(), anyString())).willReturn(CompletableFuture.completedFuture(new SendResult<>(null, null)));
+        outbox.append(List.of(new OutboxEvent("indexing-done", "a", "1"), new OutboxEvent("indexing-done", "b", "2"),
+                new OutboxEvent("metadata-update", "a", "3")));
+
+        assertEquals(2, relay.relay());
+        assertEquals(1, relay.relay());
+        assertEquals(0, relay.relay());
+
+        var inOrder = inOrder(kafkaTemplate);
+        inOrder.verify(kafkaTemplate).send("indexing-done", "a", "1");
+        inOrder.verify(kafkaTemplate).send("indexing-done", "b", "2");
+        inOrder.verify(kafkaTemplate).send("metadata-update", "a", "3");
+        assertEquals(0, outbox.getBacklog());
+        assertEquals(2, meterRegistry.get("metadata.outbox.send").tag("topic", "indexing-done").timer().count());
+        assertEquals(2, meterRegistry.get("metadata.outbox.batch.size").summary().count());
+    }
+
+    @Test
+    void givenSendFails_whenRelay_thenBatchKeptAndSentAgain() throws Exception {
+        given(kafkaTemplate.send(anyString(), anyString(), anyString())).willReturn(CompletableFuture.completedFuture(new SendResult<>(null, null)));
+        given(kafkaTemplate.send(anyString(), eq("b"), anyString())).willReturn(CompletableFuture.failedFuture(new IllegalStateException("broker down")))
+                .willReturn(CompletableFuture.completedFuture(new SendResult<>(null, null)));
+        outbox.append(List.of(new OutboxEvent("indexing-done", "a", "1"), new OutboxEvent("indexing-done", "b", "2")));
+
+        assertThrows(ExecutionException.class, () -> relay.relay());
+        assertEquals(2, outbox.getBacklog());
+
+        assertEquals(2, relay.relay());
+        assertEquals(0, outbox.getBacklog());
+        verify(kafkaTemplate, times(2)).send("indexing-done", "a", "1");
+        assertEquals(1, meterRegistry.get("metadata.outbox.send.errors").tag("topic", "indexing-done").counter().count());
+    }
+
+    @Test
+    void givenStarted_whenEventsAppended_thenRelayedInBackground() throws Exception {
+        given(kafkaTemplate.send(anyString(), anyString(), anyString())).willReturn(CompletableFuture.completedFuture(new SendResult<>(null, null)));
+        relay.start();
+        try {
+            outbox.append(List.of(new OutboxEvent("indexing-done", "a", "1")));
+
+            verify(kafkaTemplate, timeout(5000)).send("indexing-done", "a", "1");
+        } finally {
+            relay.stop();
+        }
+    }
+}
@@ -15,6 +15,7 @@ limitations under the License.
  */
 package com.efs.sdk.metadata.core.index.application;
 
+import com.efs.sdk.metadata.clients.OpenSearchPoolProperties;
 import com.efs.sdk.metadata.clients.OpenSearchRestClientBuilder;
 import com.efs.sdk.metadata.clients.OpenSearchRestClientBuilderTest;
 import com.efs.sdk.metadata.commons.MetadataException;
@@ -60,7 +61,7 @@ class IndexServiceTest {
     void setup() throws IOException {
         Integer port = findRandomPort();
         ConfigurationProperties.logLevel("INFO");
-        this.clientBuilder = new OpenSearchRestClientBuilderTest("http://127.0.0.1:" + port);
+        this.clientBuilder = new OpenSearchRestClientBuilderTest("http://127.0.0.1:" + port, new OpenSearchPoolProperties());
         this.mockServer = ClientAndServer.startClientAndServer(port);
         this.service = Mockito.spy(new IndexService(clientBuilder, authService));
     }
@@ -0,0 +1,192 @@
+/*
+Copyright (C) 2023 e:fs TechHub GmbH (sdk@efs-techhub.com)
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+        http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+ */
+package com.efs.sdk.metadata.core.metadata;
+
+import com.efs.sdk.metadata.commons.MetadataException;
+import com.efs.sdk.metadata.core.AuthService;
+import com.efs.sdk.metadata.helper.IngestDocument;
+import com.efs.sdk.metadata.model.IndexJob;
+import com.efs.sdk.metadata.model.IndexJob.Priority;
+import com.efs.sdk.metadata.model.IndexJob.Status;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static com.efs.sdk.metadata.commons.MetadataException.METADATA_ERROR.INDEX_JOB_NOT_FOUND;
+import static com.efs.sdk.metadata.commons.MetadataException.METADATA_ERROR.INDEX_QUEUE_FULL;
+import static com.efs.sdk.metadata.commons.MetadataException.METADATA_ERROR.INSUFFICIENT_RIGHTS;
+import static com.efs.sdk.metadata.commons.MetadataException.METADATA_ERROR.UNABLE_RECORD_EVENT;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.*;
+
+class IndexJobServiceTest {
+
+    private static final String TOKEN = "token";
+    private static final String SUBJECT = "alice";
+    private static final byte[] MEASUREMENT = "{\"organization\": \"orga\", \"space\": \"spc\", \"rootdir\": \"dir\", \"docid\": \"doc\"}".getBytes(UTF_8);
+
+    private MetadataService metadataService;
+    private IndexJobStore jobStore;
+    private MeterRegistry meterRegistry;
+    private IndexJobService indexJobService;
+
+    @BeforeEach
+    void setup() throws Exception {
+        metadataService = mock(MetadataService.class);
+        jobStore = mock(IndexJobStore.class);
+        AuthService authService = mock(AuthService.class);
+        given(authService.getSAAccessToken()).willReturn(TOKEN);
+        given(metadataService.authorize(TOKEN, MEASUREMENT)).willReturn(IngestDocument.parse(MEASUREMENT));
+        given(jobStore.save(any(), anyList())).willReturn(List.of());
+        meterRegistry = new SimpleMeterRegistry();
+        indexJobService = new IndexJobService(metadataService, jobStore, authService, meterRegistry, 1, 1, 100, Duration.ofHours(1), Duration.ofHours(1));
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        indexJobService.destroy();
+    }
+
+    @Test
+    void givenValidDocument_whenSubmit_thenIndexedInBackgroundAndPersisted() throws Exception {
+        IndexJob job = indexJobService.submit(TOKEN, SUBJECT, MEASUREMENT, Priority.NORMAL);
+
+        assertEquals(Status.QUEUED, job.status());
+        assertEquals("doc", job.docid());
+        assertEquals(SUBJECT, job.subject());
+        verify(jobStore).save(TOKEN, job);
+        IndexJob finished = awaitFinished(job.id());
+        assertEquals(Status.COMPLETED, finished.status());
+        assertNotNull(finished.startedAt());
+        verify(metadataService).index(any(IngestDocument.class));
+
+        indexJobService.persist();
+        verify(jobStore).save(TOKEN, List.of(finished));
+        assertEquals(1, meterRegistry.get("metadata.index.async.jobs").tag("status", "completed").counter().count());
+    }
+
+    @Test
+    void givenMissingPermissions_whenSubmit_thenRejectedWithoutJob() throws Exception {
+        byte[] foreign = "{}".getBytes(UTF_8);
+        given(metadataService.authorize(TOKEN, foreign)).willThrow(new MetadataException(INSUFFICIENT_RIGHTS));
+
+        assertThrows(MetadataException.class, () -> indexJobService.submit(TOKEN, SUBJECT, foreign, Priority.NORMAL));
+        verify(metadataService, never()).index(any(IngestDocument.class));
+        verify(jobStore, never()).save(any(), any(IndexJob.class));
+    }
+
+    @Test
+    void givenFailingWrite_whenRun_thenFailedWithStatusOfError() throws Exception {
+        given(metadataService.index(any(IngestDocument.class))).willThrow(new MetadataException(UNABLE_RECORD_EVENT));
+
+        IndexJob job = indexJobService.submit(TOKEN, SUBJECT, MEASUREMENT, Priority.HIGH);
+
+        IndexJob finished = awaitFinished(job.id());
+        assertEquals(Status.FAILED, finished.status());
+        assertEquals(503, finished.errorStatus());
+    }
+
+    @Test
+    void givenFullLane_whenSubmit_thenQueueFull() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> release.await(5, TimeUnit.SECONDS)).when(metadataService).index(any(IngestDocument.class));
+        IndexJob running = indexJobService.submit(TOKEN, SUBJECT, MEASUREMENT, Priority.LOW);
+        awaitStatus(running.id(), Status.RUNNING);
+        indexJobService.submit(TOKEN, SUBJECT, MEASUREMENT, Priority.LOW);
+
+        MetadataException e = assertThrows(MetadataException.class, () -> indexJobService.submit(TOKEN, SUBJECT, MEASUREMENT, Priority.LOW));
+        assertEquals(INDEX_QUEUE_FULL, e.getError());
+        // the persisted state of the rejected job is replaced
+        indexJobService.persist();
+        verify(jobStore).save(eq(TOKEN), argThat((List<IndexJob> jobs) -> jobs.size() == 1 && jobs.get(0).errorStatus() == 429));
+        // other lanes still accept documents
+        assertEquals(Status.QUEUED, indexJobService.submit(TOKEN, SUBJECT, MEASUREMENT, Priority.HIGH).status());
+        release.countDown();
+    }
+
+    @Test
+    void givenEvictedJob_whenGetJob_thenLoadedFromStore() throws Exception {
+        IndexJob persisted = IndexJob.queued("persisted", Priority.NORMAL, "doc", "orga", "spc", SUBJECT).running().completed();
+        given(jobStore.find(TOKEN, "persisted")).willReturn(persisted);
+
+        assertEquals(persisted, indexJobService.getJob("persisted", SUBJECT, false));
+        MetadataException e = assertThrows(MetadataException.class, () -> indexJobService.getJob("unknown", SUBJECT, false));
+        assertEquals(INDEX_JOB_NOT_FOUND, e.getError());
+    }
+
+    @Test
+    void givenJobOfOtherUser_whenGetJob_thenNotFoundUnlessSuperuser() throws Exception {
+        IndexJob job = indexJobService.submit(TOKEN, SUBJECT, MEASUREMENT, Priority.NORMAL);
+
+        MetadataException e = assertThrows(MetadataException.class, () -> indexJobService.getJob(job.id(), "bob", false));
+        assertEquals(INDEX_JOB_NOT_FOUND, e.getError());
+        assertEquals(job.id(), indexJobService.getJob(job.id(), "admin", true).id());
+    }
+
+    @Test
+    void givenQueuedJobOfCrashedReplica_whenGetJob_thenFailed() throws Exception {
+        IndexJob queued = IndexJob.queued("lost", Priority.NORMAL, "doc", "orga", "spc", SUBJECT);
+        IndexJob lost = new IndexJob(queued.id(), queued.status(), queued.priority(), queued.docid(), queued.organization(), queued.space(),
+                queued.subject(), queued.acceptedAt().minus(Duration.ofHours(2)), null, null, null, null);
+        given(jobStore.find(TOKEN, "lost")).willReturn(lost);
+
+        IndexJob job = indexJobService.getJob("lost", SUBJECT, false);
+        assertEquals(Status.FAILED, job.status());
+        assertEquals(503, job.errorStatus());
+    }
+
+    @Test
+    void givenStoreUnavailable_whenPersist_thenRetriedWithNextRun() throws Exception {
+        IndexJob job = indexJobService.submit(TOKEN, SUBJECT, MEASUREMENT, Priority.NORMAL);
+        IndexJob finished = awaitFinished(job.id());
+        given(jobStore.save(any(), anyList())).willReturn(List.of(finished)).willReturn(List.of());
+
+        indexJobService.persist();
+        indexJobService.persist();
+
+        verify(jobStore, times(2)).save(TOKEN, List.of(finished));
+    }
+
+    private IndexJob awaitFinished(String id) throws Exception {
+        long deadline = System.currentTimeMillis() + 5000;
+        IndexJob job = indexJobService.getJob(id);
+        while (!job.isFinished() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+            job = indexJobService.getJob(id);
+        }
+        return job;
+    }
+
+    private void awaitStatus(String id, Status status) throws Exception {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (indexJobService.getJob(id).status() != status && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+}
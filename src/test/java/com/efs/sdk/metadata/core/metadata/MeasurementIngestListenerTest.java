@@ -0,0 +1,152 @@
+/*
+Copyright (C) 2023 e:fs TechHub GmbH (sdk@efs-techhub.com)
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+        http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+ */
+package com.efs.sdk.metadata.core.metadata;
+
+import com.efs.sdk.metadata.clients.MetadataOpensearchClient;
+import com.efs.sdk.metadata.clients.MetadataRestClient;
+import com.efs.sdk.metadata.clients.OpenSearchRestClientBuilder;
+import com.efs.sdk.metadata.clients.OrganizationManagerClient;
+import com.efs.sdk.metadata.core.AuthService;
+import com.efs.sdk.metadata.core.events.EventPublisher;
+import com.efs.sdk.metadata.helper.EntityConverter;
+import com.efs.sdk.metadata.model.BulkIndexResult;
+import com.efs.sdk.metadata.model.BulkItemResult;
+import com.efs.sdk.metadata.model.MeasurementDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.web.client.HttpServerErrorException;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.*;
+
+class MeasurementIngestListenerTest {
+
+    private static final String TOPIC = "measurement-metadata";
+
+    private MetadataService metadataService;
+    private AuthService authService;
+    private Acknowledgment acknowledgment;
+    private SimpleMeterRegistry meterRegistry;
+    private MeasurementIngestListener listener;
+
+    @BeforeEach
+    void setup() throws Exception {
+        metadataService = mock(MetadataService.class);
+        authService = mock(AuthService.class);
+        given(authService.getSAAccessToken()).willReturn("sa-token");
+        acknowledgment = mock(Acknowledgment.class);
+        meterRegistry = new SimpleMeterRegistry();
+        listener = new MeasurementIngestListener(metadataService, authService, new EntityConverter(new ObjectMapper()), meterRegistry, List.of("orga/*"));
+    }
+
+    private static ConsumerRecord<String, String> consumerRecord(long offset, String value) {
+        return new ConsumerRecord<>(TOPIC, 0, offset, null, value);
+    }
+
+    private static String measurement(String docid) {
+        return """
+                {"docid": "%s", "organization": "orga", "space": "spc", "rootdir": "dir", "metadata": {"key": "value"}}""".formatted(docid);
+    }
+
+    private double records(String result) {
+        return meterRegistry.get("metadata.ingest.records").tag("result", result).counter().count();
+    }
+
+    @Test
+    void givenRecords_whenConsume_thenIndexedAsBulkAndAcknowledged() throws Exception {
+        given(metadataService.indexBulk(eq("sa-token"), anyList())).willReturn(new BulkIndexResult(List.of(new BulkItemResult("a", "orga_spc_measurements",
+                201, null), new BulkItemResult("b", "orga_spc_measurements", 201, null))));
+
+        listener.consume(List.of(consumerRecord(0, measurement("a")), consumerRecord(1, "not json"), consumerRecord(2, measurement("b"))), acknowledgment);
+
+        verify(metadataService).indexBulk(eq("sa-token"), argThat((List<MeasurementDTO> measurements) -> measurements.size() == 2 && "b".equals(
+                measurements.get(1).getDocid())));
+        verify(acknowledgment).acknowledge();
+        assertEquals(2, records("indexed"));
+        assertEquals(1, records("rejected"));
+    }
+
+    @Test
+    void givenPermanentFailure_whenConsume_thenRejectedAndAcknowledged() throws Exception {
+        given(metadataService.indexBulk(eq("sa-token"), anyList())).willReturn(new BulkIndexResult(List.of(new BulkItemResult("a", null, 409,
+                "10011: Space missing"))));
+
+        listener.consume(List.of(consumerRecord(0, measurement("a"))), acknowledgment);
+
+        verify(acknowledgment).acknowledge();
+        assertEquals(1, records("rejected"));
+    }
+
+    @Test
+    void givenTemporaryFailure_whenConsume_thenRedeliveredFromFailedRecord() {
+        given(metadataService.indexBulk(eq("sa-token"), anyList())).willReturn(new BulkIndexResult(List.of(new BulkItemResult("a", "orga_spc_measurements",
+                201, null), new BulkItemResult("b", "orga_spc_measurements", 503, "unavailable"))));
+        List<ConsumerRecord<String, String>> records = List.of(consumerRecord(0, measurement("a")), consumerRecord(1, measurement("b")));
+
+        BatchListenerFailedException e = assertThrows(BatchListenerFailedException.class, () -> listener.consume(records, acknowledgment));
+
+        assertEquals(records.get(1), e.getRecord());
+        verifyNoInteractions(acknowledgment);
+        assertEquals(1, records("redelivered"));
+    }
+
+    @Test
+    void givenSpaceNotAllowed_whenConsume_thenRejectedWithoutIndexing() throws Exception {
+        String foreign = """
+                {"docid": "a", "organization": "other", "space": "spc", "rootdir": "dir"}""";
+
+        listener.consume(List.of(consumerRecord(0, foreign)), acknowledgment);
+
+        verify(metadataService, never()).indexBulk(anyString(), anyList());
+        verify(acknowledgment).acknowledge();
+        assertEquals(1, records("rejected"));
+    }
+
+    @Test
+    void givenOrganizationmanagerUnavailable_whenConsume_thenRedelivered() throws Exception {
+        OrganizationManagerClient orgaClient = mock(OrganizationManagerClient.class);
+        given(orgaClient.getSpace(anyString(), anyString(), anyString(), any(OrganizationManagerClient.Permissions.class))).willThrow(
+                new HttpServerErrorException(HttpStatus.SERVICE_UNAVAILABLE));
+        MetadataService service = new MetadataService(mock(EventPublisher.class), new EntityConverter(new ObjectMapper()), mock(
+                OpenSearchRestClientBuilder.class), mock(MetadataRestClient.class), mock(MetadataOpensearchClient.class), orgaClient,
+                new UpdateCoalescer(Duration.ZERO, Duration.ofSeconds(30), 1));
+        MeasurementIngestListener ingestListener = new MeasurementIngestListener(service, authService, new EntityConverter(new ObjectMapper()),
+                meterRegistry, List.of("*/*"));
+        List<ConsumerRecord<String, String>> records = List.of(consumerRecord(0, measurement("a")));
+
+        BatchListenerFailedException e = assertThrows(BatchListenerFailedException.class, () -> ingestListener.consume(records, acknowledgment));
+
+        assertEquals(records.get(0), e.getRecord());
+        verifyNoInteractions(acknowledgment);
+        assertEquals(0, records("rejected"));
+    }
+}
@@ -17,7 +17,11 @@ package com.efs.sdk.metadata.core.metadata;
 
 import com.efs.sdk.metadata.commons.MetadataException;
 import com.efs.sdk.metadata.core.SchemaService;
+import com.efs.sdk.metadata.helper.AuthHelper;
+import com.efs.sdk.metadata.model.BulkIndexResult;
+import com.efs.sdk.metadata.model.IndexJob;
 import com.efs.sdk.metadata.model.MeasurementDTO;
+import com.efs.sdk.metadata.model.UpdateResult;
 import com.efs.sdk.metadata.security.oauth.OAuthConfigurationHelper;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -27,17 +31,34 @@ import org.springframework.http.MediaType;
 import org.springframework.security.oauth2.jwt.JwtDecoder;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
+import static com.efs.sdk.metadata.commons.MetadataException.METADATA_ERROR.INDEX_JOB_NOT_FOUND;
+import static com.efs.sdk.metadata.commons.MetadataException.METADATA_ERROR.INDEX_QUEUE_FULL;
+import static com.efs.sdk.metadata.commons.MetadataException.METADATA_ERROR.INVALID_DOCUMENT;
 import static com.efs.sdk.metadata.commons.MetadataException.METADATA_ERROR.PROCESSING_EXCEPTION;
+import static com.efs.sdk.metadata.commons.MetadataException.METADATA_ERROR.UNABLE_UPDATE;
 import static com.efs.sdk.metadata.core.metadata.MetadataController.ENDPOINT;
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.BDDMockito.given;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.jwt;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(MetadataController.class)
@@ -46,6 +67,7 @@ class MetadataControllerTest {
 
     private static final String VALIDATE_JSON_ENDPOINT = ENDPOINT + "/validateJson";
     private static final String INDEX_JSON_ENDPOINT = ENDPOINT + "/index";
+    private static final String BULK_INDEX_ENDPOINT = ENDPOINT + "/index/_bulk";
     @Autowired
     private MockMvc mvc;
 
@@ -59,19 +81,49 @@ class MetadataControllerTest {
     @MockBean
     private MetadataService metadataService;
 
+    @MockBean
+    private IndexJobService indexJobService;
+
     @MockBean
     private OAuthConfigurationHelper authConfigHelper;
 
+    @MockBean
+    private AuthHelper authHelper;
+
     @Test
     void givenAuthentication_whenPutIndex_thenOk() throws Exception {
-        given(metadataService.update(any(), any(), anyString(), anyString(), anyString())).willReturn(true);
+        given(metadataService.update(any(), any(), anyString(), anyString(), anyString(), isNull())).willReturn(CompletableFuture.completedFuture(
+                new UpdateResult("updated", 1, 1)));
+
+        MvcResult result = mvc.perform(put(INDEX_JSON_ENDPOINT).with(jwt()).param("organization", "sdkcorestorage").param("space", "test-container").param(
+                "docid", "qweqweqwe").contentType(MediaType.APPLICATION_JSON).content("{}")).andExpect(request().asyncStarted()).andReturn();
+        mvc.perform(asyncDispatch(result)).andExpect(status().isOk());
+    }
 
-        mvc.perform(put(INDEX_JSON_ENDPOINT).with(jwt()).param("organization", "sdkcorestorage").param("space", "test-container").param("docid", "qweqweqwe").contentType(MediaType.APPLICATION_JSON).content("{}")).andExpect(status().isOk());
+    @Test
+    void givenFailedCoalescedWrite_whenPutIndex_thenError() throws Exception {
+        given(metadataService.update(any(), any(), anyString(), anyString(), anyString(), isNull())).willReturn(CompletableFuture.failedFuture(
+                new MetadataException(UNABLE_UPDATE)));
+
+        MvcResult result = mvc.perform(put(INDEX_JSON_ENDPOINT).with(jwt()).param("organization", "sdkcorestorage").param("space", "test-container").param(
+                "docid", "qweqweqwe").contentType(MediaType.APPLICATION_JSON).content("{}")).andExpect(request().asyncStarted()).andReturn();
+        mvc.perform(asyncDispatch(result)).andExpect(status().isInternalServerError());
+    }
+
+    @Test
+    void givenIfMatch_whenPutIndex_thenVersionPassedAndReturned() throws Exception {
+        given(metadataService.update(any(), any(), anyString(), anyString(), anyString(), eq("\"3-1\""))).willReturn(CompletableFuture.completedFuture(
+                new UpdateResult("updated", 4, 1)));
+
+        MvcResult result = mvc.perform(put(INDEX_JSON_ENDPOINT).with(jwt()).param("organization", "sdkcorestorage").param("space", "test-container").param(
+                "docid", "qweqweqwe").header("If-Match", "\"3-1\"").contentType(MediaType.APPLICATION_JSON).content("{}")).andExpect(request().asyncStarted())
+                .andReturn();
+        mvc.perform(asyncDispatch(result)).andExpect(status().isOk()).andExpect(header().string("ETag", "\"4-1\""));
     }
 
     @Test
     void givenAuthentication_whenPutIndex_thenResponseError() throws Exception {
-        given(metadataService.update(any(MeasurementDTO.class), anyString(), anyString(), anyString(), anyString())).willThrow(new IOException("test"));
+        given(metadataService.update(any(MeasurementDTO.class), anyString(), anyString(), anyString(), anyString(), any())).willThrow(new IOException("test"));
 
         mvc.perform(put(INDEX_JSON_ENDPOINT).with(jwt()).param("organization", "sdkcorestorage").param("space", "test-container").param("docid", "qweqweqwe").contentType(MediaType.APPLICATION_JSON).content("{}")).andExpect(status().is5xxServerError());
     }
@@ -97,4 +149,74 @@ class MetadataControllerTest {
         given(schemaService.validateJsonNode(any())).willReturn(true);
         mvc.perform(post(VALIDATE_JSON_ENDPOINT).with(jwt()).contentType(MediaType.APPLICATION_JSON).content("{}")).andExpect(status().isOk());
     }
+
+    @Test
+    void givenAuthentication_whenPostIndex_thenBodyPassedAsIs() throws Exception {
+        String measurement = "{\"organization\": \"orga\", \"space\": \"spc\", \"rootdir\": \"dir\", \"metadata\": {}}";
+        given(metadataService.index(anyString(), eq(measurement.getBytes(UTF_8)))).willReturn(true);
+
+        mvc.perform(post(INDEX_JSON_ENDPOINT).with(jwt()).contentType(MediaType.APPLICATION_JSON).content(measurement)).andExpect(status().isOk()).andExpect(
+                content().string("true"));
+    }
+
+    @Test
+    void givenInvalidJson_whenPostIndex_thenBadRequest() throws Exception {
+        given(metadataService.index(anyString(), any(byte[].class))).willThrow(new MetadataException(INVALID_DOCUMENT, "test"));
+
+        mvc.perform(post(INDEX_JSON_ENDPOINT).with(jwt()).contentType(MediaType.APPLICATION_JSON).content("{")).andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void givenAuthentication_whenBulkIndex_thenOk() throws Exception {
+        given(metadataService.indexBulk(anyString(), anyList())).willReturn(new BulkIndexResult(List.of()));
+
+        mvc.perform(post(BULK_INDEX_ENDPOINT).with(jwt()).contentType(MediaType.APPLICATION_JSON).content("[{}]")).andExpect(status().isOk());
+    }
+
+    @Test
+    void givenNoAuthentication_whenBulkIndex_thenError() throws Exception {
+        mvc.perform(post(BULK_INDEX_ENDPOINT).contentType(MediaType.APPLICATION_JSON).content("[{}]")).andExpect(status().isForbidden());
+    }
+
+    @Test
+    void givenAuthentication_whenBulkIndexNdjson_thenStreamed() throws Exception {
+        mvc.perform(post(BULK_INDEX_ENDPOINT).with(jwt()).contentType("application/x-ndjson").content("{}\n")).andExpect(request().asyncStarted());
+    }
+
+    @Test
+    void givenAsync_whenPostIndex_thenAcceptedWithJob() throws Exception {
+        String measurement = "{\"organization\": \"orga\", \"space\": \"spc\", \"rootdir\": \"dir\", \"metadata\": {}}";
+        IndexJob job = IndexJob.queued("job", IndexJob.Priority.HIGH, "doc", "orga", "spc", "alice");
+        given(indexJobService.submit(anyString(), eq("alice"), eq(measurement.getBytes(UTF_8)), eq(IndexJob.Priority.HIGH))).willReturn(job);
+
+        mvc.perform(post(INDEX_JSON_ENDPOINT).param("async", "true").param("priority", "HIGH").with(jwt().jwt(j -> j.subject("alice"))).contentType(
+                MediaType.APPLICATION_JSON).content(measurement)).andExpect(status().isAccepted()).andExpect(header().string("Location",
+                INDEX_JSON_ENDPOINT + "/jobs/job")).andExpect(jsonPath("$.status").value("QUEUED"));
+    }
+
+    @Test
+    void givenFullLane_whenPostIndexAsync_thenTooManyRequests() throws Exception {
+        given(indexJobService.submit(anyString(), anyString(), any(byte[].class), eq(IndexJob.Priority.NORMAL))).willThrow(new MetadataException(
+                INDEX_QUEUE_FULL));
+
+        mvc.perform(post(INDEX_JSON_ENDPOINT).param("async", "true").with(jwt()).contentType(MediaType.APPLICATION_JSON).content("{}")).andExpect(
+                status().isTooManyRequests());
+    }
+
+    @Test
+    void givenUnknownJob_whenGetIndexJob_thenNotFound() throws Exception {
+        given(indexJobService.getJob(eq("unknown"), anyString(), eq(false))).willThrow(new MetadataException(INDEX_JOB_NOT_FOUND));
+
+        mvc.perform(get(INDEX_JSON_ENDPOINT + "/jobs/unknown").with(jwt())).andExpect(status().isNotFound());
+    }
+
+    @Test
+    void givenSuperuser_whenGetIndexJob_thenJobOfOtherUser() throws Exception {
+        IndexJob job = IndexJob.queued("job", IndexJob.Priority.NORMAL, "doc", "orga", "spc", "alice");
+        given(authHelper.isSuperuser(any())).willReturn(true);
+        given(indexJobService.getJob("job", "admin", true)).willReturn(job);
+
+        mvc.perform(get(INDEX_JSON_ENDPOINT + "/jobs/job").with(jwt().jwt(j -> j.subject("admin")))).andExpect(status().isOk()).andExpect(jsonPath(
+                "$.subject").value("alice"));
+    }
 }
@@ -19,27 +19,43 @@ import com.efs.sdk.metadata.clients.*;
 import com.efs.sdk.metadata.commons.MetadataException;
 import com.efs.sdk.metadata.core.events.EventPublisher;
 import com.efs.sdk.metadata.helper.EntityConverter;
+import com.efs.sdk.metadata.model.BulkIndexResult;
+import com.efs.sdk.metadata.model.BulkItemResult;
+import com.efs.sdk.metadata.model.DocumentVersion;
 import com.efs.sdk.metadata.model.MeasurementDTO;
 import com.efs.sdk.metadata.model.TokenModel;
+import com.efs.sdk.metadata.model.UpdateResult;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
-import org.opensearch.client.RestClient;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.InputStream;
-import java.util.Collections;
-import java.util.HashMap;
+import java.time.Duration;
+import java.util.List;
 import java.util.Map;
 
-import static java.util.Collections.emptyMap;
-import static org.junit.jupiter.api.Assertions.assertThrows;
-import static org.junit.jupiter.api.Assertions.assertTrue;
-import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.ArgumentMatchers.anyString;
+import static com.efs.sdk.metadata.commons.MetadataException.METADATA_ERROR.INVALID_DOCUMENT;
+import static com.efs.sdk.metadata.commons.MetadataException.METADATA_ERROR.NO_ROOT_DIR;
+import static com.efs.sdk.metadata.commons.MetadataException.METADATA_ERROR.PERMISSION_CHECK_FAILED;
+import static com.efs.sdk.metadata.commons.MetadataException.METADATA_ERROR.UNABLE_RECORD_EVENT;
+import static com.efs.sdk.metadata.commons.MetadataException.METADATA_ERROR.VERSION_CONFLICT;
+import static com.efs.sdk.metadata.commons.MetadataException.METADATA_ERROR.VERSION_MISMATCH;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 
 class MetadataServiceTest {
 
@@ -53,7 +69,7 @@ class MetadataServiceTest {
     @MockBean
     private MetadataRestClient client;
     @MockBean
-    private RestClient restClient;
+    private OpenSearchRestClient restClient;
     @MockBean
     private MetadataOpensearchClient mESClient;
     @MockBean
@@ -64,12 +80,15 @@ class MetadataServiceTest {
     void setup() {
         this.publisher = Mockito.mock(EventPublisher.class);
         this.converter = Mockito.spy(new EntityConverter(new ObjectMapper()));
-        this.restClient = Mockito.mock(RestClient.class);
+        this.restClient = Mockito.mock(OpenSearchRestClient.class);
         this.esClientBuilder = Mockito.mock(OpenSearchRestClientBuilder.class);
         this.client = Mockito.mock(MetadataRestClient.class);
         this.mESClient = Mockito.mock(MetadataOpensearchClient.class);
         this.orgaClient = Mockito.mock(OrganizationManagerClient.class);
-        this.service = new MetadataService(publisher, converter, esClientBuilder, client, mESClient, orgaClient);
+        this.service = new MetadataService(publisher, converter, esClientBuilder, client, mESClient, orgaClient,
+                new UpdateCoalescer(Duration.ZERO, Duration.ofSeconds(30), 1));
+        given(orgaClient.getSpace(anyString(), anyString(), anyString(), any(OrganizationManagerClient.Permissions.class))).willReturn(Map.of("name",
+                "space"));
     }
 
     @Test
@@ -129,28 +148,222 @@ class MetadataServiceTest {
         assertTrue(service.index("token", metadata));
     }
 
+    @Test
+    void givenMeasurementBytes_whenIndex_thenDocumentPassedThrough() throws Exception {
+        String measurement = """
+                {"docid": "abc", "organization": "orga", "space": "spc", "rootdir": "dir", "metadata": {"key": "value"}}""";
+        given(client.getSAToken()).willReturn(new TokenModel("sa-token"));
+        given(esClientBuilder.buildRestClient("sa-token")).willReturn(restClient);
+        given(mESClient.createMetadata(any(OpenSearchRestClient.class), anyString(), any(byte[].class), anyString())).willReturn(1);
+
+        assertTrue(service.index("user-token", measurement.getBytes(UTF_8)));
+        verify(mESClient).createMetadata(eq(restClient), eq("orga_spc_measurements"), argThat((byte[] document) -> new String(document, UTF_8).equals("""
+                {"uuid":"abc","organization":"orga","space":"spc","metadata":{"key": "value"},"massdata":[]}""")), eq("abc"));
+        verify(publisher).sendMessage(any(), eq("abc"), anyString());
+    }
+
+    @Test
+    void givenNoRootDirInBytes_whenIndex_thenError() throws Exception {
+
+        MetadataException e = assertThrows(MetadataException.class, () -> service.index("user-token", """
+                {"organization": "orga", "space": "spc"}""".getBytes(UTF_8)));
+        assertEquals(NO_ROOT_DIR, e.getError());
+    }
+
+    @Test
+    void givenInvalidJsonBytes_whenIndex_thenError() throws Exception {
+        MetadataException e = assertThrows(MetadataException.class, () -> service.index("user-token", "{\"organization\": ".getBytes(UTF_8)));
+        assertEquals(INVALID_DOCUMENT, e.getError());
+        verify(mESClient, never()).createMetadata(any(), anyString(), any(byte[].class), anyString());
+    }
+
+    @Test
+    void givenMeasurementDto_whenIndex_thenIndexedLikeBytes() throws Exception {
+        MeasurementDTO measurement = new MeasurementDTO();
+        measurement.setDocid("abc");
+        measurement.setOrganization("orga");
+        measurement.setSpace("spc");
+        measurement.setRootdir("dir");
+        measurement.setMetadata(Map.of("key", "value"));
+        given(client.getSAToken()).willReturn(new TokenModel("sa-token"));
+        given(esClientBuilder.buildRestClient("sa-token")).willReturn(restClient);
+        given(mESClient.createMetadata(any(OpenSearchRestClient.class), anyString(), any(byte[].class), anyString())).willReturn(1);
+
+        assertTrue(service.index("user-token", measurement));
+        verify(mESClient).createMetadata(eq(restClient), eq("orga_spc_measurements"), argThat((byte[] document) -> new String(document, UTF_8).contains(
+                "\"metadata\":{\"key\":\"value\"}")), eq("abc"));
+    }
+
     @Test
     void givenMetadataIsCorrect_whenUpdate_thenTrue() throws Exception {
         given(esClientBuilder.buildRestClient(anyString())).willReturn(restClient);
-        given(mESClient.getSourceDocument(any(RestClient.class), anyString(), anyString())).willReturn(emptyMap());
-        given(mESClient.updateMetadata(any(RestClient.class), anyString(), anyString(), anyString())).willReturn(1);
+        given(mESClient.updateMetadata(any(OpenSearchRestClient.class), anyString(), anyString(), anyString(), any(), anyInt())).willReturn(new UpdateResult("noop",
+                3, 1));
+
+        UpdateResult result = service.update(new MeasurementDTO(), "", "", "", "some-id", null).join();
+        assertTrue(result.successful());
+        assertEquals("3-1", result.version());
+    }
+
+    @Test
+    void givenMetadata_whenUpdate_thenOnlyDeltaSent() throws Exception {
+        MeasurementDTO input = new MeasurementDTO();
+        input.setDocid("83674ab8-23de-4a73-9003-868f9a24177c");
+        input.setMetadata(Map.of("testkey", "testvalue"));
+
+        given(esClientBuilder.buildRestClient(anyString())).willReturn(restClient);
+        given(mESClient.updateMetadata(any(OpenSearchRestClient.class), anyString(), anyString(), anyString(), any(), anyInt())).willReturn(new UpdateResult(
+                "updated", 4, 1));
+
+        assertTrue(service.update(input, "asd", "organization", "space", "id", null).join().successful());
+        verify(mESClient).updateMetadata(any(OpenSearchRestClient.class), eq("organization_space_measurements"), eq("id"), argThat(delta -> delta.contains(
+                "\"testkey\":\"testvalue\"") && !delta.contains("83674ab8")), isNull(), anyInt());
+    }
+
+    @Test
+    void givenMeasurements_whenIndexBulk_thenInvalidReportedAndValidIndexed() throws Exception {
+        MeasurementDTO valid = new MeasurementDTO();
+        valid.setDocid("valid");
+        valid.setOrganization("testorga");
+        valid.setSpace("testspc");
+        valid.setRootdir("123");
+        MeasurementDTO otherValid = new MeasurementDTO();
+        otherValid.setDocid("other-valid");
+        otherValid.setOrganization("testorga");
+        otherValid.setSpace("testspc");
+        otherValid.setRootdir("456");
+        MeasurementDTO invalid = new MeasurementDTO();
+        invalid.setDocid("invalid");
+        invalid.setOrganization("testorga");
+
+        given(client.getSAToken()).willReturn(new TokenModel("sa-token"));
+        given(esClientBuilder.buildRestClient(anyString())).willReturn(restClient);
+        given(orgaClient.getSpace(anyString(), anyString(), anyString(), any(OrganizationManagerClient.Permissions.class))).willReturn(Map.of("name",
+                "testspc"));
+        given(mESClient.bulkIndex(any(OpenSearchRestClient.class), anyList(), anyInt(), anyLong())).willReturn(List.of(new BulkItemResult("valid",
+                "testorga_testspc_measurements", 201, null), new BulkItemResult("other-valid", "testorga_testspc_measurements", 201, null)));
+
+        BulkIndexResult result = service.indexBulk("user-token", List.of(valid, invalid, otherValid));
+
+        assertTrue(result.isErrors());
+        assertEquals(3, result.getItems().size());
+        assertEquals("valid", result.getItems().get(0).getDocid());
+        assertEquals(409, result.getItems().get(1).getStatus());
+        assertEquals("other-valid", result.getItems().get(2).getDocid());
+        verify(orgaClient, times(1)).getSpace(anyString(), anyString(), anyString(), any(OrganizationManagerClient.Permissions.class));
+        verify(publisher, times(1)).sendMessages(argThat(events -> events.size() == 2 && "valid".equals(events.get(0).key())));
+    }
+
+    @Test
+    void givenEventsNotRecorded_whenIndexBulk_thenReportedAsFailed() throws Exception {
+        MeasurementDTO valid = new MeasurementDTO();
+        valid.setDocid("valid");
+        valid.setOrganization("testorga");
+        valid.setSpace("testspc");
+        valid.setRootdir("123");
+        given(client.getSAToken()).willReturn(new TokenModel("sa-token"));
+        given(esClientBuilder.buildRestClient(anyString())).willReturn(restClient);
+        given(orgaClient.getSpace(anyString(), anyString(), anyString(), any(OrganizationManagerClient.Permissions.class))).willReturn(Map.of("name",
+                "testspc"));
+        given(mESClient.bulkIndex(any(OpenSearchRestClient.class), anyList(), anyInt(), anyLong())).willReturn(List.of(new BulkItemResult("valid",
+                "testorga_testspc_measurements", 201, null)));
+        doThrow(new MetadataException(UNABLE_RECORD_EVENT)).when(publisher).sendMessages(anyList());
+
+        BulkIndexResult result = service.indexBulk("user-token", List.of(valid));
+
+        assertTrue(result.isErrors());
+        assertEquals("valid", result.getItems().get(0).getDocid());
+        assertEquals(503, result.getItems().get(0).getStatus());
+    }
+
+    @Test
+    void givenUnknownSpace_whenIndexBulk_thenForbidden() throws Exception {
+        MeasurementDTO measurement = new MeasurementDTO();
+        measurement.setDocid("unknown-space");
+        measurement.setOrganization("testorga");
+        measurement.setSpace("unknown");
+        measurement.setRootdir("123");
+        given(orgaClient.getSpace(anyString(), anyString(), anyString(), any(OrganizationManagerClient.Permissions.class))).willReturn(Map.of());
+
+        BulkIndexResult result = service.indexBulk("user-token", List.of(measurement));
+
+        assertEquals(403, result.getItems().get(0).getStatus());
+        verify(mESClient, never()).bulkIndex(any(), anyList(), anyInt(), anyLong());
+    }
+
+    @Test
+    void givenOrganizationmanagerUnavailable_whenIndexBulk_thenServiceUnavailable() throws Exception {
+        MeasurementDTO measurement = new MeasurementDTO();
+        measurement.setDocid("doc");
+        measurement.setOrganization("testorga");
+        measurement.setSpace("testspc");
+        measurement.setRootdir("123");
+        given(orgaClient.getSpace(anyString(), anyString(), anyString(), any(OrganizationManagerClient.Permissions.class))).willThrow(
+                new HttpServerErrorException(HttpStatus.BAD_GATEWAY));
+
+        BulkIndexResult result = service.indexBulk("user-token", List.of(measurement, measurement));
+
+        assertEquals(503, result.getItems().get(0).getStatus());
+        assertEquals(503, result.getItems().get(1).getStatus());
+        // asked once per batch
+        verify(orgaClient, times(1)).getSpace(anyString(), anyString(), anyString(), any(OrganizationManagerClient.Permissions.class));
+        verify(mESClient, never()).bulkIndex(any(), anyList(), anyInt(), anyLong());
+    }
+
+    @Test
+    void givenOrganizationmanagerUnavailable_whenIndex_thenPermissionCheckFailed() throws Exception {
+        given(orgaClient.getSpace(anyString(), anyString(), anyString(), any(OrganizationManagerClient.Permissions.class))).willThrow(
+                new ResourceAccessException("connection refused"));
+
+        MetadataException e = assertThrows(MetadataException.class, () -> service.index("user-token", """
+                {"organization": "orga", "space": "spc", "rootdir": "dir"}""".getBytes(UTF_8)));
+        assertEquals(PERMISSION_CHECK_FAILED, e.getError());
+    }
+
+    @Test
+    void givenNdjson_whenIndexStream_thenResultPerLine() throws Exception {
+        String ndjson = """
+                {"docid": "valid", "organization": "testorga", "space": "testspc", "rootdir": "123"}
+                {"docid": "malformed",
+
+                {"docid": "no-space", "organization": "testorga", "rootdir": "456"}
+                """;
+
+        given(client.getSAToken()).willReturn(new TokenModel("sa-token"));
+        given(esClientBuilder.buildRestClient(anyString())).willReturn(restClient);
+        given(mESClient.bulkIndex(any(OpenSearchRestClient.class), anyList(), anyInt(), anyLong())).willReturn(List.of(new BulkItemResult("valid",
+                "testorga_testspc_measurements", 201, null)));
 
-        assertTrue(service.update(new MeasurementDTO(), "", "", "", "some-id"));
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        service.indexStream("user-token", new ByteArrayInputStream(ndjson.getBytes(UTF_8)), output);
+
+        String[] results = output.toString(UTF_8).split("\n");
+        assertEquals(3, results.length);
+        assertTrue(results[0].contains("\"line\":1") && results[0].contains("\"status\":201"));
+        assertTrue(results[1].contains("\"line\":2") && results[1].contains("\"status\":400"));
+        assertTrue(results[2].contains("\"line\":4") && results[2].contains("\"status\":409"));
     }
 
     @Test
-    void givenMetadata_whenUpdate_thenTrue() throws Exception {
-        Map<String, Object> foundDocument = new HashMap<>();
-        foundDocument.put("uuid", "83674ab8-23de-4a73-9003-868f9a24177c");
-        foundDocument.put("space", "sdkcorestorage");
-        foundDocument.put("organization", "space-container");
-        foundDocument.put("metadata", Map.of("testkey", "testvalue"));
-        foundDocument.put("massdata", Collections.emptyList());
+    void givenConcurrentModification_whenUpdate_thenRetried() throws Exception {
+        given(esClientBuilder.buildRestClient(anyString())).willReturn(restClient);
+        given(mESClient.updateMetadata(any(OpenSearchRestClient.class), anyString(), anyString(), anyString(), any(), anyInt())).willThrow(new MetadataException(
+                VERSION_CONFLICT)).willReturn(new UpdateResult("updated", 5, 1));
 
+        assertTrue(service.update(new MeasurementDTO(), "asd", "organization", "space", "id", null).join().successful());
+        verify(mESClient, times(2)).updateMetadata(any(OpenSearchRestClient.class), anyString(), anyString(), anyString(), any(), anyInt());
+    }
+
+    @Test
+    void givenIfMatchOutdated_whenUpdate_thenVersionMismatch() throws Exception {
         given(esClientBuilder.buildRestClient(anyString())).willReturn(restClient);
-        given(mESClient.getSourceDocument(any(RestClient.class), anyString(), anyString())).willReturn(foundDocument);
-        given(mESClient.updateMetadata(any(RestClient.class), anyString(), anyString(), anyString())).willReturn(1);
+        given(mESClient.updateMetadata(any(OpenSearchRestClient.class), anyString(), anyString(), anyString(), any(), anyInt())).willThrow(new MetadataException(
+                VERSION_CONFLICT));
 
-        assertTrue(service.update(new MeasurementDTO(), "asd", "organization", "space", "id"));
+        MetadataException e = assertThrows(MetadataException.class, () -> service.update(new MeasurementDTO(), "asd", "organization", "space", "id",
+                "\"3-1\""));
+        assertEquals(VERSION_MISMATCH, e.getError());
+        verify(mESClient, times(1)).updateMetadata(any(OpenSearchRestClient.class), anyString(), anyString(), anyString(), eq(new DocumentVersion(3, 1)),
+                anyInt());
     }
 }
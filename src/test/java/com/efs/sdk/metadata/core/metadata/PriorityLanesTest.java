@@ -0,0 +1,68 @@
+/*
+Copyright (C) 2023 e:fs TechHub GmbH (sdk@efs-techhub.com)
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+        http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+ */
+package com.efs.sdk.metadata.core.metadata;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.efs.sdk.metadata.model.IndexJob.Priority.HIGH;
+import static com.efs.sdk.metadata.model.IndexJob.Priority.LOW;
+import static com.efs.sdk.metadata.model.IndexJob.Priority.NORMAL;
+import static org.junit.jupiter.api.Assertions.*;
+
+class PriorityLanesTest {
+
+    @Test
+    void givenAllLanesBusy_whenTake_thenLanesServedByWeight() throws Exception {
+        PriorityLanes<String> lanes = new PriorityLanes<>(10);
+        for (int i = 0; i < 7; i++) {
+            lanes.offer(LOW, "low");
+            lanes.offer(NORMAL, "normal");
+            lanes.offer(HIGH, "high");
+        }
+
+        List<String> taken = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            taken.add(lanes.take());
+        }
+
+        assertEquals(List.of("high", "high", "normal", "high", "high", "normal", "low"), taken);
+    }
+
+    @Test
+    void givenOnlyLowLane_whenTake_thenTurnsOfEmptyLanesPassed() throws Exception {
+        PriorityLanes<String> lanes = new PriorityLanes<>(10);
+        lanes.offer(LOW, "first");
+        lanes.offer(LOW, "second");
+
+        assertEquals("first", lanes.take());
+        assertEquals("second", lanes.take());
+        assertEquals(0, lanes.size(LOW));
+    }
+
+    @Test
+    void givenFullLane_whenOffer_thenRejectedOnlyInThatLane() {
+        PriorityLanes<String> lanes = new PriorityLanes<>(1);
+
+        assertTrue(lanes.offer(NORMAL, "first"));
+        assertFalse(lanes.offer(NORMAL, "second"));
+        assertTrue(lanes.offer(HIGH, "third"));
+        assertEquals(List.of("third", "first"), lanes.drain());
+        assertEquals(0, lanes.size(NORMAL));
+    }
+}
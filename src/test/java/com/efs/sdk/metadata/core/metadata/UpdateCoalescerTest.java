@@ -0,0 +1,149 @@
+/*
+Copyright (C) 2023 e:fs TechHub GmbH (sdk@efs-techhub.com)
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+        http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+ */
+package com.efs.sdk.metadata.core.metadata;
+
+import com.efs.sdk.metadata.commons.MetadataException;
+import com.efs.sdk.metadata.model.UpdateResult;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.efs.sdk.metadata.commons.MetadataException.METADATA_ERROR.UNABLE_UPDATE;
+import static org.junit.jupiter.api.Assertions.*;
+
+class UpdateCoalescerTest {
+
+    private static final Duration WINDOW = Duration.ofMillis(200);
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final UpdateCoalescer coalescer = new UpdateCoalescer(WINDOW, TIMEOUT, 2);
+
+    @AfterEach
+    void tearDown() throws Exception {
+        coalescer.destroy();
+    }
+
+    private ObjectNode delta(String json) throws Exception {
+        return (ObjectNode) objectMapper.readTree(json);
+    }
+
+    @Test
+    void givenZeroWindow_whenUpdate_thenWrittenImmediately() throws Exception {
+        AtomicInteger writes = new AtomicInteger();
+        UpdateCoalescer direct = new UpdateCoalescer(Duration.ZERO, TIMEOUT, 2);
+
+        CompletableFuture<UpdateResult> result = direct.update("index/doc", delta("{\"metadata\":{\"a\":1}}"), d -> {
+            writes.incrementAndGet();
+            return new UpdateResult("updated", 1, 1);
+        });
+
+        assertTrue(result.isDone());
+        assertEquals("updated", result.get().getResult());
+        assertEquals(1, writes.get());
+    }
+
+    @Test
+    void givenUpdatesWithinWindow_whenUpdate_thenCombinedIntoOneWrite() throws Exception {
+        List<ObjectNode> written = new CopyOnWriteArrayList<>();
+        UpdateCoalescer.Write write = d -> {
+            written.add(d);
+            return new UpdateResult("updated", 7, 1);
+        };
+
+        CompletableFuture<UpdateResult> first = coalescer.update("index/doc", delta("""
+                {"metadata":{"tag":"first","a":1},"massdata":[{"name":"x"}]}"""), write);
+        // the caller is not blocked while the window is open
+        assertFalse(first.isDone());
+        Thread.sleep(50);
+        CompletableFuture<UpdateResult> second = coalescer.update("index/doc", delta("""
+                {"metadata":{"tag":"second","b":2},"massdata":[{"name":"x"},{"name":"y"}]}"""), write);
+        CompletableFuture<UpdateResult> other = coalescer.update("index/other", delta("{\"metadata\":{\"c\":3}}"), write);
+
+        assertEquals(7, first.get(5, TimeUnit.SECONDS).getSeqNo());
+        assertSame(first.get(), second.get(5, TimeUnit.SECONDS));
+        other.get(5, TimeUnit.SECONDS);
+        assertEquals(2, written.size());
+        ObjectNode combined = written.stream().filter(d -> d.get("metadata").has("a")).findFirst().orElseThrow();
+        // the earlier update wins, as if the updates were applied one after the other
+        assertEquals(delta("""
+                {"metadata":{"tag":"first","a":1,"b":2},"massdata":[{"name":"x"},{"name":"y"}]}"""), combined);
+    }
+
+    @Test
+    void givenWriteFails_whenUpdate_thenAllUpdatesFail() throws Exception {
+        UpdateCoalescer.Write write = d -> {
+            throw new MetadataException(UNABLE_UPDATE);
+        };
+
+        CompletableFuture<UpdateResult> first = coalescer.update("index/doc", delta("{\"metadata\":{\"a\":1}}"), write);
+        Thread.sleep(50);
+        CompletableFuture<UpdateResult> second = coalescer.update("index/doc", delta("{\"metadata\":{\"b\":2}}"), write);
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> second.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(MetadataException.class, e.getCause());
+        assertThrows(ExecutionException.class, () -> first.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void givenSlowWrite_whenUpdate_thenFailedAfterTimeout() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        UpdateCoalescer.Write write = d -> {
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return new UpdateResult("updated", 1, 1);
+        };
+
+        UpdateCoalescer impatient = new UpdateCoalescer(WINDOW, Duration.ofMillis(300), 1);
+
+        CompletableFuture<UpdateResult> result = impatient.update("index/doc", delta("{\"metadata\":{\"a\":1}}"), write);
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+        assertEquals(UNABLE_UPDATE, assertInstanceOf(MetadataException.class, e.getCause()).getError());
+        release.countDown();
+        impatient.destroy();
+    }
+
+    @Test
+    void givenOpenWindow_whenDestroy_thenWrittenRightAway() throws Exception {
+        List<ObjectNode> written = new CopyOnWriteArrayList<>();
+        UpdateCoalescer longWindow = new UpdateCoalescer(Duration.ofMinutes(1), TIMEOUT, 1);
+        UpdateCoalescer.Write write = d -> {
+            written.add(d);
+            return new UpdateResult("updated", 3, 1);
+        };
+
+        CompletableFuture<UpdateResult> first = longWindow.update("index/doc", delta("{\"metadata\":{\"a\":1}}"), write);
+        CompletableFuture<UpdateResult> second = longWindow.update("index/doc", delta("{\"metadata\":{\"b\":2}}"), write);
+        longWindow.destroy();
+
+        assertEquals(3, first.get(1, TimeUnit.SECONDS).getSeqNo());
+        assertSame(first.get(), second.get());
+        assertEquals(List.of(delta("{\"metadata\":{\"a\":1,\"b\":2}}")), written);
+        // after stopping, updates are written right away
+        assertTrue(longWindow.update("index/doc", delta("{\"metadata\":{\"c\":3}}"), write).isDone());
+        assertEquals(2, written.size());
+    }
+}
@@ -0,0 +1,66 @@
+/*
+Copyright (C) 2023 e:fs TechHub GmbH (sdk@efs-techhub.com)
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+        http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+ */
+package com.efs.sdk.metadata.helper;
+
+import com.efs.sdk.metadata.commons.MetadataException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import static com.efs.sdk.metadata.commons.MetadataException.METADATA_ERROR.INVALID_DOCUMENT;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.*;
+
+class IngestDocumentTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void givenMeasurement_whenToDocument_thenEnvelopeRewritten() throws Exception {
+        String measurement = """
+                {"docid": "abc", "rootdir": "some/dir", "organization": "orga", "space": "spc", "other": {"x": [1, 2]},
+                 "metadata": {"name": "n\\u00e4me", "nested": {"list": [1, {"a": "}"}]}}, "massdata": [{"name": "a.csv"}]}""";
+
+        IngestDocument document = IngestDocument.parse(measurement.getBytes(UTF_8));
+
+        assertEquals("abc", document.getDocid());
+        assertEquals("orga", document.getOrganization());
+        assertEquals("spc", document.getSpace());
+        assertEquals("some/dir", document.getRootdir());
+        assertEquals(objectMapper.readTree("""
+                {"uuid": "abc", "organization": "orga", "space": "spc", "metadata": {"name": "n\\u00e4me", "nested": {"list": [1, {"a": "}"}]}},
+                 "massdata": [{"name": "a.csv"}]}"""), objectMapper.readTree(document.toDocument()));
+    }
+
+    @Test
+    void givenNoMetadataAndMassdata_whenToDocument_thenDefaults() throws Exception {
+        IngestDocument document = IngestDocument.parse("""
+                {"organization": "orga", "space": "sp\\"c", "metadata": "invalid"}""".getBytes(UTF_8));
+
+        assertNull(document.getDocid());
+        assertNull(document.getRootdir());
+        assertEquals(objectMapper.readTree("""
+                {"uuid": null, "organization": "orga", "space": "sp\\"c", "metadata": {}, "massdata": []}"""), objectMapper.readTree(document.toDocument()));
+    }
+
+    @Test
+    void givenInvalidJson_whenParse_thenError() {
+        MetadataException truncated = assertThrows(MetadataException.class, () -> IngestDocument.parse("""
+                {"organization": "orga", "metadata": {"a": 1""".getBytes(UTF_8)));
+        assertEquals(INVALID_DOCUMENT, truncated.getError());
+        assertThrows(MetadataException.class, () -> IngestDocument.parse("[]".getBytes(UTF_8)));
+        assertThrows(MetadataException.class, () -> IngestDocument.parse("{} {}".getBytes(UTF_8)));
+    }
+}
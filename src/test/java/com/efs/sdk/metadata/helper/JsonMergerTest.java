@@ -0,0 +1,61 @@
+/*
+Copyright (C) 2023 e:fs TechHub GmbH (sdk@efs-techhub.com)
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+        http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+ */
+package com.efs.sdk.metadata.helper;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JsonMergerTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void givenExistingKeys_whenMerge_thenExistingValuesWin() throws Exception {
+        ObjectNode target = (ObjectNode) objectMapper.readTree("""
+                {"a": 1, "nested": {"b": "old", "list": [1, {"x": 1}]}}""");
+        ObjectNode input = (ObjectNode) objectMapper.readTree("""
+                {"a": 2, "c": 3, "nested": {"b": "new", "d": true, "list": [9, {"x": 2, "y": 2}, 3]}}""");
+
+        assertTrue(JsonMerger.merge(target, input));
+        assertEquals(objectMapper.readTree("""
+                {"a": 1, "c": 3, "nested": {"b": "old", "d": true, "list": [1, {"x": 1, "y": 2}, 3]}}"""), target);
+    }
+
+    @Test
+    void givenNothingNew_whenMerge_thenUnchanged() throws Exception {
+        ObjectNode target = (ObjectNode) objectMapper.readTree("""
+                {"a": 1, "nested": {"b": "old"}}""");
+
+        assertFalse(JsonMerger.merge(target, objectMapper.readTree("""
+                {"a": 2, "nested": {"b": "new"}}""")));
+    }
+
+    @Test
+    void givenMassdata_whenAppendMissing_thenOnlyNewFilesAppended() throws Exception {
+        ArrayNode target = (ArrayNode) objectMapper.readTree("""
+                [{"name": "a.csv", "size": 1}]""");
+        ArrayNode input = (ArrayNode) objectMapper.readTree("""
+                [{"name": "a.csv", "size": 1}, {"name": "b.csv", "size": 2}]""");
+
+        assertTrue(JsonMerger.appendMissing(target, input));
+        assertEquals(2, target.size());
+        assertFalse(JsonMerger.appendMissing(target, input));
+    }
+}
@@ -19,6 +19,7 @@ import com.efs.sdk.common.domain.dto.OrganizationContextDTO;
 import com.efs.sdk.common.domain.dto.SpaceContextDTO;
 import com.efs.sdk.metadata.core.context.RoleScopeSpace;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.skyscreamer.jsonassert.JSONAssert;
@@ -75,6 +76,39 @@ class OpensearchHelperTest {
     }
 
 
+    @Test
+    void givenNameWithQuotes_whenGetTenantRoleRequest_thenValidJson() throws Exception {
+        String role = opensearchHelper.getTenantRoleRequest("read", "my \"organization\"");
+        assertEquals("my \"organization\"", new ObjectMapper().readTree(role).at("/tenant_permissions/0/tenant_patterns/0").asText());
+    }
+
+    @Test
+    void givenSeveralRoles_whenCreateRoleDefinition_thenTemplateUnchanged() throws Exception {
+        OrganizationContextDTO organization = OrganizationContextDTO.builder().name("organization").build();
+        SpaceContextDTO space = SpaceContextDTO.builder().organization(organization).name("space").build();
+        opensearchHelper.createRoleDefinition(space, RoleScopeSpace.CRUD);
+        String roleRead = getInputContent(RESULT_PATH, "role_read.json");
+        JSONAssert.assertEquals(roleRead, opensearchHelper.createRoleDefinition(space, RoleScopeSpace.READ), true);
+    }
+
+
+    @Test
+    void givenReadRole_whenGetRoleDefinition_thenSameAsRendered() throws Exception {
+        OrganizationContextDTO organization = OrganizationContextDTO.builder().name("organization").build();
+        SpaceContextDTO space = SpaceContextDTO.builder().organization(organization).name("space").build();
+        ObjectNode role = opensearchHelper.getRoleDefinition(space, RoleScopeSpace.READ);
+        assertEquals("organization_space_*", role.at("/index_permissions/0/index_patterns/0").asText());
+        JSONAssert.assertEquals(opensearchHelper.createRoleDefinition(space, RoleScopeSpace.READ), role.toString(), true);
+    }
+
+    @Test
+    void givenMappings_whenGetRolesMapping_thenCopyOfTemplate() {
+        ObjectNode first = opensearchHelper.getRolesMapping(List.of("spc_all_public"));
+        ObjectNode second = opensearchHelper.getRolesMapping(List.of("org_all_public"));
+        assertEquals(1, first.at("/and_backend_roles").size());
+        assertEquals("org_all_public", second.at("/and_backend_roles/0").asText());
+    }
+
     @Test
     void givenRoleNameCorrect_whenGetRoleName_thenOk() {
         OrganizationContextDTO organization = OrganizationContextDTO.builder().name("org").build();
@@ -0,0 +1,92 @@
+/*
+Copyright (C) 2023 e:fs TechHub GmbH (sdk@efs-techhub.com)
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+        http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+ */
+package com.efs.sdk.metadata.security.oauth;
+
+import com.efs.sdk.metadata.model.TokenModel;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class ServiceAccountTokenCacheTest {
+
+    private static final String TOKEN_ENDPOINT = "http://localhost:8080/auth/realms/efs-sdk/protocol/openid-connect/token";
+
+    private RestTemplate restTemplate;
+    private ServiceAccountTokenCache cache;
+
+    @BeforeEach
+    void setup() {
+        this.restTemplate = Mockito.mock(RestTemplate.class);
+        OAuthConfigurationHelper oAuthConfigurationHelper = Mockito.mock(OAuthConfigurationHelper.class);
+        OAuthConfiguration oauthConfig = Mockito.mock(OAuthConfiguration.class);
+        given(oAuthConfigurationHelper.getOpenidConfigProperty()).willReturn(oauthConfig);
+        given(oauthConfig.tokenEndpoint()).willReturn(TOKEN_ENDPOINT);
+        this.cache = new ServiceAccountTokenCache(restTemplate, "my-client-id", "my-client-secret", Duration.ofSeconds(30), oAuthConfigurationHelper);
+    }
+
+    @AfterEach
+    void destroy() {
+        cache.destroy();
+    }
+
+    @Test
+    void givenValidToken_whenGetToken_thenTokenEndpointCalledOnce() {
+        given(restTemplate.postForEntity(eq(TOKEN_ENDPOINT), any(), eq(TokenModel.class))).willReturn(ResponseEntity.ok(new TokenModel("token", 300)));
+
+        assertEquals("token", cache.getToken().getAccessToken());
+        assertEquals("token", cache.getToken().getAccessToken());
+        verify(restTemplate, times(1)).postForEntity(eq(TOKEN_ENDPOINT), any(), eq(TokenModel.class));
+    }
+
+    @Test
+    void givenExpiredToken_whenGetToken_thenTokenRequestedAgain() {
+        given(restTemplate.postForEntity(eq(TOKEN_ENDPOINT), any(), eq(TokenModel.class))).willReturn(ResponseEntity.ok(new TokenModel("token", 0)));
+
+        cache.getToken();
+        cache.getToken();
+        verify(restTemplate, times(2)).postForEntity(eq(TOKEN_ENDPOINT), any(), eq(TokenModel.class));
+    }
+
+    @Test
+    void givenUnableFetchingToken_whenGetToken_thenError() {
+        given(restTemplate.postForEntity(eq(TOKEN_ENDPOINT), any(), eq(TokenModel.class))).willThrow(new HttpClientErrorException(HttpStatusCode.valueOf(401)));
+
+        assertThrows(RestClientException.class, () -> cache.getToken());
+    }
+
+    @Test
+    void givenNoAccessToken_whenGetToken_thenError() {
+        given(restTemplate.postForEntity(eq(TOKEN_ENDPOINT), any(), eq(TokenModel.class))).willReturn(ResponseEntity.ok(new TokenModel()));
+
+        assertThrows(RestClientException.class, () -> cache.getToken());
+    }
+}